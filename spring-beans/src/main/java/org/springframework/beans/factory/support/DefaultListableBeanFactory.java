@@ -37,6 +37,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 import javax.inject.Provider;
 
 import org.springframework.beans.BeansException;
@@ -133,6 +134,9 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	/** Optional OrderComparator for dependency Lists and arrays */
 	private Comparator<Object> dependencyComparator;
 
+	/** Optional Executor for pre-instantiating singletons in parallel */
+	private Executor bootstrapExecutor;
+
 	/** Resolver to use for checking if a bean definition is an autowire candidate */
 	private AutowireCandidateResolver autowireCandidateResolver = new SimpleAutowireCandidateResolver();
 
@@ -229,6 +233,30 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		return this.dependencyComparator;
 	}
 
+	/**
+	 * Set an {@link Executor} for pre-instantiating the non-lazy singletons
+	 * of this factory in parallel, e.g. a
+	 * {@link org.springframework.core.task.TaskExecutor} with a fixed number
+	 * of threads matching the number of available processors.
+	 * <p>Only applies in combination with
+	 * {@link #setAllowConcurrentSingletonCreation "allowConcurrentSingletonCreation"};
+	 * singletons are pre-instantiated sequentially otherwise, which is also the default.
+	 * Independent singletons get created concurrently, in an order derived from the
+	 * bean references in their bean definitions, whereas singletons declaring
+	 * "depends-on" relationships are still created sequentially in registration order.
+	 * @see #preInstantiateSingletons()
+	 */
+	public void setBootstrapExecutor(Executor bootstrapExecutor) {
+		this.bootstrapExecutor = bootstrapExecutor;
+	}
+
+	/**
+	 * Return the Executor for pre-instantiating singletons in parallel, if any.
+	 */
+	public Executor getBootstrapExecutor() {
+		return this.bootstrapExecutor;
+	}
+
 	/**
 	 * Set a custom autowire candidate resolver for this BeanFactory to use
 	 * when deciding whether a bean definition should be considered as a
@@ -271,6 +299,7 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 			this.allowEagerClassLoading = otherListableFactory.allowEagerClassLoading;
 			this.autowireCandidateResolver = otherListableFactory.autowireCandidateResolver;
 			this.resolvableDependencies.putAll(otherListableFactory.resolvableDependencies);
+			this.bootstrapExecutor = otherListableFactory.bootstrapExecutor;
 		}
 	}
 
@@ -677,33 +706,54 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 			// While this may not be part of the regular factory bootstrap, it does otherwise work fine.
 			beanNames = new ArrayList<String>(this.beanDefinitionNames);
 		}
+		if (this.bootstrapExecutor != null && isAllowConcurrentSingletonCreation()) {
+			List<String> singletonNames = new ArrayList<String>(beanNames.size());
+			for (String beanName : beanNames) {
+				RootBeanDefinition bd = getMergedLocalBeanDefinition(beanName);
+				if (!bd.isAbstract() && bd.isSingleton() && !bd.isLazyInit()) {
+					singletonNames.add(beanName);
+				}
+			}
+			new ParallelSingletonInstantiator(this, this.bootstrapExecutor).preInstantiateSingletons(singletonNames);
+			return;
+		}
 		for (String beanName : beanNames) {
 			RootBeanDefinition bd = getMergedLocalBeanDefinition(beanName);
 			if (!bd.isAbstract() && bd.isSingleton() && !bd.isLazyInit()) {
-				if (isFactoryBean(beanName)) {
-					final FactoryBean<?> factory = (FactoryBean<?>) getBean(FACTORY_BEAN_PREFIX + beanName);
-					boolean isEagerInit;
-					if (System.getSecurityManager() != null && factory instanceof SmartFactoryBean) {
-						isEagerInit = AccessController.doPrivileged(new PrivilegedAction<Boolean>() {
-							@Override
-							public Boolean run() {
-								return ((SmartFactoryBean<?>) factory).isEagerInit();
-							}
-						}, getAccessControlContext());
-					}
-					else {
-						isEagerInit = (factory instanceof SmartFactoryBean &&
-								((SmartFactoryBean<?>) factory).isEagerInit());
-					}
-					if (isEagerInit) {
-						getBean(beanName);
+				preInstantiateSingleton(beanName);
+			}
+		}
+	}
+
+	/**
+	 * Pre-instantiate the given non-lazy singleton, also initializing the
+	 * object exposed by a FactoryBean if it asks for eager initialization.
+	 * @param beanName the name of the singleton bean
+	 * @see #preInstantiateSingletons()
+	 */
+	void preInstantiateSingleton(String beanName) {
+		if (isFactoryBean(beanName)) {
+			final FactoryBean<?> factory = (FactoryBean<?>) getBean(FACTORY_BEAN_PREFIX + beanName);
+			boolean isEagerInit;
+			if (System.getSecurityManager() != null && factory instanceof SmartFactoryBean) {
+				isEagerInit = AccessController.doPrivileged(new PrivilegedAction<Boolean>() {
+					@Override
+					public Boolean run() {
+						return ((SmartFactoryBean<?>) factory).isEagerInit();
 					}
-				}
-				else {
-					getBean(beanName);
-				}
+				}, getAccessControlContext());
+			}
+			else {
+				isEagerInit = (factory instanceof SmartFactoryBean &&
+						((SmartFactoryBean<?>) factory).isEagerInit());
+			}
+			if (isEagerInit) {
+				getBean(beanName);
 			}
 		}
+		else {
+			getBean(beanName);
+		}
 	}
 
 
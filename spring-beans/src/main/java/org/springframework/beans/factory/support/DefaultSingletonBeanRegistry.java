@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2013 the original author or authors.
+ * Copyright 2002-2014 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,13 +17,15 @@
 package org.springframework.beans.factory.support;
 
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -34,6 +36,7 @@ import org.springframework.beans.factory.BeanCurrentlyInCreationException;
 import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.ObjectFactory;
 import org.springframework.beans.factory.config.SingletonBeanRegistry;
+import org.springframework.core.NamedThreadLocal;
 import org.springframework.core.SimpleAliasRegistry;
 import org.springframework.util.Assert;
 import org.springframework.util.StringUtils;
@@ -62,6 +65,12 @@ import org.springframework.util.StringUtils;
  * (which inherit from it). Can alternatively also be used as a nested
  * helper to delegate to.
  *
+ * <p>By default, singleton creation is serialized through a single registry-wide
+ * mutex. With {@link #setAllowConcurrentSingletonCreation "allowConcurrentSingletonCreation"}
+ * switched on, the creation of each singleton is guarded by a lock of its own instead,
+ * so that independent singletons may be created by different threads in parallel.
+ * Lookups of fully initialized singletons never lock in either mode.
+ *
  * @author Juergen Hoeller
  * @since 2.0
  * @see #registerSingleton
@@ -85,10 +94,10 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	private final Map<String, Object> singletonObjects = new ConcurrentHashMap<String, Object>(64);
 
 	/** Cache of singleton factories: bean name --> ObjectFactory */
-	private final Map<String, ObjectFactory<?>> singletonFactories = new HashMap<String, ObjectFactory<?>>(16);
+	private final Map<String, ObjectFactory<?>> singletonFactories = new ConcurrentHashMap<String, ObjectFactory<?>>(16);
 
 	/** Cache of early singleton objects: bean name --> bean instance */
-	private final Map<String, Object> earlySingletonObjects = new HashMap<String, Object>(16);
+	private final Map<String, Object> earlySingletonObjects = new ConcurrentHashMap<String, Object>(16);
 
 	/** Set of registered singletons, containing the bean names in registration order */
 	private final Set<String> registeredSingletons = new LinkedHashSet<String>(64);
@@ -102,10 +111,22 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 			Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>(16));
 
 	/** List of suppressed Exceptions, available for associating related causes */
-	private Set<Exception> suppressedExceptions;
+	private final ThreadLocal<Set<Exception>> suppressedExceptions =
+			new NamedThreadLocal<Set<Exception>>("Suppressed exceptions during singleton creation");
 
 	/** Flag that indicates whether we're currently within destroySingletons */
-	private boolean singletonsCurrentlyInDestruction = false;
+	private volatile boolean singletonsCurrentlyInDestruction = false;
+
+	/** Whether to guard singleton creation with per-bean locks instead of the singleton mutex */
+	private volatile boolean allowConcurrentSingletonCreation = false;
+
+	/** Per-bean creation locks: bean name --> lock */
+	private final ConcurrentMap<String, SingletonCreationLock> singletonCreationLocks =
+			new ConcurrentHashMap<String, SingletonCreationLock>(64);
+
+	/** Threads currently waiting for a creation lock: thread --> awaited lock */
+	private final Map<Thread, SingletonCreationLock> threadsAwaitingCreationLocks =
+			new ConcurrentHashMap<Thread, SingletonCreationLock>(16);
 
 	/** Disposable bean instances: bean name --> disposable instance */
 	private final Map<String, Object> disposableBeans = new LinkedHashMap<String, Object>();
@@ -120,6 +141,29 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	private final Map<String, Set<String>> dependenciesForBeanMap = new ConcurrentHashMap<String, Set<String>>(64);
 
 
+	/**
+	 * Set whether to allow singletons to be created concurrently by different threads.
+	 * <p>Default is "false", serializing the creation of all singletons through the
+	 * {@link #getSingletonMutex() singleton mutex}. Switch this to "true" to guard the
+	 * creation of each singleton with a lock of its own: threads then only wait for
+	 * each other when they need the very same singleton, for example when the bean
+	 * another thread is currently creating is a dependency of their own bean.
+	 * <p>Circular references between singletons created by different threads are
+	 * detected and resolved through early singleton references, just like circular
+	 * references within a single thread.
+	 */
+	public void setAllowConcurrentSingletonCreation(boolean allowConcurrentSingletonCreation) {
+		this.allowConcurrentSingletonCreation = allowConcurrentSingletonCreation;
+	}
+
+	/**
+	 * Return whether singletons may be created concurrently by different threads.
+	 */
+	public boolean isAllowConcurrentSingletonCreation() {
+		return this.allowConcurrentSingletonCreation;
+	}
+
+
 	@Override
 	public void registerSingleton(String beanName, Object singletonObject) throws IllegalStateException {
 		Assert.notNull(beanName, "'beanName' must not be null");
@@ -183,21 +227,56 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	protected Object getSingleton(String beanName, boolean allowEarlyReference) {
 		Object singletonObject = this.singletonObjects.get(beanName);
 		if (singletonObject == null && isSingletonCurrentlyInCreation(beanName)) {
-			synchronized (this.singletonObjects) {
+			if (!this.allowConcurrentSingletonCreation) {
+				synchronized (this.singletonObjects) {
+					singletonObject = getEarlySingleton(beanName, allowEarlyReference);
+				}
+			}
+			else if (!allowEarlyReference) {
+				// Plain lookup (e.g. a type check): never wait for another thread's creation,
+				// just expose an early reference if one has been obtained already.
 				singletonObject = this.earlySingletonObjects.get(beanName);
-				if (singletonObject == null && allowEarlyReference) {
-					ObjectFactory<?> singletonFactory = this.singletonFactories.get(beanName);
-					if (singletonFactory != null) {
-						singletonObject = singletonFactory.getObject();
-						this.earlySingletonObjects.put(beanName, singletonObject);
-						this.singletonFactories.remove(beanName);
-					}
+				if (singletonObject == null) {
+					// Possibly completed in the meantime
+					singletonObject = this.singletonObjects.get(beanName);
 				}
 			}
+			else if (awaitSingletonCreation(beanName)) {
+				// Created by another thread in the meantime (or failed to be created).
+				singletonObject = this.singletonObjects.get(beanName);
+			}
+			else {
+				// Confined to the creating thread: any other thread involved in a circular
+				// reference is blocked on a creation lock held by the current thread.
+				singletonObject = getEarlySingleton(beanName, allowEarlyReference);
+			}
 		}
 		return (singletonObject != NULL_OBJECT ? singletonObject : null);
 	}
 
+	/**
+	 * Return the early reference to a singleton currently in creation,
+	 * obtaining it from the registered singleton factory if necessary.
+	 * @param beanName the name of the bean to look for
+	 * @param allowEarlyReference whether early references should be created or not
+	 * @return the early singleton object, or {@code null} if none available
+	 */
+	private Object getEarlySingleton(String beanName, boolean allowEarlyReference) {
+		Object singletonObject = this.earlySingletonObjects.get(beanName);
+		if (singletonObject == null && allowEarlyReference) {
+			ObjectFactory<?> singletonFactory = this.singletonFactories.get(beanName);
+			if (singletonFactory != null) {
+				singletonObject = singletonFactory.getObject();
+				if (singletonObject == null) {
+					singletonObject = NULL_OBJECT;
+				}
+				this.earlySingletonObjects.put(beanName, singletonObject);
+				this.singletonFactories.remove(beanName);
+			}
+		}
+		return singletonObject;
+	}
+
 	/**
 	 * Return the (raw) singleton object registered under the given name,
 	 * creating and registering a new one if none registered yet.
@@ -208,55 +287,86 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	 */
 	public Object getSingleton(String beanName, ObjectFactory<?> singletonFactory) {
 		Assert.notNull(beanName, "'beanName' must not be null");
-		synchronized (this.singletonObjects) {
+		if (this.allowConcurrentSingletonCreation) {
 			Object singletonObject = this.singletonObjects.get(beanName);
 			if (singletonObject == null) {
-				if (this.singletonsCurrentlyInDestruction) {
-					throw new BeanCreationNotAllowedException(beanName,
-							"Singleton bean creation not allowed while the singletons of this factory are in destruction " +
-							"(Do not request a bean from a BeanFactory in a destroy method implementation!)");
-				}
-				if (logger.isDebugEnabled()) {
-					logger.debug("Creating shared instance of singleton bean '" + beanName + "'");
-				}
-				beforeSingletonCreation(beanName);
-				boolean recordSuppressedExceptions = (this.suppressedExceptions == null);
-				if (recordSuppressedExceptions) {
-					this.suppressedExceptions = new LinkedHashSet<Exception>();
+				if (!acquireSingletonLock(beanName)) {
+					// Another thread creates this bean and waits for a bean that we are creating.
+					throw new BeanCurrentlyInCreationException(beanName);
 				}
 				try {
-					singletonObject = singletonFactory.getObject();
-				}
-				catch (BeanCreationException ex) {
-					if (recordSuppressedExceptions) {
-						for (Exception suppressedException : this.suppressedExceptions) {
-							ex.addRelatedCause(suppressedException);
-						}
+					singletonObject = this.singletonObjects.get(beanName);
+					if (singletonObject == null) {
+						singletonObject = createSingleton(beanName, singletonFactory);
 					}
-					throw ex;
 				}
 				finally {
-					if (recordSuppressedExceptions) {
-						this.suppressedExceptions = null;
-					}
-					afterSingletonCreation(beanName);
+					releaseSingletonLock(beanName);
 				}
-				addSingleton(beanName, singletonObject);
+			}
+			return (singletonObject != NULL_OBJECT ? singletonObject : null);
+		}
+		synchronized (this.singletonObjects) {
+			Object singletonObject = this.singletonObjects.get(beanName);
+			if (singletonObject == null) {
+				singletonObject = createSingleton(beanName, singletonFactory);
 			}
 			return (singletonObject != NULL_OBJECT ? singletonObject : null);
 		}
 	}
 
+	/**
+	 * Create the given singleton through the given factory and register it.
+	 * To be called with the singleton mutex or the bean's creation lock held.
+	 * @param beanName the name of the bean
+	 * @param singletonFactory the ObjectFactory to create the singleton with
+	 * @return the newly created singleton object
+	 */
+	private Object createSingleton(String beanName, ObjectFactory<?> singletonFactory) {
+		if (this.singletonsCurrentlyInDestruction) {
+			throw new BeanCreationNotAllowedException(beanName,
+					"Singleton bean creation not allowed while the singletons of this factory are in destruction " +
+					"(Do not request a bean from a BeanFactory in a destroy method implementation!)");
+		}
+		if (logger.isDebugEnabled()) {
+			logger.debug("Creating shared instance of singleton bean '" + beanName + "'");
+		}
+		beforeSingletonCreation(beanName);
+		boolean recordSuppressedExceptions = (this.suppressedExceptions.get() == null);
+		if (recordSuppressedExceptions) {
+			this.suppressedExceptions.set(new LinkedHashSet<Exception>());
+		}
+		Object singletonObject;
+		try {
+			singletonObject = singletonFactory.getObject();
+		}
+		catch (BeanCreationException ex) {
+			if (recordSuppressedExceptions) {
+				for (Exception suppressedException : this.suppressedExceptions.get()) {
+					ex.addRelatedCause(suppressedException);
+				}
+			}
+			throw ex;
+		}
+		finally {
+			if (recordSuppressedExceptions) {
+				this.suppressedExceptions.remove();
+			}
+			afterSingletonCreation(beanName);
+		}
+		addSingleton(beanName, singletonObject);
+		return singletonObject;
+	}
+
 	/**
 	 * Register an Exception that happened to get suppressed during the creation of a
 	 * singleton bean instance, e.g. a temporary circular reference resolution problem.
 	 * @param ex the Exception to register
 	 */
 	protected void onSuppressedException(Exception ex) {
-		synchronized (this.singletonObjects) {
-			if (this.suppressedExceptions != null) {
-				this.suppressedExceptions.add(ex);
-			}
+		Set<Exception> exceptions = this.suppressedExceptions.get();
+		if (exceptions != null) {
+			exceptions.add(ex);
 		}
 	}
 
@@ -273,6 +383,7 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 			this.earlySingletonObjects.remove(beanName);
 			this.registeredSingletons.remove(beanName);
 		}
+		removeSingletonLock(beanName);
 	}
 
 	@Override
@@ -350,6 +461,113 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	}
 
 
+	/**
+	 * Acquire the creation lock for the given singleton, waiting for another
+	 * thread that currently holds it, if necessary.
+	 * <p>Only to be used in {@link #setAllowConcurrentSingletonCreation concurrent
+	 * creation mode}, typically by subclasses that perform an extended singleton
+	 * creation phase which would otherwise be guarded by the {@link #getSingletonMutex()
+	 * singleton mutex}. Every successful call must be followed by a corresponding
+	 * call to {@link #releaseSingletonLock}.
+	 * @param beanName the name of the bean
+	 * @return {@code true} if the lock has been acquired; {@code false} if waiting for
+	 * it would deadlock since the thread holding the lock is itself (directly or
+	 * transitively) waiting for a lock held by the current thread
+	 */
+	protected boolean acquireSingletonLock(String beanName) {
+		while (true) {
+			SingletonCreationLock lock = this.singletonCreationLocks.get(beanName);
+			if (lock == null) {
+				lock = new SingletonCreationLock();
+				SingletonCreationLock existingLock = this.singletonCreationLocks.putIfAbsent(beanName, lock);
+				if (existingLock != null) {
+					lock = existingLock;
+				}
+			}
+			if (!lock.tryLock()) {
+				Thread currentThread = Thread.currentThread();
+				synchronized (this.threadsAwaitingCreationLocks) {
+					if (isAwaitingCreationLockOf(lock.getOwner(), currentThread)) {
+						return false;
+					}
+					this.threadsAwaitingCreationLocks.put(currentThread, lock);
+				}
+				try {
+					lock.lock();
+				}
+				finally {
+					this.threadsAwaitingCreationLocks.remove(currentThread);
+				}
+			}
+			if (this.singletonCreationLocks.get(beanName) == lock) {
+				return true;
+			}
+			// The lock has been discarded by removeSingletonLock in the meantime: try again.
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Release the creation lock for the given singleton.
+	 * @param beanName the name of the bean
+	 * @see #acquireSingletonLock
+	 */
+	protected void releaseSingletonLock(String beanName) {
+		SingletonCreationLock lock = this.singletonCreationLocks.get(beanName);
+		if (lock == null || !lock.isHeldByCurrentThread()) {
+			throw new IllegalStateException("Creation lock for singleton '" + beanName +
+					"' isn't held by the current thread");
+		}
+		lock.unlock();
+	}
+
+	/**
+	 * Discard the creation lock for the given singleton, unless it is currently
+	 * held or awaited by any thread.
+	 * @param beanName the name of the bean
+	 */
+	private void removeSingletonLock(String beanName) {
+		SingletonCreationLock lock = this.singletonCreationLocks.get(beanName);
+		if (lock != null && !lock.isLocked() && !lock.hasQueuedThreads()) {
+			this.singletonCreationLocks.remove(beanName, lock);
+		}
+	}
+
+	/**
+	 * Wait for another thread to finish the creation of the given singleton.
+	 * @param beanName the name of the bean
+	 * @return {@code true} if the singleton is not (or no longer) being created by
+	 * another thread; {@code false} if it is being created by the current thread
+	 * or by a thread that is waiting for the current thread, in which case an
+	 * early reference should be used
+	 */
+	private boolean awaitSingletonCreation(String beanName) {
+		SingletonCreationLock lock = this.singletonCreationLocks.get(beanName);
+		if (lock == null || lock.isHeldByCurrentThread() || !acquireSingletonLock(beanName)) {
+			return false;
+		}
+		lock.unlock();
+		return true;
+	}
+
+	/**
+	 * Determine whether the given lock owner waits, directly or through a chain
+	 * of other threads, for a creation lock held by the given thread.
+	 * To be called with the thread-to-lock map synchronized.
+	 */
+	private boolean isAwaitingCreationLockOf(Thread owner, Thread thread) {
+		Set<Thread> visited = new HashSet<Thread>();
+		while (owner != null && visited.add(owner)) {
+			if (owner == thread) {
+				return true;
+			}
+			SingletonCreationLock awaitedLock = this.threadsAwaitingCreationLocks.get(owner);
+			owner = (awaitedLock != null ? awaitedLock.getOwner() : null);
+		}
+		return false;
+	}
+
+
 	/**
 	 * Add the given bean to the list of disposable beans in this registry.
 	 * <p>Disposable beans usually correspond to registered singletons,
@@ -496,6 +714,9 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 			this.registeredSingletons.clear();
 			this.singletonsCurrentlyInDestruction = false;
 		}
+		for (String beanName : this.singletonCreationLocks.keySet()) {
+			removeSingletonLock(beanName);
+		}
 	}
 
 	/**
@@ -579,4 +800,18 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 		return this.singletonObjects;
 	}
 
+
+	/**
+	 * Reentrant lock guarding the creation of a single singleton,
+	 * exposing its owner for deadlock detection.
+	 */
+	@SuppressWarnings("serial")
+	private static class SingletonCreationLock extends ReentrantLock {
+
+		@Override
+		public Thread getOwner() {
+			return super.getOwner();
+		}
+	}
+
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2013 the original author or authors.
+ * Copyright 2002-2014 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -97,20 +97,49 @@ public abstract class FactoryBeanRegistrySupport extends DefaultSingletonBeanReg
 	 */
 	protected Object getObjectFromFactoryBean(FactoryBean<?> factory, String beanName, boolean shouldPostProcess) {
 		if (factory.isSingleton() && containsSingleton(beanName)) {
-			synchronized (getSingletonMutex()) {
-				Object object = this.factoryBeanObjectCache.get(beanName);
-				if (object == null) {
-					object = doGetObjectFromFactoryBean(factory, beanName, shouldPostProcess);
-					this.factoryBeanObjectCache.put(beanName, (object != null ? object : NULL_OBJECT));
-				}
+			Object object = this.factoryBeanObjectCache.get(beanName);
+			if (object != null) {
+				// Already obtained from the FactoryBean: no need to lock
 				return (object != NULL_OBJECT ? object : null);
 			}
+			if (isAllowConcurrentSingletonCreation()) {
+				if (!acquireSingletonLock(beanName)) {
+					throw new BeanCurrentlyInCreationException(beanName);
+				}
+				try {
+					return getSingletonObjectFromFactoryBean(factory, beanName, shouldPostProcess);
+				}
+				finally {
+					releaseSingletonLock(beanName);
+				}
+			}
+			synchronized (getSingletonMutex()) {
+				return getSingletonObjectFromFactoryBean(factory, beanName, shouldPostProcess);
+			}
 		}
 		else {
 			return doGetObjectFromFactoryBean(factory, beanName, shouldPostProcess);
 		}
 	}
 
+	/**
+	 * Obtain the cached object exposed by the given singleton FactoryBean,
+	 * obtaining it from the FactoryBean and caching it if necessary.
+	 * To be called with the singleton mutex or the bean's creation lock held.
+	 * @param factory the FactoryBean instance
+	 * @param beanName the name of the bean
+	 * @param shouldPostProcess whether the bean is subject for post-processing
+	 * @return the object obtained from the FactoryBean
+	 */
+	private Object getSingletonObjectFromFactoryBean(FactoryBean<?> factory, String beanName, boolean shouldPostProcess) {
+		Object object = this.factoryBeanObjectCache.get(beanName);
+		if (object == null) {
+			object = doGetObjectFromFactoryBean(factory, beanName, shouldPostProcess);
+			this.factoryBeanObjectCache.put(beanName, (object != null ? object : NULL_OBJECT));
+		}
+		return (object != NULL_OBJECT ? object : null);
+	}
+
 	/**
 	 * Obtain an object to expose from the given FactoryBean.
 	 * @param factory the FactoryBean instance
@@ -0,0 +1,361 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.beans.PropertyValue;
+import org.springframework.beans.factory.BeanCreationException;
+import org.springframework.beans.factory.BeanCurrentlyInCreationException;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.ConstructorArgumentValues;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+import org.springframework.util.ObjectUtils;
+
+/**
+ * Delegate for pre-instantiating the non-lazy singletons of a
+ * {@link DefaultListableBeanFactory} in parallel.
+ *
+ * <p>Builds a dependency graph between the given singletons from the bean
+ * references declared in their bean definitions and from the dependencies
+ * registered with the factory so far. Each singleton is handed to the
+ * {@link Executor} as soon as all of its known dependencies have been
+ * created, so that independent parts of the graph are instantiated
+ * concurrently. Dependencies that only reveal themselves during creation
+ * (e.g. through autowiring) are handled by the factory's per-bean
+ * creation locks.
+ *
+ * <p>Singletons declaring "depends-on" relationships, singletons whose known
+ * dependencies form a cycle, and singletons that ran into a circular reference
+ * with a singleton being created on another thread are instantiated sequentially
+ * in registration order once all other singletons have been created.
+ *
+ * @author agent
+ * @since 4.1
+ * @see DefaultListableBeanFactory#setBootstrapExecutor
+ */
+class ParallelSingletonInstantiator {
+
+	private static final Log logger = LogFactory.getLog(ParallelSingletonInstantiator.class);
+
+	private final DefaultListableBeanFactory beanFactory;
+
+	private final Executor executor;
+
+	/** Nodes of the dependency graph, in registration order: bean name --> node */
+	private final Map<String, Node> nodes = new LinkedHashMap<String, Node>();
+
+	/** Number of singletons handed to the executor but not finished yet */
+	private int activeCount = 0;
+
+	/** First failure encountered on any thread */
+	private Throwable failure;
+
+	/** Name of the singleton whose creation failed first */
+	private String failedBeanName;
+
+
+	/**
+	 * Create a new ParallelSingletonInstantiator for the given factory.
+	 * @param beanFactory the factory to pre-instantiate singletons for
+	 * @param executor the executor to create the singletons on
+	 */
+	public ParallelSingletonInstantiator(DefaultListableBeanFactory beanFactory, Executor executor) {
+		this.beanFactory = beanFactory;
+		this.executor = executor;
+	}
+
+
+	/**
+	 * Pre-instantiate the given singletons, returning once all of them
+	 * have been created.
+	 * @param beanNames the names of the non-lazy singletons to pre-instantiate,
+	 * in registration order
+	 */
+	public void preInstantiateSingletons(List<String> beanNames) {
+		List<String> sequentialBeanNames = new ArrayList<String>();
+		for (String beanName : beanNames) {
+			RootBeanDefinition bd = this.beanFactory.getMergedLocalBeanDefinition(beanName);
+			if (!ObjectUtils.isEmpty(bd.getDependsOn())) {
+				sequentialBeanNames.add(beanName);
+			}
+			else {
+				this.nodes.put(beanName, new Node(beanName));
+			}
+		}
+		buildGraph();
+
+		List<Node> readyNodes = new ArrayList<Node>();
+		for (Node node : this.nodes.values()) {
+			if (node.pendingDependencies == 0) {
+				readyNodes.add(node);
+			}
+		}
+		submit(readyNodes);
+		awaitCompletion();
+
+		// Deterministic fallback: deferred singletons and depends-on declarations in registration order
+		if (logger.isDebugEnabled()) {
+			determineDeferralReasons();
+		}
+		for (Node node : this.nodes.values()) {
+			if (!node.created) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Sequentially pre-instantiating singleton '" + node.beanName +
+							"' since " + node.deferralReason);
+				}
+				this.beanFactory.preInstantiateSingleton(node.beanName);
+			}
+		}
+		for (String beanName : sequentialBeanNames) {
+			this.beanFactory.preInstantiateSingleton(beanName);
+		}
+	}
+
+	/**
+	 * Determine why the singletons left over from the parallel phase have not
+	 * been created: a circular reference encountered during creation (recorded
+	 * already), known dependencies forming a cycle, or a dependency on another
+	 * deferred singleton.
+	 */
+	private void determineDeferralReasons() {
+		for (Node node : this.nodes.values()) {
+			if (!node.created && node.deferralReason == null && isPartOfCycle(node)) {
+				node.deferralReason = "its known dependencies form a cycle";
+			}
+		}
+		LinkedList<Node> deferredNodes = new LinkedList<Node>();
+		for (Node node : this.nodes.values()) {
+			if (!node.created && node.deferralReason != null) {
+				deferredNodes.add(node);
+			}
+		}
+		while (!deferredNodes.isEmpty()) {
+			Node node = deferredNodes.removeFirst();
+			for (Node dependent : node.dependents) {
+				if (!dependent.created && dependent.deferralReason == null) {
+					dependent.deferralReason = "it depends on deferred singleton '" + node.beanName + "'";
+					deferredNodes.add(dependent);
+				}
+			}
+		}
+	}
+
+	private boolean isPartOfCycle(Node node) {
+		Set<Node> visited = new HashSet<Node>();
+		LinkedList<Node> toVisit = new LinkedList<Node>(node.dependents);
+		while (!toVisit.isEmpty()) {
+			Node current = toVisit.removeFirst();
+			if (current == node) {
+				return true;
+			}
+			if (!current.created && visited.add(current)) {
+				toVisit.addAll(current.dependents);
+			}
+		}
+		return false;
+	}
+
+	private void buildGraph() {
+		for (Node node : this.nodes.values()) {
+			for (String dependency : getKnownDependencies(node.beanName)) {
+				Node dependencyNode = this.nodes.get(this.beanFactory.canonicalName(dependency));
+				if (dependencyNode != null && dependencyNode != node && dependencyNode.dependents.add(node)) {
+					node.pendingDependencies++;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Determine the dependencies of the given bean that are known before its
+	 * creation: references in its bean definition plus dependencies that have
+	 * been registered for it already.
+	 */
+	private Set<String> getKnownDependencies(String beanName) {
+		Set<String> dependencies = new LinkedHashSet<String>();
+		BeanDefinition bd = this.beanFactory.getMergedLocalBeanDefinition(beanName);
+		for (PropertyValue pv : bd.getPropertyValues().getPropertyValueList()) {
+			addReferencedBeanName(pv.getValue(), dependencies);
+		}
+		ConstructorArgumentValues cav = bd.getConstructorArgumentValues();
+		for (ConstructorArgumentValues.ValueHolder valueHolder : cav.getIndexedArgumentValues().values()) {
+			addReferencedBeanName(valueHolder.getValue(), dependencies);
+		}
+		for (ConstructorArgumentValues.ValueHolder valueHolder : cav.getGenericArgumentValues()) {
+			addReferencedBeanName(valueHolder.getValue(), dependencies);
+		}
+		if (bd.getFactoryBeanName() != null) {
+			dependencies.add(bd.getFactoryBeanName());
+		}
+		for (String dependency : this.beanFactory.getDependenciesForBean(beanName)) {
+			dependencies.add(dependency);
+		}
+		return dependencies;
+	}
+
+	private void addReferencedBeanName(Object value, Set<String> beanNames) {
+		if (value instanceof RuntimeBeanReference) {
+			beanNames.add(((RuntimeBeanReference) value).getBeanName());
+		}
+		else if (value instanceof Collection) {
+			for (Object element : (Collection<?>) value) {
+				addReferencedBeanName(element, beanNames);
+			}
+		}
+		else if (value instanceof Map) {
+			for (Object element : ((Map<?, ?>) value).values()) {
+				addReferencedBeanName(element, beanNames);
+			}
+		}
+	}
+
+	private void submit(List<Node> readyNodes) {
+		for (final Node node : readyNodes) {
+			synchronized (this) {
+				if (this.failure != null) {
+					return;
+				}
+				this.activeCount++;
+			}
+			Runnable task = new Runnable() {
+				@Override
+				public void run() {
+					instantiate(node);
+				}
+			};
+			try {
+				this.executor.execute(task);
+			}
+			catch (RejectedExecutionException ex) {
+				// Executor saturated - create the singleton on the calling thread instead.
+				task.run();
+			}
+		}
+	}
+
+	private void instantiate(Node node) {
+		List<Node> readyNodes = new ArrayList<Node>();
+		try {
+			this.beanFactory.preInstantiateSingleton(node.beanName);
+			synchronized (this) {
+				node.created = true;
+				for (Node dependent : node.dependents) {
+					dependent.pendingDependencies--;
+					if (dependent.pendingDependencies == 0) {
+						readyNodes.add(dependent);
+					}
+				}
+			}
+			submit(readyNodes);
+		}
+		catch (BeanCreationException ex) {
+			if (ex.contains(BeanCurrentlyInCreationException.class)) {
+				// Circular reference with a singleton created on another thread, typically
+				// through autowiring: leave this node (and its dependents) to the sequential
+				// fallback, where the cycle is resolved just like in non-parallel startup.
+				synchronized (this) {
+					node.deferralReason = "it ran into a circular reference with a singleton " +
+							"being created on another thread: " + ex.getMessage();
+				}
+			}
+			else {
+				recordFailure(node, ex);
+			}
+		}
+		catch (Throwable ex) {
+			recordFailure(node, ex);
+		}
+		finally {
+			synchronized (this) {
+				this.activeCount--;
+				notifyAll();
+			}
+		}
+	}
+
+	private synchronized void recordFailure(Node node, Throwable ex) {
+		if (this.failure == null) {
+			this.failure = ex;
+			this.failedBeanName = node.beanName;
+		}
+	}
+
+	private synchronized void awaitCompletion() {
+		boolean interrupted = false;
+		while (this.activeCount > 0) {
+			try {
+				wait();
+			}
+			catch (InterruptedException ex) {
+				interrupted = true;
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+		if (this.failure instanceof RuntimeException) {
+			throw (RuntimeException) this.failure;
+		}
+		if (this.failure instanceof Error) {
+			throw (Error) this.failure;
+		}
+		if (this.failure != null) {
+			throw new BeanCreationException(this.failedBeanName,
+					"Unexpected exception during parallel pre-instantiation", this.failure);
+		}
+	}
+
+
+	/**
+	 * A singleton in the dependency graph.
+	 */
+	private static class Node {
+
+		private final String beanName;
+
+		/** Nodes that depend on this node */
+		private final Set<Node> dependents = new LinkedHashSet<Node>();
+
+		/** Number of known dependencies not created yet */
+		private int pendingDependencies = 0;
+
+		/** Whether this node's singleton has been created by the executor */
+		private boolean created = false;
+
+		/** Why this node's singleton has been left to sequential pre-instantiation */
+		private String deferralReason;
+
+		public Node(String beanName) {
+			this.beanName = beanName;
+		}
+	}
+
+}
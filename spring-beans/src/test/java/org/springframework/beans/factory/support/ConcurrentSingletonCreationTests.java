@@ -0,0 +1,469 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+import org.springframework.beans.DirectFieldAccessor;
+import org.springframework.beans.factory.BeanCreationException;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
+import org.springframework.beans.factory.config.InstantiationAwareBeanPostProcessorAdapter;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+import org.springframework.tests.Assume;
+import org.springframework.tests.TestGroup;
+import org.springframework.util.StopWatch;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for singleton creation guarded by per-bean locks, as enabled through
+ * {@link DefaultSingletonBeanRegistry#setAllowConcurrentSingletonCreation},
+ * and for parallel pre-instantiation of singletons on top of it.
+ *
+ * @author agent
+ * @since 4.1
+ */
+public class ConcurrentSingletonCreationTests {
+
+	@Test
+	public void independentSingletonsAreCreatedInParallel() throws Exception {
+		final DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		lbf.setAllowConcurrentSingletonCreation(true);
+		final CountDownLatch bothInCreation = new CountDownLatch(2);
+		RootBeanDefinition bd = new RootBeanDefinition(LatchedBean.class);
+		bd.getConstructorArgumentValues().addGenericArgumentValue(bothInCreation);
+		lbf.registerBeanDefinition("bean1", bd);
+		lbf.registerBeanDefinition("bean2", bd.cloneBeanDefinition());
+
+		List<Object> beans = getBeansInParallel(lbf, "bean1", "bean2");
+		assertTrue(((LatchedBean) beans.get(0)).createdInParallel);
+		assertTrue(((LatchedBean) beans.get(1)).createdInParallel);
+		assertSame(beans.get(0), lbf.getBean("bean1"));
+		assertSame(beans.get(1), lbf.getBean("bean2"));
+	}
+
+	@Test
+	public void sameSingletonIsCreatedOnlyOnce() throws Exception {
+		final DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		lbf.setAllowConcurrentSingletonCreation(true);
+		CountingBean.instances.set(0);
+		lbf.registerBeanDefinition("bean", new RootBeanDefinition(CountingBean.class));
+
+		String[] beanNames = new String[16];
+		for (int i = 0; i < beanNames.length; i++) {
+			beanNames[i] = "bean";
+		}
+		List<Object> beans = getBeansInParallel(lbf, beanNames);
+		for (Object bean : beans) {
+			assertSame(beans.get(0), bean);
+		}
+		assertEquals(1, CountingBean.instances.get());
+	}
+
+	@Test
+	public void creationLocksDiscardedWithSingletons() throws Exception {
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		lbf.setAllowConcurrentSingletonCreation(true);
+		lbf.registerBeanDefinition("bean1", new RootBeanDefinition(CountingBean.class));
+		lbf.registerBeanDefinition("bean2", new RootBeanDefinition(CountingBean.class));
+		getBeansInParallel(lbf, "bean1", "bean2");
+		Map<?, ?> locks = (Map<?, ?>) new DirectFieldAccessor(lbf).getPropertyValue("singletonCreationLocks");
+		assertEquals(2, locks.size());
+
+		lbf.destroySingleton("bean1");
+		assertEquals(1, locks.size());
+		lbf.destroySingletons();
+		assertTrue(locks.isEmpty());
+
+		assertNotNull(lbf.getBean("bean1"));
+		assertEquals(1, locks.size());
+	}
+
+	@Test
+	public void lookupWithoutEarlyReferenceDoesNotWaitForCreation() throws Exception {
+		final DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		lbf.setAllowConcurrentSingletonCreation(true);
+		final CountDownLatch inCreation = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		RootBeanDefinition bd = new RootBeanDefinition(BlockingBean.class);
+		bd.getConstructorArgumentValues().addIndexedArgumentValue(0, inCreation);
+		bd.getConstructorArgumentValues().addIndexedArgumentValue(1, release);
+		lbf.registerBeanDefinition("bean", bd);
+
+		Thread creator = new Thread() {
+			@Override
+			public void run() {
+				lbf.getBean("bean");
+			}
+		};
+		creator.start();
+		try {
+			assertTrue(inCreation.await(5, TimeUnit.SECONDS));
+			assertTrue(lbf.isSingletonCurrentlyInCreation("bean"));
+			assertNull(lbf.getSingleton("bean", false));
+		}
+		finally {
+			release.countDown();
+		}
+		creator.join(5000);
+		assertNotNull(lbf.getSingleton("bean", false));
+	}
+
+	@Test
+	public void circularReferenceAcrossThreads() throws Exception {
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		lbf.setAllowConcurrentSingletonCreation(true);
+		CountDownLatch bothInCreation = new CountDownLatch(2);
+		RootBeanDefinition bd1 = new RootBeanDefinition(LatchedBean.class);
+		bd1.getConstructorArgumentValues().addGenericArgumentValue(bothInCreation);
+		bd1.getPropertyValues().add("other", new RuntimeBeanReference("bean2"));
+		RootBeanDefinition bd2 = new RootBeanDefinition(LatchedBean.class);
+		bd2.getConstructorArgumentValues().addGenericArgumentValue(bothInCreation);
+		bd2.getPropertyValues().add("other", new RuntimeBeanReference("bean1"));
+		lbf.registerBeanDefinition("bean1", bd1);
+		lbf.registerBeanDefinition("bean2", bd2);
+
+		List<Object> beans = getBeansInParallel(lbf, "bean1", "bean2");
+		LatchedBean bean1 = (LatchedBean) beans.get(0);
+		LatchedBean bean2 = (LatchedBean) beans.get(1);
+		assertTrue(bean1.createdInParallel);
+		assertTrue(bean2.createdInParallel);
+		assertSame(bean2, bean1.getOther());
+		assertSame(bean1, bean2.getOther());
+		assertSame(bean1, lbf.getBean("bean1"));
+		assertSame(bean2, lbf.getBean("bean2"));
+	}
+
+	@Test
+	public void parallelPreInstantiation() throws Exception {
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		lbf.setAllowConcurrentSingletonCreation(true);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		lbf.setBootstrapExecutor(executor);
+		CountDownLatch bothInCreation = new CountDownLatch(2);
+		RootBeanDefinition bd = new RootBeanDefinition(LatchedBean.class);
+		bd.getConstructorArgumentValues().addGenericArgumentValue(bothInCreation);
+		lbf.registerBeanDefinition("bean1", bd);
+		lbf.registerBeanDefinition("bean2", bd.cloneBeanDefinition());
+		RootBeanDefinition dependent = new RootBeanDefinition(OrderedBean.class);
+		dependent.getPropertyValues().add("other", new RuntimeBeanReference("bean1"));
+		lbf.registerBeanDefinition("dependent", dependent);
+		RootBeanDefinition dependsOn = new RootBeanDefinition(OrderedBean.class);
+		dependsOn.setDependsOn(new String[] {"bean2"});
+		lbf.registerBeanDefinition("dependsOn", dependsOn);
+		RootBeanDefinition lazy = new RootBeanDefinition(OrderedBean.class);
+		lazy.setLazyInit(true);
+		lbf.registerBeanDefinition("lazy", lazy);
+
+		try {
+			lbf.preInstantiateSingletons();
+		}
+		finally {
+			executor.shutdown();
+		}
+		assertTrue(((LatchedBean) lbf.getSingleton("bean1")).createdInParallel);
+		assertTrue(((LatchedBean) lbf.getSingleton("bean2")).createdInParallel);
+		assertSame(lbf.getSingleton("bean1"), ((OrderedBean) lbf.getSingleton("dependent")).getOther());
+		assertNotNull(lbf.getSingleton("dependsOn"));
+		assertNull(lbf.getSingleton("lazy"));
+		assertEquals(4, lbf.getSingletonCount());
+	}
+
+	@Test
+	public void parallelPreInstantiationWithCircularReference() throws Exception {
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		lbf.setAllowConcurrentSingletonCreation(true);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		lbf.setBootstrapExecutor(executor);
+		RootBeanDefinition bd1 = new RootBeanDefinition(OrderedBean.class);
+		bd1.getPropertyValues().add("other", new RuntimeBeanReference("bean2"));
+		RootBeanDefinition bd2 = new RootBeanDefinition(OrderedBean.class);
+		bd2.getPropertyValues().add("other", new RuntimeBeanReference("bean1"));
+		lbf.registerBeanDefinition("bean1", bd1);
+		lbf.registerBeanDefinition("bean2", bd2);
+
+		try {
+			lbf.preInstantiateSingletons();
+		}
+		finally {
+			executor.shutdown();
+		}
+		OrderedBean bean1 = (OrderedBean) lbf.getSingleton("bean1");
+		OrderedBean bean2 = (OrderedBean) lbf.getSingleton("bean2");
+		assertSame(bean2, bean1.getOther());
+		assertSame(bean1, bean2.getOther());
+	}
+
+	@Test
+	public void parallelPreInstantiationWithAutowiredCircularReference() throws Exception {
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		lbf.setAllowConcurrentSingletonCreation(true);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		lbf.setBootstrapExecutor(executor);
+		final CountDownLatch bothInCreation = new CountDownLatch(2);
+		lbf.addBeanPostProcessor(new InstantiationAwareBeanPostProcessorAdapter() {
+			@Override
+			public Object postProcessBeforeInstantiation(Class<?> beanClass, String beanName) {
+				// Make sure that both beans are in creation on different threads at the same time
+				bothInCreation.countDown();
+				try {
+					bothInCreation.await(5, TimeUnit.SECONDS);
+				}
+				catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+				}
+				return null;
+			}
+		});
+		RootBeanDefinition setterBd = new RootBeanDefinition(SetterInjectedBean.class);
+		setterBd.setAutowireMode(AutowireCapableBeanFactory.AUTOWIRE_BY_TYPE);
+		lbf.registerBeanDefinition("setterInjected", setterBd);
+		RootBeanDefinition constructorBd = new RootBeanDefinition(ConstructorInjectedBean.class);
+		constructorBd.setAutowireMode(AutowireCapableBeanFactory.AUTOWIRE_CONSTRUCTOR);
+		lbf.registerBeanDefinition("constructorInjected", constructorBd);
+
+		try {
+			lbf.preInstantiateSingletons();
+		}
+		finally {
+			executor.shutdown();
+		}
+		SetterInjectedBean setterInjected = (SetterInjectedBean) lbf.getSingleton("setterInjected");
+		ConstructorInjectedBean constructorInjected = (ConstructorInjectedBean) lbf.getSingleton("constructorInjected");
+		assertSame(constructorInjected, setterInjected.getOther());
+		assertSame(setterInjected, constructorInjected.getOther());
+	}
+
+	@Test(expected = BeanCreationException.class)
+	public void parallelPreInstantiationWithFailure() throws Exception {
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		lbf.setAllowConcurrentSingletonCreation(true);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		lbf.setBootstrapExecutor(executor);
+		lbf.registerBeanDefinition("bean", new RootBeanDefinition(OrderedBean.class));
+		RootBeanDefinition bd = new RootBeanDefinition(OrderedBean.class);
+		bd.getPropertyValues().add("nonExisting", "value");
+		lbf.registerBeanDefinition("failing", bd);
+
+		try {
+			lbf.preInstantiateSingletons();
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void singletonCreationContention() throws Exception {
+		Assume.group(TestGroup.PERFORMANCE);
+		StopWatch sw = new StopWatch();
+		sw.start("singleton mutex");
+		createSingletonsOnThreads(false, 32, 20);
+		sw.stop();
+		sw.start("per-bean creation locks");
+		createSingletonsOnThreads(true, 32, 20);
+		sw.stop();
+		assertTrue("Concurrent singleton creation not faster: " + sw.prettyPrint(),
+				sw.getTaskInfo()[1].getTimeMillis() < sw.getTaskInfo()[0].getTimeMillis());
+	}
+
+
+	private void createSingletonsOnThreads(boolean allowConcurrentSingletonCreation, int threadCount,
+			final int beansPerThread) throws Exception {
+
+		final DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		lbf.setAllowConcurrentSingletonCreation(allowConcurrentSingletonCreation);
+		for (int i = 0; i < threadCount * beansPerThread; i++) {
+			lbf.registerBeanDefinition("bean" + i, new RootBeanDefinition(SlowBean.class));
+		}
+		final CyclicBarrier barrier = new CyclicBarrier(threadCount);
+		final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		Thread[] threads = new Thread[threadCount];
+		for (int i = 0; i < threadCount; i++) {
+			final int offset = i * beansPerThread;
+			threads[i] = new Thread() {
+				@Override
+				public void run() {
+					try {
+						barrier.await();
+						for (int j = 0; j < beansPerThread; j++) {
+							lbf.getBean("bean" + (offset + j));
+							// Fully initialized singletons are looked up without locking
+							lbf.getBean("bean" + offset);
+						}
+					}
+					catch (Throwable ex) {
+						failure.set(ex);
+					}
+				}
+			};
+			threads[i].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		if (failure.get() != null) {
+			throw new IllegalStateException(failure.get());
+		}
+		assertEquals(threadCount * beansPerThread, lbf.getSingletonCount());
+	}
+
+	private List<Object> getBeansInParallel(final DefaultListableBeanFactory lbf, String... beanNames)
+			throws Exception {
+
+		final List<AtomicReference<Object>> results = new ArrayList<AtomicReference<Object>>();
+		final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		List<Thread> threads = new ArrayList<Thread>();
+		for (final String beanName : beanNames) {
+			final AtomicReference<Object> result = new AtomicReference<Object>();
+			results.add(result);
+			Thread thread = new Thread() {
+				@Override
+				public void run() {
+					try {
+						result.set(lbf.getBean(beanName));
+					}
+					catch (Throwable ex) {
+						failure.set(ex);
+					}
+				}
+			};
+			threads.add(thread);
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join(10000);
+			assertFalse("Singleton creation did not complete", thread.isAlive());
+		}
+		if (failure.get() != null) {
+			throw new IllegalStateException(failure.get());
+		}
+		List<Object> beans = new ArrayList<Object>();
+		for (AtomicReference<Object> result : results) {
+			beans.add(result.get());
+		}
+		return beans;
+	}
+
+
+	public static class LatchedBean {
+
+		private final boolean createdInParallel;
+
+		private LatchedBean other;
+
+		public LatchedBean(CountDownLatch latch) throws InterruptedException {
+			latch.countDown();
+			this.createdInParallel = latch.await(5, TimeUnit.SECONDS);
+		}
+
+		public LatchedBean getOther() {
+			return this.other;
+		}
+
+		public void setOther(LatchedBean other) {
+			this.other = other;
+		}
+	}
+
+
+	public static class OrderedBean {
+
+		private Object other;
+
+		public Object getOther() {
+			return this.other;
+		}
+
+		public void setOther(Object other) {
+			this.other = other;
+		}
+	}
+
+
+	public static class SetterInjectedBean {
+
+		private ConstructorInjectedBean other;
+
+		public SetterInjectedBean() throws InterruptedException {
+			// Give the other thread time to block on this bean's creation lock
+			Thread.sleep(100);
+		}
+
+		public ConstructorInjectedBean getOther() {
+			return this.other;
+		}
+
+		public void setOther(ConstructorInjectedBean other) {
+			this.other = other;
+		}
+	}
+
+
+	public static class ConstructorInjectedBean {
+
+		private final SetterInjectedBean other;
+
+		public ConstructorInjectedBean(SetterInjectedBean other) {
+			this.other = other;
+		}
+
+		public SetterInjectedBean getOther() {
+			return this.other;
+		}
+	}
+
+
+	public static class BlockingBean {
+
+		public BlockingBean(CountDownLatch inCreation, CountDownLatch release) throws InterruptedException {
+			inCreation.countDown();
+			release.await(5, TimeUnit.SECONDS);
+		}
+	}
+
+
+	public static class CountingBean {
+
+		static final AtomicInteger instances = new AtomicInteger();
+
+		public CountingBean() throws InterruptedException {
+			instances.incrementAndGet();
+			Thread.sleep(50);
+		}
+	}
+
+
+	public static class SlowBean {
+
+		public SlowBean() throws InterruptedException {
+			Thread.sleep(1);
+		}
+	}
+
+}
@@ -16,10 +16,18 @@
 
 package org.springframework.cache.ehcache;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
 import net.sf.ehcache.Ehcache;
 import net.sf.ehcache.Element;
 import net.sf.ehcache.Status;
 
+import org.springframework.cache.BulkCache;
 import org.springframework.cache.Cache;
 import org.springframework.cache.support.SimpleValueWrapper;
 import org.springframework.util.Assert;
@@ -32,7 +40,7 @@ import org.springframework.util.Assert;
  * @author Stephane Nicoll
  * @since 3.1
  */
-public class EhCacheCache implements Cache {
+public class EhCacheCache implements BulkCache {
 
 	private final Ehcache cache;
 
@@ -77,11 +85,61 @@ public class EhCacheCache implements Cache {
 		return (T) value;
 	}
 
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> T get(Object key, Callable<T> valueLoader) {
+		Element element = this.cache.get(key);
+		if (element != null) {
+			return (T) element.getObjectValue();
+		}
+		this.cache.acquireWriteLockOnKey(key);
+		try {
+			// Check again while holding the write lock: another thread may have loaded the value
+			element = this.cache.get(key);
+			if (element != null) {
+				return (T) element.getObjectValue();
+			}
+			T value;
+			try {
+				value = valueLoader.call();
+			}
+			catch (Exception ex) {
+				throw new ValueRetrievalException(key, valueLoader, ex);
+			}
+			this.cache.put(new Element(key, value));
+			return value;
+		}
+		finally {
+			this.cache.releaseWriteLockOnKey(key);
+		}
+	}
+
+	@Override
+	public Map<Object, ValueWrapper> getAll(Collection<?> keys) {
+		Map<Object, Element> elements = this.cache.getAll(keys);
+		Map<Object, ValueWrapper> result = new LinkedHashMap<Object, ValueWrapper>(elements.size());
+		for (Map.Entry<Object, Element> entry : elements.entrySet()) {
+			if (entry.getValue() != null) {
+				result.put(entry.getKey(), toWrapper(entry.getValue()));
+			}
+		}
+		return result;
+	}
+
 	@Override
 	public void put(Object key, Object value) {
 		this.cache.put(new Element(key, value));
 	}
 
+	@Override
+	public void putAll(Map<?, ?> entries) {
+		List<Element> elements = new ArrayList<Element>(entries.size());
+		for (Map.Entry<?, ?> entry : entries.entrySet()) {
+			elements.add(new Element(entry.getKey(), entry.getValue()));
+		}
+		this.cache.putAll(elements);
+	}
+
 	@Override
 	public ValueWrapper putIfAbsent(Object key, Object value) {
 		Element existingElement = this.cache.putIfAbsent(new Element(key, value));
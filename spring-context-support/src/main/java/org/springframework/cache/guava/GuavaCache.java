@@ -20,6 +20,8 @@ import java.io.Serializable;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
 import org.springframework.cache.Cache;
 import org.springframework.cache.support.SimpleValueWrapper;
 import org.springframework.util.Assert;
@@ -99,6 +101,25 @@ public class GuavaCache implements Cache {
 		return (T) value;
 	}
 
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> T get(Object key, final Callable<T> valueLoader) {
+		try {
+			return (T) fromStoreValue(this.cache.get(key, new Callable<Object>() {
+				@Override
+				public Object call() throws Exception {
+					return toStoreValue(valueLoader.call());
+				}
+			}));
+		}
+		catch (ExecutionException ex) {
+			throw new ValueRetrievalException(key, valueLoader, ex.getCause());
+		}
+		catch (UncheckedExecutionException ex) {
+			throw new ValueRetrievalException(key, valueLoader, ex.getCause());
+		}
+	}
+
 	@Override
 	public void put(Object key, Object value) {
 		this.cache.put(key, toStoreValue(value));
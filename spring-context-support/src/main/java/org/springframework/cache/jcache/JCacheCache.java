@@ -17,8 +17,16 @@
 package org.springframework.cache.jcache;
 
 import java.io.Serializable;
-
-import org.springframework.cache.Cache;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import javax.cache.processor.EntryProcessor;
+import javax.cache.processor.EntryProcessorException;
+import javax.cache.processor.MutableEntry;
+
+import org.springframework.cache.BulkCache;
 import org.springframework.cache.support.SimpleValueWrapper;
 import org.springframework.util.Assert;
 
@@ -32,7 +40,7 @@ import org.springframework.util.Assert;
  * @author Stephane Nicoll
  * @since 3.2
  */
-public class JCacheCache implements Cache {
+public class JCacheCache implements BulkCache {
 
 	private static final Object NULL_HOLDER = new NullHolder();
 
@@ -91,11 +99,42 @@ public class JCacheCache implements Cache {
 		return (T) value;
 	}
 
+	@Override
+	public <T> T get(Object key, Callable<T> valueLoader) {
+		try {
+			return this.cache.invoke(key, new ValueLoaderEntryProcessor<T>(), valueLoader);
+		}
+		catch (EntryProcessorException ex) {
+			throw new ValueRetrievalException(key, valueLoader, ex.getCause());
+		}
+	}
+
+	@Override
+	public Map<Object, ValueWrapper> getAll(Collection<?> keys) {
+		Map<Object, Object> values = this.cache.getAll(new LinkedHashSet<Object>(keys));
+		Map<Object, ValueWrapper> result = new LinkedHashMap<Object, ValueWrapper>(values.size());
+		for (Map.Entry<Object, Object> entry : values.entrySet()) {
+			if (entry.getValue() != null) {
+				result.put(entry.getKey(), new SimpleValueWrapper(fromStoreValue(entry.getValue())));
+			}
+		}
+		return result;
+	}
+
 	@Override
 	public void put(Object key, Object value) {
 		this.cache.put(key, toStoreValue(value));
 	}
 
+	@Override
+	public void putAll(Map<?, ?> entries) {
+		Map<Object, Object> storeValues = new LinkedHashMap<Object, Object>(entries.size());
+		for (Map.Entry<?, ?> entry : entries.entrySet()) {
+			storeValues.put(entry.getKey(), toStoreValue(entry.getValue()));
+		}
+		this.cache.putAll(storeValues);
+	}
+
 	@Override
 	public ValueWrapper putIfAbsent(Object key, Object value) {
 		boolean set = this.cache.putIfAbsent(key, toStoreValue(value));
@@ -144,4 +183,34 @@ public class JCacheCache implements Cache {
 	private static class NullHolder implements Serializable {
 	}
 
+
+	/**
+	 * EntryProcessor that loads the value atomically if the entry does not exist.
+	 * The value loader is passed in as an argument rather than held as state.
+	 */
+	private class ValueLoaderEntryProcessor<T> implements EntryProcessor<Object, Object, T> {
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public T process(MutableEntry<Object, Object> entry, Object... arguments) throws EntryProcessorException {
+			if (entry.exists()) {
+				return (T) fromStoreValue(entry.getValue());
+			}
+			Callable<T> valueLoader = (Callable<T>) arguments[0];
+			T value;
+			try {
+				value = valueLoader.call();
+			}
+			catch (Exception ex) {
+				throw new EntryProcessorException("Value loader '" + valueLoader + "' failed " +
+						"to compute value for key '" + entry.getKey() + "'", ex);
+			}
+			Object valueToStore = toStoreValue(value);
+			if (valueToStore != null) {
+				entry.setValue(valueToStore);
+			}
+			return value;
+		}
+	}
+
 }
@@ -16,7 +16,13 @@
 
 package org.springframework.cache.transaction;
 
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import org.springframework.cache.BulkCache;
 import org.springframework.cache.Cache;
+import org.springframework.cache.support.BulkCacheUtils;
 import org.springframework.transaction.support.TransactionSynchronizationAdapter;
 import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.Assert;
@@ -31,12 +37,16 @@ import org.springframework.util.Assert;
  * <p>Use of more aggressive operations such as {@link #putIfAbsent} cannot be deferred
  * to the after-commit phase of a running transaction. Use these with care.
  *
+ * <p>Multi-key operations are delegated to the target Cache if it is a {@link BulkCache},
+ * falling back to single-key operations otherwise; {@link #putAll} gets deferred to the
+ * after-commit phase just like {@link #put}.
+ *
  * @author Juergen Hoeller
  * @author Stephane Nicoll
  * @since 3.2
  * @see TransactionAwareCacheManagerProxy
  */
-public class TransactionAwareCacheDecorator implements Cache {
+public class TransactionAwareCacheDecorator implements BulkCache {
 
 	private final Cache targetCache;
 
@@ -71,6 +81,16 @@ public class TransactionAwareCacheDecorator implements Cache {
 		return this.targetCache.get(key, type);
 	}
 
+	@Override
+	public <T> T get(Object key, Callable<T> valueLoader) {
+		return this.targetCache.get(key, valueLoader);
+	}
+
+	@Override
+	public Map<Object, ValueWrapper> getAll(Collection<?> keys) {
+		return BulkCacheUtils.getAll(this.targetCache, keys);
+	}
+
 	@Override
 	public void put(final Object key, final Object value) {
 		if (TransactionSynchronizationManager.isSynchronizationActive()) {
@@ -86,6 +106,21 @@ public class TransactionAwareCacheDecorator implements Cache {
 		}
 	}
 
+	@Override
+	public void putAll(final Map<?, ?> entries) {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+				@Override
+				public void afterCommit() {
+					BulkCacheUtils.putAll(targetCache, entries);
+				}
+			});
+		}
+		else {
+			BulkCacheUtils.putAll(this.targetCache, entries);
+		}
+	}
+
 	@Override
 	public ValueWrapper putIfAbsent(final Object key, final Object value) {
 		return this.targetCache.putIfAbsent(key, value);
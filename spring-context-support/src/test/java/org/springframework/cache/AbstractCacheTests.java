@@ -18,8 +18,19 @@ package org.springframework.cache;
 
 import static org.junit.Assert.*;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.junit.Test;
 
+import org.springframework.cache.support.BulkCacheUtils;
+
 /**
  * @author Stephane Nicoll
  */
@@ -56,7 +67,7 @@ public abstract class AbstractCacheTests<T extends Cache> {
 		assertEquals(value, cache.get(key).get());
 		assertEquals(value, cache.get(key, String.class));
 		assertEquals(value, cache.get(key, Object.class));
-		assertEquals(value, cache.get(key, null));
+		assertEquals(value, cache.get(key, (Class<?>) null));
 
 		cache.put(key, null);
 		assertNotNull(cache.get(key));
@@ -102,4 +113,113 @@ public abstract class AbstractCacheTests<T extends Cache> {
 		assertNull(cache.get("vlaicu"));
 		assertNull(cache.get("enescu"));
 	}
+
+	@Test
+	public void testCacheGetWithValueLoader() throws Exception {
+		T cache = getCache();
+		Object key = "enescu";
+		assertNull(cache.get(key));
+		Object value = cache.get(key, new Callable<Object>() {
+			@Override
+			public Object call() {
+				return "george";
+			}
+		});
+		assertEquals("george", value);
+		assertEquals("george", cache.get(key).get());
+		assertEquals("george", cache.get(key, new Callable<Object>() {
+			@Override
+			public Object call() {
+				throw new IllegalStateException("Should not be called");
+			}
+		}));
+	}
+
+	@Test
+	public void testCacheGetWithValueLoaderReturningNull() throws Exception {
+		T cache = getCache();
+		Object key = "enescu";
+		assertNull(cache.get(key, new Callable<Object>() {
+			@Override
+			public Object call() {
+				return null;
+			}
+		}));
+		assertNotNull(cache.get(key));
+		assertNull(cache.get(key).get());
+	}
+
+	@Test
+	public void testCacheGetWithFailingValueLoader() throws Exception {
+		T cache = getCache();
+		final Exception failure = new Exception("expected");
+		try {
+			cache.get("enescu", new Callable<Object>() {
+				@Override
+				public Object call() throws Exception {
+					throw failure;
+				}
+			});
+			fail("Should have thrown ValueRetrievalException");
+		}
+		catch (Cache.ValueRetrievalException ex) {
+			assertSame(failure, ex.getCause());
+			assertEquals("enescu", ex.getKey());
+		}
+		assertNull(cache.get("enescu"));
+	}
+
+	@Test
+	public void testCacheGetWithValueLoaderSynchronized() throws Exception {
+		final T cache = getCache();
+		final AtomicInteger invocations = new AtomicInteger();
+		final Callable<Object> valueLoader = new Callable<Object>() {
+			@Override
+			public Object call() throws Exception {
+				invocations.incrementAndGet();
+				Thread.sleep(100);
+				return "george";
+			}
+		};
+		int threadCount = 10;
+		final List<Object> results = Collections.synchronizedList(new ArrayList<Object>());
+		List<Thread> threads = new ArrayList<Thread>();
+		for (int i = 0; i < threadCount; i++) {
+			threads.add(new Thread() {
+				@Override
+				public void run() {
+					results.add(cache.get("enescu", valueLoader));
+				}
+			});
+		}
+		for (Thread thread : threads) {
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertEquals(1, invocations.get());
+		assertEquals(threadCount, results.size());
+		for (Object result : results) {
+			assertEquals("george", result);
+		}
+	}
+
+	@Test
+	public void testCacheGetAllAndPutAll() throws Exception {
+		T cache = getCache();
+		Map<Object, Object> entries = new LinkedHashMap<Object, Object>();
+		entries.put("a", "1");
+		entries.put("b", "2");
+		BulkCacheUtils.putAll(cache, entries);
+		assertEquals("1", cache.get("a", String.class));
+		assertEquals("2", cache.get("b", String.class));
+
+		Map<Object, Cache.ValueWrapper> result = BulkCacheUtils.getAll(cache, Arrays.asList("a", "b", "c"));
+		assertEquals(2, result.size());
+		assertEquals("1", result.get("a").get());
+		assertEquals("2", result.get("b").get());
+		assertFalse(result.containsKey("c"));
+	}
+
 }
@@ -18,6 +18,9 @@ package org.springframework.cache.transaction;
 
 import static org.junit.Assert.*;
 
+import java.util.Arrays;
+import java.util.Collections;
+
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
@@ -87,6 +90,22 @@ public class TransactionAwareCacheDecoratorTests {
 		assertEquals("123", target.get(key, String.class));
 	}
 
+	@Test
+	public void putAllTransactional() {
+		Cache target = new ConcurrentMapCache("testCache");
+		TransactionAwareCacheDecorator cache = new TransactionAwareCacheDecorator(target);
+
+		TransactionStatus status = txManager.getTransaction(new DefaultTransactionAttribute(
+				TransactionDefinition.PROPAGATION_REQUIRED));
+
+		cache.putAll(Collections.singletonMap("key", "123"));
+		assertNull(target.get("key"));
+		txManager.commit(status);
+
+		assertEquals("123", target.get("key", String.class));
+		assertEquals("123", cache.getAll(Arrays.asList("key", "other")).get("key").get());
+	}
+
 	@Test
 	public void putIfAbsent() { // no transactional support for putIfAbsent
 		Cache target = new ConcurrentMapCache("testCache");
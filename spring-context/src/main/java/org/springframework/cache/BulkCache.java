@@ -0,0 +1,56 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Extension of the {@link Cache} interface for caches which are able to
+ * retrieve and store several entries at once, typically in a single round
+ * trip to a remote cache server.
+ *
+ * <p>Callers dealing with arbitrary caches may use the corresponding
+ * {@link org.springframework.cache.support.BulkCacheUtils} methods, which
+ * fall back to single-key operations for plain {@code Cache} implementations.
+ *
+ * @author agent
+ * @since 4.1
+ * @see org.springframework.cache.support.BulkCacheUtils
+ */
+public interface BulkCache extends Cache {
+
+	/**
+	 * Return the values to which this cache maps the specified keys.
+	 * @param keys the keys whose associated values are to be returned
+	 * @return a Map from each key found in this cache to a wrapper for
+	 * its value (which may also be {@code null} if the cache supports
+	 * {@code null} values); keys not found are not included
+	 * @see #get(Object)
+	 */
+	Map<Object, ValueWrapper> getAll(Collection<?> keys);
+
+	/**
+	 * Associate all of the specified key-value pairs with this cache.
+	 * <p>If the cache previously contained a mapping for a key, the old
+	 * value is replaced by the specified value.
+	 * @param entries the key-value pairs to be stored
+	 * @see #put(Object, Object)
+	 */
+	void putAll(Map<?, ?> entries);
+
+}
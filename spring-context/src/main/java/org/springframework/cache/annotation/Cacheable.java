@@ -96,4 +96,69 @@ public @interface Cacheable {
 	 * @since 3.2
 	 */
 	String unless() default "";
+
+	/**
+	 * Synchronize the invocation of the underlying method if several threads are
+	 * attempting to load a value for the same key. The synchronization leads to
+	 * a couple of limitations:
+	 * <ol>
+	 * <li>{@link #unless()} is not supported</li>
+	 * <li>Only one cache may be specified</li>
+	 * <li>No other cache-related operation can be combined</li>
+	 * </ol>
+	 * This is effectively a hint and the actual cache provider that you are
+	 * using may not support it in a synchronized fashion. Check your provider
+	 * documentation for more details on the actual semantics.
+	 * @since 4.1
+	 * @see org.springframework.cache.Cache#get(Object, java.util.concurrent.Callable)
+	 */
+	boolean sync() default false;
+
+	/**
+	 * Number of milliseconds after which a cached value is considered stale.
+	 * A stale value is still returned to the caller, while the method gets
+	 * invoked in the background in order to refresh the cache entry. Where the
+	 * method cannot be invoked independently of the current invocation (e.g. in
+	 * AspectJ mode), a stale value gets refreshed within the current invocation.
+	 * <p>Cache entries subject to refresh-ahead are stored as plain values;
+	 * their write times are tracked by the caching infrastructure, so entries
+	 * put into the cache by other means are considered written when first read.
+	 * The number of write times tracked per cache is limited: beyond that limit,
+	 * some entries are considered written when next read as well.
+	 * Not supported in combination with {@link #sync()}.
+	 * <p>Default is 0, indicating that entries are never refreshed ahead.
+	 * @since 4.1
+	 * @see org.springframework.cache.interceptor.CacheAspectSupport#setRefreshExecutor
+	 */
+	long refreshAfter() default 0;
+
+	/**
+	 * Whether the method loads several values at once: the elements of its
+	 * (single) {@link java.util.Collection} argument are used as cache keys,
+	 * and the method returns a {@link java.util.Map} of values by key.
+	 * <p>All keys are looked up in the cache first (in a single round trip
+	 * where the cache is a {@link org.springframework.cache.BulkCache}); the
+	 * method then only gets invoked with the keys that have not been found,
+	 * and the values it returns are stored in the cache and merged with the
+	 * cached ones, following the order of the given keys. Where the method
+	 * cannot be invoked with other arguments than the given ones (e.g. in
+	 * AspectJ mode), it gets invoked with all keys if any of them is missing.
+	 * <p>Where the method declares further parameters, each element is cached
+	 * under a {@link org.springframework.cache.interceptor.SimpleKey} of all
+	 * arguments with the collection replaced by the element, so that values
+	 * loaded for different arguments are kept apart. The collection must not
+	 * contain {@code null} elements.
+	 * <p>The following limitations apply:
+	 * <ol>
+	 * <li>{@link #key()} and {@link #keyGenerator()} are not supported</li>
+	 * <li>{@link #sync()} and {@link #refreshAfter()} are not supported</li>
+	 * <li>No other cache-related operation can be combined</li>
+	 * <li>The method needs to return a {@code Map}, {@code HashMap} or {@code LinkedHashMap}</li>
+	 * </ol>
+	 * {@link #unless()} is evaluated against each individual value.
+	 * <p>Default is {@code false}.
+	 * @since 4.1
+	 */
+	boolean bulk() default false;
+
 }
@@ -106,6 +106,9 @@ public class SpringCacheAnnotationParser implements CacheAnnotationParser, Seria
 		cuo.setKeyGenerator(caching.keyGenerator());
 		cuo.setCacheManager(caching.cacheManager());
 		cuo.setCacheResolver(caching.cacheResolver());
+		cuo.setSync(caching.sync());
+		cuo.setRefreshAfter(caching.refreshAfter());
+		cuo.setBulk(caching.bulk());
 		cuo.setName(ae.toString());
 
 		defaultConfig.applyDefault(cuo);
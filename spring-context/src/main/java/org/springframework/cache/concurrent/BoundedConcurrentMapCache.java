@@ -0,0 +1,620 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.concurrent;
+
+import java.io.Serializable;
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.util.Assert;
+import org.springframework.util.ConcurrentReferenceHashMap;
+import org.springframework.util.ConcurrentReferenceHashMap.ReferenceType;
+
+/**
+ * {@link Cache} implementation based on the core JDK {@code java.util.concurrent}
+ * package, adding a maximum size as well as time-to-live and time-to-idle
+ * expiration to the plain {@link ConcurrentMapCache} arrangement.
+ *
+ * <p>Once the maximum size is exceeded, entries get evicted in approximate
+ * least-recently-used order: entries are queued in insertion order, and an
+ * entry which has been read since it was last considered for eviction gets
+ * a second chance at the end of the queue ("clock" algorithm). Reads therefore
+ * never lock, at the expense of an exact LRU ordering. Entries which have been
+ * removed or replaced in the meantime are skipped, and purged from the queue
+ * once they make up a significant part of it.
+ *
+ * <p>Expired entries are removed when accessed, when encountered during size
+ * eviction, and through a periodic sweep piggybacking on write operations.
+ * A sweep may also be triggered explicitly through {@link #cleanUp()}.
+ *
+ * <p>Entries may optionally be held through soft or weak references
+ * (see {@link ConcurrentReferenceHashMap}), allowing the garbage collector
+ * to reclaim them under memory pressure. The eviction queue only refers to
+ * entries weakly, so it does not keep reclaimable values reachable.
+ *
+ * <p>Hit, miss and eviction counts are recorded for monitoring purposes.
+ *
+ * @author agent
+ * @since 4.1
+ * @see BoundedConcurrentMapCacheManager
+ */
+public class BoundedConcurrentMapCache implements Cache {
+
+	/** Constant indicating no maximum size */
+	public static final int UNBOUNDED = -1;
+
+	private static final Object NULL_HOLDER = new NullHolder();
+
+	private final String name;
+
+	private final ConcurrentMap<Object, CacheEntry> store;
+
+	private final int maximumSize;
+
+	private final long timeToLive;
+
+	private final long timeToIdle;
+
+	private final boolean allowNullValues;
+
+	/** Entries in eviction order, only maintained if a maximum size has been specified */
+	private final Queue<EvictionNode> evictionQueue = new ConcurrentLinkedQueue<EvictionNode>();
+
+	/** The number of queued entries which have not been removed from the store */
+	private final AtomicInteger queuedEntryCount = new AtomicInteger();
+
+	/** The number of queued entries which have been removed from the store */
+	private final AtomicInteger staleEntryCount = new AtomicInteger();
+
+	private final AtomicBoolean purgingEvictionQueue = new AtomicBoolean();
+
+	private final AtomicLong lastCleanUp = new AtomicLong();
+
+	private final AtomicLong hitCount = new AtomicLong();
+
+	private final AtomicLong missCount = new AtomicLong();
+
+	private final AtomicLong evictionCount = new AtomicLong();
+
+	/** Value loaders in progress, keyed by cache key */
+	private final ConcurrentMap<Object, FutureTask<Object>> loadsInProgress =
+			new ConcurrentHashMap<Object, FutureTask<Object>>(16);
+
+
+	/**
+	 * Create a new BoundedConcurrentMapCache with the specified name
+	 * and maximum size, without expiration.
+	 * @param name the name of the cache
+	 * @param maximumSize the maximum number of entries to hold
+	 * (or {@link #UNBOUNDED} for no limit)
+	 */
+	public BoundedConcurrentMapCache(String name, int maximumSize) {
+		this(name, maximumSize, 0, 0, null, true);
+	}
+
+	/**
+	 * Create a new BoundedConcurrentMapCache with the specified name and settings.
+	 * @param name the name of the cache
+	 * @param maximumSize the maximum number of entries to hold
+	 * (or {@link #UNBOUNDED} for no limit)
+	 * @param timeToLive the number of milliseconds after which an entry expires
+	 * once it has been written (or 0 for no time-to-live)
+	 * @param timeToIdle the number of milliseconds after which an entry expires
+	 * once it has last been accessed (or 0 for no time-to-idle)
+	 * @param referenceType the type of reference to hold entries through
+	 * (or {@code null} for strong references)
+	 * @param allowNullValues whether to allow {@code null} values
+	 * (adapting them to an internal null holder value)
+	 */
+	public BoundedConcurrentMapCache(String name, int maximumSize, long timeToLive, long timeToIdle,
+			ReferenceType referenceType, boolean allowNullValues) {
+
+		Assert.notNull(name, "Name must not be null");
+		Assert.isTrue(maximumSize >= UNBOUNDED, "Maximum size must not be lower than -1");
+		Assert.isTrue(timeToLive >= 0, "Time-to-live must not be negative");
+		Assert.isTrue(timeToIdle >= 0, "Time-to-idle must not be negative");
+		this.name = name;
+		this.store = (referenceType != null ?
+				new ConcurrentReferenceHashMap<Object, CacheEntry>(256, referenceType) :
+				new ConcurrentHashMap<Object, CacheEntry>(256));
+		this.maximumSize = maximumSize;
+		this.timeToLive = TimeUnit.MILLISECONDS.toNanos(timeToLive);
+		this.timeToIdle = TimeUnit.MILLISECONDS.toNanos(timeToIdle);
+		this.allowNullValues = allowNullValues;
+	}
+
+
+	@Override
+	public final String getName() {
+		return this.name;
+	}
+
+	/**
+	 * This implementation returns the cache itself, since its internal
+	 * store holds entry metadata next to the actual values.
+	 */
+	@Override
+	public final BoundedConcurrentMapCache getNativeCache() {
+		return this;
+	}
+
+	/**
+	 * Return the maximum number of entries to hold,
+	 * or {@link #UNBOUNDED} for no limit.
+	 */
+	public final int getMaximumSize() {
+		return this.maximumSize;
+	}
+
+	/**
+	 * Return the time-to-live in milliseconds (0 for none).
+	 */
+	public final long getTimeToLive() {
+		return TimeUnit.NANOSECONDS.toMillis(this.timeToLive);
+	}
+
+	/**
+	 * Return the time-to-idle in milliseconds (0 for none).
+	 */
+	public final long getTimeToIdle() {
+		return TimeUnit.NANOSECONDS.toMillis(this.timeToIdle);
+	}
+
+	public final boolean isAllowNullValues() {
+		return this.allowNullValues;
+	}
+
+	@Override
+	public ValueWrapper get(Object key) {
+		return toWrapper(lookup(key, true));
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> T get(Object key, Class<T> type) {
+		Object value = fromStoreValue(lookup(key, true));
+		if (value != null && type != null && !type.isInstance(value)) {
+			throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+		}
+		return (T) value;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> T get(final Object key, final Callable<T> valueLoader) {
+		Object storeValue = lookup(key, true);
+		if (storeValue != null) {
+			return (T) fromStoreValue(storeValue);
+		}
+
+		FutureTask<Object> newLoad = new FutureTask<Object>(new Callable<Object>() {
+			@Override
+			public Object call() throws Exception {
+				// Another load for the same key may have completed in the meantime
+				Object existing = lookup(key, false);
+				if (existing != null) {
+					return fromStoreValue(existing);
+				}
+				T value = valueLoader.call();
+				Object valueToStore = toStoreValue(value);
+				if (valueToStore != null) {
+					doPut(key, valueToStore);
+				}
+				return value;
+			}
+		});
+		FutureTask<Object> load = this.loadsInProgress.putIfAbsent(key, newLoad);
+		if (load == null) {
+			load = newLoad;
+			try {
+				load.run();
+			}
+			finally {
+				this.loadsInProgress.remove(key, load);
+			}
+		}
+		try {
+			return (T) load.get();
+		}
+		catch (ExecutionException ex) {
+			throw new ValueRetrievalException(key, valueLoader, ex.getCause());
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new ValueRetrievalException(key, valueLoader, ex);
+		}
+	}
+
+	@Override
+	public void put(Object key, Object value) {
+		doPut(key, toStoreValue(value));
+	}
+
+	@Override
+	public ValueWrapper putIfAbsent(Object key, Object value) {
+		CacheEntry newEntry = createEntry(key, toStoreValue(value));
+		while (true) {
+			CacheEntry existing = this.store.putIfAbsent(key, newEntry);
+			if (existing == null) {
+				entryAdded(newEntry);
+				return null;
+			}
+			if (!isExpired(existing, newEntry.writeTime)) {
+				return toWrapper(existing.value);
+			}
+			if (this.store.remove(key, existing)) {
+				entryRemoved(existing, true);
+				this.evictionCount.incrementAndGet();
+			}
+		}
+	}
+
+	@Override
+	public void evict(Object key) {
+		CacheEntry entry = this.store.remove(key);
+		if (entry != null) {
+			entryRemoved(entry, true);
+		}
+	}
+
+	@Override
+	public void clear() {
+		for (Map.Entry<Object, CacheEntry> entry : this.store.entrySet()) {
+			if (this.store.remove(entry.getKey(), entry.getValue())) {
+				entryRemoved(entry.getValue(), true);
+			}
+		}
+	}
+
+	/**
+	 * Remove all expired entries from this cache.
+	 * <p>Sweeps happen automatically on write operations, once per
+	 * time-to-live or time-to-idle period; this method allows for
+	 * triggering a sweep explicitly, e.g. from a scheduled task.
+	 */
+	public void cleanUp() {
+		if (!isExpiring()) {
+			return;
+		}
+		long now = now();
+		this.lastCleanUp.set(now);
+		for (Iterator<Map.Entry<Object, CacheEntry>> it = this.store.entrySet().iterator(); it.hasNext();) {
+			Map.Entry<Object, CacheEntry> entry = it.next();
+			if (isExpired(entry.getValue(), now) && this.store.remove(entry.getKey(), entry.getValue())) {
+				entryRemoved(entry.getValue(), true);
+				this.evictionCount.incrementAndGet();
+			}
+		}
+	}
+
+	/**
+	 * Return the current number of entries in this cache,
+	 * possibly including expired entries not removed yet.
+	 */
+	public int size() {
+		return this.store.size();
+	}
+
+	/**
+	 * Return the number of lookups which found a cached value.
+	 */
+	public long getHitCount() {
+		return this.hitCount.get();
+	}
+
+	/**
+	 * Return the number of lookups which did not find a cached value.
+	 */
+	public long getMissCount() {
+		return this.missCount.get();
+	}
+
+	/**
+	 * Return the number of entries removed because of the maximum size
+	 * or because of expiration. Explicit evictions are not included.
+	 */
+	public long getEvictionCount() {
+		return this.evictionCount.get();
+	}
+
+
+	/**
+	 * Return the current time in nanoseconds, as the base for expiration.
+	 * <p>The default implementation returns {@link System#nanoTime()}.
+	 * May be overridden, e.g. to control the time in tests.
+	 */
+	protected long currentTime() {
+		return System.nanoTime();
+	}
+
+	/**
+	 * Convert the given value from the internal store to a user value
+	 * returned from the get method (adapting {@code null}).
+	 * @param storeValue the store value
+	 * @return the value to return to the user
+	 */
+	protected Object fromStoreValue(Object storeValue) {
+		if (this.allowNullValues && storeValue == NULL_HOLDER) {
+			return null;
+		}
+		return storeValue;
+	}
+
+	/**
+	 * Convert the given user value, as passed into the put method,
+	 * to a value in the internal store (adapting {@code null}).
+	 * @param userValue the given user value
+	 * @return the value to store
+	 */
+	protected Object toStoreValue(Object userValue) {
+		if (this.allowNullValues && userValue == null) {
+			return NULL_HOLDER;
+		}
+		return userValue;
+	}
+
+	private ValueWrapper toWrapper(Object value) {
+		return (value != null ? new SimpleValueWrapper(fromStoreValue(value)) : null);
+	}
+
+	/**
+	 * Look up the store value for the given key, removing the entry
+	 * if it turns out to be expired.
+	 * @param key the key to look up
+	 * @param recordStatistics whether to record a hit or miss
+	 * @return the store value, or {@code null} if none
+	 */
+	private Object lookup(Object key, boolean recordStatistics) {
+		CacheEntry entry = this.store.get(key);
+		if (entry != null) {
+			long now = now();
+			if (isExpired(entry, now)) {
+				if (this.store.remove(key, entry)) {
+					entryRemoved(entry, true);
+					this.evictionCount.incrementAndGet();
+				}
+				entry = null;
+			}
+			else {
+				entry.accessed(now, this.timeToIdle > 0);
+			}
+		}
+		if (recordStatistics) {
+			(entry != null ? this.hitCount : this.missCount).incrementAndGet();
+		}
+		return (entry != null ? entry.value : null);
+	}
+
+	private CacheEntry createEntry(Object key, Object storeValue) {
+		return new CacheEntry(key, storeValue, now(), this.maximumSize != UNBOUNDED);
+	}
+
+	private void doPut(Object key, Object storeValue) {
+		CacheEntry newEntry = createEntry(key, storeValue);
+		CacheEntry oldEntry = this.store.put(key, newEntry);
+		if (oldEntry != null) {
+			entryRemoved(oldEntry, true);
+		}
+		entryAdded(newEntry);
+	}
+
+	private void entryAdded(CacheEntry entry) {
+		if (this.maximumSize != UNBOUNDED) {
+			this.evictionQueue.offer(entry.node);
+			if (this.queuedEntryCount.incrementAndGet() > this.maximumSize) {
+				evictExcessEntries(entry.writeTime);
+			}
+			if (this.staleEntryCount.get() > this.maximumSize) {
+				purgeEvictionQueue();
+			}
+		}
+		if (isExpiring()) {
+			cleanUpIfNecessary(entry.writeTime);
+		}
+	}
+
+	/**
+	 * Account for the given entry having been removed from the store.
+	 * Only the first call for a specific entry has any effect.
+	 * @param entry the removed entry
+	 * @param queued whether the entry may still be in the eviction queue
+	 */
+	private void entryRemoved(CacheEntry entry, boolean queued) {
+		if (entry.node != null) {
+			nodeRemoved(entry.node, queued);
+		}
+	}
+
+	private void nodeRemoved(EvictionNode node, boolean queued) {
+		if (node.removed.compareAndSet(false, true)) {
+			this.queuedEntryCount.decrementAndGet();
+			if (queued) {
+				this.staleEntryCount.incrementAndGet();
+			}
+		}
+	}
+
+	/**
+	 * Walk the eviction queue until the maximum size is respected again,
+	 * giving recently accessed entries a second chance - but only once
+	 * per queued entry, so that concurrent reads cannot stall the eviction.
+	 */
+	private void evictExcessEntries(long now) {
+		int secondChances = this.queuedEntryCount.get();
+		while (this.queuedEntryCount.get() > this.maximumSize) {
+			EvictionNode node = this.evictionQueue.poll();
+			if (node == null) {
+				return;
+			}
+			CacheEntry entry = node.getEntry();
+			if (node.removed.get()) {
+				this.staleEntryCount.decrementAndGet();
+			}
+			else if (entry == null || this.store.get(entry.key) != entry) {
+				// Reclaimed by the garbage collector
+				nodeRemoved(node, false);
+			}
+			else if (entry.accessed && secondChances-- > 0 && !isExpired(entry, now)) {
+				entry.accessed = false;
+				this.evictionQueue.offer(node);
+			}
+			else if (this.store.remove(entry.key, entry)) {
+				entryRemoved(entry, false);
+				this.evictionCount.incrementAndGet();
+			}
+		}
+	}
+
+	/**
+	 * Remove the entries from the eviction queue which have been removed
+	 * from the store or reclaimed by the garbage collector in the meantime.
+	 */
+	private void purgeEvictionQueue() {
+		if (this.purgingEvictionQueue.compareAndSet(false, true)) {
+			try {
+				for (Iterator<EvictionNode> it = this.evictionQueue.iterator(); it.hasNext();) {
+					EvictionNode node = it.next();
+					if (node.removed.get()) {
+						it.remove();
+						this.staleEntryCount.decrementAndGet();
+					}
+					else if (node.getEntry() == null) {
+						it.remove();
+						nodeRemoved(node, false);
+					}
+				}
+			}
+			finally {
+				this.purgingEvictionQueue.set(false);
+			}
+		}
+	}
+
+	private void cleanUpIfNecessary(long now) {
+		long last = this.lastCleanUp.get();
+		if (last == 0) {
+			// First write: start the clock for periodic sweeps
+			this.lastCleanUp.compareAndSet(0, now);
+			return;
+		}
+		long interval = (this.timeToLive > 0 && this.timeToIdle > 0 ?
+				Math.min(this.timeToLive, this.timeToIdle) : Math.max(this.timeToLive, this.timeToIdle));
+		if (now - last >= interval && this.lastCleanUp.compareAndSet(last, now)) {
+			cleanUp();
+		}
+	}
+
+	private boolean isExpiring() {
+		return (this.timeToLive > 0 || this.timeToIdle > 0);
+	}
+
+	private boolean isExpired(CacheEntry entry, long now) {
+		return ((this.timeToLive > 0 && now - entry.writeTime >= this.timeToLive) ||
+				(this.timeToIdle > 0 && now - entry.accessTime >= this.timeToIdle));
+	}
+
+	private long now() {
+		return (isExpiring() ? currentTime() : 0);
+	}
+
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + " '" + this.name + "': size=" + size() +
+				", maximumSize=" + this.maximumSize + ", hits=" + this.hitCount +
+				", misses=" + this.missCount + ", evictions=" + this.evictionCount;
+	}
+
+
+	/**
+	 * Holder for a store value along with its key, as well as its write
+	 * and access metadata.
+	 */
+	private static final class CacheEntry {
+
+		final Object key;
+
+		final Object value;
+
+		final long writeTime;
+
+		volatile long accessTime;
+
+		volatile boolean accessed;
+
+		/** The eviction queue node, or {@code null} if unbounded */
+		final EvictionNode node;
+
+		public CacheEntry(Object key, Object value, long writeTime, boolean bounded) {
+			this.key = key;
+			this.value = value;
+			this.writeTime = writeTime;
+			this.accessTime = writeTime;
+			this.node = (bounded ? new EvictionNode(this) : null);
+		}
+
+		public void accessed(long now, boolean updateAccessTime) {
+			if (updateAccessTime) {
+				this.accessTime = now;
+			}
+			// Avoid a volatile write (and cache line invalidation) if already marked
+			if (!this.accessed) {
+				this.accessed = true;
+			}
+		}
+	}
+
+
+	/**
+	 * Eviction queue element, referring to its entry weakly so that soft or
+	 * weak store references remain reclaimable, along with the removal flag.
+	 */
+	private static final class EvictionNode {
+
+		private final WeakReference<CacheEntry> entryRef;
+
+		final AtomicBoolean removed = new AtomicBoolean();
+
+		public EvictionNode(CacheEntry entry) {
+			this.entryRef = new WeakReference<CacheEntry>(entry);
+		}
+
+		public CacheEntry getEntry() {
+			return this.entryRef.get();
+		}
+	}
+
+
+	@SuppressWarnings("serial")
+	private static class NullHolder implements Serializable {
+	}
+
+}
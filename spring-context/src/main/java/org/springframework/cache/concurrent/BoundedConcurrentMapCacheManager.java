@@ -0,0 +1,222 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.concurrent;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.util.ConcurrentReferenceHashMap.ReferenceType;
+
+/**
+ * {@link CacheManager} implementation that lazily builds {@link BoundedConcurrentMapCache}
+ * instances for each {@link #getCache} request. Also supports a 'static' mode where
+ * the set of cache names is pre-defined through {@link #setCacheNames}, with no
+ * dynamic creation of further cache regions at runtime.
+ *
+ * <p>In contrast to {@link ConcurrentMapCacheManager}, the caches built here can be
+ * limited in size and expire their entries, making them suitable for production use
+ * without any third-party caching library. The settings apply to all caches of this
+ * cache manager; caches in 'static' mode are rebuilt when a setting changes.
+ *
+ * @author agent
+ * @since 4.1
+ * @see BoundedConcurrentMapCache
+ */
+public class BoundedConcurrentMapCacheManager implements CacheManager {
+
+	private final ConcurrentMap<String, Cache> cacheMap = new ConcurrentHashMap<String, Cache>(16);
+
+	private boolean dynamic = true;
+
+	private int maximumSize = BoundedConcurrentMapCache.UNBOUNDED;
+
+	private long timeToLive = 0;
+
+	private long timeToIdle = 0;
+
+	private ReferenceType referenceType;
+
+	private boolean allowNullValues = true;
+
+
+	/**
+	 * Construct a dynamic BoundedConcurrentMapCacheManager,
+	 * lazily creating cache instances as they are being requested.
+	 */
+	public BoundedConcurrentMapCacheManager() {
+	}
+
+	/**
+	 * Construct a static BoundedConcurrentMapCacheManager,
+	 * managing caches for the specified cache names only.
+	 */
+	public BoundedConcurrentMapCacheManager(String... cacheNames) {
+		setCacheNames(Arrays.asList(cacheNames));
+	}
+
+
+	/**
+	 * Specify the set of cache names for this CacheManager's 'static' mode.
+	 * <p>The number of caches and their names will be fixed after a call to this method,
+	 * with no creation of further cache regions at runtime.
+	 */
+	public void setCacheNames(Collection<String> cacheNames) {
+		if (cacheNames != null) {
+			for (String name : cacheNames) {
+				this.cacheMap.put(name, createBoundedConcurrentMapCache(name));
+			}
+			this.dynamic = false;
+		}
+	}
+
+	/**
+	 * Specify the maximum number of entries per cache.
+	 * <p>Default is {@link BoundedConcurrentMapCache#UNBOUNDED}.
+	 */
+	public void setMaximumSize(int maximumSize) {
+		this.maximumSize = maximumSize;
+		refreshKnownCaches();
+	}
+
+	/**
+	 * Return the maximum number of entries per cache.
+	 */
+	public int getMaximumSize() {
+		return this.maximumSize;
+	}
+
+	/**
+	 * Specify the number of milliseconds after which a cache entry expires
+	 * once it has been written.
+	 * <p>Default is 0, indicating no time-to-live.
+	 */
+	public void setTimeToLive(long timeToLive) {
+		this.timeToLive = timeToLive;
+		refreshKnownCaches();
+	}
+
+	/**
+	 * Return the time-to-live for cache entries, in milliseconds.
+	 */
+	public long getTimeToLive() {
+		return this.timeToLive;
+	}
+
+	/**
+	 * Specify the number of milliseconds after which a cache entry expires
+	 * once it has last been accessed.
+	 * <p>Default is 0, indicating no time-to-idle.
+	 */
+	public void setTimeToIdle(long timeToIdle) {
+		this.timeToIdle = timeToIdle;
+		refreshKnownCaches();
+	}
+
+	/**
+	 * Return the time-to-idle for cache entries, in milliseconds.
+	 */
+	public long getTimeToIdle() {
+		return this.timeToIdle;
+	}
+
+	/**
+	 * Specify the type of reference to hold cache entries through, allowing
+	 * the garbage collector to reclaim entries under memory pressure.
+	 * <p>Default is none, holding entries through strong references.
+	 * @see org.springframework.util.ConcurrentReferenceHashMap
+	 */
+	public void setReferenceType(ReferenceType referenceType) {
+		this.referenceType = referenceType;
+		refreshKnownCaches();
+	}
+
+	/**
+	 * Return the type of reference to hold cache entries through, if any.
+	 */
+	public ReferenceType getReferenceType() {
+		return this.referenceType;
+	}
+
+	/**
+	 * Specify whether to accept and convert {@code null} values for all caches
+	 * in this cache manager.
+	 * <p>Default is "true", despite ConcurrentHashMap itself not supporting {@code null}
+	 * values. An internal holder object will be used to store user-level {@code null}s.
+	 */
+	public void setAllowNullValues(boolean allowNullValues) {
+		this.allowNullValues = allowNullValues;
+		refreshKnownCaches();
+	}
+
+	/**
+	 * Return whether this cache manager accepts and converts {@code null} values
+	 * for all of its caches.
+	 */
+	public boolean isAllowNullValues() {
+		return this.allowNullValues;
+	}
+
+
+	@Override
+	public Collection<String> getCacheNames() {
+		return Collections.unmodifiableSet(this.cacheMap.keySet());
+	}
+
+	@Override
+	public Cache getCache(String name) {
+		Cache cache = this.cacheMap.get(name);
+		if (cache == null && this.dynamic) {
+			synchronized (this.cacheMap) {
+				cache = this.cacheMap.get(name);
+				if (cache == null) {
+					cache = createBoundedConcurrentMapCache(name);
+					this.cacheMap.put(name, cache);
+				}
+			}
+		}
+		return cache;
+	}
+
+	/**
+	 * Rebuild the caches of the 'static' mode with the current settings.
+	 */
+	private void refreshKnownCaches() {
+		if (!this.dynamic) {
+			synchronized (this.cacheMap) {
+				for (String name : this.cacheMap.keySet()) {
+					this.cacheMap.put(name, createBoundedConcurrentMapCache(name));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Create a new BoundedConcurrentMapCache instance for the specified cache name.
+	 * @param name the name of the cache
+	 * @return the BoundedConcurrentMapCache (or a decorator thereof)
+	 */
+	protected Cache createBoundedConcurrentMapCache(String name) {
+		return new BoundedConcurrentMapCache(name, getMaximumSize(), getTimeToLive(), getTimeToIdle(),
+				getReferenceType(), isAllowNullValues());
+	}
+
+}
@@ -17,9 +17,16 @@
 package org.springframework.cache.concurrent;
 
 import java.io.Serializable;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 
+import org.springframework.cache.BulkCache;
 import org.springframework.cache.Cache;
 import org.springframework.cache.support.SimpleValueWrapper;
 import org.springframework.util.Assert;
@@ -37,11 +44,14 @@ import org.springframework.util.Assert;
  * them with a predefined internal object. This behavior can be changed through the
  * {@link #ConcurrentMapCache(String, ConcurrentMap, boolean)} constructor.
  *
+ * <p>Concurrent {@link #get(Object, Callable)} calls for the same missing key
+ * share a single invocation of the value loader.
+ *
  * @author Costin Leau
  * @author Juergen Hoeller
  * @since 3.1
  */
-public class ConcurrentMapCache implements Cache {
+public class ConcurrentMapCache implements BulkCache {
 
 	private static final Object NULL_HOLDER = new NullHolder();
 
@@ -51,6 +61,10 @@ public class ConcurrentMapCache implements Cache {
 
 	private final boolean allowNullValues;
 
+	/** Value loaders in progress, keyed by cache key */
+	private final ConcurrentMap<Object, FutureTask<Object>> loadsInProgress =
+			new ConcurrentHashMap<Object, FutureTask<Object>>(16);
+
 
 	/**
 	 * Create a new ConcurrentMapCache with the specified name.
@@ -116,11 +130,76 @@ public class ConcurrentMapCache implements Cache {
 		return (T) value;
 	}
 
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> T get(final Object key, final Callable<T> valueLoader) {
+		Object storeValue = this.store.get(key);
+		if (storeValue != null) {
+			return (T) fromStoreValue(storeValue);
+		}
+
+		FutureTask<Object> newLoad = new FutureTask<Object>(new Callable<Object>() {
+			@Override
+			public Object call() throws Exception {
+				// Another load for the same key may have completed in the meantime
+				Object existing = store.get(key);
+				if (existing != null) {
+					return fromStoreValue(existing);
+				}
+				T value = valueLoader.call();
+				Object valueToStore = toStoreValue(value);
+				if (valueToStore != null) {
+					store.put(key, valueToStore);
+				}
+				return value;
+			}
+		});
+		FutureTask<Object> load = this.loadsInProgress.putIfAbsent(key, newLoad);
+		if (load == null) {
+			load = newLoad;
+			try {
+				load.run();
+			}
+			finally {
+				this.loadsInProgress.remove(key, load);
+			}
+		}
+		try {
+			return (T) load.get();
+		}
+		catch (ExecutionException ex) {
+			throw new ValueRetrievalException(key, valueLoader, ex.getCause());
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new ValueRetrievalException(key, valueLoader, ex);
+		}
+	}
+
+	@Override
+	public Map<Object, ValueWrapper> getAll(Collection<?> keys) {
+		Map<Object, ValueWrapper> result = new LinkedHashMap<Object, ValueWrapper>(keys.size());
+		for (Object key : keys) {
+			Object value = this.store.get(key);
+			if (value != null) {
+				result.put(key, toWrapper(value));
+			}
+		}
+		return result;
+	}
+
 	@Override
 	public void put(Object key, Object value) {
 		this.store.put(key, toStoreValue(value));
 	}
 
+	@Override
+	public void putAll(Map<?, ?> entries) {
+		for (Map.Entry<?, ?> entry : entries.entrySet()) {
+			this.store.put(entry.getKey(), toStoreValue(entry.getValue()));
+		}
+	}
+
 	@Override
 	public ValueWrapper putIfAbsent(Object key, Object value) {
 		Object existing = this.store.putIfAbsent(key, value);
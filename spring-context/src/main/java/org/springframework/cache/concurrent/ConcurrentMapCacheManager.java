@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2013 the original author or authors.
+ * Copyright 2002-2014 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -33,8 +33,9 @@ import org.springframework.cache.CacheManager;
  *
  * <p>Note: This is by no means a sophisticated CacheManager; it comes with no
  * cache configuration options. However, it may be useful for testing or simple
- * caching scenarios. For advanced local caching needs, consider
- * {@link org.springframework.cache.guava.GuavaCacheManager} or
+ * caching scenarios. For size limits and expiration without third-party
+ * dependencies, consider {@link BoundedConcurrentMapCacheManager}. For advanced
+ * local caching needs, consider {@link org.springframework.cache.guava.GuavaCacheManager} or
  * {@link org.springframework.cache.ehcache.EhCacheCacheManager}.
  *
  * @author Juergen Hoeller
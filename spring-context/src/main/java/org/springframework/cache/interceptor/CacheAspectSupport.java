@@ -16,13 +16,24 @@
 
 package org.springframework.cache.interceptor;
 
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -31,9 +42,12 @@ import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.annotation.BeanFactoryAnnotationUtils;
 import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
+import org.springframework.cache.support.BulkCacheUtils;
 import org.springframework.cache.support.SimpleValueWrapper;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
+import org.springframework.core.CollectionFactory;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.expression.EvaluationContext;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
@@ -87,6 +101,17 @@ public abstract class CacheAspectSupport implements InitializingBean, Applicatio
 
 	private CacheResolver cacheResolver;
 
+	private Executor refreshExecutor = new SimpleAsyncTaskExecutor("cache-refresh-");
+
+	/** Keys of refresh-ahead invocations in progress, to avoid duplicate refreshes */
+	private final ConcurrentMap<Object, Boolean> refreshesInProgress = new ConcurrentHashMap<Object, Boolean>(16);
+
+	/** Write times of entries subject to refresh-ahead, per weakly referenced cache */
+	private final ConcurrentMap<CacheReference, RefreshWriteTimes> refreshWriteTimes =
+			new ConcurrentHashMap<CacheReference, RefreshWriteTimes>(16);
+
+	private final ReferenceQueue<Cache> releasedCaches = new ReferenceQueue<Cache>();
+
 	private ApplicationContext applicationContext;
 
 	private boolean initialized = false;
@@ -158,6 +183,31 @@ public abstract class CacheAspectSupport implements InitializingBean, Applicatio
 		return cacheResolver;
 	}
 
+	/**
+	 * Set the {@link Executor} to refresh stale cache entries with, for
+	 * operations specifying a {@link CacheableOperation#getRefreshAfter() refreshAfter}
+	 * period. The method invocation happens on the executor while the stale value
+	 * is returned to the caller right away.
+	 * <p>Default is a {@link SimpleAsyncTaskExecutor}, starting a new thread for
+	 * each refresh. Consider specifying a thread pool for frequent refreshes.
+	 * <p>Background refreshes require a {@link SmartCacheOperationInvoker}, as
+	 * provided by {@link CacheInterceptor} on Spring AOP proxies. With any other
+	 * invoker, stale values get refreshed within the calling invocation instead.
+	 * @since 4.1
+	 */
+	public void setRefreshExecutor(Executor refreshExecutor) {
+		Assert.notNull(refreshExecutor, "Refresh executor must not be null");
+		this.refreshExecutor = refreshExecutor;
+	}
+
+	/**
+	 * Return the {@link Executor} that stale cache entries are refreshed with.
+	 * @since 4.1
+	 */
+	public Executor getRefreshExecutor() {
+		return this.refreshExecutor;
+	}
+
 	@Override
 	public void setApplicationContext(ApplicationContext applicationContext) {
 		this.applicationContext = applicationContext;
@@ -261,6 +311,17 @@ public abstract class CacheAspectSupport implements InitializingBean, Applicatio
 				applicationContext, expectedType, beanName);
 	}
 
+	/**
+	 * Return the current time in milliseconds, as the base for determining
+	 * whether a cached value subject to refresh-ahead is stale.
+	 * <p>The default implementation returns {@link System#currentTimeMillis()}.
+	 * May be overridden, e.g. to control the time in tests.
+	 * @see CacheableOperation#getRefreshAfter()
+	 */
+	protected long currentTime() {
+		return System.currentTimeMillis();
+	}
+
 	/**
 	 * Clear the cached metadata.
 	 */
@@ -290,12 +351,50 @@ public abstract class CacheAspectSupport implements InitializingBean, Applicatio
 		return targetClass;
 	}
 
-	private Object execute(CacheOperationInvoker invoker, CacheOperationContexts contexts) {
+	private Object execute(final CacheOperationInvoker invoker, CacheOperationContexts contexts) {
+		// Special handling of synchronized invocation
+		if (contexts.isSynchronized()) {
+			CacheOperationContext context = contexts.get(CacheableOperation.class).iterator().next();
+			if (isConditionPassing(context, ExpressionEvaluator.NO_RESULT)) {
+				Object key = generateKey(context, ExpressionEvaluator.NO_RESULT);
+				Cache cache = context.getCaches().iterator().next();
+				try {
+					return cache.get(key, new Callable<Object>() {
+						@Override
+						public Object call() {
+							return invoker.invoke();
+						}
+					});
+				}
+				catch (Cache.ValueRetrievalException ex) {
+					// The invoker wraps any Throwable in a ThrowableWrapper instance,
+					// so we can make sure that one bubbles up the stack.
+					Throwable cause = ex.getCause();
+					if (cause instanceof RuntimeException) {
+						throw (RuntimeException) cause;
+					}
+					if (cause instanceof Error) {
+						throw (Error) cause;
+					}
+					throw new CacheOperationInvoker.ThrowableWrapper(cause);
+				}
+			}
+			else {
+				// No caching required, only call the underlying method
+				return invoker.invoke();
+			}
+		}
+
+		if (contexts.isBulk()) {
+			return executeBulk(invoker, contexts);
+		}
+
 		// Process any early evictions
 		processCacheEvicts(contexts.get(CacheEvictOperation.class), true, ExpressionEvaluator.NO_RESULT);
 
 		// Check if we have a cached item matching the conditions
-		Cache.ValueWrapper cacheHit = findCachedItem(contexts.get(CacheableOperation.class));
+		Cache.ValueWrapper cacheHit =
+				findCachedItem(contexts.get(CacheableOperation.class), invoker, contexts.getArgs());
 
 		// Collect puts from any @Cacheable miss, if no cached item is found
 		List<CachePutRequest> cachePutRequests = new LinkedList<CachePutRequest>();
@@ -329,6 +428,116 @@ public abstract class CacheAspectSupport implements InitializingBean, Applicatio
 		return result.get();
 	}
 
+	/**
+	 * Execute a bulk {@link CacheableOperation}: look up all keys of the
+	 * collection argument at once, invoke the method for the missing keys
+	 * only and merge its result with the cached values.
+	 * <p>The missing keys are passed to an independent clone of a
+	 * {@link SmartCacheOperationInvoker}. Any other invoker proceeds with
+	 * the original arguments, so the method gets invoked with all keys
+	 * unless every key has been found in the cache.
+	 */
+	private Object executeBulk(CacheOperationInvoker invoker, CacheOperationContexts contexts) {
+		CacheOperationContext context = contexts.get(CacheableOperation.class).iterator().next();
+		Object[] args = contexts.getArgs();
+		int index = contexts.getBulkParameterIndex();
+		Collection<?> keys = (Collection<?>) args[index];
+		if (keys == null || !isConditionPassing(context, ExpressionEvaluator.NO_RESULT)) {
+			return invoker.invoke();
+		}
+
+		// Cache key for each element of the collection argument
+		Map<Object, Object> cacheKeys = new LinkedHashMap<Object, Object>(keys.size());
+		for (Object key : keys) {
+			if (key == null) {
+				throw new IllegalArgumentException("Null element in collection argument of bulk cache operation " +
+						context.metadata.operation + " on method " + context.metadata.method);
+			}
+			cacheKeys.put(key, generateBulkKey(args, index, key));
+		}
+
+		Map<Object, Object> values = new LinkedHashMap<Object, Object>(keys.size());
+		Set<Object> missingKeys = new LinkedHashSet<Object>(keys);
+		for (Cache cache : context.getCaches()) {
+			if (missingKeys.isEmpty()) {
+				break;
+			}
+			List<Object> missingCacheKeys = new ArrayList<Object>(missingKeys.size());
+			for (Object key : missingKeys) {
+				missingCacheKeys.add(cacheKeys.get(key));
+			}
+			Map<Object, Cache.ValueWrapper> hits = BulkCacheUtils.getAll(cache, missingCacheKeys);
+			for (Iterator<Object> it = missingKeys.iterator(); it.hasNext();) {
+				Object key = it.next();
+				Cache.ValueWrapper hit = hits.get(cacheKeys.get(key));
+				if (hit != null) {
+					values.put(key, hit.get());
+					it.remove();
+				}
+			}
+		}
+		if (logger.isTraceEnabled()) {
+			logger.trace("Found " + values.size() + " of " + keys.size() + " cache keys for operation " +
+					context.metadata.operation);
+		}
+
+		if (!missingKeys.isEmpty()) {
+			Map<?, ?> loaded;
+			if (invoker instanceof SmartCacheOperationInvoker) {
+				Collection<Object> keysToLoad = CollectionFactory.createApproximateCollection(keys, missingKeys.size());
+				keysToLoad.addAll(missingKeys);
+				Object[] argsToLoad = args.clone();
+				argsToLoad[index] = keysToLoad;
+				loaded = (Map<?, ?>) ((SmartCacheOperationInvoker) invoker).invocableClone(argsToLoad).invoke();
+			}
+			else {
+				loaded = (Map<?, ?>) invoker.invoke();
+			}
+			if (loaded != null) {
+				Map<Object, Object> valuesToCache = new LinkedHashMap<Object, Object>(loaded.size());
+				for (Map.Entry<?, ?> entry : loaded.entrySet()) {
+					if (entry.getKey() != null && context.canPutToCache(entry.getValue())) {
+						Object cacheKey = cacheKeys.get(entry.getKey());
+						if (cacheKey == null) {
+							cacheKey = generateBulkKey(args, index, entry.getKey());
+						}
+						valuesToCache.put(cacheKey, entry.getValue());
+					}
+				}
+				if (!valuesToCache.isEmpty()) {
+					for (Cache cache : context.getCaches()) {
+						BulkCacheUtils.putAll(cache, valuesToCache);
+					}
+				}
+				values.putAll(loaded);
+			}
+		}
+
+		// Merge in the order of the given keys
+		Map<Object, Object> result = new LinkedHashMap<Object, Object>(values.size());
+		for (Object key : keys) {
+			if (values.containsKey(key)) {
+				result.put(key, values.get(key));
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Generate the cache key for an element of the collection argument of a
+	 * bulk operation: the element itself if the method has no other parameters,
+	 * or a {@link SimpleKey} of all arguments with the collection replaced by
+	 * the element otherwise - like the key of a corresponding single-value method.
+	 */
+	private Object generateBulkKey(Object[] args, int index, Object element) {
+		if (args.length == 1) {
+			return element;
+		}
+		Object[] keyArgs = args.clone();
+		keyArgs[index] = element;
+		return new SimpleKey(keyArgs);
+	}
+
 	private void processCacheEvicts(Collection<CacheOperationContext> contexts, boolean beforeInvocation, Object result) {
 		for (CacheOperationContext context : contexts) {
 			CacheEvictOperation operation = (CacheEvictOperation) context.metadata.operation;
@@ -344,6 +553,7 @@ public abstract class CacheAspectSupport implements InitializingBean, Applicatio
 			if (operation.isCacheWide()) {
 				logInvalidating(context, operation, null);
 				cache.clear();
+				this.refreshWriteTimes.remove(new CacheReference(cache, null));
 			}
 			else {
 				if (key == null) {
@@ -351,6 +561,7 @@ public abstract class CacheAspectSupport implements InitializingBean, Applicatio
 				}
 				logInvalidating(context, operation, key);
 				cache.evict(key);
+				removeWriteTime(cache, key);
 			}
 		}
 	}
@@ -365,15 +576,19 @@ public abstract class CacheAspectSupport implements InitializingBean, Applicatio
 	/**
 	 * Find a cached item only for {@link CacheableOperation} that passes the condition.
 	 * @param contexts the cacheable operations
+	 * @param invoker the invoker of the current invocation
+	 * @param args the arguments of the current invocation
 	 * @return a {@link Cache.ValueWrapper} holding the cached item,
 	 * or {@code null} if none is found
 	 */
-	private Cache.ValueWrapper findCachedItem(Collection<CacheOperationContext> contexts) {
+	private Cache.ValueWrapper findCachedItem(Collection<CacheOperationContext> contexts,
+			CacheOperationInvoker invoker, Object[] args) {
+
 		Object result = ExpressionEvaluator.NO_RESULT;
 		for (CacheOperationContext context : contexts) {
 			if (isConditionPassing(context, result)) {
 				Object key = generateKey(context, result);
-				Cache.ValueWrapper cached = findInCaches(context, key);
+				Cache.ValueWrapper cached = findInCaches(context, key, invoker, args);
 				if (cached != null) {
 					return cached;
 				}
@@ -400,16 +615,123 @@ public abstract class CacheAspectSupport implements InitializingBean, Applicatio
 		}
 	}
 
-	private Cache.ValueWrapper findInCaches(CacheOperationContext context, Object key) {
+	/**
+	 * Find a cached item for the given key in the caches of the given operation.
+	 * <p>The write time of an item subject to refresh-ahead is tracked next to
+	 * the cache, so that the cache itself only ever holds plain values. An item
+	 * without a known write time (e.g. one put into the cache by other means)
+	 * is considered written at the time of its first lookup.
+	 * <p>A stale item subject to refresh-ahead gets refreshed in the background
+	 * through an independent clone of a {@link SmartCacheOperationInvoker}.
+	 * Any other invoker is bound to the current invocation, so the stale item
+	 * is treated as a cache miss and refreshed within the current invocation.
+	 */
+	private Cache.ValueWrapper findInCaches(CacheOperationContext context, Object key,
+			CacheOperationInvoker invoker, Object[] args) {
+
 		for (Cache cache : context.getCaches()) {
 			Cache.ValueWrapper wrapper = cache.get(key);
+			long refreshAfter = context.getRefreshAfter();
 			if (wrapper != null) {
+				if (refreshAfter > 0 && isStale(cache, key, refreshAfter)) {
+					if (!(invoker instanceof SmartCacheOperationInvoker)) {
+						return null;
+					}
+					CacheOperationInvoker refreshInvoker =
+							((SmartCacheOperationInvoker) invoker).invocableClone(args.clone());
+					refreshInBackground(context, cache, key, refreshInvoker);
+				}
 				return wrapper;
 			}
+			if (refreshAfter > 0) {
+				// Entry expired or evicted by the cache itself
+				removeWriteTime(cache, key);
+			}
 		}
 		return null;
 	}
 
+	private boolean isStale(Cache cache, Object key, long refreshAfter) {
+		long now = currentTime();
+		Long writeTime = getWriteTimes(cache).putIfAbsent(key, now);
+		return (writeTime != null && now - writeTime >= refreshAfter);
+	}
+
+	private void recordWriteTime(Cache cache, Object key) {
+		getWriteTimes(cache).put(key, currentTime());
+	}
+
+	private RefreshWriteTimes getWriteTimes(Cache cache) {
+		RefreshWriteTimes writeTimes = this.refreshWriteTimes.get(new CacheReference(cache, null));
+		if (writeTimes == null) {
+			purgeReleasedCaches();
+			writeTimes = new RefreshWriteTimes();
+			RefreshWriteTimes existing = this.refreshWriteTimes.putIfAbsent(
+					new CacheReference(cache, this.releasedCaches), writeTimes);
+			if (existing != null) {
+				writeTimes = existing;
+			}
+		}
+		return writeTimes;
+	}
+
+	private void removeWriteTime(Cache cache, Object key) {
+		RefreshWriteTimes writeTimes = this.refreshWriteTimes.get(new CacheReference(cache, null));
+		if (writeTimes != null) {
+			writeTimes.remove(key);
+		}
+	}
+
+	private void purgeReleasedCaches() {
+		Object released;
+		while ((released = this.releasedCaches.poll()) != null) {
+			this.refreshWriteTimes.remove(released);
+		}
+	}
+
+	/**
+	 * Invoke the method on the refresh executor and put its result into the
+	 * caches of the given operation, unless a refresh for the same cache entry
+	 * is in progress already. The stale entry remains in place if the method
+	 * invocation fails.
+	 * @param invoker an invoker independent of the current invocation
+	 */
+	private void refreshInBackground(final CacheOperationContext context, Cache cache, final Object key,
+			final CacheOperationInvoker invoker) {
+
+		final Object refreshKey = new SimpleKey(cache.getName(), key);
+		if (this.refreshesInProgress.putIfAbsent(refreshKey, Boolean.TRUE) != null) {
+			return;
+		}
+		if (logger.isTraceEnabled()) {
+			logger.trace("Refreshing stale cache key " + key + " for operation " + context.metadata.operation);
+		}
+		try {
+			this.refreshExecutor.execute(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						new CachePutRequest(context, key).apply(invoker.invoke());
+					}
+					catch (Throwable ex) {
+						Throwable cause = (ex instanceof CacheOperationInvoker.ThrowableWrapper ?
+								((CacheOperationInvoker.ThrowableWrapper) ex).getOriginal() : ex);
+						logger.warn("Failed to refresh cache key " + key + " for operation " +
+								context.metadata.operation, cause);
+					}
+					finally {
+						refreshesInProgress.remove(refreshKey);
+					}
+				}
+			});
+		}
+		catch (RuntimeException ex) {
+			// Executor rejected the task: keep serving the stale value
+			this.refreshesInProgress.remove(refreshKey);
+			logger.warn("Could not schedule refresh of cache key " + key, ex);
+		}
+	}
+
 	private boolean isConditionPassing(CacheOperationContext context, Object result) {
 		boolean passing = context.isConditionPassing(result);
 		if (!passing && logger.isTraceEnabled()) {
@@ -435,18 +757,129 @@ public abstract class CacheAspectSupport implements InitializingBean, Applicatio
 		private final MultiValueMap<Class<? extends CacheOperation>, CacheOperationContext> contexts =
 				new LinkedMultiValueMap<Class<? extends CacheOperation>, CacheOperationContext>();
 
+		private final boolean sync;
+
+		private final Object[] args;
+
+		private final int bulkParameterIndex;
+
 		public CacheOperationContexts(Collection<? extends CacheOperation> operations,
 									  Method method, Object[] args, Object target, Class<?> targetClass) {
 
 			for (CacheOperation operation : operations) {
 				this.contexts.add(operation.getClass(), getOperationContext(operation, method, args, target, targetClass));
 			}
+			this.sync = determineSyncFlag(method);
+			this.args = args;
+			this.bulkParameterIndex = determineBulkParameterIndex(method);
 		}
 
 		public Collection<CacheOperationContext> get(Class<? extends CacheOperation> operationClass) {
 			Collection<CacheOperationContext> result = this.contexts.get(operationClass);
 			return (result != null ? result : Collections.<CacheOperationContext>emptyList());
 		}
+
+		public boolean isSynchronized() {
+			return this.sync;
+		}
+
+		public boolean isBulk() {
+			return (this.bulkParameterIndex != -1);
+		}
+
+		public Object[] getArgs() {
+			return this.args;
+		}
+
+		public int getBulkParameterIndex() {
+			return this.bulkParameterIndex;
+		}
+
+		private boolean determineSyncFlag(Method method) {
+			List<CacheOperationContext> cacheableContexts = this.contexts.get(CacheableOperation.class);
+			if (cacheableContexts == null) {
+				return false;
+			}
+			boolean syncEnabled = false;
+			for (CacheOperationContext context : cacheableContexts) {
+				if (((CacheableOperation) context.getOperation()).isSync()) {
+					syncEnabled = true;
+					break;
+				}
+			}
+			if (syncEnabled) {
+				if (this.contexts.size() > 1) {
+					throw new IllegalStateException("@Cacheable(sync=true) cannot be combined with other " +
+							"cache operations on '" + method + "'");
+				}
+				if (cacheableContexts.size() > 1) {
+					throw new IllegalStateException("Only one @Cacheable(sync=true) entry is allowed on '" + method + "'");
+				}
+				CacheOperationContext context = cacheableContexts.get(0);
+				CacheableOperation operation = (CacheableOperation) context.getOperation();
+				if (context.getCaches().size() > 1) {
+					throw new IllegalStateException("@Cacheable(sync=true) only allows a single cache on '" + operation + "'");
+				}
+				if (StringUtils.hasText(operation.getUnless())) {
+					throw new IllegalStateException("@Cacheable(sync=true) does not support unless attribute on '" +
+							operation + "'");
+				}
+				if (operation.getRefreshAfter() > 0) {
+					throw new IllegalStateException("@Cacheable(sync=true) does not support refreshAfter attribute on '" +
+							operation + "'");
+				}
+			}
+			return syncEnabled;
+		}
+
+		private int determineBulkParameterIndex(Method method) {
+			List<CacheOperationContext> cacheableContexts = this.contexts.get(CacheableOperation.class);
+			if (cacheableContexts == null) {
+				return -1;
+			}
+			CacheableOperation bulkOperation = null;
+			for (CacheOperationContext context : cacheableContexts) {
+				if (((CacheableOperation) context.getOperation()).isBulk()) {
+					bulkOperation = (CacheableOperation) context.getOperation();
+					break;
+				}
+			}
+			if (bulkOperation == null) {
+				return -1;
+			}
+			if (this.contexts.size() > 1 || cacheableContexts.size() > 1) {
+				throw new IllegalStateException("@Cacheable(bulk=true) cannot be combined with other " +
+						"cache operations on '" + method + "'");
+			}
+			if (bulkOperation.isSync() || bulkOperation.getRefreshAfter() > 0) {
+				throw new IllegalStateException("@Cacheable(bulk=true) does not support sync and refreshAfter " +
+						"attributes on '" + bulkOperation + "'");
+			}
+			if (StringUtils.hasText(bulkOperation.getKey()) || StringUtils.hasText(bulkOperation.getKeyGenerator())) {
+				throw new IllegalStateException("@Cacheable(bulk=true) does not support key and keyGenerator " +
+						"attributes on '" + bulkOperation + "'");
+			}
+			Class<?> returnType = method.getReturnType();
+			if (!Map.class.isAssignableFrom(returnType) || !returnType.isAssignableFrom(LinkedHashMap.class)) {
+				throw new IllegalStateException("@Cacheable(bulk=true) requires a Map return type on '" + method + "'");
+			}
+			int index = -1;
+			Class<?>[] parameterTypes = method.getParameterTypes();
+			for (int i = 0; i < parameterTypes.length; i++) {
+				if (Collection.class.isAssignableFrom(parameterTypes[i])) {
+					if (index != -1) {
+						throw new IllegalStateException("@Cacheable(bulk=true) requires a single Collection " +
+								"parameter on '" + method + "'");
+					}
+					index = i;
+				}
+			}
+			if (index == -1) {
+				throw new IllegalStateException("@Cacheable(bulk=true) requires a Collection parameter on '" +
+						method + "'");
+			}
+			return index;
+		}
 	}
 
 
@@ -526,9 +959,15 @@ public abstract class CacheAspectSupport implements InitializingBean, Applicatio
 		}
 
 		protected boolean isConditionPassing(Object result) {
-			if (StringUtils.hasText(this.metadata.operation.getCondition())) {
+			String condition = this.metadata.operation.getCondition();
+			if (StringUtils.hasText(condition)) {
+				Boolean passing = evaluator.simpleCondition(condition, this.methodCacheKey,
+						this.metadata.method, this.metadata.targetClass, this.args, result);
+				if (passing != null) {
+					return passing;
+				}
 				EvaluationContext evaluationContext = createEvaluationContext(result);
-				return evaluator.condition(this.metadata.operation.getCondition(), this.methodCacheKey, evaluationContext);
+				return evaluator.condition(condition, this.methodCacheKey, evaluationContext);
 			}
 			return true;
 		}
@@ -542,6 +981,11 @@ public abstract class CacheAspectSupport implements InitializingBean, Applicatio
 				unless = ((CachePutOperation) this.metadata.operation).getUnless();
 			}
 			if (StringUtils.hasText(unless)) {
+				Boolean vetoed = evaluator.simpleUnless(unless, this.methodCacheKey,
+						this.metadata.method, this.metadata.targetClass, this.args, value);
+				if (vetoed != null) {
+					return !vetoed;
+				}
 				EvaluationContext evaluationContext = createEvaluationContext(value);
 				return !evaluator.unless(unless, this.methodCacheKey, evaluationContext);
 			}
@@ -553,9 +997,16 @@ public abstract class CacheAspectSupport implements InitializingBean, Applicatio
 		 * @return generated key (null if none can be generated)
 		 */
 		protected Object generateKey(Object result) {
-			if (StringUtils.hasText(this.metadata.operation.getKey())) {
+			String keyExpression = this.metadata.operation.getKey();
+			if (StringUtils.hasText(keyExpression)) {
+				// common expressions such as "#id" do not need a full evaluation context
+				Object key = evaluator.simpleKey(keyExpression, this.methodCacheKey,
+						this.metadata.method, this.metadata.targetClass, this.args, result);
+				if (key != SimpleCacheExpression.UNRESOLVED) {
+					return key;
+				}
 				EvaluationContext evaluationContext = createEvaluationContext(result);
-				return evaluator.key(this.metadata.operation.getKey(), this.methodCacheKey, evaluationContext);
+				return evaluator.key(keyExpression, this.methodCacheKey, evaluationContext);
 			}
 			return metadata.keyGenerator.generate(this.target, this.metadata.method, this.args);
 		}
@@ -568,10 +1019,18 @@ public abstract class CacheAspectSupport implements InitializingBean, Applicatio
 		protected Collection<? extends Cache> getCaches() {
 			return this.caches;
 		}
+
+		/**
+		 * Return the refresh-ahead period of a cacheable operation, or 0 if none.
+		 */
+		protected long getRefreshAfter() {
+			return (this.metadata.operation instanceof CacheableOperation ?
+					((CacheableOperation) this.metadata.operation).getRefreshAfter() : 0);
+		}
 	}
 
 
-	private static class CachePutRequest {
+	private class CachePutRequest {
 
 		private final CacheOperationContext context;
 
@@ -584,13 +1043,21 @@ public abstract class CacheAspectSupport implements InitializingBean, Applicatio
 
 		public void apply(Object result) {
 			if (this.context.canPutToCache(result)) {
+				boolean refreshable = (this.context.getRefreshAfter() > 0);
 				for (Cache cache : this.context.getCaches()) {
 					cache.put(this.key, result);
+					if (refreshable) {
+						recordWriteTime(cache, this.key);
+					}
+					else {
+						removeWriteTime(cache, this.key);
+					}
 				}
 			}
 		}
 	}
 
+
 	private static class CacheOperationCacheKey {
 
 		private final CacheOperation cacheOperation;
@@ -618,4 +1085,81 @@ public abstract class CacheAspectSupport implements InitializingBean, Applicatio
 			return result;
 		}
 	}
+
+
+	/**
+	 * Weak reference to a {@link Cache}, compared by the identity of the cache,
+	 * so that write times of caches which are no longer in use can be released.
+	 */
+	private static final class CacheReference extends WeakReference<Cache> {
+
+		private final int hashCode;
+
+		public CacheReference(Cache cache, ReferenceQueue<Cache> queue) {
+			super(cache, queue);
+			this.hashCode = System.identityHashCode(cache);
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof CacheReference)) {
+				return false;
+			}
+			Cache cache = get();
+			return (cache != null && cache == ((CacheReference) other).get());
+		}
+
+		@Override
+		public int hashCode() {
+			return this.hashCode;
+		}
+	}
+
+
+	/**
+	 * Write times of the entries of a single cache, limited to
+	 * {@link #MAX_ENTRIES} keys. Beyond that, arbitrary write times are
+	 * dropped; their entries count as written at their next refreshable lookup.
+	 * This also bounds keys which the cache has expired or evicted by itself.
+	 */
+	private static final class RefreshWriteTimes {
+
+		static final int MAX_ENTRIES = 10000;
+
+		private final ConcurrentMap<Object, Long> writeTimes = new ConcurrentHashMap<Object, Long>(64);
+
+		private final AtomicInteger count = new AtomicInteger();
+
+		public Long putIfAbsent(Object key, long writeTime) {
+			Long existing = this.writeTimes.putIfAbsent(key, writeTime);
+			if (existing == null) {
+				added();
+			}
+			return existing;
+		}
+
+		public void put(Object key, long writeTime) {
+			if (this.writeTimes.put(key, writeTime) == null) {
+				added();
+			}
+		}
+
+		public void remove(Object key) {
+			if (this.writeTimes.remove(key) != null) {
+				this.count.decrementAndGet();
+			}
+		}
+
+		private void added() {
+			if (this.count.incrementAndGet() > MAX_ENTRIES) {
+				Iterator<Object> it = this.writeTimes.keySet().iterator();
+				while (this.count.get() > MAX_ENTRIES && it.hasNext()) {
+					remove(it.next());
+				}
+			}
+		}
+	}
 }
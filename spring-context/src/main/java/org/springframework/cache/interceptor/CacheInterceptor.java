@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2012 the original author or authors.
+ * Copyright 2002-2014 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -22,6 +22,8 @@ import java.lang.reflect.Method;
 import org.aopalliance.intercept.MethodInterceptor;
 import org.aopalliance.intercept.MethodInvocation;
 
+import org.springframework.aop.ProxyMethodInvocation;
+
 /**
  * AOP Alliance MethodInterceptor for declarative cache
  * management using the common Spring caching infrastructure
@@ -45,17 +47,9 @@ public class CacheInterceptor extends CacheAspectSupport implements MethodInterc
 	public Object invoke(final MethodInvocation invocation) throws Throwable {
 		Method method = invocation.getMethod();
 
-		CacheOperationInvoker aopAllianceInvoker = new CacheOperationInvoker() {
-			@Override
-			public Object invoke() {
-				try {
-					return invocation.proceed();
-				}
-				catch (Throwable ex) {
-					throw new ThrowableWrapper(ex);
-				}
-			}
-		};
+		CacheOperationInvoker aopAllianceInvoker = (invocation instanceof ProxyMethodInvocation ?
+				new ProxyMethodInvocationInvoker((ProxyMethodInvocation) invocation) :
+				new MethodInvocationInvoker(invocation));
 
 		try {
 			return execute(aopAllianceInvoker, invocation.getThis(), method, invocation.getArguments());
@@ -65,4 +59,45 @@ public class CacheInterceptor extends CacheAspectSupport implements MethodInterc
 		}
 	}
 
+
+	/**
+	 * {@link CacheOperationInvoker} proceeding with an AOP Alliance MethodInvocation.
+	 */
+	private static class MethodInvocationInvoker implements CacheOperationInvoker {
+
+		protected final MethodInvocation invocation;
+
+		public MethodInvocationInvoker(MethodInvocation invocation) {
+			this.invocation = invocation;
+		}
+
+		@Override
+		public Object invoke() {
+			try {
+				return this.invocation.proceed();
+			}
+			catch (Throwable ex) {
+				throw new ThrowableWrapper(ex);
+			}
+		}
+	}
+
+
+	/**
+	 * {@link SmartCacheOperationInvoker} for a Spring AOP {@link ProxyMethodInvocation},
+	 * creating independent invokers from clones of the invocation.
+	 */
+	private static class ProxyMethodInvocationInvoker extends MethodInvocationInvoker
+			implements SmartCacheOperationInvoker {
+
+		public ProxyMethodInvocationInvoker(ProxyMethodInvocation invocation) {
+			super(invocation);
+		}
+
+		@Override
+		public CacheOperationInvoker invocableClone(Object... arguments) {
+			return new MethodInvocationInvoker(((ProxyMethodInvocation) this.invocation).invocableClone(arguments));
+		}
+	}
+
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2013 the original author or authors.
+ * Copyright 2002-2014 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -27,6 +27,12 @@ public class CacheableOperation extends CacheOperation {
 
 	private String unless;
 
+	private boolean sync;
+
+	private long refreshAfter;
+
+	private boolean bulk;
+
 
 	public String getUnless() {
 		return unless;
@@ -36,12 +42,79 @@ public class CacheableOperation extends CacheOperation {
 		this.unless = unless;
 	}
 
+	/**
+	 * Return whether concurrent invocations for the same key
+	 * share a single method invocation.
+	 * @since 4.1
+	 */
+	public boolean isSync() {
+		return this.sync;
+	}
+
+	/**
+	 * Set whether concurrent invocations for the same key should share
+	 * a single method invocation, through {@link org.springframework.cache.Cache#get(Object, java.util.concurrent.Callable)}.
+	 * @since 4.1
+	 */
+	public void setSync(boolean sync) {
+		this.sync = sync;
+	}
+
+	/**
+	 * Return the number of milliseconds after which a cached value is
+	 * refreshed in the background, or 0 if no refresh-ahead applies.
+	 * @since 4.1
+	 */
+	public long getRefreshAfter() {
+		return this.refreshAfter;
+	}
+
+	/**
+	 * Set the number of milliseconds after which a cached value is considered
+	 * stale: it keeps being served while the method gets invoked in the
+	 * background to refresh it. Default is 0, indicating no refresh-ahead.
+	 * @since 4.1
+	 */
+	public void setRefreshAfter(long refreshAfter) {
+		this.refreshAfter = refreshAfter;
+	}
+
+	/**
+	 * Return whether the elements of the method's {@link java.util.Collection}
+	 * argument are used as individual cache keys.
+	 * @since 4.1
+	 */
+	public boolean isBulk() {
+		return this.bulk;
+	}
+
+	/**
+	 * Set whether the elements of the method's {@link java.util.Collection} argument
+	 * should be used as individual cache keys, with the method returning a
+	 * {@link java.util.Map} of values by key and only being invoked for the keys
+	 * missing from the cache.
+	 * @since 4.1
+	 * @see org.springframework.cache.BulkCache
+	 */
+	public void setBulk(boolean bulk) {
+		this.bulk = bulk;
+	}
+
 	@Override
 	protected StringBuilder getOperationDescription() {
 		StringBuilder sb = super.getOperationDescription();
 		sb.append(" | unless='");
 		sb.append(this.unless);
 		sb.append("'");
+		sb.append(" | sync='");
+		sb.append(this.sync);
+		sb.append("'");
+		sb.append(" | refreshAfter='");
+		sb.append(this.refreshAfter);
+		sb.append("'");
+		sb.append(" | bulk='");
+		sb.append(this.bulk);
+		sb.append("'");
 		return sb;
 	}
 }
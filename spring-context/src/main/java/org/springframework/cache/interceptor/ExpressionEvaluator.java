@@ -21,6 +21,7 @@ import java.util.Collection;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
+import org.springframework.aop.support.AopUtils;
 import org.springframework.cache.Cache;
 import org.springframework.core.DefaultParameterNameDiscoverer;
 import org.springframework.core.ParameterNameDiscoverer;
@@ -61,6 +62,9 @@ class ExpressionEvaluator {
 	private final Map<ExpressionKey, Expression> unlessCache
 			= new ConcurrentHashMap<ExpressionKey, Expression>(64);
 
+	private final Map<ExpressionKey, SimpleCacheExpression> simpleExpressionCache
+			= new ConcurrentHashMap<ExpressionKey, SimpleCacheExpression>(64);
+
 	private final Map<MethodCacheKey, Method> targetMethodCache = new ConcurrentHashMap<MethodCacheKey, Method>(64);
 
 
@@ -113,6 +117,84 @@ class ExpressionEvaluator {
 				evalContext, boolean.class);
 	}
 
+	/**
+	 * Evaluate the given key expression directly against the method arguments,
+	 * if it is simple enough to not require an {@link EvaluationContext}.
+	 * @param keyExpression the key expression
+	 * @param methodKey the cache key of the method
+	 * @param method the method
+	 * @param targetClass the target class
+	 * @param args the method arguments
+	 * @param result the return value (can be {@code null}) or
+	 *        {@link #NO_RESULT} if there is no return at this time
+	 * @return the key, or {@link SimpleCacheExpression#UNRESOLVED} if the
+	 *         expression needs to be evaluated through {@link #key}
+	 * @since 4.1
+	 */
+	public Object simpleKey(String keyExpression, MethodCacheKey methodKey,
+			Method method, Class<?> targetClass, Object[] args, Object result) {
+		return getSimpleExpression(this.keyCache, keyExpression, methodKey, method, targetClass)
+				.getValue(args, result);
+	}
+
+	/**
+	 * Evaluate the given condition expression directly against the method
+	 * arguments, if it is simple enough to not require an {@link EvaluationContext}.
+	 * @return the outcome, or {@code null} if the expression needs to be
+	 *         evaluated through {@link #condition}
+	 * @since 4.1
+	 * @see #simpleKey
+	 */
+	public Boolean simpleCondition(String conditionExpression, MethodCacheKey methodKey,
+			Method method, Class<?> targetClass, Object[] args, Object result) {
+		return asBoolean(getSimpleExpression(this.conditionCache, conditionExpression, methodKey, method, targetClass)
+				.getValue(args, result));
+	}
+
+	/**
+	 * Evaluate the given unless expression directly against the method
+	 * arguments, if it is simple enough to not require an {@link EvaluationContext}.
+	 * @return the outcome, or {@code null} if the expression needs to be
+	 *         evaluated through {@link #unless}
+	 * @since 4.1
+	 * @see #simpleKey
+	 */
+	public Boolean simpleUnless(String unlessExpression, MethodCacheKey methodKey,
+			Method method, Class<?> targetClass, Object[] args, Object result) {
+		return asBoolean(getSimpleExpression(this.unlessCache, unlessExpression, methodKey, method, targetClass)
+				.getValue(args, result));
+	}
+
+	private Boolean asBoolean(Object value) {
+		// anything but a Boolean goes through SpEL's type conversion
+		return (value instanceof Boolean ? (Boolean) value : null);
+	}
+
+	private SimpleCacheExpression getSimpleExpression(Map<ExpressionKey, Expression> cache, String expression,
+			MethodCacheKey methodKey, Method method, Class<?> targetClass) {
+		ExpressionKey key = createKey(methodKey, expression);
+		SimpleCacheExpression rtn = this.simpleExpressionCache.get(key);
+		if (rtn == null) {
+			String[] parameterNames = this.paramNameDiscoverer.getParameterNames(getTargetMethod(method, targetClass));
+			rtn = SimpleCacheExpression.from(getExpression(cache, expression, methodKey), parameterNames);
+			this.simpleExpressionCache.put(key, rtn);
+		}
+		return rtn;
+	}
+
+	private Method getTargetMethod(Method method, Class<?> targetClass) {
+		MethodCacheKey methodKey = new MethodCacheKey(method, targetClass);
+		Method targetMethod = this.targetMethodCache.get(methodKey);
+		if (targetMethod == null) {
+			targetMethod = AopUtils.getMostSpecificMethod(method, targetClass);
+			if (targetMethod == null) {
+				targetMethod = method;
+			}
+			this.targetMethodCache.put(methodKey, targetMethod);
+		}
+		return targetMethod;
+	}
+
 	private Expression getExpression(Map<ExpressionKey, Expression> cache, String expression, MethodCacheKey methodKey) {
 		ExpressionKey key = createKey(methodKey, expression);
 		Expression rtn = cache.get(key);
@@ -0,0 +1,346 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.interceptor;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.SpelNode;
+import org.springframework.expression.spel.ast.CompoundExpression;
+import org.springframework.expression.spel.ast.NullLiteral;
+import org.springframework.expression.spel.ast.OpEQ;
+import org.springframework.expression.spel.ast.OpNE;
+import org.springframework.expression.spel.ast.OpPlus;
+import org.springframework.expression.spel.ast.PropertyOrFieldReference;
+import org.springframework.expression.spel.ast.StringLiteral;
+import org.springframework.expression.spel.ast.VariableReference;
+import org.springframework.expression.spel.standard.SpelExpression;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.util.StringUtils;
+
+/**
+ * Fast path for common cache expressions, evaluated directly against the
+ * method arguments without building an {@link org.springframework.expression.EvaluationContext}.
+ *
+ * <p>Recognizes references to method parameters (by name or as {@code #p0} /
+ * {@code #a0}) and to {@code #result}, bean property navigation on those
+ * ({@code #param.property}), String concatenation with literals, as well as
+ * {@code == null} / {@code != null} checks.
+ *
+ * <p>Evaluation returns {@link #UNRESOLVED} whenever the actual arguments
+ * fall outside of what the fast path reproduces faithfully (e.g. a property
+ * without a public getter, or a {@code null} intermediate value), in which
+ * case the caller is expected to evaluate the full SpEL expression instead.
+ *
+ * @author agent
+ * @since 4.1
+ * @see ExpressionEvaluator
+ */
+abstract class SimpleCacheExpression {
+
+	/**
+	 * Marker returned when the fast path cannot determine the value.
+	 */
+	public static final Object UNRESOLVED = new Object();
+
+	/**
+	 * Placeholder for expressions that are not supported by the fast path.
+	 */
+	public static final SimpleCacheExpression NONE = new Literal(UNRESOLVED);
+
+
+	/**
+	 * Evaluate this expression against the given invocation state.
+	 * @param args the method arguments
+	 * @param result the return value (can be {@code null}) or
+	 * {@link ExpressionEvaluator#NO_RESULT} if there is no return at this time
+	 * @return the value, or {@link #UNRESOLVED}
+	 */
+	public abstract Object getValue(Object[] args, Object result);
+
+
+	/**
+	 * Build a fast-path representation of the given parsed expression.
+	 * @param expression the parsed SpEL expression
+	 * @param parameterNames the parameter names of the target method (may be {@code null})
+	 * @return the fast-path expression, or {@link #NONE} if the expression
+	 * is not simple enough and always needs full SpEL evaluation
+	 */
+	public static SimpleCacheExpression from(Expression expression, String[] parameterNames) {
+		SimpleCacheExpression simple = null;
+		if (expression instanceof SpelExpression) {
+			simple = build(((SpelExpression) expression).getAST(), parameterNames);
+		}
+		return (simple != null ? simple : NONE);
+	}
+
+	private static SimpleCacheExpression build(SpelNode node, String[] parameterNames) {
+		if (node instanceof VariableReference) {
+			return buildVariable(node.toStringAST().substring(1), parameterNames);
+		}
+		if (node instanceof StringLiteral) {
+			return new Literal(((StringLiteral) node).getLiteralValue().getValue());
+		}
+		if (node instanceof CompoundExpression) {
+			SimpleCacheExpression current = build(node.getChild(0), parameterNames);
+			for (int i = 1; current != null && i < node.getChildCount(); i++) {
+				SpelNode child = node.getChild(i);
+				if (!(child instanceof PropertyOrFieldReference) || ((PropertyOrFieldReference) child).isNullSafe()) {
+					return null;
+				}
+				current = new Property(current, ((PropertyOrFieldReference) child).getName());
+			}
+			return current;
+		}
+		if (node instanceof OpPlus && node.getChildCount() == 2) {
+			SimpleCacheExpression left = build(node.getChild(0), parameterNames);
+			SimpleCacheExpression right = build(node.getChild(1), parameterNames);
+			return (left != null && right != null ? new Concatenation(left, right) : null);
+		}
+		if ((node instanceof OpEQ || node instanceof OpNE) && node.getChildCount() == 2) {
+			SpelNode operand = (node.getChild(1) instanceof NullLiteral ? node.getChild(0) :
+					(node.getChild(0) instanceof NullLiteral ? node.getChild(1) : null));
+			SimpleCacheExpression target = (operand != null ? build(operand, parameterNames) : null);
+			return (target != null ? new NullCheck(target, node instanceof OpEQ) : null);
+		}
+		return null;
+	}
+
+	/**
+	 * Resolve a variable the same way as {@link LazyParamAwareEvaluationContext}:
+	 * the return value if any, then parameter names, then indexed variables.
+	 */
+	private static SimpleCacheExpression buildVariable(String name, String[] parameterNames) {
+		if (name.equals("root") || name.equals("this")) {
+			return null;
+		}
+		if (parameterNames != null) {
+			for (int i = 0; i < parameterNames.length; i++) {
+				if (name.equals(parameterNames[i])) {
+					// A parameter named "result" would clash with the return value
+					return (name.equals("result") ? null : new Argument(i));
+				}
+			}
+		}
+		if (name.equals("result")) {
+			return new Result();
+		}
+		if (name.length() > 1 && (name.charAt(0) == 'a' || name.charAt(0) == 'p')) {
+			String index = name.substring(1);
+			// Only canonical indexes, e.g. not "p01": the context registers "p" + i
+			if (index.length() > 1 && index.charAt(0) == '0') {
+				return null;
+			}
+			for (int i = 0; i < index.length(); i++) {
+				if (!Character.isDigit(index.charAt(i))) {
+					return null;
+				}
+			}
+			return (index.length() < 10 ? new Argument(Integer.parseInt(index)) : null);
+		}
+		return null;
+	}
+
+
+	private static class Argument extends SimpleCacheExpression {
+
+		private final int index;
+
+		public Argument(int index) {
+			this.index = index;
+		}
+
+		@Override
+		public Object getValue(Object[] args, Object result) {
+			return (args != null && this.index < args.length ? args[this.index] : UNRESOLVED);
+		}
+	}
+
+
+	private static class Result extends SimpleCacheExpression {
+
+		@Override
+		public Object getValue(Object[] args, Object result) {
+			return (result != ExpressionEvaluator.NO_RESULT ? result : UNRESOLVED);
+		}
+	}
+
+
+	private static class Literal extends SimpleCacheExpression {
+
+		private final Object value;
+
+		public Literal(Object value) {
+			this.value = value;
+		}
+
+		@Override
+		public Object getValue(Object[] args, Object result) {
+			return this.value;
+		}
+	}
+
+
+	/**
+	 * Bean property access through a public getter, caching the getter
+	 * for the last target class seen.
+	 */
+	private static class Property extends SimpleCacheExpression {
+
+		private final SimpleCacheExpression target;
+
+		private final String name;
+
+		private volatile GetterHolder getter;
+
+		public Property(SimpleCacheExpression target, String name) {
+			this.target = target;
+			this.name = name;
+		}
+
+		@Override
+		public Object getValue(Object[] args, Object result) {
+			Object targetValue = this.target.getValue(args, result);
+			if (targetValue == null || targetValue == UNRESOLVED || targetValue instanceof Class ||
+					targetValue.getClass().isArray()) {
+				return UNRESOLVED;
+			}
+			GetterHolder holder = this.getter;
+			if (holder == null || holder.targetClass != targetValue.getClass()) {
+				holder = new GetterHolder(targetValue.getClass(), findGetter(targetValue.getClass()));
+				this.getter = holder;
+			}
+			if (holder.method == null) {
+				return UNRESOLVED;
+			}
+			try {
+				return holder.method.invoke(targetValue);
+			}
+			catch (Exception ex) {
+				// Let full SpEL evaluation report the failure
+				return UNRESOLVED;
+			}
+		}
+
+		private Method findGetter(Class<?> clazz) {
+			String propertyName = StringUtils.capitalize(this.name);
+			Method method = ClassUtils.getMethodIfAvailable(clazz, "get" + propertyName);
+			if (method == null) {
+				method = ClassUtils.getMethodIfAvailable(clazz, "is" + propertyName);
+				if (method != null && method.getReturnType() != boolean.class && method.getReturnType() != Boolean.class) {
+					method = null;
+				}
+			}
+			if (method == null || !Modifier.isPublic(method.getModifiers()) ||
+					Modifier.isStatic(method.getModifiers())) {
+				return null;
+			}
+			ReflectionUtils.makeAccessible(method);
+			return method;
+		}
+	}
+
+
+	private static class GetterHolder {
+
+		final Class<?> targetClass;
+
+		final Method method;
+
+		public GetterHolder(Class<?> targetClass, Method method) {
+			this.targetClass = targetClass;
+			this.method = method;
+		}
+	}
+
+
+	/**
+	 * String concatenation, following SpEL's {@code OpPlus} for String operands.
+	 * Numeric addition and non-trivial String conversions are left to SpEL.
+	 */
+	private static class Concatenation extends SimpleCacheExpression {
+
+		private final SimpleCacheExpression left;
+
+		private final SimpleCacheExpression right;
+
+		public Concatenation(SimpleCacheExpression left, SimpleCacheExpression right) {
+			this.left = left;
+			this.right = right;
+		}
+
+		@Override
+		public Object getValue(Object[] args, Object result) {
+			Object leftValue = this.left.getValue(args, result);
+			if (leftValue == UNRESOLVED) {
+				return UNRESOLVED;
+			}
+			Object rightValue = this.right.getValue(args, result);
+			if (rightValue == UNRESOLVED) {
+				return UNRESOLVED;
+			}
+			if (leftValue instanceof String) {
+				String rightString = asString(rightValue);
+				return (rightString != null ? ((String) leftValue).concat(rightString) : UNRESOLVED);
+			}
+			if (rightValue instanceof String) {
+				String leftString = asString(leftValue);
+				return (leftString != null ? leftString.concat((String) rightValue) : UNRESOLVED);
+			}
+			return UNRESOLVED;
+		}
+
+		private String asString(Object value) {
+			if (value == null) {
+				return "null";
+			}
+			if (value instanceof String || value instanceof Number || value instanceof Boolean ||
+					value instanceof Character) {
+				return value.toString();
+			}
+			if (value instanceof Enum) {
+				return ((Enum<?>) value).name();
+			}
+			return null;
+		}
+	}
+
+
+	private static class NullCheck extends SimpleCacheExpression {
+
+		private final SimpleCacheExpression target;
+
+		private final boolean equal;
+
+		public NullCheck(SimpleCacheExpression target, boolean equal) {
+			this.target = target;
+			this.equal = equal;
+		}
+
+		@Override
+		public Object getValue(Object[] args, Object result) {
+			Object value = this.target.getValue(args, result);
+			if (value == UNRESOLVED) {
+				return UNRESOLVED;
+			}
+			return ((value == null) == this.equal);
+		}
+	}
+
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.interceptor;
+
+/**
+ * Extension of the {@link CacheOperationInvoker} interface for invokers
+ * that are able to invoke the underlying operation again, independently
+ * of the current invocation.
+ *
+ * <p>Required for refreshing stale cache entries in the background, as well
+ * as for invoking bulk operations with the cache keys that have not been
+ * found only. With a plain {@code CacheOperationInvoker}, stale entries get
+ * refreshed within the current invocation, and bulk operations get invoked
+ * with all cache keys if any of them is missing.
+ *
+ * @author agent
+ * @since 4.1
+ * @see org.springframework.aop.ProxyMethodInvocation#invocableClone(Object...)
+ */
+public interface SmartCacheOperationInvoker extends CacheOperationInvoker {
+
+	/**
+	 * Create an invoker for the same operation with the given arguments,
+	 * which may be invoked at any later point and on any thread.
+	 * <p>Needs to be called before {@link #invoke()} has been called on
+	 * this invoker, since the clone proceeds from the current state.
+	 * @param arguments the arguments to invoke the operation with
+	 * @return an independent invoker for the operation
+	 */
+	CacheOperationInvoker invocableClone(Object... arguments);
+
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.support;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.cache.BulkCache;
+import org.springframework.cache.Cache;
+
+/**
+ * Utility methods for multi-key operations against any {@link Cache},
+ * delegating to {@link BulkCache} where supported and falling back
+ * to single-key operations otherwise.
+ *
+ * @author agent
+ * @since 4.1
+ */
+public abstract class BulkCacheUtils {
+
+	/**
+	 * Return the values to which the given cache maps the specified keys.
+	 * @param cache the cache to look up the keys in
+	 * @param keys the keys whose associated values are to be returned
+	 * @return a Map from each key found in the cache to a wrapper for its value
+	 * @see BulkCache#getAll
+	 */
+	public static Map<Object, Cache.ValueWrapper> getAll(Cache cache, Collection<?> keys) {
+		if (cache instanceof BulkCache) {
+			return ((BulkCache) cache).getAll(keys);
+		}
+		Map<Object, Cache.ValueWrapper> result = new LinkedHashMap<Object, Cache.ValueWrapper>(keys.size());
+		for (Object key : keys) {
+			Cache.ValueWrapper wrapper = cache.get(key);
+			if (wrapper != null) {
+				result.put(key, wrapper);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Associate all of the specified key-value pairs with the given cache.
+	 * @param cache the cache to store the entries in
+	 * @param entries the key-value pairs to be stored
+	 * @see BulkCache#putAll
+	 */
+	public static void putAll(Cache cache, Map<?, ?> entries) {
+		if (cache instanceof BulkCache) {
+			((BulkCache) cache).putAll(entries);
+			return;
+		}
+		for (Map.Entry<?, ?> entry : entries.entrySet()) {
+			cache.put(entry.getKey(), entry.getValue());
+		}
+	}
+
+}
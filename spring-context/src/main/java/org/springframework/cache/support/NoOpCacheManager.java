@@ -20,6 +20,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
@@ -99,6 +100,16 @@ public class NoOpCacheManager implements CacheManager {
 			return null;
 		}
 
+		@Override
+		public <T> T get(Object key, Callable<T> valueLoader) {
+			try {
+				return valueLoader.call();
+			}
+			catch (Exception ex) {
+				throw new ValueRetrievalException(key, valueLoader, ex);
+			}
+		}
+
 		@Override
 		public String getName() {
 			return this.name;
@@ -16,7 +16,9 @@
 
 package org.springframework.context.annotation;
 
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.lang.annotation.Annotation;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
@@ -31,6 +33,7 @@ import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
 import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.beans.factory.support.BeanDefinitionRegistry;
 import org.springframework.context.ResourceLoaderAware;
+import org.springframework.core.SpringProperties;
 import org.springframework.core.env.Environment;
 import org.springframework.core.env.EnvironmentCapable;
 import org.springframework.core.env.StandardEnvironment;
@@ -40,6 +43,7 @@ import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
 import org.springframework.core.io.support.ResourcePatternResolver;
 import org.springframework.core.io.support.ResourcePatternUtils;
 import org.springframework.core.type.classreading.CachingMetadataReaderFactory;
+import org.springframework.core.type.classreading.ClassMetadataIndex;
 import org.springframework.core.type.classreading.MetadataReader;
 import org.springframework.core.type.classreading.MetadataReaderFactory;
 import org.springframework.core.type.filter.AnnotationTypeFilter;
@@ -59,6 +63,11 @@ import org.springframework.util.ClassUtils;
  * {@link org.springframework.core.type.classreading.MetadataReader MetadataReader}
  * facility, backed by an ASM {@link org.springframework.asm.ClassReader ClassReader}.
  *
+ * <p>A {@link ClassMetadataIndex} may be persisted at a configurable
+ * {@linkplain #setMetadataIndexLocation location}, allowing subsequent scans
+ * to evaluate the type filters against indexed metadata instead of parsing
+ * every class file in the base packages.
+ *
  * @author Mark Fisher
  * @author Juergen Hoeller
  * @author Ramnivas Laddad
@@ -72,6 +81,13 @@ public class ClassPathScanningCandidateComponentProvider implements EnvironmentC
 
 	static final String DEFAULT_RESOURCE_PATTERN = "**/*.class";
 
+	/**
+	 * System property that specifies the default location of the class metadata
+	 * index: {@code "spring.metadata.index.location"}, e.g. a "file:" URL.
+	 * @see #setMetadataIndexLocation
+	 */
+	public static final String METADATA_INDEX_LOCATION_PROPERTY_NAME = "spring.metadata.index.location";
+
 	protected final Log logger = LogFactory.getLog(getClass());
 
 	private Environment environment;
@@ -89,6 +105,10 @@ public class ClassPathScanningCandidateComponentProvider implements EnvironmentC
 
 	private ConditionEvaluator conditionEvaluator;
 
+	private Resource metadataIndexLocation;
+
+	private ClassMetadataIndex metadataIndex;
+
 
 	/**
 	 * Create a ClassPathScanningCandidateComponentProvider with a {@link StandardEnvironment}.
@@ -158,6 +178,21 @@ public class ClassPathScanningCandidateComponentProvider implements EnvironmentC
 		return this.metadataReaderFactory;
 	}
 
+	/**
+	 * Set the location of a {@link ClassMetadataIndex} to consult when scanning,
+	 * provided that a {@link CachingMetadataReaderFactory} is being used.
+	 * <p>The index will be loaded from the given location if it exists, and
+	 * stored back to it after each scan that encountered classes missing from
+	 * the index, as long as the location resolves to a writable file. An index
+	 * generated at build time may therefore be shipped as a read-only resource.
+	 * <p>Default is the location specified by the
+	 * {@link #METADATA_INDEX_LOCATION_PROPERTY_NAME} system property, if any.
+	 */
+	public void setMetadataIndexLocation(Resource metadataIndexLocation) {
+		this.metadataIndexLocation = metadataIndexLocation;
+		this.metadataIndex = null;
+	}
+
 	/**
 	 * Set the Environment to use when resolving placeholders and evaluating
 	 * {@link Conditional @Conditional}-annotated component classes.
@@ -262,6 +297,7 @@ public class ClassPathScanningCandidateComponentProvider implements EnvironmentC
 	 */
 	public Set<BeanDefinition> findCandidateComponents(String basePackage) {
 		Set<BeanDefinition> candidates = new LinkedHashSet<BeanDefinition>();
+		ClassMetadataIndex index = prepareMetadataIndex();
 		try {
 			String packageSearchPath = ResourcePatternResolver.CLASSPATH_ALL_URL_PREFIX +
 					resolveBasePackage(basePackage) + "/" + this.resourcePattern;
@@ -312,9 +348,75 @@ public class ClassPathScanningCandidateComponentProvider implements EnvironmentC
 		catch (IOException ex) {
 			throw new BeanDefinitionStoreException("I/O failure during classpath scanning", ex);
 		}
+		if (index != null && index.isModified()) {
+			storeMetadataIndex(index);
+		}
 		return candidates;
 	}
 
+	/**
+	 * Load the class metadata index, if any, and expose it to the
+	 * MetadataReaderFactory in use.
+	 * @return the index, or {@code null} if none is to be used
+	 */
+	private ClassMetadataIndex prepareMetadataIndex() {
+		if (!(this.metadataReaderFactory instanceof CachingMetadataReaderFactory)) {
+			return null;
+		}
+		if (this.metadataIndexLocation == null) {
+			String location = SpringProperties.getProperty(METADATA_INDEX_LOCATION_PROPERTY_NAME);
+			if (location == null) {
+				return null;
+			}
+			this.metadataIndexLocation = this.resourcePatternResolver.getResource(location);
+		}
+		if (this.metadataIndex == null) {
+			this.metadataIndex = new ClassMetadataIndex();
+			if (this.metadataIndexLocation.exists()) {
+				try {
+					this.metadataIndex.load(this.metadataIndexLocation);
+					if (logger.isDebugEnabled()) {
+						logger.debug("Loaded " + this.metadataIndex.size() + " class metadata index entries from " +
+								this.metadataIndexLocation);
+					}
+				}
+				catch (IOException ex) {
+					logger.warn("Could not load class metadata index from " + this.metadataIndexLocation, ex);
+				}
+			}
+		}
+		CachingMetadataReaderFactory cmrf = (CachingMetadataReaderFactory) this.metadataReaderFactory;
+		if (cmrf.getMetadataIndex() != this.metadataIndex) {
+			cmrf.setMetadataIndex(this.metadataIndex);
+		}
+		return this.metadataIndex;
+	}
+
+	/**
+	 * Store the given class metadata index at the configured location,
+	 * if that location resolves to a writable file.
+	 */
+	private void storeMetadataIndex(ClassMetadataIndex index) {
+		try {
+			OutputStream os = new FileOutputStream(this.metadataIndexLocation.getFile());
+			try {
+				index.store(os);
+			}
+			finally {
+				os.close();
+			}
+			if (logger.isDebugEnabled()) {
+				logger.debug("Stored " + index.size() + " class metadata index entries to " +
+						this.metadataIndexLocation);
+			}
+		}
+		catch (IOException ex) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Could not store class metadata index to " + this.metadataIndexLocation, ex);
+			}
+		}
+	}
+
 
 	/**
 	 * Resolve the specified base package into a pattern specification for
@@ -0,0 +1,422 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.scheduling.concurrent;
+
+import java.util.Date;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.Trigger;
+import org.springframework.scheduling.support.TaskUtils;
+import org.springframework.util.Assert;
+import org.springframework.util.ErrorHandler;
+
+/**
+ * {@link TaskScheduler} decorator that keeps one-shot tasks scheduled through
+ * {@link #schedule(Runnable, Date)} in a hashed timing wheel, driven by a single
+ * periodic tick on the target scheduler. All other scheduling methods are
+ * delegated to the target scheduler as-is.
+ *
+ * <p>Scheduling and cancelling a one-shot task are O(1) operations that do not
+ * touch the target scheduler's delay queue, which makes this implementation a
+ * good fit for large numbers of short-lived timeouts that are mostly cancelled
+ * before they expire, such as heartbeats for many concurrent connections.
+ * The trade-off is precision: tasks fire on the first tick at or after their
+ * scheduled time, i.e. with a delay of up to one tick duration.
+ *
+ * <p>The wheel runs on {@link System#nanoTime()}: a task's scheduled time is
+ * converted into a delay once, when the task gets scheduled, so that changes
+ * to the system clock do not affect tasks that are already in the wheel.
+ *
+ * <p>Expired tasks are handed to the configured {@link #setTaskExecutor executor}.
+ * By default, the target scheduler is used if it is an {@link Executor} itself
+ * (as is the case for {@link ThreadPoolTaskScheduler}); otherwise tasks run
+ * on the thread executing the tick.
+ *
+ * @author agent
+ * @since 4.1
+ * @see ThreadPoolTaskScheduler
+ */
+public class HashedWheelTaskScheduler implements TaskScheduler, DisposableBean {
+
+	/**
+	 * The default tick duration in milliseconds.
+	 */
+	public static final long DEFAULT_TICK_DURATION = 100;
+
+	/**
+	 * The default number of ticks per wheel revolution.
+	 */
+	public static final int DEFAULT_TICKS_PER_WHEEL = 512;
+
+
+	/** The maximum delay of a one-shot task in milliseconds */
+	private static final long MAX_DELAY = TimeUnit.NANOSECONDS.toMillis(Long.MAX_VALUE >> 2);
+
+	private static final Log logger = LogFactory.getLog(HashedWheelTaskScheduler.class);
+
+	private final TaskScheduler targetScheduler;
+
+	private final long tickDuration;
+
+	/** The tick duration in nanoseconds */
+	private final long tickNanos;
+
+	private final Bucket[] wheel;
+
+	private final int mask;
+
+	private final Queue<WheelTask> pendingTasks = new ConcurrentLinkedQueue<WheelTask>();
+
+	private final Queue<WheelTask> cancelledTasks = new ConcurrentLinkedQueue<WheelTask>();
+
+	private volatile Executor taskExecutor;
+
+	private volatile ErrorHandler errorHandler;
+
+	private final Object lifecycleMonitor = new Object();
+
+	private volatile ScheduledFuture<?> tickFuture;
+
+	private volatile boolean shutdown;
+
+	/** The System.nanoTime() value that the ticks are counted from */
+	private long startTime;
+
+	private long tick;
+
+
+	/**
+	 * Create a new HashedWheelTaskScheduler with default tick settings.
+	 * @param targetScheduler the scheduler to drive the tick with and to
+	 * delegate periodic and trigger-based tasks to
+	 */
+	public HashedWheelTaskScheduler(TaskScheduler targetScheduler) {
+		this(targetScheduler, DEFAULT_TICK_DURATION, DEFAULT_TICKS_PER_WHEEL);
+	}
+
+	/**
+	 * Create a new HashedWheelTaskScheduler.
+	 * @param targetScheduler the scheduler to drive the tick with and to
+	 * delegate periodic and trigger-based tasks to
+	 * @param tickDuration the duration of a tick in milliseconds, i.e. the
+	 * precision of scheduled one-shot tasks
+	 * @param ticksPerWheel the number of buckets in the wheel
+	 * (rounded up to the next power of two)
+	 */
+	public HashedWheelTaskScheduler(TaskScheduler targetScheduler, long tickDuration, int ticksPerWheel) {
+		Assert.notNull(targetScheduler, "Target TaskScheduler must not be null");
+		Assert.isTrue(tickDuration > 0, "'tickDuration' must be positive");
+		Assert.isTrue(ticksPerWheel > 0 && ticksPerWheel <= (1 << 30),
+				"'ticksPerWheel' must be between 1 and 2^30");
+		this.targetScheduler = targetScheduler;
+		this.tickDuration = tickDuration;
+		this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickDuration);
+		int size = 1;
+		while (size < ticksPerWheel) {
+			size <<= 1;
+		}
+		this.wheel = new Bucket[size];
+		for (int i = 0; i < size; i++) {
+			this.wheel[i] = new Bucket();
+		}
+		this.mask = size - 1;
+		if (targetScheduler instanceof Executor) {
+			this.taskExecutor = (Executor) targetScheduler;
+		}
+	}
+
+
+	/**
+	 * Set the executor to run expired one-shot tasks with.
+	 * <p>Default is the target scheduler if it implements {@link Executor}.
+	 * Specify {@code null} to run expired tasks on the tick thread.
+	 */
+	public void setTaskExecutor(Executor taskExecutor) {
+		this.taskExecutor = taskExecutor;
+	}
+
+	/**
+	 * Set a custom {@link ErrorHandler} strategy for one-shot tasks.
+	 */
+	public void setErrorHandler(ErrorHandler errorHandler) {
+		this.errorHandler = errorHandler;
+	}
+
+	/**
+	 * Return the duration of a tick in milliseconds.
+	 */
+	public long getTickDuration() {
+		return this.tickDuration;
+	}
+
+
+	@Override
+	public ScheduledFuture<?> schedule(Runnable task, Trigger trigger) {
+		return this.targetScheduler.schedule(task, trigger);
+	}
+
+	@Override
+	public ScheduledFuture<?> schedule(Runnable task, Date startTime) {
+		if (this.shutdown) {
+			throw new TaskRejectedException("HashedWheelTaskScheduler has been shut down - did not accept task: " + task);
+		}
+		startIfNecessary();
+		// Capped at roughly 73 years, keeping nanoTime arithmetic clear of overflow
+		long delay = Math.min(startTime.getTime() - System.currentTimeMillis(), MAX_DELAY);
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delay);
+		WheelTask wheelTask = new WheelTask(
+				TaskUtils.decorateTaskWithErrorHandler(task, this.errorHandler, false), deadline);
+		this.pendingTasks.add(wheelTask);
+		return wheelTask;
+	}
+
+	@Override
+	public ScheduledFuture<?> scheduleAtFixedRate(Runnable task, Date startTime, long period) {
+		return this.targetScheduler.scheduleAtFixedRate(task, startTime, period);
+	}
+
+	@Override
+	public ScheduledFuture<?> scheduleAtFixedRate(Runnable task, long period) {
+		return this.targetScheduler.scheduleAtFixedRate(task, period);
+	}
+
+	@Override
+	public ScheduledFuture<?> scheduleWithFixedDelay(Runnable task, Date startTime, long delay) {
+		return this.targetScheduler.scheduleWithFixedDelay(task, startTime, delay);
+	}
+
+	@Override
+	public ScheduledFuture<?> scheduleWithFixedDelay(Runnable task, long delay) {
+		return this.targetScheduler.scheduleWithFixedDelay(task, delay);
+	}
+
+	/**
+	 * Stop the tick, discarding all one-shot tasks that have not expired yet.
+	 */
+	@Override
+	public void destroy() {
+		synchronized (this.lifecycleMonitor) {
+			this.shutdown = true;
+			if (this.tickFuture != null) {
+				this.tickFuture.cancel(false);
+				this.tickFuture = null;
+			}
+		}
+		this.pendingTasks.clear();
+	}
+
+
+	private void startIfNecessary() {
+		if (this.tickFuture == null) {
+			synchronized (this.lifecycleMonitor) {
+				if (this.tickFuture == null && !this.shutdown) {
+					this.startTime = System.nanoTime();
+					this.tickFuture = this.targetScheduler.scheduleAtFixedRate(new Runnable() {
+						@Override
+						public void run() {
+							try {
+								tick();
+							}
+							catch (Throwable ex) {
+								logger.error("Failed to process scheduled tasks", ex);
+							}
+						}
+					}, this.tickDuration);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Process all ticks up to the current time: register newly scheduled tasks
+	 * in their buckets, remove cancelled tasks, and run the expired ones.
+	 */
+	private void tick() {
+		synchronized (this.lifecycleMonitor) {
+			long now = System.nanoTime();
+			long targetTick = (now - this.startTime) / this.tickNanos;
+			while (this.tick <= targetTick && !this.shutdown) {
+				removeCancelledTasks();
+				transferPendingTasks();
+				expireTasks(this.wheel[(int) (this.tick & this.mask)]);
+				this.tick++;
+			}
+		}
+	}
+
+	private void removeCancelledTasks() {
+		WheelTask task;
+		while ((task = this.cancelledTasks.poll()) != null) {
+			if (task.bucket != null) {
+				task.bucket.remove(task);
+			}
+		}
+	}
+
+	private void transferPendingTasks() {
+		WheelTask task;
+		while ((task = this.pendingTasks.poll()) != null) {
+			if (task.isCancelled()) {
+				continue;
+			}
+			// Round up so that a task never fires before its scheduled time
+			long calculated = (task.deadline - this.startTime + this.tickNanos - 1) / this.tickNanos;
+			long ticks = Math.max(calculated, this.tick);
+			task.remainingRounds = (ticks - this.tick) / this.wheel.length;
+			this.wheel[(int) (ticks & this.mask)].add(task);
+		}
+	}
+
+	private void expireTasks(Bucket bucket) {
+		WheelTask task = bucket.head;
+		while (task != null) {
+			WheelTask next = task.next;
+			if (task.remainingRounds <= 0) {
+				bucket.remove(task);
+				if (!task.isCancelled()) {
+					execute(task);
+				}
+			}
+			else if (task.isCancelled()) {
+				bucket.remove(task);
+			}
+			else {
+				task.remainingRounds--;
+			}
+			task = next;
+		}
+	}
+
+	private void execute(WheelTask task) {
+		Executor executor = this.taskExecutor;
+		if (executor != null) {
+			try {
+				executor.execute(task);
+				return;
+			}
+			catch (RejectedExecutionException ex) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Executor rejected expired task - running it on tick thread: " + ex);
+				}
+			}
+		}
+		task.run();
+	}
+
+
+	/**
+	 * A one-shot task, linked into its wheel bucket.
+	 * The link fields are only accessed while holding the lifecycle monitor.
+	 */
+	private class WheelTask extends FutureTask<Object> implements ScheduledFuture<Object> {
+
+		/** The System.nanoTime() value that the task is due at */
+		private final long deadline;
+
+		private long remainingRounds;
+
+		private Bucket bucket;
+
+		private WheelTask prev;
+
+		private WheelTask next;
+
+		public WheelTask(Runnable task, long deadline) {
+			super(task, null);
+			this.deadline = deadline;
+		}
+
+		@Override
+		public boolean cancel(boolean mayInterruptIfRunning) {
+			boolean cancelled = super.cancel(mayInterruptIfRunning);
+			if (cancelled) {
+				cancelledTasks.add(this);
+			}
+			return cancelled;
+		}
+
+		@Override
+		public long getDelay(TimeUnit unit) {
+			return unit.convert(this.deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+		}
+
+		@Override
+		public int compareTo(Delayed other) {
+			if (this == other) {
+				return 0;
+			}
+			long diff = getDelay(TimeUnit.NANOSECONDS) - other.getDelay(TimeUnit.NANOSECONDS);
+			return (diff == 0 ? 0 : (diff < 0 ? -1 : 1));
+		}
+	}
+
+
+	/**
+	 * Doubly-linked list of the tasks in a wheel slot.
+	 */
+	private static class Bucket {
+
+		private WheelTask head;
+
+		private WheelTask tail;
+
+		public void add(WheelTask task) {
+			task.bucket = this;
+			if (this.head == null) {
+				this.head = task;
+				this.tail = task;
+			}
+			else {
+				this.tail.next = task;
+				task.prev = this.tail;
+				this.tail = task;
+			}
+		}
+
+		public void remove(WheelTask task) {
+			if (task.prev != null) {
+				task.prev.next = task.next;
+			}
+			else {
+				this.head = task.next;
+			}
+			if (task.next != null) {
+				task.next.prev = task.prev;
+			}
+			else {
+				this.tail = task.prev;
+			}
+			task.prev = null;
+			task.next = null;
+			task.bucket = null;
+		}
+	}
+
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.concurrent;
+
+import org.junit.Test;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author agent
+ */
+public class BoundedConcurrentMapCacheManagerTests {
+
+	@Test
+	public void testDynamicMode() {
+		BoundedConcurrentMapCacheManager cm = new BoundedConcurrentMapCacheManager();
+		cm.setMaximumSize(2);
+		Cache cache1 = cm.getCache("c1");
+		assertTrue(cache1 instanceof BoundedConcurrentMapCache);
+		assertSame(cache1, cm.getCache("c1"));
+		assertEquals(2, ((BoundedConcurrentMapCache) cache1).getMaximumSize());
+
+		cache1.put("key1", "value1");
+		assertEquals("value1", cache1.get("key1").get());
+		cache1.put("key2", null);
+		assertNull(cache1.get("key2").get());
+		cache1.evict("key2");
+		assertNull(cache1.get("key2"));
+	}
+
+	@Test
+	public void testStaticMode() {
+		CacheManager cm = new BoundedConcurrentMapCacheManager("c1", "c2");
+		Cache cache1 = cm.getCache("c1");
+		assertTrue(cache1 instanceof BoundedConcurrentMapCache);
+		assertSame(cache1, cm.getCache("c1"));
+		assertNotNull(cm.getCache("c2"));
+		assertNull(cm.getCache("c3"));
+	}
+
+	@Test
+	public void testStaticModeWithSettingsAppliedAfterCacheNames() {
+		BoundedConcurrentMapCacheManager cm = new BoundedConcurrentMapCacheManager("c1");
+		cm.setMaximumSize(100);
+		cm.setTimeToLive(1000);
+		cm.setTimeToIdle(500);
+		cm.setAllowNullValues(false);
+		BoundedConcurrentMapCache cache1 = (BoundedConcurrentMapCache) cm.getCache("c1");
+		assertEquals(100, cache1.getMaximumSize());
+		assertEquals(1000, cache1.getTimeToLive());
+		assertEquals(500, cache1.getTimeToIdle());
+		assertFalse(cache1.isAllowNullValues());
+	}
+
+}
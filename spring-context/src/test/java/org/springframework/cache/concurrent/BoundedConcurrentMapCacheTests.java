@@ -0,0 +1,272 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.concurrent;
+
+import java.lang.ref.WeakReference;
+import java.util.Collection;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import org.springframework.beans.DirectFieldAccessor;
+import org.springframework.cache.Cache;
+import org.springframework.util.ConcurrentReferenceHashMap.ReferenceType;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author agent
+ */
+public class BoundedConcurrentMapCacheTests {
+
+	@Test
+	public void putAndGet() {
+		BoundedConcurrentMapCache cache = new BoundedConcurrentMapCache("testCache", 10);
+		assertEquals("testCache", cache.getName());
+		assertSame(cache, cache.getNativeCache());
+
+		assertNull(cache.get("key"));
+		cache.put("key", "value");
+		assertEquals("value", cache.get("key").get());
+		assertEquals("value", cache.get("key", String.class));
+		cache.put("nullKey", null);
+		assertNull(cache.get("nullKey").get());
+		assertEquals("value", cache.putIfAbsent("key", "other").get());
+		assertNull(cache.putIfAbsent("newKey", "other"));
+		assertEquals("other", cache.get("newKey").get());
+
+		cache.evict("key");
+		assertNull(cache.get("key"));
+		cache.clear();
+		assertEquals(0, cache.size());
+	}
+
+	@Test
+	public void maximumSizeEvictsLeastRecentlyUsed() {
+		BoundedConcurrentMapCache cache = new BoundedConcurrentMapCache("testCache", 3);
+		cache.put("a", 1);
+		cache.put("b", 2);
+		cache.put("c", 3);
+		assertNotNull(cache.get("a"));
+
+		cache.put("d", 4);
+		assertEquals(3, cache.size());
+		assertEquals(1, cache.getEvictionCount());
+		assertNotNull(cache.get("a"));
+		assertNull(cache.get("b"));
+		assertNotNull(cache.get("c"));
+		assertNotNull(cache.get("d"));
+	}
+
+	@Test
+	public void maximumSizeWithAllEntriesAccessed() {
+		BoundedConcurrentMapCache cache = new BoundedConcurrentMapCache("testCache", 100);
+		for (int i = 0; i < 1000; i++) {
+			cache.put(i, i);
+			cache.get(i);
+		}
+		assertEquals(100, cache.size());
+		assertEquals(900, cache.getEvictionCount());
+	}
+
+	@Test
+	public void replacingValueDoesNotCountTowardsMaximumSize() {
+		BoundedConcurrentMapCache cache = new BoundedConcurrentMapCache("testCache", 2);
+		cache.put("a", 1);
+		cache.put("b", 2);
+		cache.put("a", 3);
+		cache.put("b", 4);
+		assertEquals(2, cache.size());
+		assertEquals(0, cache.getEvictionCount());
+		assertEquals(3, cache.get("a").get());
+	}
+
+	@Test
+	public void evictThenPutDoesNotCountTowardsMaximumSize() {
+		BoundedConcurrentMapCache cache = new BoundedConcurrentMapCache("testCache", 2);
+		cache.put("a", 1);
+		cache.put("b", 2);
+		cache.evict("a");
+		cache.put("a", 3);
+		assertEquals(2, cache.size());
+		assertEquals(0, cache.getEvictionCount());
+		assertEquals(3, cache.get("a").get());
+		assertEquals(2, cache.get("b").get());
+	}
+
+	@Test
+	public void evictThenPutDoesNotGrowEvictionQueue() {
+		BoundedConcurrentMapCache cache = new BoundedConcurrentMapCache("testCache", 10);
+		for (int i = 0; i < 1000; i++) {
+			cache.put("a", i);
+			cache.evict("a");
+		}
+		for (int i = 0; i < 10; i++) {
+			cache.put(i, i);
+		}
+		assertEquals(10, cache.size());
+		assertEquals(0, cache.getEvictionCount());
+		Collection<?> evictionQueue = (Collection<?>) new DirectFieldAccessor(cache).getPropertyValue("evictionQueue");
+		assertTrue(evictionQueue.size() <= 2 * 10 + 1);
+	}
+
+	@Test
+	public void expireThenPutDoesNotCountTowardsMaximumSize() {
+		TestBoundedConcurrentMapCache cache = new TestBoundedConcurrentMapCache(2, 1000, 0);
+		cache.put("a", 1);
+		cache.advance(600);
+		cache.put("b", 2);
+		cache.advance(600);
+		assertNull(cache.get("a"));
+		assertEquals(1, cache.getEvictionCount());
+
+		cache.put("a", 3);
+		assertEquals(3, cache.get("a").get());
+		assertEquals(2, cache.get("b").get());
+		assertEquals(1, cache.getEvictionCount());
+	}
+
+	@Test
+	public void timeToLive() {
+		TestBoundedConcurrentMapCache cache = new TestBoundedConcurrentMapCache(
+				BoundedConcurrentMapCache.UNBOUNDED, 50, 0);
+		cache.put("key", "value");
+		assertNotNull(cache.get("key"));
+		cache.advance(49);
+		assertNotNull(cache.get("key"));
+		cache.advance(1);
+		assertNull(cache.get("key"));
+		assertEquals(1, cache.getEvictionCount());
+		assertNull(cache.putIfAbsent("key", "value"));
+	}
+
+	@Test
+	public void timeToIdle() {
+		TestBoundedConcurrentMapCache cache = new TestBoundedConcurrentMapCache(
+				BoundedConcurrentMapCache.UNBOUNDED, 0, 200);
+		cache.put("key", "value");
+		for (int i = 0; i < 5; i++) {
+			cache.advance(150);
+			assertNotNull(cache.get("key"));
+		}
+		cache.advance(200);
+		assertNull(cache.get("key"));
+	}
+
+	@Test
+	public void cleanUpRemovesExpiredEntries() {
+		TestBoundedConcurrentMapCache cache = new TestBoundedConcurrentMapCache(
+				BoundedConcurrentMapCache.UNBOUNDED, 50, 0);
+		cache.put("a", 1);
+		cache.put("b", 2);
+		cache.advance(50);
+		cache.cleanUp();
+		assertEquals(0, cache.size());
+		assertEquals(2, cache.getEvictionCount());
+	}
+
+	@Test
+	public void writeTriggersCleanUp() {
+		TestBoundedConcurrentMapCache cache = new TestBoundedConcurrentMapCache(
+				BoundedConcurrentMapCache.UNBOUNDED, 50, 0);
+		cache.put("a", 1);
+		cache.advance(50);
+		cache.put("b", 2);
+		assertEquals(1, cache.size());
+	}
+
+	@Test
+	public void softReferences() {
+		BoundedConcurrentMapCache cache = new BoundedConcurrentMapCache(
+				"testCache", 10, 0, 0, ReferenceType.SOFT, false);
+		cache.put("key", "value");
+		assertEquals("value", cache.get("key").get());
+		assertFalse(cache.isAllowNullValues());
+	}
+
+	@Test
+	public void weakReferencesWithMaximumSizeAllowReclamation() throws InterruptedException {
+		BoundedConcurrentMapCache cache = new BoundedConcurrentMapCache(
+				"testCache", 10, 0, 0, ReferenceType.WEAK, false);
+		Object value = new Object();
+		WeakReference<Object> probe = new WeakReference<Object>(value);
+		cache.put("key", value);
+		assertSame(value, cache.get("key").get());
+
+		value = null;
+		long deadline = System.currentTimeMillis() + 5000;
+		while (probe.get() != null && System.currentTimeMillis() < deadline) {
+			System.gc();
+			Thread.sleep(10);
+		}
+		assertNull("Cached value not reclaimed", probe.get());
+		assertNull(cache.get("key"));
+	}
+
+	@Test
+	public void statistics() {
+		BoundedConcurrentMapCache cache = new BoundedConcurrentMapCache("testCache", 10);
+		cache.get("key");
+		cache.put("key", "value");
+		cache.get("key");
+		cache.get("key", String.class);
+		assertEquals(2, cache.getHitCount());
+		assertEquals(1, cache.getMissCount());
+		assertEquals(0, cache.getEvictionCount());
+	}
+
+	@Test
+	public void getWithValueLoader() {
+		Cache cache = new BoundedConcurrentMapCache("testCache", 10);
+		assertEquals("value", cache.get("key", new Callable<Object>() {
+			@Override
+			public Object call() {
+				return "value";
+			}
+		}));
+		assertEquals("value", cache.get("key", new Callable<Object>() {
+			@Override
+			public Object call() {
+				throw new IllegalStateException("Should not be called");
+			}
+		}));
+	}
+
+
+	/**
+	 * Cache variant with a manually advanced clock.
+	 */
+	private static class TestBoundedConcurrentMapCache extends BoundedConcurrentMapCache {
+
+		private long time = TimeUnit.SECONDS.toNanos(1);
+
+		public TestBoundedConcurrentMapCache(int maximumSize, long timeToLive, long timeToIdle) {
+			super("testCache", maximumSize, timeToLive, timeToIdle, null, true);
+		}
+
+		public void advance(long millis) {
+			this.time += TimeUnit.MILLISECONDS.toNanos(millis);
+		}
+
+		@Override
+		protected long currentTime() {
+			return this.time;
+		}
+	}
+
+}
@@ -16,12 +16,21 @@
 
 package org.springframework.cache.concurrent;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Before;
 import org.junit.Test;
 
+import org.springframework.cache.BulkCache;
 import org.springframework.cache.Cache;
 
 import static org.junit.Assert.*;
@@ -71,7 +80,7 @@ public class ConcurrentCacheTests  {
 		assertEquals(value, cache.get(key).get());
 		assertEquals(value, cache.get(key, String.class));
 		assertEquals(value, cache.get(key, Object.class));
-		assertEquals(value, cache.get(key, null));
+		assertEquals(value, cache.get(key, (Class<?>) null));
 
 		cache.put(key, null);
 		assertNotNull(cache.get(key));
@@ -112,4 +121,106 @@ public class ConcurrentCacheTests  {
 		assertNull(cache.get("enescu"));
 	}
 
+	@Test
+	public void testCacheGetWithValueLoader() throws Exception {
+		Object key = "enescu";
+		assertNull(this.cache.get(key));
+		Object value = this.cache.get(key, new Callable<Object>() {
+			@Override
+			public Object call() {
+				return "george";
+			}
+		});
+		assertEquals("george", value);
+		assertEquals("george", this.cache.get(key).get());
+		assertEquals("george", this.cache.get(key, new Callable<Object>() {
+			@Override
+			public Object call() {
+				throw new IllegalStateException("Should not be called");
+			}
+		}));
+	}
+
+	@Test
+	public void testCacheGetWithValueLoaderReturningNull() throws Exception {
+		Object key = "enescu";
+		assertNull(this.cache.get(key, new Callable<Object>() {
+			@Override
+			public Object call() {
+				return null;
+			}
+		}));
+		assertNotNull(this.cache.get(key));
+		assertNull(this.cache.get(key).get());
+	}
+
+	@Test
+	public void testCacheGetWithFailingValueLoader() throws Exception {
+		final Exception failure = new Exception("expected");
+		try {
+			this.cache.get("enescu", new Callable<Object>() {
+				@Override
+				public Object call() throws Exception {
+					throw failure;
+				}
+			});
+			fail("Should have thrown ValueRetrievalException");
+		}
+		catch (Cache.ValueRetrievalException ex) {
+			assertSame(failure, ex.getCause());
+			assertEquals("enescu", ex.getKey());
+		}
+		assertNull(this.cache.get("enescu"));
+	}
+
+	@Test
+	public void testCacheGetWithValueLoaderSynchronized() throws Exception {
+		final AtomicInteger invocations = new AtomicInteger();
+		final Callable<Object> valueLoader = new Callable<Object>() {
+			@Override
+			public Object call() throws Exception {
+				invocations.incrementAndGet();
+				Thread.sleep(100);
+				return "george";
+			}
+		};
+		int threadCount = 10;
+		final List<Object> results = Collections.synchronizedList(new ArrayList<Object>());
+		List<Thread> threads = new ArrayList<Thread>();
+		for (int i = 0; i < threadCount; i++) {
+			threads.add(new Thread() {
+				@Override
+				public void run() {
+					results.add(cache.get("enescu", valueLoader));
+				}
+			});
+		}
+		for (Thread thread : threads) {
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertEquals(1, invocations.get());
+		assertEquals(threadCount, results.size());
+		for (Object result : results) {
+			assertEquals("george", result);
+		}
+	}
+
+	@Test
+	public void testCacheGetAllAndPutAll() throws Exception {
+		Map<Object, Object> entries = new LinkedHashMap<Object, Object>();
+		entries.put("a", "1");
+		entries.put("b", null);
+		((BulkCache) cache).putAll(entries);
+		assertEquals("1", cache.get("a", String.class));
+
+		Map<Object, Cache.ValueWrapper> result = ((BulkCache) cache).getAll(Arrays.asList("a", "b", "c"));
+		assertEquals(2, result.size());
+		assertEquals("1", result.get("a").get());
+		assertNull(result.get("b").get());
+		assertFalse(result.containsKey("c"));
+	}
+
 }
@@ -0,0 +1,254 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.interceptor;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.annotation.AnnotationCacheOperationSource;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.support.StaticApplicationContext;
+import org.springframework.util.ReflectionUtils;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@code @Cacheable(bulk = true)}.
+ *
+ * @author agent
+ * @since 4.1
+ */
+public class CacheBulkTests {
+
+	private final BulkService target = new BulkService();
+
+	private Cache cache;
+
+	private CacheInterceptor interceptor;
+
+	private BulkService service;
+
+
+	@Before
+	public void setUp() {
+		ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager("testCache");
+		this.cache = cacheManager.getCache("testCache");
+		this.interceptor = new CacheInterceptor();
+		this.interceptor.setCacheManager(cacheManager);
+		this.interceptor.setCacheOperationSources(new AnnotationCacheOperationSource());
+		this.interceptor.setApplicationContext(new StaticApplicationContext());
+		this.interceptor.afterPropertiesSet();
+
+		ProxyFactory proxyFactory = new ProxyFactory(this.target);
+		proxyFactory.setProxyTargetClass(true);
+		proxyFactory.addAdvice(this.interceptor);
+		this.service = (BulkService) proxyFactory.getProxy();
+	}
+
+
+	@Test
+	public void onlyMissingKeysLoaded() {
+		Map<Integer, String> result = this.service.find(Arrays.asList(1, 2, 3));
+		assertEquals(Arrays.asList(1, 2, 3), new ArrayList<Integer>(result.keySet()));
+		assertEquals("v1", result.get(1));
+		assertEquals(1, this.target.invocations.size());
+		assertEquals("v2", this.cache.get(2, String.class));
+
+		result = this.service.find(Arrays.asList(4, 2, 5, 1));
+		assertEquals(Arrays.asList(4, 2, 5, 1), new ArrayList<Integer>(result.keySet()));
+		assertEquals("v4", result.get(4));
+		assertEquals("v2", result.get(2));
+		assertEquals(2, this.target.invocations.size());
+		assertEquals(Arrays.asList(4, 5), this.target.invocations.get(1));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void allKeysLoadedWithoutSmartInvoker() throws Exception {
+		Method method = BulkService.class.getMethod("find", List.class);
+
+		execute(method, Arrays.asList(1, 2));
+		Map<Integer, String> result = (Map<Integer, String>) execute(method, Arrays.asList(3, 2, 1));
+		assertEquals(Arrays.asList(3, 2, 1), new ArrayList<Integer>(result.keySet()));
+		assertEquals("v3", result.get(3));
+		assertEquals(2, this.target.invocations.size());
+		assertEquals(Arrays.asList(3, 2, 1), this.target.invocations.get(1));
+		assertEquals("v3", this.cache.get(3, String.class));
+
+		result = (Map<Integer, String>) execute(method, Arrays.asList(1, 3));
+		assertEquals(Arrays.asList(1, 3), new ArrayList<Integer>(result.keySet()));
+		assertEquals(2, this.target.invocations.size());
+	}
+
+	@Test
+	public void allKeysCached() {
+		this.service.find(Arrays.asList(1, 2));
+		Map<Integer, String> result = this.service.find(Arrays.asList(2, 1));
+		assertEquals(Arrays.asList(2, 1), new ArrayList<Integer>(result.keySet()));
+		assertEquals(1, this.target.invocations.size());
+	}
+
+	@Test
+	public void collectionTypePreserved() {
+		this.service.findBySet(new HashSet<Integer>(Arrays.asList(1, 2)));
+		Map<Integer, String> result = this.service.findBySet(new HashSet<Integer>(Arrays.asList(1, 2, 3)));
+		assertEquals(3, result.size());
+		assertEquals(Arrays.asList(3), this.target.invocations.get(1));
+	}
+
+	@Test
+	public void missingValueNotCached() {
+		Map<Integer, String> result = this.service.find(Arrays.asList(1, -1));
+		assertEquals(1, result.size());
+		assertNull(this.cache.get(-1));
+		this.service.find(Arrays.asList(1, -1));
+		assertEquals(Arrays.asList(-1), this.target.invocations.get(1));
+	}
+
+	@Test
+	public void unlessAppliesToEachValue() {
+		this.service.findUnlessEven(Arrays.asList(1, 2));
+		assertNotNull(this.cache.get(1));
+		assertNull(this.cache.get(2));
+	}
+
+	@Test
+	public void additionalParameterPartOfKeys() {
+		Map<Integer, String> result = this.service.findInLanguage(Arrays.asList(1, 2), "en");
+		assertEquals("en-v1", result.get(1));
+		assertEquals("en-v1", this.cache.get(new SimpleKey(1, "en"), String.class));
+		assertNull(this.cache.get(1));
+
+		result = this.service.findInLanguage(Arrays.asList(1, 2), "de");
+		assertEquals("de-v1", result.get(1));
+		assertEquals("de-v2", result.get(2));
+		assertEquals(2, this.target.invocations.size());
+
+		result = this.service.findInLanguage(Arrays.asList(2, 3), "en");
+		assertEquals("en-v2", result.get(2));
+		assertEquals("en-v3", result.get(3));
+		assertEquals(Arrays.asList(3), this.target.invocations.get(2));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void nullElementNotSupported() {
+		this.service.find(Arrays.asList(1, null));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void keyNotSupported() {
+		this.service.findWithKey(Arrays.asList(1));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void combinedOperationsNotSupported() {
+		this.service.findCombined(Arrays.asList(1));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void nonMapReturnTypeNotSupported() {
+		this.service.findAsList(Arrays.asList(1));
+	}
+
+
+	/**
+	 * Execute the given method like an AspectJ cache aspect would,
+	 * with an invoker proceeding with its own copy of the arguments.
+	 */
+	private Object execute(final Method method, Object... args) {
+		final Object[] invokerArgs = args.clone();
+		CacheOperationInvoker invoker = new CacheOperationInvoker() {
+			@Override
+			public Object invoke() {
+				return ReflectionUtils.invokeMethod(method, target, invokerArgs);
+			}
+		};
+		return this.interceptor.execute(invoker, this.target, method, args);
+	}
+
+
+	public static class BulkService {
+
+		final List<Collection<Integer>> invocations = new ArrayList<Collection<Integer>>();
+
+		@Cacheable(value = "testCache", bulk = true)
+		public Map<Integer, String> find(List<Integer> ids) {
+			return load(ids);
+		}
+
+		@Cacheable(value = "testCache", bulk = true)
+		public Map<Integer, String> findBySet(Set<Integer> ids) {
+			return load(ids);
+		}
+
+		@Cacheable(value = "testCache", bulk = true, unless = "#result.endsWith('2')")
+		public Map<Integer, String> findUnlessEven(List<Integer> ids) {
+			return load(ids);
+		}
+
+		@Cacheable(value = "testCache", bulk = true)
+		public Map<Integer, String> findInLanguage(List<Integer> ids, String language) {
+			Map<Integer, String> result = new LinkedHashMap<Integer, String>();
+			for (Map.Entry<Integer, String> entry : load(ids).entrySet()) {
+				result.put(entry.getKey(), language + "-" + entry.getValue());
+			}
+			return result;
+		}
+
+		@Cacheable(value = "testCache", bulk = true, key = "#p0")
+		public Map<Integer, String> findWithKey(List<Integer> ids) {
+			return load(ids);
+		}
+
+		@Caching(cacheable = @Cacheable(value = "testCache", bulk = true), evict = @CacheEvict("testCache"))
+		public Map<Integer, String> findCombined(List<Integer> ids) {
+			return load(ids);
+		}
+
+		@Cacheable(value = "testCache", bulk = true)
+		public List<String> findAsList(List<Integer> ids) {
+			return new ArrayList<String>();
+		}
+
+		private Map<Integer, String> load(Collection<Integer> ids) {
+			this.invocations.add(new ArrayList<Integer>(ids));
+			Map<Integer, String> result = new LinkedHashMap<Integer, String>();
+			for (Integer id : ids) {
+				if (id > 0) {
+					result.put(id, "v" + id);
+				}
+			}
+			return result;
+		}
+	}
+
+}
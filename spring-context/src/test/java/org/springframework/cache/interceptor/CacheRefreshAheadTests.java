@@ -0,0 +1,253 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.interceptor;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.DirectFieldAccessor;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.AnnotationCacheOperationSource;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.support.StaticApplicationContext;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.util.ReflectionUtils;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@code @Cacheable(refreshAfter = ...)}.
+ *
+ * @author agent
+ * @since 4.1
+ */
+public class CacheRefreshAheadTests {
+
+	private final RefreshService target = new RefreshService();
+
+	private final AtomicInteger scheduledRefreshes = new AtomicInteger();
+
+	private final AtomicLong time = new AtomicLong(System.currentTimeMillis());
+
+	private final CacheManager cacheManager = new ConcurrentMapCacheManager("testCache");
+
+	private CacheInterceptor interceptor;
+
+	private RefreshService service;
+
+
+	@Before
+	public void setUp() {
+		this.interceptor = new CacheInterceptor() {
+			@Override
+			protected long currentTime() {
+				return time.get();
+			}
+		};
+		this.interceptor.setCacheManager(this.cacheManager);
+		this.interceptor.setCacheOperationSources(new AnnotationCacheOperationSource());
+		this.interceptor.setApplicationContext(new StaticApplicationContext());
+		this.interceptor.setRefreshExecutor(new Executor() {
+			@Override
+			public void execute(Runnable task) {
+				scheduledRefreshes.incrementAndGet();
+				new SyncTaskExecutor().execute(task);
+			}
+		});
+		this.interceptor.afterPropertiesSet();
+
+		ProxyFactory proxyFactory = new ProxyFactory(this.target);
+		proxyFactory.setProxyTargetClass(true);
+		proxyFactory.addAdvice(this.interceptor);
+		this.service = (RefreshService) proxyFactory.getProxy();
+	}
+
+
+	@Test
+	public void freshValueServedFromCache() {
+		assertEquals(1, this.service.get("key"));
+		this.time.addAndGet(49);
+		assertEquals(1, this.service.get("key"));
+		assertEquals(0, this.scheduledRefreshes.get());
+	}
+
+	@Test
+	public void staleValueServedAndRefreshed() {
+		assertEquals(1, this.service.get("key"));
+		this.time.addAndGet(50);
+		assertEquals(1, this.service.get("key"));
+		assertEquals(1, this.scheduledRefreshes.get());
+		assertEquals(2, this.service.get("key"));
+		assertEquals(1, this.scheduledRefreshes.get());
+	}
+
+	@Test
+	public void failedRefreshKeepsStaleValue() {
+		assertEquals(1, this.service.get("key"));
+		this.time.addAndGet(100);
+		this.target.failing.set(true);
+		assertEquals(1, this.service.get("key"));
+		assertEquals(1, this.service.get("key"));
+		assertEquals(2, this.scheduledRefreshes.get());
+	}
+
+	@Test
+	public void unlessAppliesToRefreshedValue() {
+		assertEquals(1, this.service.getUnlessEven("key"));
+		this.time.addAndGet(100);
+		assertEquals(1, this.service.getUnlessEven("key"));
+		assertEquals(1, this.service.getUnlessEven("key"));
+		assertEquals(2, this.scheduledRefreshes.get());
+	}
+
+	@Test
+	public void refreshOnDifferentThread() throws Exception {
+		final CountDownLatch refreshed = new CountDownLatch(1);
+		this.interceptor.setRefreshExecutor(new Executor() {
+			@Override
+			public void execute(final Runnable task) {
+				new SimpleAsyncTaskExecutor().execute(new Runnable() {
+					@Override
+					public void run() {
+						task.run();
+						refreshed.countDown();
+					}
+				});
+			}
+		});
+
+		assertEquals(1, this.service.get("key"));
+		this.time.addAndGet(50);
+		assertEquals(1, this.service.get("key"));
+		assertTrue(refreshed.await(5, TimeUnit.SECONDS));
+		assertNotSame(Thread.currentThread(), this.target.lastThread);
+		assertEquals(2, this.service.get("key"));
+	}
+
+	@Test
+	public void staleValueRefreshedWithinInvocationWithoutSmartInvoker() throws Exception {
+		final Method method = RefreshService.class.getMethod("get", Object.class);
+		final Object[] args = new Object[] {"key"};
+		CacheOperationInvoker invoker = new CacheOperationInvoker() {
+			@Override
+			public Object invoke() {
+				return ReflectionUtils.invokeMethod(method, target, args.clone());
+			}
+		};
+
+		assertEquals(1, this.interceptor.execute(invoker, this.target, method, args));
+		this.time.addAndGet(50);
+		assertEquals(2, this.interceptor.execute(invoker, this.target, method, args));
+		assertEquals(2, this.interceptor.execute(invoker, this.target, method, args));
+		assertEquals(0, this.scheduledRefreshes.get());
+	}
+
+	@Test
+	public void cacheSharedWithSyncMethod() {
+		assertEquals(1, this.service.get("key"));
+		assertEquals(1, this.cacheManager.getCache("testCache").get("key").get());
+		assertEquals(Integer.valueOf(1), this.service.getShared("key"));
+
+		this.time.addAndGet(50);
+		assertEquals(1, this.service.get("key"));
+		assertEquals(1, this.scheduledRefreshes.get());
+		assertEquals(Integer.valueOf(2), this.service.getShared("key"));
+	}
+
+	@Test
+	public void cacheSharedWithSyncMethodWritingFirst() {
+		assertEquals(Integer.valueOf(1), this.service.getShared("key"));
+		assertEquals(1, this.service.get("key"));
+		this.time.addAndGet(49);
+		assertEquals(1, this.service.get("key"));
+		assertEquals(0, this.scheduledRefreshes.get());
+		this.time.addAndGet(1);
+		assertEquals(1, this.service.get("key"));
+		assertEquals(1, this.scheduledRefreshes.get());
+		assertEquals(Integer.valueOf(2), this.service.getShared("key"));
+	}
+
+	@Test
+	public void writeTimesLimitedPerCache() {
+		for (int i = 0; i < 10100; i++) {
+			this.service.get(i);
+		}
+		Map<?, ?> writeTimes = (Map<?, ?>) new DirectFieldAccessor(this.interceptor).getPropertyValue("refreshWriteTimes");
+		assertEquals(1, writeTimes.size());
+		Map<?, ?> cacheWriteTimes = (Map<?, ?>) new DirectFieldAccessor(
+				writeTimes.values().iterator().next()).getPropertyValue("writeTimes");
+		assertTrue(cacheWriteTimes.size() <= 10000);
+
+		this.time.addAndGet(49);
+		for (int i = 0; i < 10100; i++) {
+			assertEquals(i + 1, this.service.get(i));
+		}
+		assertEquals(0, this.scheduledRefreshes.get());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void syncNotSupported() {
+		this.service.getSync("key");
+	}
+
+
+	public static class RefreshService {
+
+		private final AtomicInteger counter = new AtomicInteger();
+
+		private final AtomicBoolean failing = new AtomicBoolean();
+
+		private volatile Thread lastThread;
+
+		@Cacheable(value = "testCache", refreshAfter = 50)
+		public Object get(Object key) {
+			this.lastThread = Thread.currentThread();
+			if (this.failing.get()) {
+				throw new IllegalStateException("Refresh failure");
+			}
+			return this.counter.incrementAndGet();
+		}
+
+		@Cacheable(value = "testCache", refreshAfter = 50, unless = "#result % 2 == 0")
+		public Object getUnlessEven(Object key) {
+			return this.counter.incrementAndGet();
+		}
+
+		@Cacheable(value = "testCache", refreshAfter = 50, sync = true)
+		public Object getSync(Object key) {
+			return this.counter.incrementAndGet();
+		}
+
+		@Cacheable(value = "testCache", sync = true)
+		public Integer getShared(Object key) {
+			return this.counter.incrementAndGet();
+		}
+	}
+
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.interceptor;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@code @Cacheable(sync = true)}.
+ *
+ * @author agent
+ * @since 4.1
+ */
+public class CacheSyncTests {
+
+	private AnnotationConfigApplicationContext context;
+
+	private SyncService service;
+
+	private Cache cache;
+
+
+	@Before
+	public void setUp() {
+		this.context = new AnnotationConfigApplicationContext(Config.class);
+		this.service = this.context.getBean(SyncService.class);
+		this.cache = this.context.getBean(CacheManager.class).getCache("testCache");
+	}
+
+	@After
+	public void tearDown() {
+		this.context.close();
+	}
+
+
+	@Test
+	public void concurrentInvocationsShareSingleLoad() throws Exception {
+		List<Thread> threads = new ArrayList<Thread>();
+		final List<Object> results = new ArrayList<Object>();
+		for (int i = 0; i < 10; i++) {
+			threads.add(new Thread() {
+				@Override
+				public void run() {
+					Object result = service.slow("key");
+					synchronized (results) {
+						results.add(result);
+					}
+				}
+			});
+		}
+		for (Thread thread : threads) {
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertEquals(1, this.service.getInvocationCount());
+		assertEquals(10, results.size());
+		for (Object result : results) {
+			assertEquals(1, result);
+		}
+		assertEquals(1, this.cache.get("key").get());
+	}
+
+	@Test
+	public void conditionNotPassing() {
+		assertEquals(1, this.service.conditional("skip"));
+		assertEquals(2, this.service.conditional("skip"));
+		assertNull(this.cache.get("skip"));
+		assertEquals(3, this.service.conditional("cached"));
+		assertEquals(3, this.service.conditional("cached"));
+	}
+
+	@Test
+	public void checkedExceptionPropagated() {
+		try {
+			this.service.failing("key");
+			fail("Should have thrown IOException");
+		}
+		catch (IOException ex) {
+			assertEquals("expected", ex.getMessage());
+		}
+		assertNull(this.cache.get("key"));
+	}
+
+	@Test
+	public void runtimeExceptionPropagated() {
+		try {
+			this.service.failingUnchecked("key");
+			fail("Should have thrown IllegalStateException");
+		}
+		catch (IllegalStateException ex) {
+			assertEquals("expected", ex.getMessage());
+		}
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void multipleCachesNotAllowed() {
+		this.service.multipleCaches("key");
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void unlessNotAllowed() {
+		this.service.unless("key");
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void combinedOperationsNotAllowed() {
+		this.service.combined("key");
+	}
+
+
+	@Configuration
+	@EnableCaching
+	static class Config {
+
+		@Bean
+		public CacheManager cacheManager() {
+			return new ConcurrentMapCacheManager("testCache", "anotherTestCache");
+		}
+
+		@Bean
+		public SyncService syncService() {
+			return new SyncService();
+		}
+	}
+
+
+	static class SyncService {
+
+		private final AtomicInteger counter = new AtomicInteger();
+
+		public int getInvocationCount() {
+			return this.counter.get();
+		}
+
+		@Cacheable(value = "testCache", sync = true)
+		public Object slow(Object key) {
+			try {
+				Thread.sleep(100);
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+			return this.counter.incrementAndGet();
+		}
+
+		@Cacheable(value = "testCache", sync = true, condition = "#p0 == 'cached'")
+		public Object conditional(Object key) {
+			return this.counter.incrementAndGet();
+		}
+
+		@Cacheable(value = "testCache", sync = true)
+		public Object failing(Object key) throws IOException {
+			throw new IOException("expected");
+		}
+
+		@Cacheable(value = "testCache", sync = true)
+		public Object failingUnchecked(Object key) {
+			throw new IllegalStateException("expected");
+		}
+
+		@Cacheable(value = {"testCache", "anotherTestCache"}, sync = true)
+		public Object multipleCaches(Object key) {
+			return this.counter.incrementAndGet();
+		}
+
+		@Cacheable(value = "testCache", sync = true, unless = "#result == null")
+		public Object unless(Object key) {
+			return this.counter.incrementAndGet();
+		}
+
+		@Caching(cacheable = @Cacheable(value = "testCache", sync = true), evict = @CacheEvict("anotherTestCache"))
+		public Object combined(Object key) {
+			return this.counter.incrementAndGet();
+		}
+	}
+
+}
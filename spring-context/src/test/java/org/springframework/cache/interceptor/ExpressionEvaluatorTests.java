@@ -113,6 +113,73 @@ public class ExpressionEvaluatorTests {
 		assertThat(value, nullValue());
 	}
 
+	@Test
+	public void simpleKeyMatchesFullEvaluation() throws Exception {
+		Object[] args = new Object[] { "foo", new Holder("bar") };
+		assertSimpleKey("#a", args, ExpressionEvaluator.NO_RESULT, "foo");
+		assertSimpleKey("#p0", args, ExpressionEvaluator.NO_RESULT, "foo");
+		assertSimpleKey("#a1", args, ExpressionEvaluator.NO_RESULT, args[1]);
+		assertSimpleKey("#b.name", args, ExpressionEvaluator.NO_RESULT, "bar");
+		assertSimpleKey("#b.active", args, ExpressionEvaluator.NO_RESULT, true);
+		assertSimpleKey("'x-' + #a + '-' + #b.name", args, ExpressionEvaluator.NO_RESULT, "x-foo-bar");
+		assertSimpleKey("#a + #b.count", args, ExpressionEvaluator.NO_RESULT, "foo3");
+		assertSimpleKey("#result", args, "theResult", "theResult");
+		assertSimpleKey("#result", args, null, null);
+	}
+
+	@Test
+	public void simpleKeyFallsBackToFullEvaluation() throws Exception {
+		Method method = ReflectionUtils.findMethod(AnnotatedClass.class, "multipleCaching", Object.class,
+				Object.class);
+		MethodCacheKey key = new MethodCacheKey(method, AnnotatedClass.class);
+		Object[] args = new Object[] { 1, new Holder(null) };
+		assertSame(SimpleCacheExpression.UNRESOLVED,
+				eval.simpleKey("#a + 2", key, method, AnnotatedClass.class, args, ExpressionEvaluator.NO_RESULT));
+		assertSame(SimpleCacheExpression.UNRESOLVED,
+				eval.simpleKey("#b.name.length()", key, method, AnnotatedClass.class, args, ExpressionEvaluator.NO_RESULT));
+		assertSame(SimpleCacheExpression.UNRESOLVED,
+				eval.simpleKey("#a.name", key, method, AnnotatedClass.class, args, ExpressionEvaluator.NO_RESULT));
+		assertSame(SimpleCacheExpression.UNRESOLVED,
+				eval.simpleKey("#root.methodName", key, method, AnnotatedClass.class, args, ExpressionEvaluator.NO_RESULT));
+		assertSame(SimpleCacheExpression.UNRESOLVED,
+				eval.simpleKey("#result", key, method, AnnotatedClass.class, args, ExpressionEvaluator.NO_RESULT));
+		assertSame(SimpleCacheExpression.UNRESOLVED,
+				eval.simpleKey("#p01", key, method, AnnotatedClass.class, args, ExpressionEvaluator.NO_RESULT));
+		assertSame(SimpleCacheExpression.UNRESOLVED,
+				eval.simpleKey("#a00", key, method, AnnotatedClass.class, args, ExpressionEvaluator.NO_RESULT));
+	}
+
+	@Test
+	public void simpleConditionAndUnless() throws Exception {
+		Method method = ReflectionUtils.findMethod(AnnotatedClass.class, "multipleCaching", Object.class,
+				Object.class);
+		MethodCacheKey key = new MethodCacheKey(method, AnnotatedClass.class);
+		Object[] args = new Object[] { null, new Holder("bar") };
+		assertEquals(Boolean.FALSE, eval.simpleCondition("#a != null", key, method, AnnotatedClass.class,
+				args, ExpressionEvaluator.NO_RESULT));
+		assertEquals(Boolean.TRUE, eval.simpleCondition("#b.name != null", key, method, AnnotatedClass.class,
+				args, ExpressionEvaluator.NO_RESULT));
+		assertEquals(Boolean.TRUE, eval.simpleCondition("#b.active", key, method, AnnotatedClass.class,
+				args, ExpressionEvaluator.NO_RESULT));
+		assertEquals(Boolean.TRUE, eval.simpleUnless("#result == null", key, method, AnnotatedClass.class,
+				args, null));
+		assertNull(eval.simpleCondition("#b.count > 2", key, method, AnnotatedClass.class,
+				args, ExpressionEvaluator.NO_RESULT));
+		assertNull(eval.simpleCondition("#b.name", key, method, AnnotatedClass.class,
+				args, ExpressionEvaluator.NO_RESULT));
+	}
+
+	private void assertSimpleKey(String expression, Object[] args, Object result, Object expected) {
+		AnnotatedClass target = new AnnotatedClass();
+		Method method = ReflectionUtils.findMethod(AnnotatedClass.class, "multipleCaching", Object.class,
+				Object.class);
+		Collection<ConcurrentMapCache> caches = Collections.singleton(new ConcurrentMapCache("test"));
+		MethodCacheKey key = new MethodCacheKey(method, AnnotatedClass.class);
+		EvaluationContext context = eval.createEvaluationContext(caches, method, args, target, target.getClass(), result);
+		assertEquals(expected, eval.key(expression, key, context));
+		assertEquals(expected, eval.simpleKey(expression, key, method, AnnotatedClass.class, args, result));
+	}
+
 	private EvaluationContext createEvaluationContext(Object result) {
 		AnnotatedClass target = new AnnotatedClass();
 		Method method = ReflectionUtils.findMethod(AnnotatedClass.class, "multipleCaching", Object.class,
@@ -131,4 +198,26 @@ public class ExpressionEvaluatorTests {
 		}
 	}
 
+
+	public static class Holder {
+
+		private final String name;
+
+		public Holder(String name) {
+			this.name = name;
+		}
+
+		public String getName() {
+			return this.name;
+		}
+
+		public boolean isActive() {
+			return true;
+		}
+
+		public int getCount() {
+			return 3;
+		}
+	}
+
 }
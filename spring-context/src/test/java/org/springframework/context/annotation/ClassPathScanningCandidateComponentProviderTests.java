@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2010 the original author or authors.
+ * Copyright 2002-2014 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,7 @@
 
 package org.springframework.context.annotation;
 
+import java.io.File;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.util.Set;
@@ -38,6 +39,8 @@ import org.junit.Test;
 import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.core.env.ConfigurableEnvironment;
 import org.springframework.core.env.StandardEnvironment;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.type.classreading.CachingMetadataReaderFactory;
 import org.springframework.core.type.filter.AnnotationTypeFilter;
 import org.springframework.core.type.filter.AssignableTypeFilter;
 import org.springframework.core.type.filter.RegexPatternTypeFilter;
@@ -304,6 +307,37 @@ public class ClassPathScanningCandidateComponentProviderTests {
 		}
 	}
 
+	@Test
+	public void testWithMetadataIndex() throws Exception {
+		File indexFile = File.createTempFile("spring-metadata", ".index");
+		assertTrue(indexFile.delete());
+		try {
+			ClassPathScanningCandidateComponentProvider provider = new ClassPathScanningCandidateComponentProvider(true);
+			provider.setMetadataIndexLocation(new FileSystemResource(indexFile));
+			Set<BeanDefinition> candidates = provider.findCandidateComponents(TEST_BASE_PACKAGE);
+			assertEquals(6, candidates.size());
+			assertTrue(indexFile.exists());
+
+			ClassPathScanningCandidateComponentProvider indexedProvider = new ClassPathScanningCandidateComponentProvider(true);
+			indexedProvider.setMetadataIndexLocation(new FileSystemResource(indexFile));
+			Set<BeanDefinition> indexedCandidates = indexedProvider.findCandidateComponents(TEST_BASE_PACKAGE);
+			assertEquals(6, indexedCandidates.size());
+			for (BeanDefinition candidate : candidates) {
+				assertTrue(containsBeanClass(indexedCandidates, Class.forName(candidate.getBeanClassName())));
+			}
+			assertFalse(((CachingMetadataReaderFactory) indexedProvider.getMetadataReaderFactory()).getMetadataIndex().isModified());
+			for (BeanDefinition candidate : indexedCandidates) {
+				if (NamedComponent.class.getName().equals(candidate.getBeanClassName())) {
+					assertEquals("myNamedComponent", ((ScannedGenericBeanDefinition) candidate).getMetadata()
+							.getAnnotationAttributes(Component.class.getName()).get("value"));
+				}
+			}
+		}
+		finally {
+			indexFile.delete();
+		}
+	}
+
 	private boolean containsBeanClass(Set<BeanDefinition> candidates, Class<?> beanClass) {
 		for (BeanDefinition candidate : candidates) {
 			ScannedGenericBeanDefinition definition = (ScannedGenericBeanDefinition) candidate;
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.scheduling.concurrent;
+
+import java.util.Date;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.core.task.TaskRejectedException;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author agent
+ * @since 4.1
+ */
+public class HashedWheelTaskSchedulerTests {
+
+	private final ThreadPoolTaskScheduler targetScheduler = new ThreadPoolTaskScheduler();
+
+	private HashedWheelTaskScheduler scheduler;
+
+
+	@Before
+	public void initScheduler() {
+		this.targetScheduler.setPoolSize(2);
+		this.targetScheduler.afterPropertiesSet();
+		// small wheel, so that tasks need several rounds
+		this.scheduler = new HashedWheelTaskScheduler(this.targetScheduler, 10, 4);
+	}
+
+	@After
+	public void shutdownScheduler() {
+		this.scheduler.destroy();
+		this.targetScheduler.destroy();
+	}
+
+
+	@Test
+	public void scheduleOneShotTask() throws Exception {
+		final CountDownLatch latch = new CountDownLatch(1);
+		final long start = System.currentTimeMillis();
+		final AtomicInteger elapsed = new AtomicInteger();
+		ScheduledFuture<?> future = this.scheduler.schedule(new Runnable() {
+			@Override
+			public void run() {
+				elapsed.set((int) (System.currentTimeMillis() - start));
+				latch.countDown();
+			}
+		}, new Date(start + 100));
+		assertTrue(latch.await(2, TimeUnit.SECONDS));
+		assertTrue("Task ran early after " + elapsed.get() + " ms", elapsed.get() >= 100);
+		future.get(1, TimeUnit.SECONDS);
+		assertTrue(future.isDone());
+		assertFalse(future.isCancelled());
+	}
+
+	@Test
+	public void scheduleTaskInThePast() throws Exception {
+		final CountDownLatch latch = new CountDownLatch(1);
+		this.scheduler.schedule(new Runnable() {
+			@Override
+			public void run() {
+				latch.countDown();
+			}
+		}, new Date(System.currentTimeMillis() - 1000));
+		assertTrue(latch.await(2, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void cancelledTaskDoesNotRun() throws Exception {
+		final AtomicInteger count = new AtomicInteger();
+		Runnable task = new Runnable() {
+			@Override
+			public void run() {
+				count.incrementAndGet();
+			}
+		};
+		ScheduledFuture<?> cancelled = this.scheduler.schedule(task, new Date(System.currentTimeMillis() + 50));
+		ScheduledFuture<?> other = this.scheduler.schedule(task, new Date(System.currentTimeMillis() + 100));
+		assertTrue(cancelled.cancel(false));
+		assertTrue(cancelled.isDone());
+		assertTrue(cancelled.isCancelled());
+		other.get(2, TimeUnit.SECONDS);
+		Thread.sleep(50);
+		assertEquals(1, count.get());
+	}
+
+	@Test
+	public void scheduleManyTasks() throws Exception {
+		int taskCount = 1000;
+		final CountDownLatch latch = new CountDownLatch(taskCount / 2);
+		final AtomicInteger count = new AtomicInteger();
+		Runnable task = new Runnable() {
+			@Override
+			public void run() {
+				count.incrementAndGet();
+				latch.countDown();
+			}
+		};
+		long now = System.currentTimeMillis();
+		for (int i = 0; i < taskCount; i++) {
+			ScheduledFuture<?> future = this.scheduler.schedule(task, new Date(now + (i % 20) * 10));
+			if (i % 2 == 1) {
+				future.cancel(false);
+			}
+		}
+		assertTrue(latch.await(5, TimeUnit.SECONDS));
+		Thread.sleep(100);
+		assertEquals(taskCount / 2, count.get());
+	}
+
+	@Test
+	public void delayOfScheduledTask() {
+		ScheduledFuture<?> future = this.scheduler.schedule(new Runnable() {
+			@Override
+			public void run() {
+			}
+		}, new Date(System.currentTimeMillis() + 60000));
+		long delay = future.getDelay(TimeUnit.SECONDS);
+		assertTrue(delay > 50 && delay <= 60);
+		assertTrue(future.cancel(false));
+	}
+
+	@Test
+	public void periodicTaskIsDelegated() throws Exception {
+		final CountDownLatch latch = new CountDownLatch(3);
+		ScheduledFuture<?> future = this.scheduler.scheduleAtFixedRate(new Runnable() {
+			@Override
+			public void run() {
+				latch.countDown();
+			}
+		}, 10);
+		assertTrue(latch.await(2, TimeUnit.SECONDS));
+		future.cancel(false);
+	}
+
+	@Test(expected = TaskRejectedException.class)
+	public void scheduleAfterShutdown() {
+		this.scheduler.destroy();
+		this.scheduler.schedule(new Runnable() {
+			@Override
+			public void run() {
+			}
+		}, new Date());
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2012 the original author or authors.
+ * Copyright 2002-2014 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -28,6 +28,11 @@ import org.springframework.core.io.ResourceLoader;
  * caching {@link MetadataReader} per Spring {@link Resource} handle
  * (i.e. per ".class" file).
  *
+ * <p>Can be configured with a {@link ClassMetadataIndex} which is consulted
+ * before parsing a class file: metadata for classes whose class file has not
+ * changed since indexing is served from the index, avoiding ASM-based parsing
+ * for the common case of non-candidate classes in classpath scanning.
+ *
  * @author Juergen Hoeller
  * @author Costin Leau
  * @since 2.5
@@ -40,6 +45,8 @@ public class CachingMetadataReaderFactory extends SimpleMetadataReaderFactory {
 
 	private volatile int cacheLimit = DEFAULT_CACHE_LIMIT;
 
+	private volatile ClassMetadataIndex metadataIndex;
+
 	@SuppressWarnings("serial")
 	private final Map<Resource, MetadataReader> metadataReaderCache =
 			new LinkedHashMap<Resource, MetadataReader>(DEFAULT_CACHE_LIMIT, 0.75f, true) {
@@ -90,22 +97,55 @@ public class CachingMetadataReaderFactory extends SimpleMetadataReaderFactory {
 		return this.cacheLimit;
 	}
 
+	/**
+	 * Specify a {@link ClassMetadataIndex} to consult before reading class files.
+	 * <p>Classes that are missing from the index or whose class file has changed
+	 * since indexing are read through ASM and registered with the index.
+	 * Default is none.
+	 */
+	public void setMetadataIndex(ClassMetadataIndex metadataIndex) {
+		this.metadataIndex = metadataIndex;
+	}
+
+	/**
+	 * Return the {@link ClassMetadataIndex} consulted by this factory, if any.
+	 */
+	public ClassMetadataIndex getMetadataIndex() {
+		return this.metadataIndex;
+	}
+
 
 	@Override
 	public MetadataReader getMetadataReader(Resource resource) throws IOException {
 		if (getCacheLimit() <= 0) {
-			return super.getMetadataReader(resource);
+			return doGetMetadataReader(resource);
 		}
 		synchronized (this.metadataReaderCache) {
 			MetadataReader metadataReader = this.metadataReaderCache.get(resource);
 			if (metadataReader == null) {
-				metadataReader = super.getMetadataReader(resource);
+				metadataReader = doGetMetadataReader(resource);
 				this.metadataReaderCache.put(resource, metadataReader);
 			}
 			return metadataReader;
 		}
 	}
 
+	private MetadataReader doGetMetadataReader(Resource resource) throws IOException {
+		ClassMetadataIndex index = this.metadataIndex;
+		if (index == null) {
+			return super.getMetadataReader(resource);
+		}
+		ClassMetadataIndex.Entry entry = index.getEntry(resource);
+		if (entry != null) {
+			return new IndexedMetadataReader(resource, getResourceLoader().getClassLoader(), entry);
+		}
+		MetadataReader metadataReader = super.getMetadataReader(resource);
+		if (metadataReader.getAnnotationMetadata() instanceof AnnotationMetadataReadingVisitor) {
+			index.register(resource, (AnnotationMetadataReadingVisitor) metadataReader.getAnnotationMetadata());
+		}
+		return metadataReader;
+	}
+
 	/**
 	 * Clear the entire MetadataReader cache, removing all cached class metadata.
 	 */
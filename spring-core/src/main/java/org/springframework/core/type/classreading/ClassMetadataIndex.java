@@ -0,0 +1,411 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.type.classreading;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.JarURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.jar.JarEntry;
+import java.util.zip.CRC32;
+
+import org.springframework.core.io.Resource;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ResourceUtils;
+import org.springframework.util.StringUtils;
+
+/**
+ * Persistent index of type-level class metadata, organized per package and
+ * keyed by class resource path (e.g. "com/mycompany/MyService.class"), so
+ * that an index does not depend on the location of the classpath root that
+ * the classes get loaded from.
+ *
+ * <p>Each entry records the class name, modifiers, supertypes, member classes
+ * as well as the annotation and meta-annotation types declared on the class,
+ * along with the CRC-32 checksum of the class file content at indexing time.
+ * For class files in a jar, the checksum is taken from the jar's directory,
+ * without reading the class file itself. A {@link CachingMetadataReaderFactory}
+ * configured with an index serves {@link MetadataReader} instances for
+ * up-to-date entries straight from the index, only falling back to ASM-based
+ * class file parsing for classes that are missing from the index or whose
+ * class file has changed since. Parsed classes are added to the index, which
+ * can then be {@linkplain #store stored} for the next startup, e.g. in a build
+ * step or at the end of a first run.
+ *
+ * <p>Annotation attribute values and method-level metadata are not part of
+ * the index; they are lazily read from the class file when requested, which
+ * typically only happens for classes that turned out to be actual candidates.
+ *
+ * <p>This class is thread-safe.
+ *
+ * @author agent
+ * @since 4.1
+ * @see CachingMetadataReaderFactory#setMetadataIndex
+ */
+public class ClassMetadataIndex {
+
+	private static final String FIELD_SEPARATOR = "|";
+
+	private static final String LIST_SEPARATOR = ",";
+
+	private static final String META_SEPARATOR = ">";
+
+	private static final String META_LIST_SEPARATOR = ";";
+
+
+	/** Package path --> (class file name --> entry) */
+	private final ConcurrentMap<String, Map<String, Entry>> packages =
+			new ConcurrentHashMap<String, Map<String, Entry>>(64);
+
+	private volatile boolean modified = false;
+
+
+	/**
+	 * Load the entries of the given index resource into this index,
+	 * in addition to any entries registered already.
+	 * @param resource the resource to load the index from
+	 * @throws IOException if the resource could not be read
+	 */
+	public void load(Resource resource) throws IOException {
+		InputStream is = resource.getInputStream();
+		try {
+			load(is);
+		}
+		finally {
+			is.close();
+		}
+	}
+
+	/**
+	 * Load index entries from the given stream, as written by {@link #store}.
+	 * Unparseable entries are ignored, leading to the corresponding classes
+	 * being read from their class files again.
+	 * @param is the stream to read from
+	 * @throws IOException if the stream could not be read
+	 */
+	public void load(InputStream is) throws IOException {
+		Properties props = new Properties();
+		props.load(is);
+		for (String key : props.stringPropertyNames()) {
+			Entry entry = Entry.parse(props.getProperty(key));
+			if (entry != null && key.equals(getResourcePath(entry.className))) {
+				putEntry(entry);
+			}
+		}
+	}
+
+	/**
+	 * Write all entries of this index to the given stream,
+	 * resetting the {@linkplain #isModified() modified} flag.
+	 * @param os the stream to write to
+	 * @throws IOException if the stream could not be written
+	 */
+	public void store(OutputStream os) throws IOException {
+		this.modified = false;
+		Properties props = new Properties();
+		for (Map<String, Entry> packageEntries : this.packages.values()) {
+			for (Entry entry : packageEntries.values()) {
+				props.setProperty(getResourcePath(entry.className), entry.toString());
+			}
+		}
+		props.store(os, "Spring class metadata index");
+	}
+
+	/**
+	 * Return whether entries have been added to this index since it
+	 * has been loaded or stored last.
+	 */
+	public boolean isModified() {
+		return this.modified;
+	}
+
+	/**
+	 * Return the number of entries in this index.
+	 */
+	public int size() {
+		int size = 0;
+		for (Map<String, Entry> packageEntries : this.packages.values()) {
+			size += packageEntries.size();
+		}
+		return size;
+	}
+
+	/**
+	 * Remove all entries from this index.
+	 */
+	public void clear() {
+		this.packages.clear();
+		this.modified = true;
+	}
+
+
+	/**
+	 * Return the up-to-date index entry for the given class file resource.
+	 * @param resource the class file resource
+	 * @return the entry, or {@code null} if the resource is not indexed
+	 * or has been modified since it was indexed
+	 */
+	Entry getEntry(Resource resource) {
+		try {
+			Entry entry = findEntry(resource.getURL());
+			return (entry != null && entry.checksum == getChecksum(resource) ? entry : null);
+		}
+		catch (IOException ex) {
+			return null;
+		}
+	}
+
+	/**
+	 * Register the metadata read from the given class file resource.
+	 * @param resource the class file resource
+	 * @param visitor the visitor that has read the class file
+	 */
+	void register(Resource resource, AnnotationMetadataReadingVisitor visitor) {
+		try {
+			putEntry(new Entry(getChecksum(resource), visitor));
+			this.modified = true;
+		}
+		catch (IOException ex) {
+			// No content available - cannot be indexed.
+		}
+	}
+
+	private void putEntry(Entry entry) {
+		String resourcePath = getResourcePath(entry.className);
+		int separatorIndex = resourcePath.lastIndexOf('/');
+		String packagePath = (separatorIndex != -1 ? resourcePath.substring(0, separatorIndex) : "");
+		Map<String, Entry> packageEntries = this.packages.get(packagePath);
+		if (packageEntries == null) {
+			packageEntries = new ConcurrentHashMap<String, Entry>(16);
+			Map<String, Entry> existing = this.packages.putIfAbsent(packagePath, packageEntries);
+			if (existing != null) {
+				packageEntries = existing;
+			}
+		}
+		packageEntries.put(resourcePath.substring(separatorIndex + 1), entry);
+	}
+
+	/**
+	 * Find the entry for the given class file URL, matching the directories
+	 * towards the end of the URL path against the indexed packages, preferring
+	 * the longest package path.
+	 */
+	private Entry findEntry(URL url) {
+		String path = url.getPath();
+		int separatorIndex = path.lastIndexOf(ResourceUtils.JAR_URL_SEPARATOR);
+		if (separatorIndex != -1) {
+			path = path.substring(separatorIndex + ResourceUtils.JAR_URL_SEPARATOR.length());
+		}
+		int fileNameIndex = path.lastIndexOf('/');
+		String fileName = path.substring(fileNameIndex + 1);
+		String directory = (fileNameIndex != -1 ? path.substring(0, fileNameIndex) : "");
+		int packageIndex = 0;
+		while (true) {
+			Map<String, Entry> packageEntries = this.packages.get(directory.substring(packageIndex));
+			if (packageEntries != null) {
+				Entry entry = packageEntries.get(fileName);
+				if (entry != null) {
+					return entry;
+				}
+			}
+			if (packageIndex == directory.length()) {
+				return null;
+			}
+			int nextSeparator = directory.indexOf('/', packageIndex);
+			packageIndex = (nextSeparator != -1 ? nextSeparator + 1 : directory.length());
+		}
+	}
+
+	private static String getResourcePath(String className) {
+		return ClassUtils.convertClassNameToResourcePath(className) + ClassUtils.CLASS_FILE_SUFFIX;
+	}
+
+	/**
+	 * Determine the CRC-32 checksum of the given class file: from the jar
+	 * directory for a class file in a jar, computed from its content otherwise.
+	 */
+	static long getChecksum(Resource resource) throws IOException {
+		URL url = resource.getURL();
+		if (ResourceUtils.isJarURL(url)) {
+			URLConnection con = url.openConnection();
+			if (con instanceof JarURLConnection) {
+				ResourceUtils.useCachesIfNecessary(con);
+				JarEntry jarEntry = ((JarURLConnection) con).getJarEntry();
+				if (jarEntry != null && jarEntry.getCrc() != -1) {
+					return jarEntry.getCrc();
+				}
+			}
+		}
+		CRC32 crc = new CRC32();
+		InputStream is = resource.getInputStream();
+		try {
+			byte[] buffer = new byte[4096];
+			int bytesRead;
+			while ((bytesRead = is.read(buffer)) != -1) {
+				crc.update(buffer, 0, bytesRead);
+			}
+		}
+		finally {
+			is.close();
+		}
+		return crc.getValue();
+	}
+
+
+	/**
+	 * Type-level metadata for a single class in the index.
+	 */
+	static final class Entry {
+
+		final long checksum;
+
+		final String className;
+
+		final boolean isInterface;
+
+		final boolean isAbstract;
+
+		final boolean isFinal;
+
+		final boolean isIndependent;
+
+		final String enclosingClassName;
+
+		final String superClassName;
+
+		final String[] interfaceNames;
+
+		final String[] memberClassNames;
+
+		/** Annotation type --> meta-annotation types, in declaration order */
+		final Map<String, Set<String>> metaAnnotationMap;
+
+		/** All directly present and meta-present annotation types */
+		final Set<String> annotatedTypes;
+
+		Entry(long checksum, AnnotationMetadataReadingVisitor visitor) {
+			this.checksum = checksum;
+			this.className = visitor.getClassName();
+			this.isInterface = visitor.isInterface();
+			this.isAbstract = visitor.isAbstract();
+			this.isFinal = visitor.isFinal();
+			this.isIndependent = visitor.isIndependent();
+			this.enclosingClassName = visitor.getEnclosingClassName();
+			this.superClassName = visitor.getSuperClassName();
+			this.interfaceNames = visitor.getInterfaceNames();
+			this.memberClassNames = visitor.getMemberClassNames();
+			this.metaAnnotationMap = new LinkedHashMap<String, Set<String>>(visitor.metaAnnotationMap.size());
+			for (String annotationType : visitor.annotationSet) {
+				Set<String> metaTypes = visitor.metaAnnotationMap.get(annotationType);
+				this.metaAnnotationMap.put(annotationType,
+						(metaTypes != null ? metaTypes : Collections.<String>emptySet()));
+			}
+			this.annotatedTypes = new LinkedHashSet<String>(visitor.attributesMap.keySet());
+		}
+
+		private Entry(long checksum, String flags, String className, String superClassName,
+				String enclosingClassName, String[] interfaceNames, String[] memberClassNames,
+				Map<String, Set<String>> metaAnnotationMap, Set<String> annotatedTypes) {
+
+			this.checksum = checksum;
+			this.className = className;
+			this.isInterface = flags.contains("I");
+			this.isAbstract = flags.contains("A");
+			this.isFinal = flags.contains("F");
+			this.isIndependent = flags.contains("D");
+			this.enclosingClassName = enclosingClassName;
+			this.superClassName = superClassName;
+			this.interfaceNames = interfaceNames;
+			this.memberClassNames = memberClassNames;
+			this.metaAnnotationMap = metaAnnotationMap;
+			this.annotatedTypes = annotatedTypes;
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder sb = new StringBuilder();
+			sb.append(this.checksum).append(FIELD_SEPARATOR);
+			sb.append(this.isInterface ? "I" : "").append(this.isAbstract ? "A" : "");
+			sb.append(this.isFinal ? "F" : "").append(this.isIndependent ? "D" : "").append(FIELD_SEPARATOR);
+			sb.append(this.className).append(FIELD_SEPARATOR);
+			sb.append(this.superClassName != null ? this.superClassName : "").append(FIELD_SEPARATOR);
+			sb.append(this.enclosingClassName != null ? this.enclosingClassName : "").append(FIELD_SEPARATOR);
+			sb.append(StringUtils.arrayToDelimitedString(this.interfaceNames, LIST_SEPARATOR)).append(FIELD_SEPARATOR);
+			sb.append(StringUtils.arrayToDelimitedString(this.memberClassNames, LIST_SEPARATOR)).append(FIELD_SEPARATOR);
+			boolean first = true;
+			for (Map.Entry<String, Set<String>> mapEntry : this.metaAnnotationMap.entrySet()) {
+				if (!first) {
+					sb.append(LIST_SEPARATOR);
+				}
+				sb.append(mapEntry.getKey()).append(META_SEPARATOR);
+				sb.append(StringUtils.collectionToDelimitedString(mapEntry.getValue(), META_LIST_SEPARATOR));
+				first = false;
+			}
+			sb.append(FIELD_SEPARATOR);
+			sb.append(StringUtils.collectionToDelimitedString(this.annotatedTypes, LIST_SEPARATOR));
+			return sb.toString();
+		}
+
+		/**
+		 * Parse the given String representation of an entry.
+		 * @return the entry, or {@code null} if the value is not a valid entry
+		 */
+		static Entry parse(String value) {
+			String[] fields = StringUtils.delimitedListToStringArray(value, FIELD_SEPARATOR);
+			if (fields.length != 9 || !StringUtils.hasLength(fields[2])) {
+				return null;
+			}
+			long checksum;
+			try {
+				checksum = Long.parseLong(fields[0]);
+			}
+			catch (NumberFormatException ex) {
+				return null;
+			}
+			Map<String, Set<String>> metaAnnotationMap = new LinkedHashMap<String, Set<String>>(4);
+			for (String annotation : StringUtils.tokenizeToStringArray(fields[7], LIST_SEPARATOR)) {
+				int separatorIndex = annotation.indexOf(META_SEPARATOR);
+				if (separatorIndex == -1) {
+					return null;
+				}
+				metaAnnotationMap.put(annotation.substring(0, separatorIndex),
+						toSet(annotation.substring(separatorIndex + 1), META_LIST_SEPARATOR));
+			}
+			Set<String> annotatedTypes = toSet(fields[8], LIST_SEPARATOR);
+			return new Entry(checksum, fields[1], fields[2], StringUtils.hasLength(fields[3]) ? fields[3] : null,
+					StringUtils.hasLength(fields[4]) ? fields[4] : null,
+					StringUtils.tokenizeToStringArray(fields[5], LIST_SEPARATOR),
+					StringUtils.tokenizeToStringArray(fields[6], LIST_SEPARATOR), metaAnnotationMap, annotatedTypes);
+		}
+
+		private static Set<String> toSet(String value, String separator) {
+			return new LinkedHashSet<String>(Arrays.asList(StringUtils.tokenizeToStringArray(value, separator)));
+		}
+	}
+
+}
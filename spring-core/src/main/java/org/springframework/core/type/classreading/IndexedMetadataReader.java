@@ -0,0 +1,223 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.type.classreading;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.core.io.Resource;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.core.type.ClassMetadata;
+import org.springframework.core.type.MethodMetadata;
+import org.springframework.util.MultiValueMap;
+
+/**
+ * {@link MetadataReader} implementation based on a {@link ClassMetadataIndex}
+ * entry, answering type-level queries from the index and lazily reading
+ * the class file through a {@link SimpleMetadataReader} for annotation
+ * attributes and method metadata.
+ *
+ * @author agent
+ * @since 4.1
+ */
+final class IndexedMetadataReader implements MetadataReader {
+
+	private final Resource resource;
+
+	private final ClassLoader classLoader;
+
+	private final IndexedAnnotationMetadata annotationMetadata;
+
+	private volatile MetadataReader delegate;
+
+
+	IndexedMetadataReader(Resource resource, ClassLoader classLoader, ClassMetadataIndex.Entry entry) {
+		this.resource = resource;
+		this.classLoader = classLoader;
+		this.annotationMetadata = new IndexedAnnotationMetadata(entry);
+	}
+
+
+	@Override
+	public Resource getResource() {
+		return this.resource;
+	}
+
+	@Override
+	public ClassMetadata getClassMetadata() {
+		return this.annotationMetadata;
+	}
+
+	@Override
+	public AnnotationMetadata getAnnotationMetadata() {
+		return this.annotationMetadata;
+	}
+
+	private AnnotationMetadata getDelegateMetadata() {
+		if (this.delegate == null) {
+			try {
+				this.delegate = new SimpleMetadataReader(this.resource, this.classLoader);
+			}
+			catch (IOException ex) {
+				throw new IllegalStateException("Failed to read class file for indexed class [" +
+						this.annotationMetadata.getClassName() + "]: " + this.resource, ex);
+			}
+		}
+		return this.delegate.getAnnotationMetadata();
+	}
+
+
+	/**
+	 * {@link AnnotationMetadata} view on an index entry.
+	 */
+	private class IndexedAnnotationMetadata implements AnnotationMetadata {
+
+		private final ClassMetadataIndex.Entry entry;
+
+		public IndexedAnnotationMetadata(ClassMetadataIndex.Entry entry) {
+			this.entry = entry;
+		}
+
+		@Override
+		public String getClassName() {
+			return this.entry.className;
+		}
+
+		@Override
+		public boolean isInterface() {
+			return this.entry.isInterface;
+		}
+
+		@Override
+		public boolean isAbstract() {
+			return this.entry.isAbstract;
+		}
+
+		@Override
+		public boolean isConcrete() {
+			return !(this.entry.isInterface || this.entry.isAbstract);
+		}
+
+		@Override
+		public boolean isFinal() {
+			return this.entry.isFinal;
+		}
+
+		@Override
+		public boolean isIndependent() {
+			return this.entry.isIndependent;
+		}
+
+		@Override
+		public boolean hasEnclosingClass() {
+			return (this.entry.enclosingClassName != null);
+		}
+
+		@Override
+		public String getEnclosingClassName() {
+			return this.entry.enclosingClassName;
+		}
+
+		@Override
+		public boolean hasSuperClass() {
+			return (this.entry.superClassName != null);
+		}
+
+		@Override
+		public String getSuperClassName() {
+			return this.entry.superClassName;
+		}
+
+		@Override
+		public String[] getInterfaceNames() {
+			return this.entry.interfaceNames.clone();
+		}
+
+		@Override
+		public String[] getMemberClassNames() {
+			return this.entry.memberClassNames.clone();
+		}
+
+		@Override
+		public Set<String> getAnnotationTypes() {
+			return this.entry.metaAnnotationMap.keySet();
+		}
+
+		@Override
+		public Set<String> getMetaAnnotationTypes(String annotationType) {
+			return this.entry.metaAnnotationMap.get(annotationType);
+		}
+
+		@Override
+		public boolean hasAnnotation(String annotationType) {
+			return this.entry.metaAnnotationMap.containsKey(annotationType);
+		}
+
+		@Override
+		public boolean hasMetaAnnotation(String metaAnnotationType) {
+			for (Set<String> metaTypes : this.entry.metaAnnotationMap.values()) {
+				if (metaTypes.contains(metaAnnotationType)) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		@Override
+		public boolean isAnnotated(String annotationType) {
+			return this.entry.annotatedTypes.contains(annotationType);
+		}
+
+		@Override
+		public Map<String, Object> getAnnotationAttributes(String annotationType) {
+			return getAnnotationAttributes(annotationType, false);
+		}
+
+		@Override
+		public Map<String, Object> getAnnotationAttributes(String annotationType, boolean classValuesAsString) {
+			if (!isAnnotated(annotationType)) {
+				return null;
+			}
+			return getDelegateMetadata().getAnnotationAttributes(annotationType, classValuesAsString);
+		}
+
+		@Override
+		public MultiValueMap<String, Object> getAllAnnotationAttributes(String annotationType) {
+			return getAllAnnotationAttributes(annotationType, false);
+		}
+
+		@Override
+		public MultiValueMap<String, Object> getAllAnnotationAttributes(String annotationType, boolean classValuesAsString) {
+			if (!isAnnotated(annotationType)) {
+				return null;
+			}
+			return getDelegateMetadata().getAllAnnotationAttributes(annotationType, classValuesAsString);
+		}
+
+		@Override
+		public boolean hasAnnotatedMethods(String annotationType) {
+			return getDelegateMetadata().hasAnnotatedMethods(annotationType);
+		}
+
+		@Override
+		public Set<MethodMetadata> getAnnotatedMethods(String annotationType) {
+			return getDelegateMetadata().getAnnotatedMethods(annotationType);
+		}
+	}
+
+}
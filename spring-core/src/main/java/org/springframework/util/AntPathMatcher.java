@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2013 the original author or authors.
+ * Copyright 2002-2014 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,7 @@
 
 package org.springframework.util;
 
+import java.lang.reflect.Method;
 import java.util.Comparator;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
@@ -41,6 +42,11 @@ import java.util.regex.Pattern;
  * <li>{@code org/&#42;&#42;/servlet/bla.jsp} - matches {@code org/springframework/servlet/bla.jsp} but also
  * {@code org/springframework/testing/servlet/bla.jsp} and {@code org/servlet/bla.jsp}</li> </ul>
  *
+ * <p>Patterns are parsed once into a precompiled representation that is matched
+ * segment by segment against the given path, without tokenizing the path into
+ * Strings, and using regular expressions only for segments with URI template
+ * variables. Precompiled patterns are kept in a cache (see {@link #setCachePatterns}).
+ *
  * @author Alef Arendsen
  * @author Juergen Hoeller
  * @author Rob Harrop
@@ -53,7 +59,8 @@ public class AntPathMatcher implements PathMatcher {
 	/** Default path separator: "/" */
 	public static final String DEFAULT_PATH_SEPARATOR = "/";
 
-	private static final int CACHE_TURNOFF_THRESHOLD = 65536;
+	/** Default maximum number of entries in each pattern cache: 65536 */
+	public static final int DEFAULT_CACHE_LIMIT = 65536;
 
 	private static final Pattern VARIABLE_PATTERN = Pattern.compile("\\{[^/]+?\\}");
 
@@ -64,9 +71,16 @@ public class AntPathMatcher implements PathMatcher {
 
 	private volatile Boolean cachePatterns;
 
-	private final Map<String, String[]> tokenizedPatternCache = new ConcurrentHashMap<String, String[]>(256);
+	private volatile int cacheLimit = DEFAULT_CACHE_LIMIT;
+
+	private final boolean customTokenization =
+			(isOverridden("tokenizePattern") || isOverridden("tokenizePath") || isOverridden("getStringMatcher"));
+
+	final PatternCache<PathPattern> pathPatternCache = new PatternCache<PathPattern>();
 
-	final Map<String, AntPathStringMatcher> stringMatcherCache = new ConcurrentHashMap<String, AntPathStringMatcher>(256);
+	final PatternCache<String[]> tokenizedPatternCache = new PatternCache<String[]>();
+
+	final PatternCache<AntPathStringMatcher> stringMatcherCache = new PatternCache<AntPathStringMatcher>();
 
 
 	/**
@@ -75,6 +89,15 @@ public class AntPathMatcher implements PathMatcher {
 	 */
 	public void setPathSeparator(String pathSeparator) {
 		this.pathSeparator = (pathSeparator != null ? pathSeparator : DEFAULT_PATH_SEPARATOR);
+		clearPatternCaches();
+	}
+
+	/**
+	 * Return the path separator used for pattern parsing.
+	 * @since 4.1
+	 */
+	public String getPathSeparator() {
+		return this.pathSeparator;
 	}
 
 	/**
@@ -83,6 +106,7 @@ public class AntPathMatcher implements PathMatcher {
 	 */
 	public void setTrimTokens(boolean trimTokens) {
 		this.trimTokens = trimTokens;
+		clearPatternCaches();
 	}
 
 	/**
@@ -90,22 +114,52 @@ public class AntPathMatcher implements PathMatcher {
 	 * into this matcher's {@link #match} method. A value of {@code true}
 	 * activates an unlimited pattern cache; a value of {@code false} turns
 	 * the pattern cache off completely.
-	 * <p>Default is for the cache to be on, but with the variant to automatically
-	 * turn it off when encountering too many patterns to cache at runtime
-	 * (the threshold is 65536), assuming that arbitrary permutations of patterns
-	 * are coming in, with little chance for encountering a reoccurring pattern.
+	 * <p>Default is for the cache to be on, but bounded to the
+	 * {@link #setCacheLimit "cacheLimit"}: when encountering too many patterns
+	 * at runtime, for example arbitrary permutations of patterns with little
+	 * chance of reoccurring, the oldest entries get evicted.
 	 * @see #getStringMatcher(String)
 	 */
 	public void setCachePatterns(boolean cachePatterns) {
 		this.cachePatterns = cachePatterns;
+		clearPatternCaches();
 	}
 
-	private void deactivatePatternCache() {
-		this.cachePatterns = false;
+	/**
+	 * Specify the maximum number of entries in each pattern cache,
+	 * applying to the default (bounded) cache setting only.
+	 * <p>Default is 65536.
+	 * @since 4.1
+	 * @see #setCachePatterns
+	 */
+	public void setCacheLimit(int cacheLimit) {
+		this.cacheLimit = cacheLimit;
+		clearPatternCaches();
+	}
+
+	/**
+	 * Return the maximum number of entries in each pattern cache.
+	 * @since 4.1
+	 */
+	public int getCacheLimit() {
+		return this.cacheLimit;
+	}
+
+	private void clearPatternCaches() {
+		this.pathPatternCache.clear();
 		this.tokenizedPatternCache.clear();
 		this.stringMatcherCache.clear();
 	}
 
+	/**
+	 * Determine whether the given tokenization method has been overridden,
+	 * in which case precompiled patterns cannot be used.
+	 */
+	private boolean isOverridden(String methodName) {
+		Method method = ReflectionUtils.findMethod(getClass(), methodName, String.class);
+		return (method != null && method.getDeclaringClass() != AntPathMatcher.class);
+	}
+
 
 	@Override
 	public boolean isPattern(String path) {
@@ -131,6 +185,10 @@ public class AntPathMatcher implements PathMatcher {
 	 * @return {@code true} if the supplied {@code path} matched, {@code false} if it didn't
 	 */
 	protected boolean doMatch(String pattern, String path, boolean fullMatch, Map<String, String> uriTemplateVariables) {
+		if (!this.customTokenization && this.pathSeparator.length() == 1) {
+			return getPathPattern(pattern).matches(path, fullMatch, uriTemplateVariables);
+		}
+
 		if (path.startsWith(this.pathSeparator) != pattern.startsWith(this.pathSeparator)) {
 			return false;
 		}
@@ -263,23 +321,10 @@ public class AntPathMatcher implements PathMatcher {
 	 * @return the tokenized pattern parts
 	 */
 	protected String[] tokenizePattern(String pattern) {
-		String[] tokenized = null;
-		Boolean cachePatterns = this.cachePatterns;
-		if (cachePatterns == null || cachePatterns.booleanValue()) {
-			tokenized = this.tokenizedPatternCache.get(pattern);
-		}
+		String[] tokenized = this.tokenizedPatternCache.get(pattern);
 		if (tokenized == null) {
 			tokenized = tokenizePath(pattern);
-			if (cachePatterns == null && this.tokenizedPatternCache.size() >= CACHE_TURNOFF_THRESHOLD) {
-				// Try to adapt to the runtime situation that we're encountering:
-				// There are obviously too many different patterns coming in here...
-				// So let's turn off the cache since the patterns are unlikely to be reoccurring.
-				deactivatePatternCache();
-				return tokenized;
-			}
-			if (cachePatterns == null || cachePatterns.booleanValue()) {
-				this.tokenizedPatternCache.put(pattern, tokenized);
-			}
+			this.tokenizedPatternCache.put(pattern, tokenized);
 		}
 		return tokenized;
 	}
@@ -308,36 +353,35 @@ public class AntPathMatcher implements PathMatcher {
 	 * <p>The default implementation checks this AntPathMatcher's internal cache
 	 * (see {@link #setCachePatterns}), creating a new AntPathStringMatcher instance
 	 * if no cached copy is found.
-	 * When encountering too many patterns to cache at runtime (the threshold is 65536),
-	 * it turns the default cache off, assuming that arbitrary permutations of patterns
-	 * are coming in, with little chance for encountering a reoccurring pattern.
 	 * <p>This method may get overridden to implement a custom cache strategy.
+	 * Note that overriding this method, {@link #tokenizePattern} or {@link #tokenizePath}
+	 * switches this matcher from precompiled patterns to per-call tokenization,
+	 * so that the overridden methods are consulted for every match.
 	 * @param pattern the pattern to match against (never {@code null})
 	 * @return a corresponding AntPathStringMatcher (never {@code null})
 	 * @see #setCachePatterns
 	 */
 	protected AntPathStringMatcher getStringMatcher(String pattern) {
-		AntPathStringMatcher matcher = null;
-		Boolean cachePatterns = this.cachePatterns;
-		if (cachePatterns == null || cachePatterns.booleanValue()) {
-			matcher = this.stringMatcherCache.get(pattern);
-		}
+		AntPathStringMatcher matcher = this.stringMatcherCache.get(pattern);
 		if (matcher == null) {
 			matcher = new AntPathStringMatcher(pattern);
-			if (cachePatterns == null && this.stringMatcherCache.size() >= CACHE_TURNOFF_THRESHOLD) {
-				// Try to adapt to the runtime situation that we're encountering:
-				// There are obviously too many different patterns coming in here...
-				// So let's turn off the cache since the patterns are unlikely to be reoccurring.
-				deactivatePatternCache();
-				return matcher;
-			}
-			if (cachePatterns == null || cachePatterns.booleanValue()) {
-				this.stringMatcherCache.put(pattern, matcher);
-			}
+			this.stringMatcherCache.put(pattern, matcher);
 		}
 		return matcher;
 	}
 
+	/**
+	 * Build or retrieve the precompiled representation of the given pattern.
+	 */
+	private PathPattern getPathPattern(String pattern) {
+		PathPattern pathPattern = this.pathPatternCache.get(pattern);
+		if (pathPattern == null) {
+			pathPattern = new PathPattern(pattern, this.pathSeparator.charAt(0), this.trimTokens);
+			this.pathPatternCache.put(pattern, pathPattern);
+		}
+		return pathPattern;
+	}
+
 	/**
 	 * Given a pattern and a full path, determine the pattern-mapped part. <p>For example: <ul>
 	 * <li>'{@code /docs/cvs/commit.html}' and '{@code /docs/cvs/commit.html} -> ''</li>
@@ -478,6 +522,387 @@ public class AntPathMatcher implements PathMatcher {
 	}
 
 
+	/**
+	 * Cache for parsed pattern metadata, applying this matcher's cache settings:
+	 * reads go against a concurrent map, while additions in the default (bounded)
+	 * mode are registered in insertion order so that the oldest entries can be
+	 * evicted once the cache limit is exceeded.
+	 */
+	class PatternCache<T> {
+
+		private final Map<String, T> accessCache = new ConcurrentHashMap<String, T>(256);
+
+		@SuppressWarnings("serial")
+		private final Map<String, T> evictionQueue = new LinkedHashMap<String, T>(256) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, T> eldest) {
+				if (size() > getCacheLimit()) {
+					accessCache.remove(eldest.getKey());
+					return true;
+				}
+				return false;
+			}
+		};
+
+		public T get(String pattern) {
+			Boolean cachePatterns = AntPathMatcher.this.cachePatterns;
+			return (cachePatterns == null || cachePatterns.booleanValue() ? this.accessCache.get(pattern) : null);
+		}
+
+		public void put(String pattern, T value) {
+			Boolean cachePatterns = AntPathMatcher.this.cachePatterns;
+			if (cachePatterns == null) {
+				synchronized (this.evictionQueue) {
+					this.accessCache.put(pattern, value);
+					this.evictionQueue.put(pattern, value);
+				}
+			}
+			else if (cachePatterns.booleanValue()) {
+				this.accessCache.put(pattern, value);
+			}
+		}
+
+		public int size() {
+			return this.accessCache.size();
+		}
+
+		public boolean isEmpty() {
+			return this.accessCache.isEmpty();
+		}
+
+		public void clear() {
+			synchronized (this.evictionQueue) {
+				this.accessCache.clear();
+				this.evictionQueue.clear();
+			}
+		}
+	}
+
+
+	/**
+	 * Precompiled representation of a pattern, matching a path segment by segment
+	 * against offsets into the path String, following the same algorithm as
+	 * {@link AntPathMatcher#doMatch} on tokenized Strings.
+	 */
+	private static class PathPattern {
+
+		private final char separator;
+
+		private final boolean trimTokens;
+
+		private final boolean startsWithSeparator;
+
+		private final boolean endsWithSeparator;
+
+		private final PathSegment[] segments;
+
+		public PathPattern(String pattern, char separator, boolean trimTokens) {
+			this.separator = separator;
+			this.trimTokens = trimTokens;
+			this.startsWithSeparator = (pattern.length() > 0 && pattern.charAt(0) == separator);
+			this.endsWithSeparator = (pattern.length() > 0 && pattern.charAt(pattern.length() - 1) == separator);
+			int[] offsets = tokenize(pattern);
+			this.segments = new PathSegment[offsets.length / 2];
+			for (int i = 0; i < this.segments.length; i++) {
+				this.segments[i] = new PathSegment(pattern.substring(offsets[2 * i], offsets[2 * i + 1]));
+			}
+		}
+
+		public boolean matches(String path, boolean fullMatch, Map<String, String> uriTemplateVariables) {
+			int pathLength = path.length();
+			if ((pathLength > 0 && path.charAt(0) == this.separator) != this.startsWithSeparator) {
+				return false;
+			}
+			boolean pathEndsWithSeparator = (pathLength > 0 && path.charAt(pathLength - 1) == this.separator);
+
+			PathSegment[] pattDirs = this.segments;
+			int[] pathDirs = tokenize(path);
+
+			int pattIdxStart = 0;
+			int pattIdxEnd = pattDirs.length - 1;
+			int pathIdxStart = 0;
+			int pathIdxEnd = pathDirs.length / 2 - 1;
+
+			// Match all elements up to the first **
+			while (pattIdxStart <= pattIdxEnd && pathIdxStart <= pathIdxEnd) {
+				PathSegment pattDir = pattDirs[pattIdxStart];
+				if (pattDir.isDoubleWildcard()) {
+					break;
+				}
+				if (!pattDir.matches(path, pathDirs, pathIdxStart, uriTemplateVariables)) {
+					return false;
+				}
+				pattIdxStart++;
+				pathIdxStart++;
+			}
+
+			if (pathIdxStart > pathIdxEnd) {
+				// Path is exhausted, only match if rest of pattern is * or **'s
+				if (pattIdxStart > pattIdxEnd) {
+					return (this.endsWithSeparator ? pathEndsWithSeparator : !pathEndsWithSeparator);
+				}
+				if (!fullMatch) {
+					return true;
+				}
+				if (pattIdxStart == pattIdxEnd && pattDirs[pattIdxStart].isWildcard() && pathEndsWithSeparator) {
+					return true;
+				}
+				return onlyDoubleWildcards(pattIdxStart, pattIdxEnd);
+			}
+			else if (pattIdxStart > pattIdxEnd) {
+				// String not exhausted, but pattern is. Failure.
+				return false;
+			}
+			else if (!fullMatch && pattDirs[pattIdxStart].isDoubleWildcard()) {
+				// Path start definitely matches due to "**" part in pattern.
+				return true;
+			}
+
+			// up to last '**'
+			while (pattIdxStart <= pattIdxEnd && pathIdxStart <= pathIdxEnd) {
+				PathSegment pattDir = pattDirs[pattIdxEnd];
+				if (pattDir.isDoubleWildcard()) {
+					break;
+				}
+				if (!pattDir.matches(path, pathDirs, pathIdxEnd, uriTemplateVariables)) {
+					return false;
+				}
+				pattIdxEnd--;
+				pathIdxEnd--;
+			}
+			if (pathIdxStart > pathIdxEnd) {
+				// String is exhausted
+				return onlyDoubleWildcards(pattIdxStart, pattIdxEnd);
+			}
+
+			while (pattIdxStart != pattIdxEnd && pathIdxStart <= pathIdxEnd) {
+				int patIdxTmp = -1;
+				for (int i = pattIdxStart + 1; i <= pattIdxEnd; i++) {
+					if (pattDirs[i].isDoubleWildcard()) {
+						patIdxTmp = i;
+						break;
+					}
+				}
+				if (patIdxTmp == pattIdxStart + 1) {
+					// '**/**' situation, so skip one
+					pattIdxStart++;
+					continue;
+				}
+				// Find the pattern between padIdxStart & padIdxTmp in str between
+				// strIdxStart & strIdxEnd
+				int patLength = (patIdxTmp - pattIdxStart - 1);
+				int strLength = (pathIdxEnd - pathIdxStart + 1);
+				int foundIdx = -1;
+
+				strLoop:
+				for (int i = 0; i <= strLength - patLength; i++) {
+					for (int j = 0; j < patLength; j++) {
+						PathSegment subPat = pattDirs[pattIdxStart + j + 1];
+						if (!subPat.matches(path, pathDirs, pathIdxStart + i + j, uriTemplateVariables)) {
+							continue strLoop;
+						}
+					}
+					foundIdx = pathIdxStart + i;
+					break;
+				}
+
+				if (foundIdx == -1) {
+					return false;
+				}
+
+				pattIdxStart = patIdxTmp;
+				pathIdxStart = foundIdx + patLength;
+			}
+
+			return onlyDoubleWildcards(pattIdxStart, pattIdxEnd);
+		}
+
+		private boolean onlyDoubleWildcards(int start, int end) {
+			for (int i = start; i <= end; i++) {
+				if (!this.segments[i].isDoubleWildcard()) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		/**
+		 * Determine the start and end offsets of all segments in the given String,
+		 * consistent with {@link StringUtils#tokenizeToStringArray} ignoring empty
+		 * tokens and optionally trimming them.
+		 * @return an array with the start and end offset of each segment
+		 */
+		private int[] tokenize(String str) {
+			int[] offsets = new int[scanSegments(str, null) * 2];
+			scanSegments(str, offsets);
+			return offsets;
+		}
+
+		private int scanSegments(String str, int[] offsets) {
+			int count = 0;
+			int length = str.length();
+			int pos = 0;
+			while (pos < length) {
+				int end = str.indexOf(this.separator, pos);
+				if (end == -1) {
+					end = length;
+				}
+				int start = pos;
+				pos = end + 1;
+				if (this.trimTokens) {
+					while (start < end && str.charAt(start) <= ' ') {
+						start++;
+					}
+					while (end > start && str.charAt(end - 1) <= ' ') {
+						end--;
+					}
+				}
+				if (start < end) {
+					if (offsets != null) {
+						offsets[2 * count] = start;
+						offsets[2 * count + 1] = end;
+					}
+					count++;
+				}
+			}
+			return count;
+		}
+	}
+
+
+	/**
+	 * A single segment of a {@link PathPattern}: a literal, a "*" / "?" wildcard
+	 * expression matched without regular expressions, a "**", or a segment with
+	 * URI template variables matched through an {@link AntPathStringMatcher}.
+	 */
+	private static class PathSegment {
+
+		private static final int LITERAL = 0;
+
+		private static final int WILDCARD = 1;
+
+		private static final int DOUBLE_WILDCARD = 2;
+
+		private static final int TEMPLATE = 3;
+
+		private final String pattern;
+
+		private final int type;
+
+		private volatile AntPathStringMatcher stringMatcher;
+
+		public PathSegment(String pattern) {
+			this.pattern = pattern;
+			this.type = determineType(pattern);
+		}
+
+		private static int determineType(String pattern) {
+			if ("**".equals(pattern)) {
+				return DOUBLE_WILDCARD;
+			}
+			int type = LITERAL;
+			for (int i = 0; i < pattern.length(); i++) {
+				char c = pattern.charAt(i);
+				if (c == '{' || c == '}') {
+					return TEMPLATE;
+				}
+				if (isLineTerminator(c) || Character.isHighSurrogate(c) || Character.isLowSurrogate(c)) {
+					// Leave exact regex semantics for such characters to AntPathStringMatcher
+					return TEMPLATE;
+				}
+				if (c == '*' || c == '?') {
+					type = WILDCARD;
+				}
+			}
+			return type;
+		}
+
+		public boolean isDoubleWildcard() {
+			return (this.type == DOUBLE_WILDCARD);
+		}
+
+		public boolean isWildcard() {
+			return "*".equals(this.pattern);
+		}
+
+		public boolean matches(String path, int[] offsets, int index, Map<String, String> uriTemplateVariables) {
+			int start = offsets[2 * index];
+			int end = offsets[2 * index + 1];
+			switch (this.type) {
+				case LITERAL:
+					return (end - start == this.pattern.length() && path.regionMatches(start, this.pattern, 0, end - start));
+				case WILDCARD:
+					return matchWildcards(path, start, end);
+				default:
+					AntPathStringMatcher matcher = this.stringMatcher;
+					if (matcher == null) {
+						matcher = new AntPathStringMatcher(this.pattern);
+						this.stringMatcher = matcher;
+					}
+					return matcher.matchStrings(path.substring(start, end), uriTemplateVariables);
+			}
+		}
+
+		/**
+		 * Match the given region against this segment's '*' and '?' wildcards,
+		 * consistent with their ".*" and "." regular expression equivalents:
+		 * a wildcard consumes whole code points but never a line terminator.
+		 */
+		private boolean matchWildcards(String str, int start, int end) {
+			String pattern = this.pattern;
+			int patternLength = pattern.length();
+			int patternPos = 0;
+			int strPos = start;
+			int starPatternPos = -1;
+			int starStrPos = -1;
+			while (strPos < end) {
+				if (patternPos < patternLength) {
+					char pc = pattern.charAt(patternPos);
+					if (pc == '*') {
+						starPatternPos = patternPos++;
+						starStrPos = strPos;
+						continue;
+					}
+					char sc = str.charAt(strPos);
+					if (pc == '?') {
+						if (isLineTerminator(sc)) {
+							return false;
+						}
+						strPos += charCount(str, strPos, end);
+						patternPos++;
+						continue;
+					}
+					if (pc == sc) {
+						strPos++;
+						patternPos++;
+						continue;
+					}
+				}
+				// Mismatch: let the last '*' consume one more code point, if possible
+				if (starPatternPos == -1 || isLineTerminator(str.charAt(starStrPos))) {
+					return false;
+				}
+				starStrPos += charCount(str, starStrPos, end);
+				strPos = starStrPos;
+				patternPos = starPatternPos + 1;
+			}
+			while (patternPos < patternLength && pattern.charAt(patternPos) == '*') {
+				patternPos++;
+			}
+			return (patternPos == patternLength);
+		}
+
+		private static int charCount(String str, int pos, int end) {
+			return (Character.isHighSurrogate(str.charAt(pos)) && pos + 1 < end &&
+					Character.isLowSurrogate(str.charAt(pos + 1)) ? 2 : 1);
+		}
+
+		private static boolean isLineTerminator(char c) {
+			return (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029');
+		}
+	}
+
+
 	/**
 	 * Tests whether or not a string matches against a pattern via a {@link Pattern}.
 	 * <p>The pattern may contain special characters: '*' means zero or more characters; '?' means one and
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2013 the original author or authors.
+ * Copyright 2002-2014 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -128,6 +128,47 @@ public abstract class StreamUtils {
 		return byteCount;
 	}
 
+	/**
+	 * Copy a range of content of the given InputStream to the given OutputStream.
+	 * <p>If the specified range exceeds the length of the InputStream, this copies
+	 * up to the end of the stream and returns the actual number of copied bytes.
+	 * <p>Leaves both streams open when done.
+	 * @param in the InputStream to copy from
+	 * @param out the OutputStream to copy to
+	 * @param start the position to start copying from
+	 * @param end the position to end copying (inclusive)
+	 * @return the number of bytes copied
+	 * @throws IOException in case of I/O errors
+	 * @since 4.1
+	 */
+	public static long copyRange(InputStream in, OutputStream out, long start, long end) throws IOException {
+		Assert.notNull(in, "No InputStream specified");
+		Assert.notNull(out, "No OutputStream specified");
+		long skipped = 0;
+		while (skipped < start) {
+			long count = in.skip(start - skipped);
+			if (count <= 0) {
+				if (in.read() == -1) {
+					throw new IOException("Skipped only " + skipped + " bytes out of " + start + " required");
+				}
+				count = 1;
+			}
+			skipped += count;
+		}
+		long bytesToCopy = end - start + 1;
+		byte[] buffer = new byte[BUFFER_SIZE];
+		while (bytesToCopy > 0) {
+			int bytesRead = in.read(buffer, 0, (int) Math.min(buffer.length, bytesToCopy));
+			if (bytesRead == -1) {
+				break;
+			}
+			out.write(buffer, 0, bytesRead);
+			bytesToCopy -= bytesRead;
+		}
+		out.flush();
+		return (end - start + 1 - bytesToCopy);
+	}
+
 	/**
 	 * Returns a variant of the given {@link InputStream} where calling
 	 * {@link InputStream#close() close()} has no effect.
@@ -0,0 +1,260 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.type.classreading;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.UrlResource;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.FileCopyUtils;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link ClassMetadataIndex} and its use in
+ * {@link CachingMetadataReaderFactory}.
+ *
+ * @author agent
+ * @since 4.1
+ */
+public class ClassMetadataIndexTests {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+
+	@Test
+	public void readerServedFromIndexAfterFirstRead() throws Exception {
+		ClassMetadataIndex index = new ClassMetadataIndex();
+		CachingMetadataReaderFactory mrf = new CachingMetadataReaderFactory();
+		mrf.setMetadataIndex(index);
+		Resource resource = classFile(IndexedComponent.class);
+
+		MetadataReader reader = mrf.getMetadataReader(resource);
+		assertTrue(reader instanceof SimpleMetadataReader);
+		assertEquals(1, index.size());
+		assertTrue(index.isModified());
+
+		mrf.clearCache();
+		MetadataReader indexedReader = mrf.getMetadataReader(resource);
+		assertTrue(indexedReader instanceof IndexedMetadataReader);
+		assertSameMetadata(reader.getAnnotationMetadata(), indexedReader.getAnnotationMetadata());
+	}
+
+	@Test
+	public void storeAndLoad() throws Exception {
+		ClassMetadataIndex index = new ClassMetadataIndex();
+		CachingMetadataReaderFactory mrf = new CachingMetadataReaderFactory();
+		mrf.setMetadataIndex(index);
+		Resource resource = classFile(IndexedComponent.class);
+		MetadataReader reader = mrf.getMetadataReader(resource);
+		mrf.getMetadataReader(classFile(IndexedComponent.Inner.class));
+
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		index.store(os);
+		assertFalse(index.isModified());
+
+		ClassMetadataIndex loadedIndex = new ClassMetadataIndex();
+		loadedIndex.load(new ByteArrayInputStream(os.toByteArray()));
+		assertEquals(2, loadedIndex.size());
+		assertFalse(loadedIndex.isModified());
+
+		CachingMetadataReaderFactory loadedMrf = new CachingMetadataReaderFactory();
+		loadedMrf.setMetadataIndex(loadedIndex);
+		MetadataReader indexedReader = loadedMrf.getMetadataReader(resource);
+		assertTrue(indexedReader instanceof IndexedMetadataReader);
+		assertSameMetadata(reader.getAnnotationMetadata(), indexedReader.getAnnotationMetadata());
+
+		AnnotationMetadata inner = loadedMrf.getMetadataReader(classFile(IndexedComponent.Inner.class)).getAnnotationMetadata();
+		assertEquals(IndexedComponent.class.getName(), inner.getEnclosingClassName());
+		assertTrue(inner.isIndependent());
+		assertTrue(inner.isAbstract());
+		assertFalse(inner.isConcrete());
+		assertTrue(inner.getAnnotationTypes().isEmpty());
+	}
+
+	@Test
+	public void lazyAnnotationAttributesAndMethodMetadata() throws Exception {
+		ClassMetadataIndex index = new ClassMetadataIndex();
+		CachingMetadataReaderFactory mrf = new CachingMetadataReaderFactory();
+		mrf.setMetadataIndex(index);
+		Resource resource = classFile(IndexedComponent.class);
+		mrf.getMetadataReader(resource);
+		mrf.clearCache();
+
+		AnnotationMetadata metadata = mrf.getMetadataReader(resource).getAnnotationMetadata();
+		Map<String, Object> attributes = metadata.getAnnotationAttributes(Component.class.getName());
+		assertEquals("myComponent", attributes.get("value"));
+		assertNull(metadata.getAnnotationAttributes(Deprecated.class.getName()));
+		assertTrue(metadata.hasAnnotatedMethods(Marker.class.getName()));
+		assertEquals(1, metadata.getAnnotatedMethods(Marker.class.getName()).size());
+	}
+
+	@Test
+	public void modifiedClassFileIsReadAgain() throws Exception {
+		ClassMetadataIndex index = new ClassMetadataIndex();
+		CachingMetadataReaderFactory mrf = new CachingMetadataReaderFactory();
+		mrf.setCacheLimit(0);
+		mrf.setMetadataIndex(index);
+		URL url = IndexedComponent.class.getResource("ClassMetadataIndexTests$IndexedComponent.class");
+		byte[] content = FileCopyUtils.copyToByteArray(url.openStream());
+		byte[] modifiedContent = Arrays.copyOf(content, content.length + 1);
+
+		mrf.getMetadataReader(new ContentResource(url, content));
+		assertTrue(mrf.getMetadataReader(new ContentResource(url, content)) instanceof IndexedMetadataReader);
+		assertTrue(mrf.getMetadataReader(new ContentResource(url, modifiedContent)) instanceof SimpleMetadataReader);
+		assertTrue(mrf.getMetadataReader(new ContentResource(url, modifiedContent)) instanceof IndexedMetadataReader);
+		assertEquals(1, index.size());
+	}
+
+	@Test
+	public void indexBuiltForDifferentRootLocation() throws Exception {
+		ClassMetadataIndex index = new ClassMetadataIndex();
+		CachingMetadataReaderFactory mrf = new CachingMetadataReaderFactory();
+		mrf.setMetadataIndex(index);
+		Resource resource = classFile(IndexedComponent.class);
+		MetadataReader reader = mrf.getMetadataReader(resource);
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		index.store(os);
+		assertTrue(os.toString("ISO-8859-1").contains(
+				"org/springframework/core/type/classreading/ClassMetadataIndexTests$IndexedComponent.class="));
+
+		String resourcePath = ClassUtils.convertClassNameToResourcePath(IndexedComponent.class.getName()) + ".class";
+		byte[] content = FileCopyUtils.copyToByteArray(resource.getInputStream());
+		File classFile = new File(this.temporaryFolder.newFolder("classes"), resourcePath);
+		classFile.getParentFile().mkdirs();
+		FileCopyUtils.copy(content, classFile);
+		File jarFile = this.temporaryFolder.newFile("classes.jar");
+		JarOutputStream jos = new JarOutputStream(new FileOutputStream(jarFile));
+		jos.putNextEntry(new JarEntry(resourcePath));
+		jos.write(content);
+		jos.close();
+
+		ClassMetadataIndex loadedIndex = new ClassMetadataIndex();
+		loadedIndex.load(new ByteArrayInputStream(os.toByteArray()));
+		CachingMetadataReaderFactory loadedMrf = new CachingMetadataReaderFactory();
+		loadedMrf.setMetadataIndex(loadedIndex);
+		MetadataReader fileReader = loadedMrf.getMetadataReader(new FileSystemResource(classFile));
+		assertTrue(fileReader instanceof IndexedMetadataReader);
+		assertSameMetadata(reader.getAnnotationMetadata(), fileReader.getAnnotationMetadata());
+		MetadataReader jarReader = loadedMrf.getMetadataReader(
+				new UrlResource("jar:" + jarFile.toURI().toURL() + "!/" + resourcePath));
+		assertTrue(jarReader instanceof IndexedMetadataReader);
+		assertSameMetadata(reader.getAnnotationMetadata(), jarReader.getAnnotationMetadata());
+		assertFalse(loadedIndex.isModified());
+	}
+
+	@Test
+	public void invalidEntriesAreIgnored() throws Exception {
+		ClassMetadataIndex index = new ClassMetadataIndex();
+		index.load(new ByteArrayInputStream("a=b\nc=x|I|C||||||\n".getBytes("ISO-8859-1")));
+		assertEquals(0, index.size());
+	}
+
+
+	private static Resource classFile(Class<?> clazz) {
+		String name = clazz.getName();
+		return new UrlResource(clazz.getResource(name.substring(name.lastIndexOf('.') + 1) + ".class"));
+	}
+
+	private static void assertSameMetadata(AnnotationMetadata expected, AnnotationMetadata actual) {
+		assertEquals(expected.getClassName(), actual.getClassName());
+		assertEquals(expected.isInterface(), actual.isInterface());
+		assertEquals(expected.isAbstract(), actual.isAbstract());
+		assertEquals(expected.isConcrete(), actual.isConcrete());
+		assertEquals(expected.isFinal(), actual.isFinal());
+		assertEquals(expected.isIndependent(), actual.isIndependent());
+		assertEquals(expected.getEnclosingClassName(), actual.getEnclosingClassName());
+		assertEquals(expected.getSuperClassName(), actual.getSuperClassName());
+		assertEquals(Arrays.asList(expected.getInterfaceNames()), Arrays.asList(actual.getInterfaceNames()));
+		assertEquals(Arrays.asList(expected.getMemberClassNames()), Arrays.asList(actual.getMemberClassNames()));
+		assertEquals(expected.getAnnotationTypes(), actual.getAnnotationTypes());
+		for (String annotationType : expected.getAnnotationTypes()) {
+			assertEquals(expected.getMetaAnnotationTypes(annotationType), actual.getMetaAnnotationTypes(annotationType));
+		}
+		assertTrue(actual.hasAnnotation(Component.class.getName()));
+		assertTrue(actual.hasMetaAnnotation(Marker.class.getName()));
+		assertTrue(actual.isAnnotated(Marker.class.getName()));
+		assertFalse(actual.isAnnotated(Deprecated.class.getName()));
+	}
+
+
+	@Target({ElementType.TYPE, ElementType.METHOD, ElementType.ANNOTATION_TYPE})
+	@Retention(RetentionPolicy.RUNTIME)
+	public @interface Marker {
+	}
+
+
+	@Target(ElementType.TYPE)
+	@Retention(RetentionPolicy.RUNTIME)
+	@Marker
+	public @interface MarkedStereotype {
+	}
+
+
+	@Component("myComponent")
+	@MarkedStereotype
+	public static class IndexedComponent implements Serializable {
+
+		@Marker
+		public void marked() {
+		}
+
+		public abstract static class Inner {
+		}
+	}
+
+
+	private static class ContentResource extends UrlResource {
+
+		private final byte[] content;
+
+		public ContentResource(URL url, byte[] content) {
+			super(url);
+			this.content = content;
+		}
+
+		@Override
+		public InputStream getInputStream() throws IOException {
+			return new ByteArrayInputStream(this.content);
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2013 the original author or authors.
+ * Copyright 2002-2014 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -565,33 +565,88 @@ public class AntPathMatcherTests {
 	@Test
 	public void testDefaultCacheSetting() {
 		match();
-		assertTrue(pathMatcher.stringMatcherCache.size() > 20);
+		assertTrue(pathMatcher.pathPatternCache.size() > 20);
 
 		for (int i = 0; i < 65536; i++) {
 			pathMatcher.match("test" + i, "test");
 		}
-		// Cache turned off because it went beyond the threshold
-		assertTrue(pathMatcher.stringMatcherCache.isEmpty());
+		// Oldest patterns evicted once the cache went beyond its limit
+		assertEquals(AntPathMatcher.DEFAULT_CACHE_LIMIT, pathMatcher.pathPatternCache.size());
+		assertTrue(pathMatcher.match("test65535", "test65535"));
+		assertEquals(AntPathMatcher.DEFAULT_CACHE_LIMIT, pathMatcher.pathPatternCache.size());
+	}
+
+	@Test
+	public void testCacheLimit() {
+		pathMatcher.setCacheLimit(10);
+		match();
+		assertEquals(10, pathMatcher.pathPatternCache.size());
+		match();
+		assertEquals(10, pathMatcher.pathPatternCache.size());
 	}
 
 	@Test
 	public void testCacheSetToTrue() {
 		pathMatcher.setCachePatterns(true);
 		match();
-		assertTrue(pathMatcher.stringMatcherCache.size() > 20);
+		assertTrue(pathMatcher.pathPatternCache.size() > 20);
 
 		for (int i = 0; i < 65536; i++) {
 			pathMatcher.match("test" + i, "test");
 		}
 		// Cache keeps being alive due to the explicit cache setting
-		assertTrue(pathMatcher.stringMatcherCache.size() > 65536);
+		assertTrue(pathMatcher.pathPatternCache.size() > 65536);
 	}
 
 	@Test
 	public void testCacheSetToFalse() {
 		pathMatcher.setCachePatterns(false);
 		match();
+		assertTrue(pathMatcher.pathPatternCache.isEmpty());
 		assertTrue(pathMatcher.stringMatcherCache.isEmpty());
 	}
 
+	@Test
+	public void customTokenizationUsesStringMatchers() {
+		pathMatcher = new AntPathMatcher() {
+			@Override
+			protected String[] tokenizePath(String path) {
+				return super.tokenizePath(path.toLowerCase());
+			}
+		};
+		assertTrue(pathMatcher.match("/Hotels/*", "/hotels/1"));
+		assertTrue(pathMatcher.pathPatternCache.isEmpty());
+		assertFalse(pathMatcher.stringMatcherCache.isEmpty());
+	}
+
+	@Test
+	public void precompiledPatternsMatchLikeStringMatchers() {
+		AntPathMatcher stringMatcher = new AntPathMatcher() {
+			@Override
+			protected AntPathStringMatcher getStringMatcher(String pattern) {
+				return super.getStringMatcher(pattern);
+			}
+		};
+		String[] patterns = {"", "/", "*", "**", "/*", "/**", "/*/", "t?st", "*st*", "*.*", "a*b*c", "*?",
+				"/a/**/b", "/a/**/**/b", "/**/b/*", "/a/*/c/", "/{x}/*", "/{x:[a-z]+}.{y}", " / a /*"};
+		String[] paths = {"", "/", "test", "/test", "/test/", "/a/b", "/a/x/y/b", "/a/b/c/", "/a/b/c",
+				"abbc", "a\nbc", "t\nst", "t\uD83D\uDE00st", "/abc.txt", " / a / b ", "/a//b"};
+		for (String pattern : patterns) {
+			for (String path : paths) {
+				assertEquals(pattern + " / " + path, stringMatcher.match(pattern, path), pathMatcher.match(pattern, path));
+				assertEquals(pattern + " / " + path, stringMatcher.matchStart(pattern, path), pathMatcher.matchStart(pattern, path));
+			}
+		}
+	}
+
+	@Test
+	public void precompiledPatternsWithCustomPathSeparator() {
+		pathMatcher.setPathSeparator(".");
+		assertTrue(pathMatcher.match("/topic.**", "/topic.a.b"));
+		assertTrue(pathMatcher.match("*.price.{ticker}", "stock.price.NASDAQ"));
+		assertEquals(Collections.singletonMap("ticker", "NASDAQ"),
+				pathMatcher.extractUriTemplateVariables("*.price.{ticker}", "stock.price.NASDAQ"));
+		assertFalse(pathMatcher.match("*.price", "stock.price.NASDAQ"));
+	}
+
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2013 the original author or authors.
+ * Copyright 2002-2014 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -21,6 +21,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.charset.Charset;
+import java.util.Arrays;
 import java.util.Random;
 import java.util.UUID;
 
@@ -93,6 +94,23 @@ public class StreamUtilsTests {
 		verify(out, never()).close();
 	}
 
+	@Test
+	public void copyRange() throws Exception {
+		ByteArrayOutputStream out = spy(new ByteArrayOutputStream());
+		long copied = StreamUtils.copyRange(new ByteArrayInputStream(bytes), out, 4000, 4104);
+		assertThat(copied, equalTo(105L));
+		assertThat(out.toByteArray(), equalTo(Arrays.copyOfRange(bytes, 4000, 4105)));
+		verify(out, never()).close();
+	}
+
+	@Test
+	public void copyRangeBeyondEndOfStream() throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		long copied = StreamUtils.copyRange(new ByteArrayInputStream(bytes), out, 10, bytes.length + 100);
+		assertThat(copied, equalTo((long) bytes.length - 10));
+		assertThat(out.toByteArray(), equalTo(Arrays.copyOfRange(bytes, 10, bytes.length)));
+	}
+
 	@Test
 	public void nonClosingInputStream() throws Exception {
 		InputStream source = mock(InputStream.class);
@@ -0,0 +1,434 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.expression.spel;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Stack;
+
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Opcodes;
+import org.springframework.asm.Type;
+
+/**
+ * Manages the class being generated by the compilation process. It records
+ * intermediate compilation state as the bytecode is generated. It also includes
+ * various bytecode generation helper functions.
+ *
+ * <p>Type descriptors used here are regular JVM descriptors, e.g. {@code I} for
+ * an int, {@code Ljava/lang/String;} for a String or {@code [I} for an int array.
+ *
+ * @author agent
+ * @since 4.1
+ */
+public class CodeFlow implements Opcodes {
+
+	/**
+	 * Descriptor used for values whose type is unknown or not publicly accessible.
+	 */
+	public static final String OBJECT_DESCRIPTOR = "Ljava/lang/Object;";
+
+
+	/**
+	 * Record the type of what is on top of the bytecode stack (i.e. the type of the
+	 * output from the previous expression component). New scopes are used to evaluate
+	 * sub-expressions like the expressions for the argument values in a method invocation
+	 * expression.
+	 */
+	private final Stack<List<String>> compilationScopes;
+
+
+	public CodeFlow() {
+		this.compilationScopes = new Stack<List<String>>();
+		this.compilationScopes.add(new ArrayList<String>());
+	}
+
+
+	/**
+	 * Push the byte code to load the target (i.e. what was passed as the first argument
+	 * to CompiledExpression.getValue(target, context))
+	 * @param mv the visitor into which the load instruction should be inserted
+	 */
+	public void loadTarget(MethodVisitor mv) {
+		mv.visitVarInsn(ALOAD, 1);
+	}
+
+	/**
+	 * Push the byte code to load the EvaluationContext (i.e. what was passed as the
+	 * second argument to CompiledExpression.getValue(target, context))
+	 * @param mv the visitor into which the load instruction should be inserted
+	 */
+	public void loadEvaluationContext(MethodVisitor mv) {
+		mv.visitVarInsn(ALOAD, 2);
+	}
+
+	/**
+	 * Record the descriptor for the most recently evaluated expression element.
+	 * @param descriptor type descriptor for most recently evaluated element
+	 */
+	public void pushDescriptor(String descriptor) {
+		if (descriptor != null) {
+			this.compilationScopes.peek().add(descriptor);
+		}
+	}
+
+	/**
+	 * Enter a new compilation scope, usually due to nested expression evaluation. For
+	 * example when the arguments for a method invocation expression are being evaluated,
+	 * each argument will be evaluated in a new scope.
+	 */
+	public void enterCompilationScope() {
+		this.compilationScopes.push(new ArrayList<String>());
+	}
+
+	/**
+	 * Exit a compilation scope, usually after a nested expression has been evaluated. For
+	 * example after an argument for a method invocation has been evaluated this method
+	 * returns us to the previous (outer) scope.
+	 */
+	public void exitCompilationScope() {
+		this.compilationScopes.pop();
+	}
+
+	/**
+	 * @return the descriptor for the item currently on top of the stack (in the current scope),
+	 * or {@code null} if nothing has been pushed in this scope yet
+	 */
+	public String lastDescriptor() {
+		List<String> scope = this.compilationScopes.peek();
+		if (scope.isEmpty()) {
+			return null;
+		}
+		return scope.get(scope.size() - 1);
+	}
+
+	/**
+	 * If the codeflow shows the last expression evaluated to java.lang.Boolean then
+	 * insert the necessary instructions to unbox that to a boolean primitive.
+	 * @param mv the visitor into which new instructions should be inserted
+	 */
+	public void unboxBooleanIfNecessary(MethodVisitor mv) {
+		if ("Ljava/lang/Boolean;".equals(lastDescriptor())) {
+			mv.visitMethodInsn(INVOKEVIRTUAL, "java/lang/Boolean", "booleanValue", "()Z", false);
+		}
+	}
+
+
+	/**
+	 * Determine whether the descriptor is for a primitive type.
+	 * @param descriptor type descriptor
+	 * @return {@code true} if a primitive type
+	 */
+	public static boolean isPrimitive(String descriptor) {
+		return (descriptor != null && descriptor.length() == 1);
+	}
+
+	/**
+	 * Determine whether the descriptor is for a primitive numeric type that
+	 * the compiler performs arithmetic on (int, long, float or double).
+	 * @param descriptor type descriptor
+	 * @return {@code true} if one of I, J, F or D
+	 */
+	public static boolean isPrimitiveNumber(String descriptor) {
+		if (!isPrimitive(descriptor)) {
+			return false;
+		}
+		char ch = descriptor.charAt(0);
+		return (ch == 'I' || ch == 'J' || ch == 'F' || ch == 'D');
+	}
+
+	/**
+	 * Return the descriptor for the primitive type the specified descriptor boxes,
+	 * the descriptor itself if it is already primitive, or {@code null} if it is
+	 * neither primitive nor a primitive wrapper.
+	 * @param descriptor type descriptor
+	 * @return the unboxed primitive descriptor, or {@code null}
+	 */
+	public static String toPrimitiveDescriptor(String descriptor) {
+		if (descriptor == null) {
+			return null;
+		}
+		if (isPrimitive(descriptor)) {
+			return descriptor;
+		}
+		if (descriptor.equals("Ljava/lang/Integer;")) {
+			return "I";
+		}
+		else if (descriptor.equals("Ljava/lang/Long;")) {
+			return "J";
+		}
+		else if (descriptor.equals("Ljava/lang/Double;")) {
+			return "D";
+		}
+		else if (descriptor.equals("Ljava/lang/Float;")) {
+			return "F";
+		}
+		else if (descriptor.equals("Ljava/lang/Boolean;")) {
+			return "Z";
+		}
+		else if (descriptor.equals("Ljava/lang/Character;")) {
+			return "C";
+		}
+		else if (descriptor.equals("Ljava/lang/Short;")) {
+			return "S";
+		}
+		else if (descriptor.equals("Ljava/lang/Byte;")) {
+			return "B";
+		}
+		return null;
+	}
+
+	/**
+	 * Determine the descriptor for a class.
+	 * @param clazz the class
+	 * @return the JVM type descriptor for the class
+	 */
+	public static String toDescriptor(Class<?> clazz) {
+		return Type.getDescriptor(clazz);
+	}
+
+	/**
+	 * Determine the descriptor to use for a value obtained at runtime. Non-public
+	 * types cannot be referenced from generated code, so for those the nearest public
+	 * superclass is used instead.
+	 * @param value the value (may be {@code null})
+	 * @return the type descriptor to use for the value
+	 */
+	public static String toDescriptorFromObject(Object value) {
+		if (value == null) {
+			return OBJECT_DESCRIPTOR;
+		}
+		Class<?> clazz = value.getClass();
+		while (clazz != null && !isPublic(clazz)) {
+			clazz = clazz.getSuperclass();
+		}
+		return (clazz != null ? toDescriptor(clazz) : OBJECT_DESCRIPTOR);
+	}
+
+	/**
+	 * Determine whether the specified class can be referenced from generated code,
+	 * i.e. whether it and (for a nested class) all of its enclosing classes are public.
+	 * @param clazz the class to check
+	 * @return {@code true} if the class is publicly accessible
+	 */
+	public static boolean isPublic(Class<?> clazz) {
+		if (clazz.isArray()) {
+			return isPublic(clazz.getComponentType());
+		}
+		if (clazz.isPrimitive()) {
+			return true;
+		}
+		Class<?> current = clazz;
+		while (current != null) {
+			if (!Modifier.isPublic(current.getModifiers())) {
+				return false;
+			}
+			current = current.getDeclaringClass();
+		}
+		return true;
+	}
+
+	/**
+	 * Convert a type descriptor to the form used by the CHECKCAST instruction: an
+	 * internal name for a class (e.g. {@code java/lang/String}) or the descriptor
+	 * itself for an array type.
+	 * @param descriptor a reference type descriptor
+	 * @return the internal name suitable for a CHECKCAST
+	 */
+	public static String toInternalName(String descriptor) {
+		if (descriptor.charAt(0) == '[') {
+			return descriptor;
+		}
+		return descriptor.substring(1, descriptor.length() - 1);
+	}
+
+	/**
+	 * Insert a CHECKCAST to the specified reference type, unless it is {@code java.lang.Object}.
+	 * @param mv the method visitor into which instructions should be inserted
+	 * @param descriptor the reference type descriptor to cast to
+	 */
+	public static void insertCheckCast(MethodVisitor mv, String descriptor) {
+		if (!OBJECT_DESCRIPTOR.equals(descriptor)) {
+			mv.visitTypeInsn(CHECKCAST, toInternalName(descriptor));
+		}
+	}
+
+	/**
+	 * Determine the appropriate boxing instruction for a specific type (if it is a
+	 * primitive descriptor) and insert the instruction(s) into the method visitor.
+	 * @param mv the target visitor for the new instructions
+	 * @param descriptor the descriptor of a type that may or may not need boxing
+	 */
+	public static void insertBoxIfNecessary(MethodVisitor mv, String descriptor) {
+		if (isPrimitive(descriptor)) {
+			insertBoxIfNecessary(mv, descriptor.charAt(0));
+		}
+	}
+
+	/**
+	 * Determine the appropriate boxing instruction for a specific type (if it is a
+	 * primitive descriptor) and insert the instruction(s) into the method visitor.
+	 * @param mv the target visitor for the new instructions
+	 * @param ch the descriptor of the type that might need boxing
+	 */
+	public static void insertBoxIfNecessary(MethodVisitor mv, char ch) {
+		switch (ch) {
+			case 'Z':
+				mv.visitMethodInsn(INVOKESTATIC, "java/lang/Boolean", "valueOf", "(Z)Ljava/lang/Boolean;", false);
+				break;
+			case 'B':
+				mv.visitMethodInsn(INVOKESTATIC, "java/lang/Byte", "valueOf", "(B)Ljava/lang/Byte;", false);
+				break;
+			case 'C':
+				mv.visitMethodInsn(INVOKESTATIC, "java/lang/Character", "valueOf", "(C)Ljava/lang/Character;", false);
+				break;
+			case 'D':
+				mv.visitMethodInsn(INVOKESTATIC, "java/lang/Double", "valueOf", "(D)Ljava/lang/Double;", false);
+				break;
+			case 'F':
+				mv.visitMethodInsn(INVOKESTATIC, "java/lang/Float", "valueOf", "(F)Ljava/lang/Float;", false);
+				break;
+			case 'I':
+				mv.visitMethodInsn(INVOKESTATIC, "java/lang/Integer", "valueOf", "(I)Ljava/lang/Integer;", false);
+				break;
+			case 'J':
+				mv.visitMethodInsn(INVOKESTATIC, "java/lang/Long", "valueOf", "(J)Ljava/lang/Long;", false);
+				break;
+			case 'S':
+				mv.visitMethodInsn(INVOKESTATIC, "java/lang/Short", "valueOf", "(S)Ljava/lang/Short;", false);
+				break;
+			case 'L':
+			case 'V':
+			case '[':
+				// no box needed
+				break;
+			default:
+				throw new IllegalArgumentException("Boxing should not be attempted for descriptor '" + ch + "'");
+		}
+	}
+
+	/**
+	 * Insert the instructions to convert the item on top of the stack, described by
+	 * {@code stackDescriptor}, to the primitive type {@code targetDescriptor}. If the
+	 * item is already of that primitive type nothing is inserted, otherwise the item
+	 * is cast to the exact wrapper type and unboxed. A value of a different wrapper
+	 * type at runtime therefore results in a {@link ClassCastException}, allowing
+	 * the caller to fall back to interpreted evaluation.
+	 * @param mv the target visitor for the new instructions
+	 * @param targetDescriptor the primitive descriptor to convert to
+	 * @param stackDescriptor the descriptor of the item on top of the stack
+	 */
+	public static void insertUnboxInsns(MethodVisitor mv, char targetDescriptor, String stackDescriptor) {
+		if (isPrimitive(stackDescriptor)) {
+			if (stackDescriptor.charAt(0) != targetDescriptor) {
+				throw new IllegalStateException("Cannot convert primitive '" + stackDescriptor +
+						"' to '" + targetDescriptor + "'");
+			}
+			return;
+		}
+		switch (targetDescriptor) {
+			case 'Z':
+				insertCheckCast(mv, "Ljava/lang/Boolean;");
+				mv.visitMethodInsn(INVOKEVIRTUAL, "java/lang/Boolean", "booleanValue", "()Z", false);
+				break;
+			case 'B':
+				insertCheckCast(mv, "Ljava/lang/Byte;");
+				mv.visitMethodInsn(INVOKEVIRTUAL, "java/lang/Byte", "byteValue", "()B", false);
+				break;
+			case 'C':
+				insertCheckCast(mv, "Ljava/lang/Character;");
+				mv.visitMethodInsn(INVOKEVIRTUAL, "java/lang/Character", "charValue", "()C", false);
+				break;
+			case 'D':
+				insertCheckCast(mv, "Ljava/lang/Double;");
+				mv.visitMethodInsn(INVOKEVIRTUAL, "java/lang/Double", "doubleValue", "()D", false);
+				break;
+			case 'F':
+				insertCheckCast(mv, "Ljava/lang/Float;");
+				mv.visitMethodInsn(INVOKEVIRTUAL, "java/lang/Float", "floatValue", "()F", false);
+				break;
+			case 'I':
+				insertCheckCast(mv, "Ljava/lang/Integer;");
+				mv.visitMethodInsn(INVOKEVIRTUAL, "java/lang/Integer", "intValue", "()I", false);
+				break;
+			case 'J':
+				insertCheckCast(mv, "Ljava/lang/Long;");
+				mv.visitMethodInsn(INVOKEVIRTUAL, "java/lang/Long", "longValue", "()J", false);
+				break;
+			case 'S':
+				insertCheckCast(mv, "Ljava/lang/Short;");
+				mv.visitMethodInsn(INVOKEVIRTUAL, "java/lang/Short", "shortValue", "()S", false);
+				break;
+			default:
+				throw new IllegalArgumentException("Unboxing should not be attempted for descriptor '" +
+						targetDescriptor + "'");
+		}
+	}
+
+	/**
+	 * Insert the instructions to convert the item on top of the stack, described by
+	 * {@code stackDescriptor}, to the type described by {@code targetDescriptor}:
+	 * unboxing for primitive targets, boxing plus a CHECKCAST for reference targets.
+	 * @param mv the target visitor for the new instructions
+	 * @param targetDescriptor the descriptor of the required type
+	 * @param stackDescriptor the descriptor of the item on top of the stack
+	 */
+	public static void insertConversion(MethodVisitor mv, String targetDescriptor, String stackDescriptor) {
+		if (targetDescriptor.equals(stackDescriptor)) {
+			return;
+		}
+		if (isPrimitive(targetDescriptor)) {
+			insertUnboxInsns(mv, targetDescriptor.charAt(0), stackDescriptor);
+		}
+		else {
+			insertBoxIfNecessary(mv, stackDescriptor);
+			insertCheckCast(mv, targetDescriptor);
+		}
+	}
+
+	/**
+	 * Determine whether a value described by {@code stackDescriptor} can be converted
+	 * by {@link #insertConversion} to the type described by {@code targetDescriptor}.
+	 * Conversions that can only be verified at runtime (e.g. from {@code Object} to a
+	 * more specific type) are accepted, whereas conversions between different primitive
+	 * types are not.
+	 */
+	public static boolean isConvertible(String targetDescriptor, String stackDescriptor) {
+		if (targetDescriptor == null || stackDescriptor == null) {
+			return false;
+		}
+		if (targetDescriptor.equals(stackDescriptor)) {
+			return true;
+		}
+		if (isPrimitive(targetDescriptor)) {
+			return (!isPrimitive(stackDescriptor) || targetDescriptor.equals(stackDescriptor));
+		}
+		return true;
+	}
+
+	/**
+	 * Determine the method descriptor for the specified parameter and return types.
+	 * @param method the method
+	 * @return the JVM method descriptor
+	 */
+	public static String createSignatureDescriptor(Method method) {
+		return Type.getMethodDescriptor(method);
+	}
+
+}
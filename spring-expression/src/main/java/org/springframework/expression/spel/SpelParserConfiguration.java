@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2013 the original author or authors.
+ * Copyright 2002-2014 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,8 @@
 
 package org.springframework.expression.spel;
 
+import org.springframework.core.SpringProperties;
+
 /**
  * Configuration object for the SpEL expression parser.
  *
@@ -26,6 +28,25 @@ package org.springframework.expression.spel;
  */
 public class SpelParserConfiguration {
 
+	/**
+	 * System property that determines the default compiler mode:
+	 * "off", "immediate" or "mixed" (case-insensitive).
+	 */
+	public static final String SPRING_EXPRESSION_COMPILER_MODE_PROPERTY_NAME = "spring.expression.compiler.mode";
+
+	private static final SpelCompilerMode defaultCompilerMode;
+
+	static {
+		String compilerMode = SpringProperties.getProperty(SPRING_EXPRESSION_COMPILER_MODE_PROPERTY_NAME);
+		defaultCompilerMode = (compilerMode != null ?
+				SpelCompilerMode.valueOf(compilerMode.toUpperCase()) : SpelCompilerMode.OFF);
+	}
+
+
+	private final SpelCompilerMode compilerMode;
+
+	private final ClassLoader compilerClassLoader;
+
 	private final boolean autoGrowNullReferences;
 
 	private final boolean autoGrowCollections;
@@ -33,6 +54,22 @@ public class SpelParserConfiguration {
 	private final int maximumAutoGrowSize;
 
 
+	/**
+	 * Create a new {@link SpelParserConfiguration} instance with default settings.
+	 */
+	public SpelParserConfiguration() {
+		this(null, null, false, false, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Create a new {@link SpelParserConfiguration} instance.
+	 * @param compilerMode the compiler mode for the parser
+	 * @param compilerClassLoader the ClassLoader to use as the basis for expression compilation
+	 */
+	public SpelParserConfiguration(SpelCompilerMode compilerMode, ClassLoader compilerClassLoader) {
+		this(compilerMode, compilerClassLoader, false, false, Integer.MAX_VALUE);
+	}
+
 	/**
 	 * Create a new {@link SpelParserConfiguration} instance.
 	 * @param autoGrowNullReferences if null references should automatically grow
@@ -50,12 +87,42 @@ public class SpelParserConfiguration {
 	 * @param maximumAutoGrowSize the maximum size that the collection can auto grow
 	 */
 	public SpelParserConfiguration(boolean autoGrowNullReferences, boolean autoGrowCollections, int maximumAutoGrowSize) {
+		this(null, null, autoGrowNullReferences, autoGrowCollections, maximumAutoGrowSize);
+	}
+
+	/**
+	 * Create a new {@link SpelParserConfiguration} instance.
+	 * @param compilerMode the compiler mode that parsers using this configuration object should use
+	 * @param compilerClassLoader the ClassLoader to use as the basis for expression compilation
+	 * @param autoGrowNullReferences if null references should automatically grow
+	 * @param autoGrowCollections if collections should automatically grow
+	 * @param maximumAutoGrowSize the maximum size that the collection can auto grow
+	 */
+	public SpelParserConfiguration(SpelCompilerMode compilerMode, ClassLoader compilerClassLoader,
+			boolean autoGrowNullReferences, boolean autoGrowCollections, int maximumAutoGrowSize) {
+
+		this.compilerMode = (compilerMode != null ? compilerMode : defaultCompilerMode);
+		this.compilerClassLoader = compilerClassLoader;
 		this.autoGrowNullReferences = autoGrowNullReferences;
 		this.autoGrowCollections = autoGrowCollections;
 		this.maximumAutoGrowSize = maximumAutoGrowSize;
 	}
 
 
+	/**
+	 * @return the configuration mode for parsers using this configuration object
+	 */
+	public SpelCompilerMode getCompilerMode() {
+		return this.compilerMode;
+	}
+
+	/**
+	 * @return the ClassLoader to use as the basis for expression compilation
+	 */
+	public ClassLoader getCompilerClassLoader() {
+		return this.compilerClassLoader;
+	}
+
 	/**
 	 * @return {@code true} if {@code null} references should be automatically grown
 	 */
@@ -20,6 +20,7 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
+import org.springframework.asm.MethodVisitor;
 import org.springframework.core.convert.TypeDescriptor;
 import org.springframework.expression.AccessException;
 import org.springframework.expression.EvaluationContext;
@@ -27,6 +28,7 @@ import org.springframework.expression.EvaluationException;
 import org.springframework.expression.PropertyAccessor;
 import org.springframework.expression.TypeConverter;
 import org.springframework.expression.TypedValue;
+import org.springframework.expression.spel.CodeFlow;
 import org.springframework.expression.spel.ExpressionState;
 import org.springframework.expression.spel.SpelEvaluationException;
 import org.springframework.expression.spel.SpelMessage;
@@ -44,6 +46,9 @@ import org.springframework.expression.spel.support.ReflectivePropertyAccessor;
 // TODO support correct syntax for multidimensional [][][] and not [,,,]
 public class Indexer extends SpelNodeImpl {
 
+	private static enum IndexedType {ARRAY, LIST, MAP}
+
+
 	// These fields are used when the indexer is being used as a property read accessor.
 	// If the name and target type match these cached values then the cachedReadAccessor
 	// is used to read the property. If they do not match, the correct accessor is
@@ -66,6 +71,10 @@ public class Indexer extends SpelNodeImpl {
 
 	private PropertyAccessor cachedWriteAccessor;
 
+	// The kind of structure indexed into by the last evaluation, or null if that
+	// evaluation cannot be represented in compiled form.
+	private volatile IndexedType indexedType;
+
 
 	public Indexer(int pos, SpelNodeImpl expr) {
 		super(pos, expr);
@@ -116,12 +125,19 @@ public class Indexer extends SpelNodeImpl {
 			}
 		}
 
+		this.indexedType = null;
+		this.exitTypeDescriptor = null;
+
 		// Indexing into a Map
 		if (targetObject instanceof Map) {
 			Object key = index;
 			if (targetObjectTypeDescriptor.getMapKeyTypeDescriptor() != null) {
 				key = state.convertValue(key, targetObjectTypeDescriptor.getMapKeyTypeDescriptor());
 			}
+			if (key == index) {
+				this.indexedType = IndexedType.MAP;
+				this.exitTypeDescriptor = CodeFlow.OBJECT_DESCRIPTOR;
+			}
 			return new MapIndexingValueRef(state.getTypeConverter(), (Map<?, ?>) targetObject, key,
 					targetObjectTypeDescriptor);
 		}
@@ -135,9 +151,19 @@ public class Indexer extends SpelNodeImpl {
 		if (targetObject.getClass().isArray() || targetObject instanceof Collection || targetObject instanceof String) {
 			int idx = (Integer) state.convertValue(index, TypeDescriptor.valueOf(Integer.class));
 			if (targetObject.getClass().isArray()) {
+				Class<?> componentType = targetObject.getClass().getComponentType();
+				if (index instanceof Integer && CodeFlow.isPublic(componentType)) {
+					this.indexedType = IndexedType.ARRAY;
+					this.exitTypeDescriptor = CodeFlow.toDescriptor(componentType);
+				}
 				return new ArrayIndexingValueRef(state.getTypeConverter(), targetObject, idx, targetObjectTypeDescriptor);
 			}
 			else if (targetObject instanceof Collection) {
+				if (index instanceof Integer && targetObject instanceof List &&
+						!state.getConfiguration().isAutoGrowCollections()) {
+					this.indexedType = IndexedType.LIST;
+					this.exitTypeDescriptor = CodeFlow.OBJECT_DESCRIPTOR;
+				}
 				return new CollectionIndexingValueRef((Collection<?>) targetObject, idx, targetObjectTypeDescriptor,
 						state.getTypeConverter(), state.getConfiguration().isAutoGrowCollections(),
 						state.getConfiguration().getMaximumAutoGrowSize());
@@ -158,6 +184,86 @@ public class Indexer extends SpelNodeImpl {
 				targetObjectTypeDescriptor.toString());
 	}
 
+	@Override
+	public boolean isCompilable() {
+		IndexedType type = this.indexedType;
+		if (type == null || this.exitTypeDescriptor == null) {
+			return false;
+		}
+		SpelNodeImpl index = this.children[0];
+		if (type == IndexedType.MAP) {
+			return (index instanceof PropertyOrFieldReference || index.isCompilable());
+		}
+		return (index.isCompilable() && CodeFlow.isConvertible("I", index.getExitDescriptor()));
+	}
+
+	@Override
+	public void generateCode(MethodVisitor mv, CodeFlow cf) {
+		IndexedType type = this.indexedType;
+		if (type == null) {
+			throw new IllegalStateException("Indexed structure changed since the expression was evaluated");
+		}
+		String descriptor = cf.lastDescriptor();
+		if (descriptor == null) {
+			// Nothing on the stack but something is needed
+			cf.loadTarget(mv);
+		}
+
+		if (type == IndexedType.ARRAY) {
+			CodeFlow.insertCheckCast(mv, "[" + this.exitTypeDescriptor);
+			generateIndexCode(mv, cf, "I");
+			mv.visitInsn(getArrayLoadInstruction(this.exitTypeDescriptor));
+		}
+		else if (type == IndexedType.LIST) {
+			mv.visitTypeInsn(CHECKCAST, "java/util/List");
+			generateIndexCode(mv, cf, "I");
+			mv.visitMethodInsn(INVOKEINTERFACE, "java/util/List", "get", "(I)Ljava/lang/Object;", true);
+		}
+		else {
+			mv.visitTypeInsn(CHECKCAST, "java/util/Map");
+			// Special case: the key is an unquoted property name, for example map[key]
+			if (this.children[0] instanceof PropertyOrFieldReference) {
+				mv.visitLdcInsn(((PropertyOrFieldReference) this.children[0]).getName());
+			}
+			else {
+				generateIndexCode(mv, cf, CodeFlow.OBJECT_DESCRIPTOR);
+			}
+			mv.visitMethodInsn(INVOKEINTERFACE, "java/util/Map", "get",
+					"(Ljava/lang/Object;)Ljava/lang/Object;", true);
+		}
+		cf.pushDescriptor(this.exitTypeDescriptor);
+	}
+
+	private void generateIndexCode(MethodVisitor mv, CodeFlow cf, String targetDescriptor) {
+		// The index is evaluated against the root object, like in getValueRef()
+		cf.enterCompilationScope();
+		this.children[0].generateCode(mv, cf);
+		CodeFlow.insertConversion(mv, targetDescriptor, cf.lastDescriptor());
+		cf.exitCompilationScope();
+	}
+
+	private static int getArrayLoadInstruction(String componentDescriptor) {
+		switch (componentDescriptor.charAt(0)) {
+			case 'I':
+				return IALOAD;
+			case 'J':
+				return LALOAD;
+			case 'F':
+				return FALOAD;
+			case 'D':
+				return DALOAD;
+			case 'Z':
+			case 'B':
+				return BALOAD;
+			case 'C':
+				return CALOAD;
+			case 'S':
+				return SALOAD;
+			default:
+				return AALOAD;
+		}
+	}
+
 	@Override
 	public String toStringAST() {
 		StringBuilder sb = new StringBuilder();
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2013 the original author or authors.
+ * Copyright 2002-2014 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -62,6 +62,11 @@ public abstract class Literal extends SpelNodeImpl {
 
 	public abstract TypedValue getLiteralValue();
 
+	@Override
+	public boolean isCompilable() {
+		return (this.exitTypeDescriptor != null);
+	}
+
 
 	/**
 	 * Process the string form of a number, using the specified base if supplied and return an appropriate literal to
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2013 the original author or authors.
+ * Copyright 2002-2014 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,10 +17,13 @@
 package org.springframework.expression.spel.ast;
 
 import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
+import org.springframework.asm.MethodVisitor;
 import org.springframework.core.convert.TypeDescriptor;
 import org.springframework.expression.AccessException;
 import org.springframework.expression.EvaluationContext;
@@ -29,9 +32,11 @@ import org.springframework.expression.ExpressionInvocationTargetException;
 import org.springframework.expression.MethodExecutor;
 import org.springframework.expression.MethodResolver;
 import org.springframework.expression.TypedValue;
+import org.springframework.expression.spel.CodeFlow;
 import org.springframework.expression.spel.ExpressionState;
 import org.springframework.expression.spel.SpelEvaluationException;
 import org.springframework.expression.spel.SpelMessage;
+import org.springframework.expression.spel.support.ReflectiveMethodExecutor;
 import org.springframework.expression.spel.support.ReflectiveMethodResolver;
 
 /**
@@ -92,7 +97,9 @@ public class MethodReference extends SpelNodeImpl {
 		MethodExecutor executorToUse = getCachedExecutor(evaluationContext, value, targetType, argumentTypes);
 		if (executorToUse != null) {
 			try {
-				return executorToUse.execute(evaluationContext, value, arguments);
+				TypedValue result = executorToUse.execute(evaluationContext, value, arguments);
+				updateExitTypeDescriptor(executorToUse);
+				return result;
 			}
 			catch (AccessException ae) {
 				// Two reasons this can occur:
@@ -119,7 +126,9 @@ public class MethodReference extends SpelNodeImpl {
 		this.cachedExecutor = new CachedMethodExecutor(
 				executorToUse, (value instanceof Class ? (Class<?>) value : null), targetType, argumentTypes);
 		try {
-			return executorToUse.execute(evaluationContext, value, arguments);
+			TypedValue result = executorToUse.execute(evaluationContext, value, arguments);
+			updateExitTypeDescriptor(executorToUse);
+			return result;
 		}
 		catch (AccessException ex) {
 			// Same unwrapping exception handling as above in above catch block
@@ -130,6 +139,16 @@ public class MethodReference extends SpelNodeImpl {
 		}
 	}
 
+	private void updateExitTypeDescriptor(MethodExecutor executor) {
+		if (executor instanceof ReflectiveMethodExecutor) {
+			Class<?> returnType = ((ReflectiveMethodExecutor) executor).getMethod().getReturnType();
+			this.exitTypeDescriptor = (returnType != void.class ? CodeFlow.toDescriptor(returnType) : null);
+		}
+		else {
+			this.exitTypeDescriptor = null;
+		}
+	}
+
 	private void throwIfNotNullSafe(List<TypeDescriptor> argumentTypes) {
 		if (!this.nullSafe) {
 			throw new SpelEvaluationException(getStartPosition(),
@@ -221,6 +240,78 @@ public class MethodReference extends SpelNodeImpl {
 		}
 	}
 
+	/**
+	 * A method reference is compilable if it has been resolved to a reflectively invoked
+	 * method that is publicly accessible, takes a fixed number of arguments that did
+	 * not need converting, and whose argument expressions are all compilable.
+	 */
+	@Override
+	public boolean isCompilable() {
+		CachedMethodExecutor executorToCheck = this.cachedExecutor;
+		if (this.nullSafe || this.exitTypeDescriptor == null || executorToCheck == null ||
+				!(executorToCheck.get() instanceof ReflectiveMethodExecutor)) {
+			return false;
+		}
+		ReflectiveMethodExecutor executor = (ReflectiveMethodExecutor) executorToCheck.get();
+		if (executor.didArgumentConversionOccur()) {
+			return false;
+		}
+		Method method = executor.getMethod();
+		if (method.isVarArgs() || !Modifier.isPublic(method.getModifiers()) ||
+				!CodeFlow.isPublic(method.getDeclaringClass())) {
+			return false;
+		}
+		Class<?>[] paramTypes = method.getParameterTypes();
+		for (int i = 0; i < this.children.length; i++) {
+			SpelNodeImpl child = this.children[i];
+			if (!child.isCompilable() ||
+					!CodeFlow.isConvertible(CodeFlow.toDescriptor(paramTypes[i]), child.getExitDescriptor())) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public void generateCode(MethodVisitor mv, CodeFlow cf) {
+		Method method = ((ReflectiveMethodExecutor) this.cachedExecutor.get()).getMethod();
+		boolean isStaticMethod = Modifier.isStatic(method.getModifiers());
+		String descriptor = cf.lastDescriptor();
+		Class<?> declaringClass = method.getDeclaringClass();
+		String declaringClassDescriptor = CodeFlow.toDescriptor(declaringClass);
+
+		if (!isStaticMethod) {
+			if (descriptor == null) {
+				cf.loadTarget(mv);
+			}
+			else {
+				CodeFlow.insertBoxIfNecessary(mv, descriptor);
+			}
+			if (!declaringClassDescriptor.equals(descriptor)) {
+				CodeFlow.insertCheckCast(mv, declaringClassDescriptor);
+			}
+		}
+		else if (descriptor != null) {
+			// A static method call will not consume what is on the stack, it needs to be popped off.
+			mv.visitInsn("J".equals(descriptor) || "D".equals(descriptor) ? POP2 : POP);
+		}
+
+		// Arguments are evaluated against the root object, like in getArguments()
+		Class<?>[] paramTypes = method.getParameterTypes();
+		for (int i = 0; i < this.children.length; i++) {
+			cf.enterCompilationScope();
+			this.children[i].generateCode(mv, cf);
+			CodeFlow.insertConversion(mv, CodeFlow.toDescriptor(paramTypes[i]), cf.lastDescriptor());
+			cf.exitCompilationScope();
+		}
+
+		boolean isInterface = declaringClass.isInterface();
+		int opcode = (isStaticMethod ? INVOKESTATIC : (isInterface ? INVOKEINTERFACE : INVOKEVIRTUAL));
+		mv.visitMethodInsn(opcode, CodeFlow.toInternalName(declaringClassDescriptor), method.getName(),
+				CodeFlow.createSignatureDescriptor(method), isInterface);
+		cf.pushDescriptor(this.exitTypeDescriptor);
+	}
+
 	@Override
 	public String toStringAST() {
 		StringBuilder sb = new StringBuilder();
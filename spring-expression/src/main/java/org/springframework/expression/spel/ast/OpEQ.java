@@ -16,7 +16,9 @@
 
 package org.springframework.expression.spel.ast;
 
+import org.springframework.asm.MethodVisitor;
 import org.springframework.expression.EvaluationException;
+import org.springframework.expression.spel.CodeFlow;
 import org.springframework.expression.spel.ExpressionState;
 import org.springframework.expression.spel.support.BooleanTypedValue;
 
@@ -30,13 +32,37 @@ public class OpEQ extends Operator {
 
 	public OpEQ(int pos, SpelNodeImpl... operands) {
 		super("==", pos, operands);
+		this.exitTypeDescriptor = "Z";
 	}
 
 	@Override
 	public BooleanTypedValue getValueInternal(ExpressionState state) throws EvaluationException {
 		Object left = getLeftOperand().getValueInternal(state).getValue();
 		Object right = getRightOperand().getValueInternal(state).getValue();
-		return BooleanTypedValue.forValue(equalityCheck(state, left, right));
+		return BooleanTypedValue.forValue(equalityCheck(state.getEvaluationContext(), left, right));
+	}
+
+	@Override
+	public boolean isCompilable() {
+		return (getLeftOperand().isCompilable() && getRightOperand().isCompilable());
+	}
+
+	@Override
+	public void generateCode(MethodVisitor mv, CodeFlow cf) {
+		String leftDescriptor = getLeftOperand().getExitDescriptor();
+		String rightDescriptor = getRightOperand().getExitDescriptor();
+		if (CodeFlow.isPrimitive(leftDescriptor) && leftDescriptor.equals(rightDescriptor)) {
+			// Both operands are primitives of the same type: compare them directly
+			generateComparisonCode(mv, cf, IFNE, IF_ICMPNE);
+		}
+		else {
+			cf.loadEvaluationContext(mv);
+			CodeFlow.insertBoxIfNecessary(mv, generateOperandCode(getLeftOperand(), null, mv, cf));
+			CodeFlow.insertBoxIfNecessary(mv, generateOperandCode(getRightOperand(), null, mv, cf));
+			mv.visitMethodInsn(INVOKESTATIC, "org/springframework/expression/spel/ast/Operator", "equalityCheck",
+					"(Lorg/springframework/expression/EvaluationContext;Ljava/lang/Object;Ljava/lang/Object;)Z", false);
+			cf.pushDescriptor("Z");
+		}
 	}
 
 }
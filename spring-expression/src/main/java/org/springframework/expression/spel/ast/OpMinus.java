@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2013 the original author or authors.
+ * Copyright 2002-2014 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,9 +18,11 @@ package org.springframework.expression.spel.ast;
 
 import java.math.BigDecimal;
 
+import org.springframework.asm.MethodVisitor;
 import org.springframework.expression.EvaluationException;
 import org.springframework.expression.Operation;
 import org.springframework.expression.TypedValue;
+import org.springframework.expression.spel.CodeFlow;
 import org.springframework.expression.spel.ExpressionState;
 import org.springframework.util.NumberUtils;
 
@@ -58,6 +60,7 @@ public class OpMinus extends Operator {
 
 		if (rightOp == null) {// If only one operand, then this is unary minus
 			Object operand = leftOp.getValueInternal(state).getValue();
+			this.exitTypeDescriptor = determineNumericExitDescriptor(operand, operand);
 			if (operand instanceof Number) {
 				Number n = (Number) operand;
 
@@ -87,6 +90,7 @@ public class OpMinus extends Operator {
 		Object left = leftOp.getValueInternal(state).getValue();
 		Object right = rightOp.getValueInternal(state).getValue();
 
+		this.exitTypeDescriptor = determineNumericExitDescriptor(left, right);
 		if (left instanceof Number && right instanceof Number) {
 			Number leftNumber = (Number) left;
 			Number rightNumber = (Number) right;
@@ -136,4 +140,52 @@ public class OpMinus extends Operator {
 		return this.children[1];
 	}
 
+	@Override
+	public boolean isCompilable() {
+		if (this.exitTypeDescriptor == null) {
+			return false;
+		}
+		if (getRightOperand() == null) {
+			SpelNodeImpl operand = getLeftOperand();
+			return (operand.isCompilable() &&
+					this.exitTypeDescriptor.equals(CodeFlow.toPrimitiveDescriptor(operand.getExitDescriptor())));
+		}
+		return (isCompilableOperatorUsingNumerics() &&
+				CodeFlow.toPrimitiveDescriptor(getLeftOperand().getExitDescriptor()).equals(this.exitTypeDescriptor));
+	}
+
+	@Override
+	public void generateCode(MethodVisitor mv, CodeFlow cf) {
+		if (getRightOperand() != null) {
+			generateArithmeticCode(mv, cf, ISUB);
+			return;
+		}
+		// unary minus: computed as '0 - operand', like the interpreter does
+		switch (this.exitTypeDescriptor.charAt(0)) {
+			case 'I':
+				mv.visitInsn(ICONST_0);
+				generateOperandCode(getLeftOperand(), "I", mv, cf);
+				mv.visitInsn(ISUB);
+				break;
+			case 'J':
+				mv.visitInsn(LCONST_0);
+				generateOperandCode(getLeftOperand(), "J", mv, cf);
+				mv.visitInsn(LSUB);
+				break;
+			case 'F':
+				mv.visitInsn(FCONST_0);
+				generateOperandCode(getLeftOperand(), "F", mv, cf);
+				mv.visitInsn(FSUB);
+				break;
+			case 'D':
+				mv.visitInsn(DCONST_0);
+				generateOperandCode(getLeftOperand(), "D", mv, cf);
+				mv.visitInsn(DSUB);
+				break;
+			default:
+				throw new IllegalStateException("Unrecognized exit type descriptor: '" + this.exitTypeDescriptor + "'");
+		}
+		cf.pushDescriptor(this.exitTypeDescriptor);
+	}
+
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2013 the original author or authors.
+ * Copyright 2002-2014 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,11 +18,13 @@ package org.springframework.expression.spel.ast;
 
 import java.math.BigDecimal;
 
+import org.springframework.asm.MethodVisitor;
 import org.springframework.core.convert.TypeDescriptor;
 import org.springframework.expression.EvaluationException;
 import org.springframework.expression.Operation;
 import org.springframework.expression.TypeConverter;
 import org.springframework.expression.TypedValue;
+import org.springframework.expression.spel.CodeFlow;
 import org.springframework.expression.spel.ExpressionState;
 import org.springframework.util.Assert;
 import org.springframework.util.NumberUtils;
@@ -79,6 +81,7 @@ public class OpPlus extends Operator {
 		final TypedValue operandTwoValue = rightOp.getValueInternal(state);
 		final Object rightOperand = operandTwoValue.getValue();
 
+		this.exitTypeDescriptor = determineNumericExitDescriptor(leftOperand, rightOperand);
 		if (leftOperand instanceof Number && rightOperand instanceof Number) {
 			Number leftNumber = (Number) leftOperand;
 			Number rightNumber = (Number) rightOperand;
@@ -106,6 +109,7 @@ public class OpPlus extends Operator {
 		}
 
 		if (leftOperand instanceof String && rightOperand instanceof String) {
+			this.exitTypeDescriptor = "Ljava/lang/String;";
 			return new TypedValue(new StringBuilder((String) leftOperand).append(
 					(String) rightOperand).toString());
 		}
@@ -143,6 +147,38 @@ public class OpPlus extends Operator {
 		return this.children[1];
 	}
 
+	@Override
+	public boolean isCompilable() {
+		if (this.exitTypeDescriptor == null || getRightOperand() == null) {
+			return false;
+		}
+		if ("Ljava/lang/String;".equals(this.exitTypeDescriptor)) {
+			return (getLeftOperand().isCompilable() && getRightOperand().isCompilable() &&
+					this.exitTypeDescriptor.equals(getLeftOperand().getExitDescriptor()) &&
+					this.exitTypeDescriptor.equals(getRightOperand().getExitDescriptor()));
+		}
+		return (isCompilableOperatorUsingNumerics() &&
+				CodeFlow.toPrimitiveDescriptor(getLeftOperand().getExitDescriptor()).equals(this.exitTypeDescriptor));
+	}
+
+	@Override
+	public void generateCode(MethodVisitor mv, CodeFlow cf) {
+		if ("Ljava/lang/String;".equals(this.exitTypeDescriptor)) {
+			mv.visitTypeInsn(NEW, "java/lang/StringBuilder");
+			mv.visitInsn(DUP);
+			generateOperandCode(getLeftOperand(), null, mv, cf);
+			mv.visitMethodInsn(INVOKESPECIAL, "java/lang/StringBuilder", "<init>", "(Ljava/lang/String;)V", false);
+			generateOperandCode(getRightOperand(), null, mv, cf);
+			mv.visitMethodInsn(INVOKEVIRTUAL, "java/lang/StringBuilder", "append",
+					"(Ljava/lang/String;)Ljava/lang/StringBuilder;", false);
+			mv.visitMethodInsn(INVOKEVIRTUAL, "java/lang/StringBuilder", "toString", "()Ljava/lang/String;", false);
+			cf.pushDescriptor(this.exitTypeDescriptor);
+		}
+		else {
+			generateArithmeticCode(mv, cf, IADD);
+		}
+	}
+
 	/**
 	 * Convert operand value to string using registered converter or using
 	 * {@code toString} method.
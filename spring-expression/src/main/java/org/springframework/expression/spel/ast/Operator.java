@@ -18,7 +18,10 @@ package org.springframework.expression.spel.ast;
 
 import java.math.BigDecimal;
 
-import org.springframework.expression.spel.ExpressionState;
+import org.springframework.asm.Label;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.spel.CodeFlow;
 import org.springframework.util.ClassUtils;
 import org.springframework.util.NumberUtils;
 import org.springframework.util.ObjectUtils;
@@ -56,6 +59,128 @@ public abstract class Operator extends SpelNodeImpl {
 		return this.operatorName;
 	}
 
+	/**
+	 * Return {@code true} if both operands are compilable and, once unboxed, are of the
+	 * same primitive numeric type (int, long, float or double).
+	 */
+	protected boolean isCompilableOperatorUsingNumerics() {
+		SpelNodeImpl left = getLeftOperand();
+		SpelNodeImpl right = getRightOperand();
+		if (!left.isCompilable() || !right.isCompilable()) {
+			return false;
+		}
+		String leftDescriptor = CodeFlow.toPrimitiveDescriptor(left.getExitDescriptor());
+		String rightDescriptor = CodeFlow.toPrimitiveDescriptor(right.getExitDescriptor());
+		return (CodeFlow.isPrimitiveNumber(leftDescriptor) && leftDescriptor.equals(rightDescriptor));
+	}
+
+	/**
+	 * Generate the code for an operand in its own compilation scope (operands are
+	 * evaluated against the current active context object, not against the result of
+	 * any preceding operand) and unbox the result to the specified primitive type.
+	 * @return the descriptor of the value left on the stack
+	 */
+	protected String generateOperandCode(SpelNodeImpl operand, String targetDescriptor,
+			MethodVisitor mv, CodeFlow cf) {
+
+		cf.enterCompilationScope();
+		operand.generateCode(mv, cf);
+		String operandDescriptor = cf.lastDescriptor();
+		cf.exitCompilationScope();
+		if (targetDescriptor != null) {
+			CodeFlow.insertConversion(mv, targetDescriptor, operandDescriptor);
+			return targetDescriptor;
+		}
+		return operandDescriptor;
+	}
+
+	/**
+	 * Numeric comparison operators share very similar generated code, only differing in
+	 * two comparison instructions: {@code compInstruction1} is the conditional jump used
+	 * after a long/float/double comparison and {@code compInstruction2} is the one used
+	 * for an int comparison. Both must jump when the comparison is <em>false</em>.
+	 */
+	protected void generateComparisonCode(MethodVisitor mv, CodeFlow cf, int compInstruction1,
+			int compInstruction2) {
+
+		String targetType = CodeFlow.toPrimitiveDescriptor(getLeftOperand().getExitDescriptor());
+		generateOperandCode(getLeftOperand(), targetType, mv, cf);
+		generateOperandCode(getRightOperand(), targetType, mv, cf);
+
+		// Make sure NaN compares to false for <, <=, > and >=
+		boolean nanIsGreater = (compInstruction1 == IFGE || compInstruction1 == IFGT);
+		Label elseTarget = new Label();
+		Label endOfIf = new Label();
+		char targetDescriptor = targetType.charAt(0);
+		if (targetDescriptor == 'D') {
+			mv.visitInsn(nanIsGreater ? DCMPG : DCMPL);
+			mv.visitJumpInsn(compInstruction1, elseTarget);
+		}
+		else if (targetDescriptor == 'F') {
+			mv.visitInsn(nanIsGreater ? FCMPG : FCMPL);
+			mv.visitJumpInsn(compInstruction1, elseTarget);
+		}
+		else if (targetDescriptor == 'J') {
+			mv.visitInsn(LCMP);
+			mv.visitJumpInsn(compInstruction1, elseTarget);
+		}
+		else {
+			mv.visitJumpInsn(compInstruction2, elseTarget);
+		}
+		mv.visitInsn(ICONST_1);
+		mv.visitJumpInsn(GOTO, endOfIf);
+		mv.visitLabel(elseTarget);
+		mv.visitInsn(ICONST_0);
+		mv.visitLabel(endOfIf);
+		cf.pushDescriptor("Z");
+	}
+
+	/**
+	 * Generate the code for an arithmetic operation on two operands of the same primitive
+	 * numeric type, as determined by {@link #isCompilableOperatorUsingNumerics()}.
+	 * @param intOpcode the opcode for the int variant of the operation (e.g. IADD);
+	 * the long, float and double variants are derived from it
+	 */
+	protected void generateArithmeticCode(MethodVisitor mv, CodeFlow cf, int intOpcode) {
+		String targetType = CodeFlow.toPrimitiveDescriptor(getLeftOperand().getExitDescriptor());
+		generateOperandCode(getLeftOperand(), targetType, mv, cf);
+		generateOperandCode(getRightOperand(), targetType, mv, cf);
+		switch (targetType.charAt(0)) {
+			case 'I':
+				mv.visitInsn(intOpcode);
+				break;
+			case 'J':
+				mv.visitInsn(intOpcode + 1);
+				break;
+			case 'F':
+				mv.visitInsn(intOpcode + 2);
+				break;
+			case 'D':
+				mv.visitInsn(intOpcode + 3);
+				break;
+			default:
+				throw new IllegalStateException("Unrecognized exit type descriptor: '" + targetType + "'");
+		}
+		cf.pushDescriptor(targetType);
+	}
+
+	/**
+	 * Determine the exit type descriptor for an arithmetic operation, based on the
+	 * runtime types of its operands: only when both operands are of the same type out
+	 * of Integer, Long, Float and Double is the result type predictable enough to be
+	 * worth compiling.
+	 * @return the primitive descriptor, or {@code null} if not applicable
+	 */
+	protected static String determineNumericExitDescriptor(Object left, Object right) {
+		if (left == null || right == null || left.getClass() != right.getClass()) {
+			return null;
+		}
+		if (left instanceof Integer || left instanceof Long || left instanceof Float || left instanceof Double) {
+			return CodeFlow.toPrimitiveDescriptor(CodeFlow.toDescriptor(left.getClass()));
+		}
+		return null;
+	}
+
 	/**
 	 * String format for all operators is the same '(' [operand] [operator] [operand] ')'
 	 */
@@ -73,7 +198,14 @@ public abstract class Operator extends SpelNodeImpl {
 	}
 
 
-	protected boolean equalityCheck(ExpressionState state, Object left, Object right) {
+	/**
+	 * Perform an equality check for the given operand values.
+	 * <p>This method is public since it is also invoked from compiled expressions.
+	 * @param context the current evaluation context
+	 * @param left the left-hand operand value
+	 * @param right the right-hand operand value
+	 */
+	public static boolean equalityCheck(EvaluationContext context, Object left, Object right) {
 		if (left instanceof Number && right instanceof Number) {
 			Number leftNumber = (Number) left;
 			Number rightNumber = (Number) right;
@@ -110,7 +242,7 @@ public abstract class Operator extends SpelNodeImpl {
 		if (left instanceof Comparable && right instanceof Comparable) {
 			Class<?> ancestor = ClassUtils.determineCommonAncestor(left.getClass(), right.getClass());
 			if (ancestor != null && Comparable.class.isAssignableFrom(ancestor)) {
-				return (state.getTypeComparator().compare(left, right) == 0);
+				return (context.getTypeComparator().compare(left, right) == 0);
 			}
 		}
 
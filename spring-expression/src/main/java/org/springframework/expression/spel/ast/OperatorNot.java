@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2013 the original author or authors.
+ * Copyright 2002-2014 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,7 +16,9 @@
 
 package org.springframework.expression.spel.ast;
 
+import org.springframework.asm.MethodVisitor;
 import org.springframework.expression.EvaluationException;
+import org.springframework.expression.spel.CodeFlow;
 import org.springframework.expression.spel.ExpressionState;
 import org.springframework.expression.spel.SpelEvaluationException;
 import org.springframework.expression.spel.SpelMessage;
@@ -34,6 +36,7 @@ public class OperatorNot extends SpelNodeImpl { // Not is a unary operator so do
 
 	public OperatorNot(int pos, SpelNodeImpl operand) {
 		super(pos, operand);
+		this.exitTypeDescriptor = "Z";
 	}
 
 
@@ -59,4 +62,21 @@ public class OperatorNot extends SpelNodeImpl { // Not is a unary operator so do
 		return sb.toString();
 	}
 
+	@Override
+	public boolean isCompilable() {
+		SpelNodeImpl child = this.children[0];
+		return (child.isCompilable() && "Z".equals(CodeFlow.toPrimitiveDescriptor(child.getExitDescriptor())));
+	}
+
+	@Override
+	public void generateCode(MethodVisitor mv, CodeFlow cf) {
+		cf.enterCompilationScope();
+		this.children[0].generateCode(mv, cf);
+		CodeFlow.insertConversion(mv, "Z", cf.lastDescriptor());
+		cf.exitCompilationScope();
+		mv.visitInsn(ICONST_1);
+		mv.visitInsn(IXOR);
+		cf.pushDescriptor(this.exitTypeDescriptor);
+	}
+
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2013 the original author or authors.
+ * Copyright 2002-2014 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -21,12 +21,15 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.springframework.asm.MethodVisitor;
 import org.springframework.core.convert.TypeDescriptor;
 import org.springframework.expression.AccessException;
 import org.springframework.expression.EvaluationContext;
 import org.springframework.expression.EvaluationException;
 import org.springframework.expression.PropertyAccessor;
 import org.springframework.expression.TypedValue;
+import org.springframework.expression.spel.CodeFlow;
+import org.springframework.expression.spel.CompilablePropertyAccessor;
 import org.springframework.expression.spel.ExpressionState;
 import org.springframework.expression.spel.SpelEvaluationException;
 import org.springframework.expression.spel.SpelMessage;
@@ -177,7 +180,9 @@ public class PropertyOrFieldReference extends SpelNodeImpl {
 		PropertyAccessor accessorToUse = this.cachedReadAccessor;
 		if (accessorToUse != null) {
 			try {
-				return accessorToUse.read(eContext, contextObject.getValue(), name);
+				TypedValue value = accessorToUse.read(eContext, contextObject.getValue(), name);
+				updateExitTypeDescriptor(accessorToUse);
+				return value;
 			}
 			catch (AccessException ae) {
 				// this is OK - it may have gone stale due to a class change,
@@ -199,7 +204,9 @@ public class PropertyOrFieldReference extends SpelNodeImpl {
 									eContext, contextObject.getValue(), name);
 						}
 						this.cachedReadAccessor = accessor;
-						return accessor.read(eContext, contextObject.getValue(), name);
+						TypedValue value = accessor.read(eContext, contextObject.getValue(), name);
+						updateExitTypeDescriptor(accessor);
+						return value;
 					}
 				}
 			}
@@ -216,6 +223,15 @@ public class PropertyOrFieldReference extends SpelNodeImpl {
 		}
 	}
 
+	private void updateExitTypeDescriptor(PropertyAccessor accessor) {
+		if (accessor instanceof CompilablePropertyAccessor) {
+			this.exitTypeDescriptor = CodeFlow.toDescriptor(((CompilablePropertyAccessor) accessor).getPropertyType());
+		}
+		else {
+			this.exitTypeDescriptor = null;
+		}
+	}
+
 	private void writeProperty(TypedValue contextObject, EvaluationContext eContext, String name, Object newValue) throws SpelEvaluationException {
 		if (contextObject.getValue() == null && this.nullSafe) {
 			return;
@@ -276,6 +292,20 @@ public class PropertyOrFieldReference extends SpelNodeImpl {
 		return false;
 	}
 
+	@Override
+	public boolean isCompilable() {
+		PropertyAccessor accessorToUse = this.cachedReadAccessor;
+		return (!this.nullSafe && this.exitTypeDescriptor != null &&
+				accessorToUse instanceof CompilablePropertyAccessor &&
+				((CompilablePropertyAccessor) accessorToUse).isCompilable());
+	}
+
+	@Override
+	public void generateCode(MethodVisitor mv, CodeFlow cf) {
+		((CompilablePropertyAccessor) this.cachedReadAccessor).generateCode(this.name, mv, cf);
+		cf.pushDescriptor(this.exitTypeDescriptor);
+	}
+
 	// TODO when there is more time, remove this and use the version in AstUtils
 	/**
 	 * Determines the set of property resolvers that should be used to try and access a property on the specified target
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2013 the original author or authors.
+ * Copyright 2002-2014 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,8 +16,11 @@
 
 package org.springframework.expression.spel.ast;
 
+import org.springframework.asm.Label;
+import org.springframework.asm.MethodVisitor;
 import org.springframework.expression.EvaluationException;
 import org.springframework.expression.TypedValue;
+import org.springframework.expression.spel.CodeFlow;
 import org.springframework.expression.spel.ExpressionState;
 import org.springframework.expression.spel.SpelEvaluationException;
 import org.springframework.expression.spel.SpelMessage;
@@ -50,11 +53,22 @@ public class Ternary extends SpelNodeImpl {
 			throw new SpelEvaluationException(getChild(0).getStartPosition(),
 					SpelMessage.TYPE_CONVERSION_ERROR, "null", "boolean");
 		}
-		if (value.booleanValue()) {
-			return this.children[1].getValueInternal(state);
-		}
-		else {
-			return this.children[2].getValueInternal(state);
+		TypedValue result = this.children[value.booleanValue() ? 1 : 2].getValueInternal(state);
+		computeExitTypeDescriptor();
+		return result;
+	}
+
+	private void computeExitTypeDescriptor() {
+		String leftDescriptor = this.children[1].getExitDescriptor();
+		String rightDescriptor = this.children[2].getExitDescriptor();
+		if (leftDescriptor != null && rightDescriptor != null) {
+			if (leftDescriptor.equals(rightDescriptor)) {
+				this.exitTypeDescriptor = leftDescriptor;
+			}
+			else {
+				// Use the easiest to compute common super type
+				this.exitTypeDescriptor = CodeFlow.OBJECT_DESCRIPTOR;
+			}
 		}
 	}
 
@@ -64,4 +78,42 @@ public class Ternary extends SpelNodeImpl {
 				.append(" : ").append(getChild(2).toStringAST()).toString();
 	}
 
+	@Override
+	public boolean isCompilable() {
+		SpelNodeImpl condition = this.children[0];
+		SpelNodeImpl left = this.children[1];
+		SpelNodeImpl right = this.children[2];
+		return (condition.isCompilable() && left.isCompilable() && right.isCompilable() &&
+				"Z".equals(CodeFlow.toPrimitiveDescriptor(condition.getExitDescriptor())) &&
+				left.getExitDescriptor() != null && right.getExitDescriptor() != null);
+	}
+
+	@Override
+	public void generateCode(MethodVisitor mv, CodeFlow cf) {
+		// May reach here without it computed if all elements are literals
+		computeExitTypeDescriptor();
+		cf.enterCompilationScope();
+		this.children[0].generateCode(mv, cf);
+		CodeFlow.insertConversion(mv, "Z", cf.lastDescriptor());
+		cf.exitCompilationScope();
+		Label elseTarget = new Label();
+		Label endOfIf = new Label();
+		mv.visitJumpInsn(IFEQ, elseTarget);
+		generateBranchCode(this.children[1], mv, cf);
+		mv.visitJumpInsn(GOTO, endOfIf);
+		mv.visitLabel(elseTarget);
+		generateBranchCode(this.children[2], mv, cf);
+		mv.visitLabel(endOfIf);
+		cf.pushDescriptor(this.exitTypeDescriptor);
+	}
+
+	private void generateBranchCode(SpelNodeImpl branch, MethodVisitor mv, CodeFlow cf) {
+		cf.enterCompilationScope();
+		branch.generateCode(mv, cf);
+		if (!CodeFlow.isPrimitive(this.exitTypeDescriptor)) {
+			CodeFlow.insertBoxIfNecessary(mv, cf.lastDescriptor());
+		}
+		cf.exitCompilationScope();
+	}
+
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2013 the original author or authors.
+ * Copyright 2002-2014 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,8 +18,11 @@ package org.springframework.expression.spel.ast;
 
 import java.lang.reflect.Array;
 
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Type;
 import org.springframework.expression.EvaluationException;
 import org.springframework.expression.TypedValue;
+import org.springframework.expression.spel.CodeFlow;
 import org.springframework.expression.spel.ExpressionState;
 
 /**
@@ -31,6 +34,8 @@ public class TypeReference extends SpelNodeImpl {
 
 	private final int dimensions;
 
+	private volatile Class<?> type;
+
 
 	public TypeReference(int pos, SpelNodeImpl qualifiedId) {
 		this(pos,qualifiedId,0);
@@ -57,6 +62,8 @@ public class TypeReference extends SpelNodeImpl {
 		}
 		Class<?> clazz = state.findType(typename);
 		clazz = makeArrayIfNecessary(clazz);
+		this.exitTypeDescriptor = "Ljava/lang/Class;";
+		this.type = clazz;
 		return new TypedValue(clazz);
 	}
 
@@ -70,6 +77,18 @@ public class TypeReference extends SpelNodeImpl {
 		return clazz;
 	}
 
+	@Override
+	public boolean isCompilable() {
+		Class<?> clazz = this.type;
+		return (this.exitTypeDescriptor != null && clazz != null && CodeFlow.isPublic(clazz));
+	}
+
+	@Override
+	public void generateCode(MethodVisitor mv, CodeFlow cf) {
+		mv.visitLdcInsn(Type.getType(this.type));
+		cf.pushDescriptor(this.exitTypeDescriptor);
+	}
+
 	@Override
 	public String toStringAST() {
 		StringBuilder sb = new StringBuilder();
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2013 the original author or authors.
+ * Copyright 2002-2014 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,8 +16,10 @@
 
 package org.springframework.expression.spel.ast;
 
+import org.springframework.asm.MethodVisitor;
 import org.springframework.expression.EvaluationContext;
 import org.springframework.expression.TypedValue;
+import org.springframework.expression.spel.CodeFlow;
 import org.springframework.expression.spel.ExpressionState;
 import org.springframework.expression.spel.SpelEvaluationException;
 
@@ -51,9 +53,12 @@ public class VariableReference extends SpelNodeImpl {
 			return new ValueRef.TypedValueHolderValueRef(state.getActiveContextObject(),this);
 		}
 		if (this.name.equals(ROOT)) {
-			return new ValueRef.TypedValueHolderValueRef(state.getRootContextObject(),this);
+			TypedValue result = state.getRootContextObject();
+			this.exitTypeDescriptor = CodeFlow.toDescriptorFromObject(result.getValue());
+			return new ValueRef.TypedValueHolderValueRef(result,this);
 		}
 		TypedValue result = state.lookupVariable(this.name);
+		this.exitTypeDescriptor = CodeFlow.toDescriptorFromObject(result.getValue());
 		// a null value will mean either the value was null or the variable was not found
 		return new VariableRef(this.name,result,state.getEvaluationContext());
 	}
@@ -64,9 +69,12 @@ public class VariableReference extends SpelNodeImpl {
 			return state.getActiveContextObject();
 		}
 		if (this.name.equals(ROOT)) {
-			return state.getRootContextObject();
+			TypedValue result = state.getRootContextObject();
+			this.exitTypeDescriptor = CodeFlow.toDescriptorFromObject(result.getValue());
+			return result;
 		}
 		TypedValue result = state.lookupVariable(this.name);
+		this.exitTypeDescriptor = CodeFlow.toDescriptorFromObject(result.getValue());
 		// a null value will mean either the value was null or the variable was not found
 		return result;
 	}
@@ -86,6 +94,27 @@ public class VariableReference extends SpelNodeImpl {
 		return !(this.name.equals(THIS) || this.name.equals(ROOT));
 	}
 
+	@Override
+	public boolean isCompilable() {
+		// #this depends on the active context object which the compiled form does not track
+		return (this.exitTypeDescriptor != null && !this.name.equals(THIS));
+	}
+
+	@Override
+	public void generateCode(MethodVisitor mv, CodeFlow cf) {
+		if (this.name.equals(ROOT)) {
+			mv.visitVarInsn(ALOAD, 1);
+		}
+		else {
+			cf.loadEvaluationContext(mv);
+			mv.visitLdcInsn(this.name);
+			mv.visitMethodInsn(INVOKEINTERFACE, "org/springframework/expression/EvaluationContext",
+					"lookupVariable", "(Ljava/lang/String;)Ljava/lang/Object;", true);
+		}
+		CodeFlow.insertCheckCast(mv, this.exitTypeDescriptor);
+		cf.pushDescriptor(this.exitTypeDescriptor);
+	}
+
 
 	class VariableRef implements ValueRef {
 
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2013 the original author or authors.
+ * Copyright 2002-2014 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -22,7 +22,11 @@ import org.springframework.expression.EvaluationException;
 import org.springframework.expression.Expression;
 import org.springframework.expression.TypedValue;
 import org.springframework.expression.common.ExpressionUtils;
+import org.springframework.expression.spel.CompiledExpression;
 import org.springframework.expression.spel.ExpressionState;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelEvaluationException;
+import org.springframework.expression.spel.SpelMessage;
 import org.springframework.expression.spel.SpelNode;
 import org.springframework.expression.spel.SpelParserConfiguration;
 import org.springframework.expression.spel.ast.SpelNodeImpl;
@@ -35,11 +39,22 @@ import org.springframework.util.Assert;
  * specified context. During expression evaluation the context may be asked to resolve
  * references to types, beans, properties, and methods.
  *
+ * <p>Depending on the {@link SpelCompilerMode} of the parser configuration, the expression
+ * may be compiled to bytecode once it has been evaluated a number of times, after which
+ * {@code getValue} calls are served by the compiled form.
+ *
  * @author Andy Clement
  * @since 3.0
  */
 public class SpelExpression implements Expression {
 
+	// Number of times to interpret an expression before compiling it
+	private static final int INTERPRETED_COUNT_THRESHOLD = 100;
+
+	// Number of times to try compiling an expression before giving up
+	private static final int FAILED_ATTEMPTS_THRESHOLD = 100;
+
+
 	private final String expression;
 
 	private final SpelNodeImpl ast;
@@ -49,6 +64,17 @@ public class SpelExpression implements Expression {
 	// the default context is used if no override is supplied by the user
 	private EvaluationContext defaultContext;
 
+	// Holds the compiled form of the expression (if it has been compiled)
+	private volatile CompiledExpression compiledAst;
+
+	// Count of many times as the expression been interpreted - can trigger compilation
+	// when certain limit reached
+	private volatile int interpretedCount = 0;
+
+	// The number of times compilation was attempted and failed - enables us to eventually
+	// give up trying to compile it when it just doesn't seem to be possible.
+	private volatile int failedAttempts = 0;
+
 
 	/**
 	 * Construct an expression, only used by the parser.
@@ -64,51 +90,138 @@ public class SpelExpression implements Expression {
 
 	@Override
 	public Object getValue() throws EvaluationException {
+		if (this.compiledAst != null) {
+			try {
+				EvaluationContext context = getEvaluationContext();
+				return this.compiledAst.getValue(context.getRootObject().getValue(), context);
+			}
+			catch (Throwable ex) {
+				handleCompiledExpressionFailure(ex);
+			}
+		}
 		ExpressionState expressionState = new ExpressionState(getEvaluationContext(), this.configuration);
-		return this.ast.getValue(expressionState);
+		Object result = this.ast.getValue(expressionState);
+		checkCompile(expressionState);
+		return result;
 	}
 
 	@Override
 	public Object getValue(Object rootObject) throws EvaluationException {
+		if (this.compiledAst != null) {
+			try {
+				return this.compiledAst.getValue(rootObject, getEvaluationContext());
+			}
+			catch (Throwable ex) {
+				handleCompiledExpressionFailure(ex);
+			}
+		}
 		ExpressionState expressionState = new ExpressionState(getEvaluationContext(), toTypedValue(rootObject), this.configuration);
-		return this.ast.getValue(expressionState);
+		Object result = this.ast.getValue(expressionState);
+		checkCompile(expressionState);
+		return result;
 	}
 
 	@Override
 	public <T> T getValue(Class<T> expectedResultType) throws EvaluationException {
+		if (this.compiledAst != null) {
+			try {
+				EvaluationContext context = getEvaluationContext();
+				Object result = this.compiledAst.getValue(context.getRootObject().getValue(), context);
+				return convertCompiledResult(context, result, expectedResultType);
+			}
+			catch (Throwable ex) {
+				handleCompiledExpressionFailure(ex);
+			}
+		}
 		ExpressionState expressionState = new ExpressionState(getEvaluationContext(), this.configuration);
 		TypedValue typedResultValue = this.ast.getTypedValue(expressionState);
+		checkCompile(expressionState);
 		return ExpressionUtils.convertTypedValue(expressionState.getEvaluationContext(), typedResultValue, expectedResultType);
 	}
 
 	@Override
 	public <T> T getValue(Object rootObject, Class<T> expectedResultType) throws EvaluationException {
+		if (this.compiledAst != null) {
+			try {
+				EvaluationContext context = getEvaluationContext();
+				Object result = this.compiledAst.getValue(rootObject, context);
+				return convertCompiledResult(context, result, expectedResultType);
+			}
+			catch (Throwable ex) {
+				handleCompiledExpressionFailure(ex);
+			}
+		}
 		ExpressionState expressionState = new ExpressionState(getEvaluationContext(), toTypedValue(rootObject), this.configuration);
 		TypedValue typedResultValue = this.ast.getTypedValue(expressionState);
+		checkCompile(expressionState);
 		return ExpressionUtils.convertTypedValue(expressionState.getEvaluationContext(), typedResultValue, expectedResultType);
 	}
 
 	@Override
 	public Object getValue(EvaluationContext context) throws EvaluationException {
 		Assert.notNull(context, "The EvaluationContext is required");
-		return this.ast.getValue(new ExpressionState(context, this.configuration));
+		if (this.compiledAst != null) {
+			try {
+				return this.compiledAst.getValue(context.getRootObject().getValue(), context);
+			}
+			catch (Throwable ex) {
+				handleCompiledExpressionFailure(ex);
+			}
+		}
+		ExpressionState expressionState = new ExpressionState(context, this.configuration);
+		Object result = this.ast.getValue(expressionState);
+		checkCompile(expressionState);
+		return result;
 	}
 
 	@Override
 	public Object getValue(EvaluationContext context, Object rootObject) throws EvaluationException {
 		Assert.notNull(context, "The EvaluationContext is required");
-		return this.ast.getValue(new ExpressionState(context, toTypedValue(rootObject), this.configuration));
+		if (this.compiledAst != null) {
+			try {
+				return this.compiledAst.getValue(rootObject, context);
+			}
+			catch (Throwable ex) {
+				handleCompiledExpressionFailure(ex);
+			}
+		}
+		ExpressionState expressionState = new ExpressionState(context, toTypedValue(rootObject), this.configuration);
+		Object result = this.ast.getValue(expressionState);
+		checkCompile(expressionState);
+		return result;
 	}
 
 	@Override
 	public <T> T getValue(EvaluationContext context, Class<T> expectedResultType) throws EvaluationException {
-		TypedValue typedResultValue = this.ast.getTypedValue(new ExpressionState(context, this.configuration));
+		if (this.compiledAst != null) {
+			try {
+				Object result = this.compiledAst.getValue(context.getRootObject().getValue(), context);
+				return convertCompiledResult(context, result, expectedResultType);
+			}
+			catch (Throwable ex) {
+				handleCompiledExpressionFailure(ex);
+			}
+		}
+		ExpressionState expressionState = new ExpressionState(context, this.configuration);
+		TypedValue typedResultValue = this.ast.getTypedValue(expressionState);
+		checkCompile(expressionState);
 		return ExpressionUtils.convertTypedValue(context, typedResultValue, expectedResultType);
 	}
 
 	@Override
 	public <T> T getValue(EvaluationContext context, Object rootObject, Class<T> expectedResultType) throws EvaluationException {
-		TypedValue typedResultValue = this.ast.getTypedValue(new ExpressionState(context, toTypedValue(rootObject), this.configuration));
+		if (this.compiledAst != null) {
+			try {
+				Object result = this.compiledAst.getValue(rootObject, context);
+				return convertCompiledResult(context, result, expectedResultType);
+			}
+			catch (Throwable ex) {
+				handleCompiledExpressionFailure(ex);
+			}
+		}
+		ExpressionState expressionState = new ExpressionState(context, toTypedValue(rootObject), this.configuration);
+		TypedValue typedResultValue = this.ast.getTypedValue(expressionState);
+		checkCompile(expressionState);
 		return ExpressionUtils.convertTypedValue(context, typedResultValue, expectedResultType);
 	}
 
@@ -203,6 +316,87 @@ public class SpelExpression implements Expression {
 
 	// impl only
 
+	/**
+	 * Compile the expression if it has been evaluated more than the threshold number
+	 * of times to trigger compilation.
+	 * @param expressionState the expression state used to determine compilation mode
+	 */
+	private void checkCompile(ExpressionState expressionState) {
+		this.interpretedCount++;
+		SpelCompilerMode compilerMode = expressionState.getConfiguration().getCompilerMode();
+		if (compilerMode != SpelCompilerMode.OFF) {
+			if (compilerMode == SpelCompilerMode.IMMEDIATE) {
+				if (this.interpretedCount > 1) {
+					compileExpression();
+				}
+			}
+			else {
+				// compilerMode = SpelCompilerMode.MIXED
+				if (this.interpretedCount > INTERPRETED_COUNT_THRESHOLD) {
+					compileExpression();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Deal with a failure of the compiled form of this expression: in
+	 * {@link SpelCompilerMode#IMMEDIATE} mode the failure is propagated to the
+	 * caller, whereas in {@link SpelCompilerMode#MIXED} mode the compiled form is
+	 * discarded and the caller continues with interpreted evaluation.
+	 */
+	private void handleCompiledExpressionFailure(Throwable ex) {
+		this.interpretedCount = 0;
+		this.compiledAst = null;
+		// Counts towards the threshold so that unstable expressions stop being recompiled
+		this.failedAttempts++;
+		if (this.configuration.getCompilerMode() != SpelCompilerMode.MIXED) {
+			throw new SpelEvaluationException(ex, SpelMessage.EXCEPTION_RUNNING_COMPILED_EXPRESSION);
+		}
+	}
+
+	private <T> T convertCompiledResult(EvaluationContext context, Object result, Class<T> expectedResultType) {
+		return ExpressionUtils.convertTypedValue(context, toTypedValue(result), expectedResultType);
+	}
+
+	/**
+	 * Perform expression compilation. This will only succeed once exit descriptors for all nodes have
+	 * been determined. If the compilation fails and has failed more than 100 times the expression is
+	 * no longer considered suitable for compilation.
+	 * @return whether this expression has been successfully compiled
+	 */
+	public boolean compileExpression() {
+		if (this.failedAttempts > FAILED_ATTEMPTS_THRESHOLD) {
+			// Don't try again
+			return false;
+		}
+		if (this.compiledAst == null) {
+			synchronized (this) {
+				// Possibly compiled by another thread before this thread got into the sync block
+				if (this.compiledAst != null) {
+					return true;
+				}
+				SpelCompiler compiler = SpelCompiler.getCompiler(this.configuration.getCompilerClassLoader());
+				this.compiledAst = compiler.compile(this.ast);
+				if (this.compiledAst == null) {
+					this.failedAttempts++;
+				}
+			}
+		}
+		return (this.compiledAst != null);
+	}
+
+	/**
+	 * Cause an expression to revert to being interpreted if it has been using a compiled
+	 * form. It also resets the compilation attempt failure count (an expression is normally no
+	 * longer considered compilable if it cannot be compiled after 100 attempts).
+	 */
+	public void revertToInterpreted() {
+		this.compiledAst = null;
+		this.interpretedCount = 0;
+		this.failedAttempts = 0;
+	}
+
 	/**
 	 * @return return the Abstract Syntax Tree for the expression
 	 */
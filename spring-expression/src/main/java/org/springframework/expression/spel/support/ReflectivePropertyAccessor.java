@@ -29,6 +29,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
+import org.springframework.asm.MethodVisitor;
 import org.springframework.core.MethodParameter;
 import org.springframework.core.convert.Property;
 import org.springframework.core.convert.TypeDescriptor;
@@ -38,6 +39,8 @@ import org.springframework.expression.EvaluationContext;
 import org.springframework.expression.EvaluationException;
 import org.springframework.expression.PropertyAccessor;
 import org.springframework.expression.TypedValue;
+import org.springframework.expression.spel.CodeFlow;
+import org.springframework.expression.spel.CompilablePropertyAccessor;
 import org.springframework.util.ReflectionUtils;
 import org.springframework.util.StringUtils;
 
@@ -556,8 +559,10 @@ public class ReflectivePropertyAccessor implements PropertyAccessor {
 	 * may be invoked to access different properties on different classes. This optimal
 	 * accessor exists because looking up the appropriate reflective object by class/name
 	 * on each read is not cheap.
+	 * <p>If the member is publicly accessible, the accessor can also generate bytecode
+	 * for the read operation so that it can be part of a compiled expression.
 	 */
-	private static class OptimalPropertyAccessor implements PropertyAccessor {
+	private static class OptimalPropertyAccessor implements CompilablePropertyAccessor {
 
 		private final Member member;
 
@@ -647,6 +652,58 @@ public class ReflectivePropertyAccessor implements PropertyAccessor {
 		public void write(EvaluationContext context, Object target, String name, Object newValue) {
 			throw new UnsupportedOperationException("Should not be called on an OptimalPropertyAccessor");
 		}
+
+		@Override
+		public boolean isCompilable() {
+			return (Modifier.isPublic(this.member.getModifiers()) && CodeFlow.isPublic(this.member.getDeclaringClass()));
+		}
+
+		@Override
+		public Class<?> getPropertyType() {
+			if (this.member instanceof Field) {
+				return ((Field) this.member).getType();
+			}
+			else {
+				return ((Method) this.member).getReturnType();
+			}
+		}
+
+		@Override
+		public void generateCode(String propertyName, MethodVisitor mv, CodeFlow cf) {
+			boolean isStatic = Modifier.isStatic(this.member.getModifiers());
+			String descriptor = cf.lastDescriptor();
+			Class<?> declaringClass = this.member.getDeclaringClass();
+			String declaringClassDescriptor = CodeFlow.toDescriptor(declaringClass);
+			if (!isStatic) {
+				if (descriptor == null) {
+					cf.loadTarget(mv);
+				}
+				else {
+					CodeFlow.insertBoxIfNecessary(mv, descriptor);
+				}
+				if (!declaringClassDescriptor.equals(descriptor)) {
+					CodeFlow.insertCheckCast(mv, declaringClassDescriptor);
+				}
+			}
+			else if (descriptor != null) {
+				// A static field/method call will not consume what is on the stack,
+				// it needs to be popped off.
+				mv.visitInsn("J".equals(descriptor) || "D".equals(descriptor) ? POP2 : POP);
+			}
+			String declaringClassName = CodeFlow.toInternalName(declaringClassDescriptor);
+			if (this.member instanceof Field) {
+				Field field = (Field) this.member;
+				mv.visitFieldInsn(isStatic ? GETSTATIC : GETFIELD, declaringClassName,
+						field.getName(), CodeFlow.toDescriptor(field.getType()));
+			}
+			else {
+				Method method = (Method) this.member;
+				boolean isInterface = declaringClass.isInterface();
+				int opcode = (isStatic ? INVOKESTATIC : (isInterface ? INVOKEINTERFACE : INVOKEVIRTUAL));
+				mv.visitMethodInsn(opcode, declaringClassName, method.getName(),
+						CodeFlow.createSignatureDescriptor(method), isInterface);
+			}
+		}
 	}
 
 }
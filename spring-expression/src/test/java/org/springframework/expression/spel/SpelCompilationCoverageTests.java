@@ -0,0 +1,223 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.expression.spel;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.ast.SpelNodeImpl;
+import org.springframework.expression.spel.standard.SpelCompiler;
+import org.springframework.expression.spel.standard.SpelExpression;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the behavior of the SpelCompiler. This should cover compilation of all node types.
+ *
+ * @author agent
+ * @since 4.1
+ */
+public class SpelCompilationCoverageTests extends AbstractExpressionTests {
+
+	private Expression expression;
+
+	private SpelNodeImpl ast;
+
+
+	@Test
+	public void literals() throws Exception {
+		assertCompiledValue("3", 3);
+		assertCompiledValue("-1", -1);
+		assertCompiledValue("1000000", 1000000);
+		assertCompiledValue("3L", 3L);
+		assertCompiledValue("3.5f", 3.5f);
+		assertCompiledValue("3.5d", 3.5d);
+		assertCompiledValue("'abc'", "abc");
+		assertCompiledValue("true", true);
+		assertCompiledValue("false", false);
+		assertCompiledValue("null", null);
+	}
+
+	@Test
+	public void arithmetic() throws Exception {
+		assertCompiledValue("1+2", 3);
+		assertCompiledValue("3L-4L", -1L);
+		assertCompiledValue("2.0f*3.0f", 6.0f);
+		assertCompiledValue("7.0d/2.0d", 3.5d);
+		assertCompiledValue("7%3", 1);
+		assertCompiledValue("-(2+3)", -5);
+		assertCompiledValue("'ab'+'cd'", "abcd");
+	}
+
+	@Test
+	public void relationalAndLogical() throws Exception {
+		assertCompiledValue("1<2", true);
+		assertCompiledValue("2L<=1L", false);
+		assertCompiledValue("3.0d>2.0d", true);
+		assertCompiledValue("1.0f>=2.0f", false);
+		assertCompiledValue("3==3", true);
+		assertCompiledValue("3!=3", false);
+		assertCompiledValue("'abc'=='abc'", true);
+		assertCompiledValue("'abc'!='def'", true);
+		assertCompiledValue("true and false", false);
+		assertCompiledValue("false or true", true);
+		assertCompiledValue("!false", true);
+		assertCompiledValue("1<2 ? 'yes' : 'no'", "yes");
+	}
+
+	@Test
+	public void propertiesAndMethods() throws Exception {
+		TestHolder holder = new TestHolder();
+		StandardEvaluationContext context = new StandardEvaluationContext(holder);
+		context.setVariable("greeting", "hello");
+
+		assertCompiledValue("name", context, "Alice");
+		assertCompiledValue("age + 1", context, 31);
+		assertCompiledValue("name.length()", context, 5);
+		assertCompiledValue("concat('x', 3)", context, "x3");
+		assertCompiledValue("name.substring(age - 29)", context, "lice");
+		assertCompiledValue("T(org.springframework.expression.spel.SpelCompilationCoverageTests$TestHolder).twice(4)",
+				context, 8);
+		assertCompiledValue("#root.name", context, "Alice");
+		assertCompiledValue("#greeting.toUpperCase()", context, "HELLO");
+		assertCompiledValue("T(String)", context, String.class);
+	}
+
+	@Test
+	public void indexing() throws Exception {
+		StandardEvaluationContext context = new StandardEvaluationContext(new TestHolder());
+		assertCompiledValue("numbers[1]", context, 2);
+		assertCompiledValue("names[0]", context, "a");
+		assertCompiledValue("ages[alice]", context, 30);
+		assertCompiledValue("ages['bob']", context, 40);
+	}
+
+	@Test
+	public void notCompilableWithoutEvaluation() throws Exception {
+		expression = parser.parseExpression("name");
+		assertFalse(SpelCompiler.compile(expression));
+	}
+
+	@Test
+	public void nullSafeNavigationIsNotCompiled() throws Exception {
+		expression = parser.parseExpression("name?.length()");
+		expression.getValue(new TestHolder());
+		assertFalse(SpelCompiler.compile(expression));
+	}
+
+	@Test
+	public void revertToInterpreted() throws Exception {
+		expression = parser.parseExpression("name");
+		assertEquals("Alice", expression.getValue(new TestHolder()));
+		assertTrue(SpelCompiler.compile(expression));
+		SpelCompiler.revertToInterpreted(expression);
+		assertEquals("Alice", expression.getValue(new TestHolder()));
+	}
+
+	@Test
+	public void mixedModeFallsBackOnTypeChange() throws Exception {
+		SpelParserConfiguration configuration = new SpelParserConfiguration(SpelCompilerMode.MIXED, null);
+		expression = new SpelExpressionParser(configuration).parseExpression("name");
+		assertEquals("Alice", expression.getValue(new TestHolder()));
+		assertTrue(SpelCompiler.compile(expression));
+		assertEquals("Alice", expression.getValue(new TestHolder()));
+
+		// Compiled code casts to TestHolder, so this takes the interpreted route
+		assertEquals("Bob", expression.getValue(new OtherHolder()));
+	}
+
+	@Test
+	public void immediateModeCompilesAndPropagatesFailure() throws Exception {
+		SpelParserConfiguration configuration = new SpelParserConfiguration(SpelCompilerMode.IMMEDIATE, null);
+		expression = new SpelExpressionParser(configuration).parseExpression("name");
+		assertEquals("Alice", expression.getValue(new TestHolder()));
+		assertEquals("Alice", expression.getValue(new TestHolder()));
+		assertEquals("Alice", expression.getValue(new TestHolder()));
+		try {
+			expression.getValue(new OtherHolder());
+			fail("Should have failed running the compiled expression");
+		}
+		catch (SpelEvaluationException ex) {
+			assertEquals(SpelMessage.EXCEPTION_RUNNING_COMPILED_EXPRESSION, ex.getMessageCode());
+		}
+		// Compiled form was discarded, interpreted evaluation works for the new type
+		assertEquals("Bob", expression.getValue(new OtherHolder()));
+	}
+
+
+	private void assertCompiledValue(String expressionText, Object expectedValue) {
+		assertCompiledValue(expressionText, new StandardEvaluationContext(), expectedValue);
+	}
+
+	private void assertCompiledValue(String expressionText, StandardEvaluationContext context, Object expectedValue) {
+		expression = parser.parseExpression(expressionText);
+		ast = (SpelNodeImpl) ((SpelExpression) expression).getAST();
+		assertEquals(expectedValue, expression.getValue(context));
+		assertTrue("Expected to compile: " + expressionText, ast.isCompilable());
+		assertTrue("Compilation failed: " + expressionText, SpelCompiler.compile(expression));
+		assertEquals(expectedValue, expression.getValue(context));
+	}
+
+
+	public static class TestHolder {
+
+		public int[] numbers = new int[] {1, 2, 3};
+
+		public List<String> names = new ArrayList<String>();
+
+		public Map<String, Integer> ages = new HashMap<String, Integer>();
+
+		public TestHolder() {
+			this.names.add("a");
+			this.names.add("b");
+			this.ages.put("alice", 30);
+			this.ages.put("bob", 40);
+		}
+
+		public String getName() {
+			return "Alice";
+		}
+
+		public int getAge() {
+			return 30;
+		}
+
+		public String concat(String s, int i) {
+			return s + i;
+		}
+
+		public static int twice(int i) {
+			return i * 2;
+		}
+	}
+
+
+	public static class OtherHolder {
+
+		public String getName() {
+			return "Bob";
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2012 the original author or authors.
+ * Copyright 2002-2014 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -47,12 +47,23 @@ public abstract class BatchUpdateUtils {
 	}
 
 	protected static void setStatementParameters(Object[] values, PreparedStatement ps, int[] columnTypes) throws SQLException {
+		setStatementParameters(values, ps, columnTypes, 0);
+	}
+
+	/**
+	 * Set the given values on the statement, starting after the given number
+	 * of already bound parameters (for statements that carry several rows).
+	 * @since 4.1
+	 */
+	protected static void setStatementParameters(Object[] values, PreparedStatement ps, int[] columnTypes, int offset)
+			throws SQLException {
+
 		int colIndex = 0;
 		for (Object value : values) {
 			colIndex++;
 			if (value instanceof SqlParameterValue) {
 				SqlParameterValue paramValue = (SqlParameterValue) value;
-				StatementCreatorUtils.setParameterValue(ps, colIndex, paramValue, paramValue.getValue());
+				StatementCreatorUtils.setParameterValue(ps, offset + colIndex, paramValue, paramValue.getValue());
 			}
 			else {
 				int colType;
@@ -62,7 +73,7 @@ public abstract class BatchUpdateUtils {
 				else {
 					colType = columnTypes[colIndex - 1];
 				}
-				StatementCreatorUtils.setParameterValue(ps, colIndex, colType, value);
+				StatementCreatorUtils.setParameterValue(ps, offset + colIndex, colType, value);
 			}
 		}
 	}
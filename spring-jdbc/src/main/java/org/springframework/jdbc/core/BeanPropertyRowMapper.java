@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2013 the original author or authors.
+ * Copyright 2002-2014 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,20 +16,31 @@
 
 package org.springframework.jdbc.core;
 
+import java.beans.PropertyChangeEvent;
 import java.beans.PropertyDescriptor;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.MethodInvocationException;
 import org.springframework.beans.NotWritablePropertyException;
 import org.springframework.beans.PropertyAccessorFactory;
 import org.springframework.beans.TypeMismatchException;
@@ -37,6 +48,8 @@ import org.springframework.dao.DataRetrievalFailureException;
 import org.springframework.dao.InvalidDataAccessApiUsageException;
 import org.springframework.jdbc.support.JdbcUtils;
 import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
 import org.springframework.util.StringUtils;
 
 /**
@@ -62,6 +75,11 @@ import org.springframework.util.StringUtils;
  * Be aware that if you use the values from the generated bean to update the database the primitive value
  * will have been set to the primitive's default value instead of null.
  *
+ * <p>The column-to-property assignment is resolved once per {@link ResultSet}, from its
+ * metadata. Values that are assignable to the target property are then set through the
+ * property's write method directly; a {@link BeanWrapper} is only involved for values that
+ * need type conversion, or for all values if {@link #initBeanWrapper} has been overridden.
+ *
  * <p>Please note that this class is designed to provide convenience rather than high performance.
  * For best performance consider using a custom RowMapper.
  *
@@ -71,6 +89,10 @@ import org.springframework.util.StringUtils;
  */
 public class BeanPropertyRowMapper<T> implements RowMapper<T> {
 
+	/** Maximum number of column shapes for which mapping plans are cached */
+	private static final int MAPPING_PLAN_CACHE_LIMIT = 256;
+
+
 	/** Logger available to subclasses */
 	protected final Log logger = LogFactory.getLog(getClass());
 
@@ -89,6 +111,15 @@ public class BeanPropertyRowMapper<T> implements RowMapper<T> {
 	/** Set of bean properties we provide mapping for */
 	private Set<String> mappedProperties;
 
+	/** Whether values always need to be set through a BeanWrapper */
+	private final boolean customBeanWrapper = isInitBeanWrapperOverridden();
+
+	/** Cache of column-to-property plans, keyed by the column shape of the ResultSet */
+	private final Map<ColumnShape, MappingPlan> mappingPlanCache = new ConcurrentHashMap<ColumnShape, MappingPlan>(16);
+
+	/** The plan for the ResultSet mapped most recently */
+	private volatile ResultSetMappingPlan lastMappingPlan;
+
 
 	/**
 	 * Create a new BeanPropertyRowMapper for bean-style configuration.
@@ -142,6 +173,7 @@ public class BeanPropertyRowMapper<T> implements RowMapper<T> {
 	 */
 	protected void initialize(Class<T> mappedClass) {
 		this.mappedClass = mappedClass;
+		this.mappingPlanCache.clear();
 		this.mappedFields = new HashMap<String, PropertyDescriptor>();
 		this.mappedProperties = new HashSet<String>();
 		PropertyDescriptor[] pds = BeanUtils.getPropertyDescriptors(mappedClass);
@@ -157,13 +189,28 @@ public class BeanPropertyRowMapper<T> implements RowMapper<T> {
 		}
 	}
 
+	/**
+	 * Remove the specified property from the mapped fields, e.g. because it
+	 * is populated through a constructor argument instead.
+	 * @param propertyName the name of the property to suppress
+	 * @since 4.1
+	 */
+	protected void suppressProperty(String propertyName) {
+		if (this.mappedFields != null) {
+			this.mappedFields.remove(propertyName.toLowerCase());
+			this.mappedFields.remove(underscoreName(propertyName));
+			this.mappedProperties.remove(propertyName);
+			this.mappingPlanCache.clear();
+		}
+	}
+
 	/**
 	 * Convert a name in camelCase to an underscored name in lower case.
 	 * Any upper case letters are converted to lower case with a preceding underscore.
 	 * @param name the string containing original name
 	 * @return the converted name
 	 */
-	private String underscoreName(String name) {
+	protected String underscoreName(String name) {
 		if (!StringUtils.hasLength(name)) {
 			return "";
 		}
@@ -233,55 +280,106 @@ public class BeanPropertyRowMapper<T> implements RowMapper<T> {
 	@Override
 	public T mapRow(ResultSet rs, int rowNumber) throws SQLException {
 		Assert.state(this.mappedClass != null, "Mapped class was not specified");
-		T mappedObject = BeanUtils.instantiate(this.mappedClass);
-		BeanWrapper bw = PropertyAccessorFactory.forBeanPropertyAccess(mappedObject);
-		initBeanWrapper(bw);
-
-		ResultSetMetaData rsmd = rs.getMetaData();
-		int columnCount = rsmd.getColumnCount();
-		Set<String> populatedProperties = (isCheckFullyPopulated() ? new HashSet<String>() : null);
-
-		for (int index = 1; index <= columnCount; index++) {
-			String column = JdbcUtils.lookupColumnName(rsmd, index);
-			PropertyDescriptor pd = this.mappedFields.get(column.replaceAll(" ", "").toLowerCase());
-			if (pd != null) {
-				try {
-					Object value = getColumnValue(rs, index, pd);
-					if (logger.isDebugEnabled() && rowNumber == 0) {
-						logger.debug("Mapping column '" + column + "' to property '" +
-								pd.getName() + "' of type " + pd.getPropertyType());
-					}
-					try {
-						bw.setPropertyValue(pd.getName(), value);
-					}
-					catch (TypeMismatchException e) {
-						if (value == null && primitivesDefaultedForNullValue) {
-							logger.debug("Intercepted TypeMismatchException for row " + rowNumber +
-									" and column '" + column + "' with value " + value +
-									" when setting property '" + pd.getName() + "' of type " + pd.getPropertyType() +
-									" on object: " + mappedObject);
-						}
-						else {
-							throw e;
-						}
-					}
-					if (populatedProperties != null) {
-						populatedProperties.add(pd.getName());
-					}
+		MappingPlan plan = getMappingPlan(rs, rowNumber);
+		if (isCheckFullyPopulated() && !plan.fullyPopulated) {
+			throw new InvalidDataAccessApiUsageException("Given ResultSet does not contain all fields " +
+					"necessary to populate object of class [" + this.mappedClass + "]: " + this.mappedProperties);
+		}
+
+		T mappedObject = constructMappedInstance(rs, rowNumber, plan.columnIndexes);
+		BeanWrapper bw = null;
+		if (this.customBeanWrapper) {
+			bw = PropertyAccessorFactory.forBeanPropertyAccess(mappedObject);
+			initBeanWrapper(bw);
+		}
+
+		for (PropertyMapping mapping : plan.propertyMappings) {
+			PropertyDescriptor pd = mapping.propertyDescriptor;
+			Object value = getColumnValue(rs, mapping.columnIndex, pd);
+			if (logger.isDebugEnabled() && rowNumber == 0) {
+				logger.debug("Mapping column '" + mapping.columnName + "' to property '" +
+						pd.getName() + "' of type " + pd.getPropertyType());
+			}
+			if (bw == null && mapping.isDirectlyAssignable(value)) {
+				mapping.setValue(mappedObject, value);
+				continue;
+			}
+			if (bw == null) {
+				bw = PropertyAccessorFactory.forBeanPropertyAccess(mappedObject);
+				initBeanWrapper(bw);
+			}
+			try {
+				bw.setPropertyValue(pd.getName(), value);
+			}
+			catch (TypeMismatchException e) {
+				if (value == null && primitivesDefaultedForNullValue) {
+					logger.debug("Intercepted TypeMismatchException for row " + rowNumber +
+							" and column '" + mapping.columnName + "' with value " + value +
+							" when setting property '" + pd.getName() + "' of type " + pd.getPropertyType() +
+							" on object: " + mappedObject);
 				}
-				catch (NotWritablePropertyException ex) {
-					throw new DataRetrievalFailureException(
-							"Unable to map column " + column + " to property " + pd.getName(), ex);
+				else {
+					throw e;
 				}
 			}
+			catch (NotWritablePropertyException ex) {
+				throw new DataRetrievalFailureException(
+						"Unable to map column " + mapping.columnName + " to property " + pd.getName(), ex);
+			}
 		}
 
-		if (populatedProperties != null && !populatedProperties.equals(this.mappedProperties)) {
-			throw new InvalidDataAccessApiUsageException("Given ResultSet does not contain all fields " +
-					"necessary to populate object of class [" + this.mappedClass + "]: " + this.mappedProperties);
+		return mappedObject;
+	}
+
+	/**
+	 * Construct an instance of the mapped class for the current row.
+	 * <p>The default implementation instantiates the mapped class through
+	 * its default constructor.
+	 * @param rs the ResultSet to map (pre-initialized for the current row)
+	 * @param rowNumber the number of the current row
+	 * @param columnIndexes the 1-based index of each column in the ResultSet,
+	 * keyed by column name in lower case and without spaces (like mapped
+	 * property names and their underscored variants)
+	 * @return a corresponding instance of the mapped class
+	 * @throws SQLException if an SQLException is encountered
+	 * @since 4.1
+	 */
+	protected T constructMappedInstance(ResultSet rs, int rowNumber, Map<String, Integer> columnIndexes)
+			throws SQLException {
+
+		return BeanUtils.instantiate(this.mappedClass);
+	}
+
+	/**
+	 * Return the column-to-property plan for the columns of the given ResultSet,
+	 * resolving it from the ResultSet metadata if not known yet.
+	 * <p>Plans are keyed by column labels and types rather than by ResultSet,
+	 * so that they remain valid for ResultSets that are pooled or re-used with
+	 * different queries, and can be shared between concurrent queries.
+	 * The metadata is only read once per ResultSet though: subsequent rows
+	 * of the most recently mapped ResultSet reuse its plan right away.
+	 */
+	private MappingPlan getMappingPlan(ResultSet rs, int rowNumber) throws SQLException {
+		ResultSetMappingPlan lastPlan = this.lastMappingPlan;
+		if (lastPlan != null && rowNumber > 0 && lastPlan.resultSet.get() == rs) {
+			return lastPlan.plan;
+		}
+		ColumnShape shape = new ColumnShape(rs.getMetaData());
+		MappingPlan plan = this.mappingPlanCache.get(shape);
+		if (plan == null) {
+			plan = new MappingPlan(shape);
+			if (this.mappingPlanCache.size() >= MAPPING_PLAN_CACHE_LIMIT) {
+				this.mappingPlanCache.clear();
+			}
+			this.mappingPlanCache.put(shape, plan);
 		}
+		this.lastMappingPlan = new ResultSetMappingPlan(rs, plan);
+		return plan;
+	}
 
-		return mappedObject;
+	private boolean isInitBeanWrapperOverridden() {
+		Method method = ReflectionUtils.findMethod(getClass(), "initBeanWrapper", BeanWrapper.class);
+		return (method != null && method.getDeclaringClass() != BeanPropertyRowMapper.class);
 	}
 
 	/**
@@ -308,7 +406,177 @@ public class BeanPropertyRowMapper<T> implements RowMapper<T> {
 	 * @see org.springframework.jdbc.support.JdbcUtils#getResultSetValue(java.sql.ResultSet, int, Class)
 	 */
 	protected Object getColumnValue(ResultSet rs, int index, PropertyDescriptor pd) throws SQLException {
-		return JdbcUtils.getResultSetValue(rs, index, pd.getPropertyType());
+		return getColumnValue(rs, index, pd.getPropertyType());
+	}
+
+	/**
+	 * Retrieve a JDBC object value for the specified column.
+	 * <p>The default implementation calls
+	 * {@link JdbcUtils#getResultSetValue(java.sql.ResultSet, int, Class)}.
+	 * Subclasses may override this to check specific value types upfront,
+	 * or to post-process values return from {@code getResultSetValue}.
+	 * @param rs is the ResultSet holding the data
+	 * @param index is the column index
+	 * @param paramType the target parameter type
+	 * @return the Object value
+	 * @throws SQLException in case of extraction failure
+	 * @since 4.1
+	 * @see org.springframework.jdbc.support.JdbcUtils#getResultSetValue(java.sql.ResultSet, int, Class)
+	 */
+	protected Object getColumnValue(ResultSet rs, int index, Class<?> paramType) throws SQLException {
+		return JdbcUtils.getResultSetValue(rs, index, paramType);
+	}
+
+
+	/**
+	 * The labels and SQL types of the columns of a ResultSet.
+	 */
+	private static class ColumnShape {
+
+		private final String[] columnNames;
+
+		private final int[] columnTypes;
+
+		private final int hashCode;
+
+		public ColumnShape(ResultSetMetaData rsmd) throws SQLException {
+			int columnCount = rsmd.getColumnCount();
+			this.columnNames = new String[columnCount];
+			this.columnTypes = new int[columnCount];
+			for (int i = 0; i < columnCount; i++) {
+				this.columnNames[i] = JdbcUtils.lookupColumnName(rsmd, i + 1);
+				this.columnTypes[i] = rsmd.getColumnType(i + 1);
+			}
+			this.hashCode = Arrays.hashCode(this.columnNames) * 29 + Arrays.hashCode(this.columnTypes);
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof ColumnShape)) {
+				return false;
+			}
+			ColumnShape otherShape = (ColumnShape) other;
+			return (Arrays.equals(this.columnNames, otherShape.columnNames) &&
+					Arrays.equals(this.columnTypes, otherShape.columnTypes));
+		}
+
+		@Override
+		public int hashCode() {
+			return this.hashCode;
+		}
+	}
+
+
+	/**
+	 * A mapping plan along with the ResultSet it has last been resolved for.
+	 */
+	private class ResultSetMappingPlan {
+
+		private final WeakReference<ResultSet> resultSet;
+
+		private final MappingPlan plan;
+
+		public ResultSetMappingPlan(ResultSet resultSet, MappingPlan plan) {
+			this.resultSet = new WeakReference<ResultSet>(resultSet);
+			this.plan = plan;
+		}
+	}
+
+
+	/**
+	 * The resolved mappings from the columns of a specific {@link ColumnShape}
+	 * to the mapped class's properties.
+	 */
+	private class MappingPlan {
+
+		private final Map<String, Integer> columnIndexes;
+
+		private final PropertyMapping[] propertyMappings;
+
+		private final boolean fullyPopulated;
+
+		public MappingPlan(ColumnShape shape) {
+			int columnCount = shape.columnNames.length;
+			Map<String, Integer> indexes = new HashMap<String, Integer>(columnCount * 2);
+			List<PropertyMapping> mappings = new ArrayList<PropertyMapping>(columnCount);
+			Set<String> populatedProperties = new HashSet<String>();
+			for (int index = 1; index <= columnCount; index++) {
+				String column = shape.columnNames[index - 1];
+				String field = StringUtils.delete(column, " ").toLowerCase();
+				if (!indexes.containsKey(field)) {
+					indexes.put(field, index);
+				}
+				PropertyDescriptor pd = mappedFields.get(field);
+				if (pd != null) {
+					mappings.add(new PropertyMapping(index, column, pd));
+					populatedProperties.add(pd.getName());
+				}
+			}
+			this.columnIndexes = Collections.unmodifiableMap(indexes);
+			this.propertyMappings = mappings.toArray(new PropertyMapping[mappings.size()]);
+			this.fullyPopulated = populatedProperties.equals(mappedProperties);
+		}
+	}
+
+
+	/**
+	 * The mapping of a specific column to a bean property.
+	 */
+	private static class PropertyMapping {
+
+		private final int columnIndex;
+
+		private final String columnName;
+
+		private final PropertyDescriptor propertyDescriptor;
+
+		private final Method writeMethod;
+
+		private final Class<?> propertyType;
+
+		private final boolean simpleType;
+
+		public PropertyMapping(int columnIndex, String columnName, PropertyDescriptor pd) {
+			this.columnIndex = columnIndex;
+			this.columnName = columnName;
+			this.propertyDescriptor = pd;
+			this.writeMethod = pd.getWriteMethod();
+			this.propertyType = pd.getPropertyType();
+			// Arrays and collections may still be subject to element conversion
+			this.simpleType = (this.propertyType != null && !this.propertyType.isArray() &&
+					!Collection.class.isAssignableFrom(this.propertyType) && !Map.class.isAssignableFrom(this.propertyType));
+			if (this.simpleType) {
+				ReflectionUtils.makeAccessible(this.writeMethod);
+			}
+		}
+
+		/**
+		 * Whether the given value can be set without any type conversion.
+		 */
+		public boolean isDirectlyAssignable(Object value) {
+			if (!this.simpleType) {
+				return false;
+			}
+			return (value != null ? ClassUtils.isAssignableValue(this.propertyType, value) :
+					!this.propertyType.isPrimitive());
+		}
+
+		public void setValue(Object target, Object value) {
+			try {
+				this.writeMethod.invoke(target, value);
+			}
+			catch (InvocationTargetException ex) {
+				PropertyChangeEvent event =
+						new PropertyChangeEvent(target, this.propertyDescriptor.getName(), null, value);
+				throw new MethodInvocationException(event, ex.getTargetException());
+			}
+			catch (IllegalAccessException ex) {
+				ReflectionUtils.handleReflectionException(ex);
+			}
+		}
 	}
 
 
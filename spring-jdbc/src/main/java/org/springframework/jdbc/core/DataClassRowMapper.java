@@ -0,0 +1,176 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core;
+
+import java.beans.ConstructorProperties;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Map;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.beans.TypeMismatchException;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.util.ClassUtils;
+
+/**
+ * {@link RowMapper} implementation that converts a row into a new instance
+ * of the specified mapped target class. The mapped target class must be a
+ * top-level class and may expose a data class constructor, i.e. a single
+ * (public) constructor with arguments corresponding to column names.
+ * This is typically the case for immutable value objects.
+ *
+ * <p>Constructor parameter names are taken from a
+ * {@link java.beans.ConstructorProperties @ConstructorProperties} declaration
+ * if present, or otherwise from the class file's debug information. They are
+ * matched against column names the same way as bean properties in
+ * {@link BeanPropertyRowMapper}: either directly or in their underscored form.
+ * Any remaining bean properties with setters are populated as well.
+ *
+ * @author agent
+ * @since 4.1
+ * @param <T> the result type
+ * @see BeanPropertyRowMapper
+ */
+public class DataClassRowMapper<T> extends BeanPropertyRowMapper<T> {
+
+	private static final ParameterNameDiscoverer parameterNameDiscoverer = new DefaultParameterNameDiscoverer();
+
+
+	private Constructor<T> mappedConstructor;
+
+	private String[] constructorParameterNames;
+
+	private String[] underscoredParameterNames;
+
+	private Class<?>[] constructorParameterTypes;
+
+
+	/**
+	 * Create a new DataClassRowMapper for bean-style configuration.
+	 * @see #setMappedClass
+	 * @see #setCheckFullyPopulated
+	 */
+	public DataClassRowMapper() {
+	}
+
+	/**
+	 * Create a new DataClassRowMapper.
+	 * @param mappedClass the class that each row should be mapped to
+	 */
+	public DataClassRowMapper(Class<T> mappedClass) {
+		super(mappedClass);
+	}
+
+
+	@Override
+	protected void initialize(Class<T> mappedClass) {
+		super.initialize(mappedClass);
+
+		this.mappedConstructor = determineConstructor(mappedClass);
+		this.constructorParameterTypes = this.mappedConstructor.getParameterTypes();
+		if (this.constructorParameterTypes.length > 0) {
+			ConstructorProperties cp = this.mappedConstructor.getAnnotation(ConstructorProperties.class);
+			String[] names = (cp != null ? cp.value() : parameterNameDiscoverer.getParameterNames(this.mappedConstructor));
+			if (names == null || names.length != this.constructorParameterTypes.length) {
+				throw new InvalidDataAccessApiUsageException("Cannot resolve parameter names for constructor " +
+						this.mappedConstructor + ": declare @ConstructorProperties or compile with debug information");
+			}
+			this.constructorParameterNames = new String[names.length];
+			this.underscoredParameterNames = new String[names.length];
+			for (int i = 0; i < names.length; i++) {
+				this.constructorParameterNames[i] = names[i].toLowerCase();
+				this.underscoredParameterNames[i] = underscoreName(names[i]);
+				suppressProperty(names[i]);
+			}
+		}
+	}
+
+	/**
+	 * Determine the constructor to use for the given class: its single public
+	 * constructor, its single declared constructor, or its default constructor.
+	 */
+	@SuppressWarnings("unchecked")
+	private Constructor<T> determineConstructor(Class<T> mappedClass) {
+		Constructor<?>[] ctors = mappedClass.getConstructors();
+		if (ctors.length != 1) {
+			ctors = mappedClass.getDeclaredConstructors();
+		}
+		if (ctors.length == 1) {
+			return (Constructor<T>) ctors[0];
+		}
+		try {
+			return mappedClass.getDeclaredConstructor();
+		}
+		catch (NoSuchMethodException ex) {
+			throw new InvalidDataAccessApiUsageException(
+					"No unique constructor and no default constructor found in " + mappedClass, ex);
+		}
+	}
+
+	@Override
+	protected T constructMappedInstance(ResultSet rs, int rowNumber, Map<String, Integer> columnIndexes)
+			throws SQLException {
+
+		Object[] args = new Object[this.constructorParameterTypes.length];
+		BeanWrapper bw = null;
+		for (int i = 0; i < args.length; i++) {
+			Integer index = columnIndexes.get(this.constructorParameterNames[i]);
+			if (index == null) {
+				index = columnIndexes.get(this.underscoredParameterNames[i]);
+			}
+			if (index == null) {
+				throw new InvalidDataAccessApiUsageException("Given ResultSet does not contain a column for " +
+						"constructor parameter '" + this.constructorParameterNames[i] + "' of " + this.mappedConstructor);
+			}
+			Class<?> paramType = this.constructorParameterTypes[i];
+			Object value = getColumnValue(rs, index, paramType);
+			if (value == null && paramType.isPrimitive()) {
+				if (!isPrimitivesDefaultedForNullValue()) {
+					throw new TypeMismatchException(value, paramType);
+				}
+				value = Array.get(Array.newInstance(paramType, 1), 0);
+			}
+			else if (value != null && !ClassUtils.isAssignableValue(paramType, value)) {
+				if (bw == null) {
+					bw = new BeanWrapperImpl();
+					initBeanWrapper(bw);
+				}
+				value = bw.convertIfNecessary(value, paramType, new MethodParameter(this.mappedConstructor, i));
+			}
+			args[i] = value;
+		}
+		return BeanUtils.instantiateClass(this.mappedConstructor, args);
+	}
+
+
+	/**
+	 * Static factory method to create a new DataClassRowMapper
+	 * (with the mapped class specified only once).
+	 * @param mappedClass the class that each row should be mapped to
+	 */
+	public static <T> DataClassRowMapper<T> newInstance(Class<T> mappedClass) {
+		return new DataClassRowMapper<T>(mappedClass);
+	}
+
+}
@@ -542,6 +542,64 @@ public interface JdbcOperations {
 	 */
 	<T> List<T> query(String sql, RowMapper<T> rowMapper, Object... args) throws DataAccessException;
 
+	/**
+	 * Query using a prepared statement, mapping each row to a Java object
+	 * via a RowMapper as the returned iterator is advanced.
+	 * <p>In contrast to {@link #query(PreparedStatementCreator, RowMapper)},
+	 * the result is not materialized into a List: the Connection and Statement
+	 * remain open until the iterator is exhausted or closed, so that arbitrarily
+	 * large results can be consumed in constant memory. The configured fetch size
+	 * is applied to the statement; drivers may need specific settings for actual
+	 * streaming (e.g. a fetch size of {@code Integer.MIN_VALUE} on MySQL, or an
+	 * active transaction on PostgreSQL).
+	 * <p><b>The returned iterator must be closed by the caller.</b>
+	 * @param psc object that can create a PreparedStatement given a Connection
+	 * @param rowMapper object that will map one object per row
+	 * @return an iterator over the mapped objects
+	 * @throws DataAccessException if the query fails
+	 * @since 4.1
+	 * @see RowIterator
+	 */
+	<T> RowIterator<T> queryForIterator(PreparedStatementCreator psc, RowMapper<T> rowMapper)
+			throws DataAccessException;
+
+	/**
+	 * Query given SQL to create a prepared statement from SQL and a
+	 * PreparedStatementSetter implementation that knows how to bind values
+	 * to the query, mapping each row to a Java object via a RowMapper as
+	 * the returned iterator is advanced.
+	 * <p><b>The returned iterator must be closed by the caller.</b>
+	 * @param sql SQL query to execute
+	 * @param pss object that knows how to set values on the prepared statement.
+	 * If this is {@code null}, the SQL will be assumed to contain no bind parameters.
+	 * @param rowMapper object that will map one object per row
+	 * @return an iterator over the mapped objects
+	 * @throws DataAccessException if the query fails
+	 * @since 4.1
+	 * @see #queryForIterator(PreparedStatementCreator, RowMapper)
+	 */
+	<T> RowIterator<T> queryForIterator(String sql, PreparedStatementSetter pss, RowMapper<T> rowMapper)
+			throws DataAccessException;
+
+	/**
+	 * Query given SQL to create a prepared statement from SQL and a list
+	 * of arguments to bind to the query, mapping each row to a Java object
+	 * via a RowMapper as the returned iterator is advanced.
+	 * <p><b>The returned iterator must be closed by the caller.</b>
+	 * @param sql SQL query to execute
+	 * @param rowMapper object that will map one object per row
+	 * @param args arguments to bind to the query
+	 * (leaving it to the PreparedStatement to guess the corresponding SQL type);
+	 * may also contain {@link SqlParameterValue} objects which indicate not
+	 * only the argument value but also the SQL type and optionally the scale
+	 * @return an iterator over the mapped objects
+	 * @throws DataAccessException if the query fails
+	 * @since 4.1
+	 * @see #queryForIterator(PreparedStatementCreator, RowMapper)
+	 */
+	<T> RowIterator<T> queryForIterator(String sql, RowMapper<T> rowMapper, Object... args)
+			throws DataAccessException;
+
 	/**
 	 * Query given SQL to create a prepared statement from SQL and a list
 	 * of arguments to bind to the query, mapping a single result row to a
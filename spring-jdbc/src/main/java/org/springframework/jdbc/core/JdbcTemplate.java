@@ -35,6 +35,7 @@ import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import javax.sql.DataSource;
 
 import org.springframework.dao.DataAccessException;
@@ -111,10 +112,10 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 	private boolean ignoreWarnings = true;
 
 	/**
-	 * If this variable is set to a non-zero value, it will be used for setting the
-	 * fetchSize property on statements used for query processing.
+	 * If this variable is set to a value other than -1, it will be used for setting
+	 * the fetchSize property on statements used for query processing.
 	 */
-	private int fetchSize = 0;
+	private int fetchSize = -1;
 
 	/**
 	 * If this variable is set to a non-zero value, it will be used for setting the
@@ -224,8 +225,11 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 	 * large result sets: Setting this higher than the default value will increase
 	 * processing speed at the cost of memory consumption; setting this lower can
 	 * avoid transferring row data that will never be read by the application.
-	 * <p>Default is 0, indicating to use the JDBC driver's default.
+	 * <p>Default is -1, indicating to use the JDBC driver's default. Any other
+	 * value is passed on to the driver as-is, including driver-specific values
+	 * such as {@code Integer.MIN_VALUE} for MySQL's row-by-row streaming mode.
 	 * @see java.sql.Statement#setFetchSize
+	 * @see #queryForIterator(String, RowMapper)
 	 */
 	public void setFetchSize(int fetchSize) {
 		this.fetchSize = fetchSize;
@@ -792,6 +796,109 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 		return query(sql, args, new RowMapperResultSetExtractor<T>(rowMapper));
 	}
 
+	/**
+	 * Query using a prepared statement, allowing for a PreparedStatementCreator
+	 * and a PreparedStatementSetter, and return an iterator that maps each row
+	 * via the given RowMapper as it is advanced. All other {@code queryForIterator}
+	 * methods delegate to this method.
+	 * <p>The Connection, PreparedStatement and ResultSet are held by the returned
+	 * iterator until it is exhausted or closed. If the query cannot be executed,
+	 * all resources are released before the exception is thrown.
+	 * @param psc Callback handler that can create a PreparedStatement given a
+	 * Connection
+	 * @param pss object that knows how to set values on the prepared statement.
+	 * If this is null, the SQL will be assumed to contain no bind parameters.
+	 * @param rowMapper object that will map one object per row
+	 * @return an iterator over the mapped objects, to be closed by the caller
+	 * @throws DataAccessException if there is any problem
+	 * @since 4.1
+	 */
+	public <T> RowIterator<T> queryForIterator(
+			PreparedStatementCreator psc, PreparedStatementSetter pss, RowMapper<T> rowMapper)
+			throws DataAccessException {
+
+		Assert.notNull(psc, "PreparedStatementCreator must not be null");
+		Assert.notNull(rowMapper, "RowMapper must not be null");
+		if (logger.isDebugEnabled()) {
+			String sql = getSql(psc);
+			logger.debug("Executing prepared SQL query for iteration" + (sql != null ? " [" + sql + "]" : ""));
+		}
+
+		Connection con = DataSourceUtils.getConnection(getDataSource());
+		PreparedStatement ps = null;
+		ResultSet rs = null;
+		RowIterator<T> iterator = null;
+		try {
+			Connection conToUse = con;
+			if (this.nativeJdbcExtractor != null &&
+					this.nativeJdbcExtractor.isNativeConnectionNecessaryForNativePreparedStatements()) {
+				conToUse = this.nativeJdbcExtractor.getNativeConnection(con);
+			}
+			ps = psc.createPreparedStatement(conToUse);
+			applyStatementSettings(ps);
+			PreparedStatement psToUse = ps;
+			if (this.nativeJdbcExtractor != null) {
+				psToUse = this.nativeJdbcExtractor.getNativePreparedStatement(ps);
+			}
+			if (pss != null) {
+				pss.setValues(psToUse);
+			}
+			rs = psToUse.executeQuery();
+			ResultSet rsToUse = rs;
+			if (this.nativeJdbcExtractor != null) {
+				rsToUse = this.nativeJdbcExtractor.getNativeResultSet(rs);
+			}
+			iterator = new ResultSetRowIterator<T>(con, ps, rs, rsToUse, rowMapper, getSql(psc));
+			return iterator;
+		}
+		catch (SQLException ex) {
+			// Release Connection early, to avoid potential connection pool deadlock
+			// in the case when the exception translator hasn't been initialized yet.
+			String sql = getSql(psc);
+			JdbcUtils.closeResultSet(rs);
+			rs = null;
+			JdbcUtils.closeStatement(ps);
+			ps = null;
+			DataSourceUtils.releaseConnection(con, getDataSource());
+			con = null;
+			throw getExceptionTranslator().translate("RowIterator", sql, ex);
+		}
+		finally {
+			if (psc instanceof ParameterDisposer) {
+				((ParameterDisposer) psc).cleanupParameters();
+			}
+			if (pss instanceof ParameterDisposer) {
+				((ParameterDisposer) pss).cleanupParameters();
+			}
+			if (iterator == null) {
+				JdbcUtils.closeResultSet(rs);
+				JdbcUtils.closeStatement(ps);
+				DataSourceUtils.releaseConnection(con, getDataSource());
+			}
+		}
+	}
+
+	@Override
+	public <T> RowIterator<T> queryForIterator(PreparedStatementCreator psc, RowMapper<T> rowMapper)
+			throws DataAccessException {
+
+		return queryForIterator(psc, null, rowMapper);
+	}
+
+	@Override
+	public <T> RowIterator<T> queryForIterator(String sql, PreparedStatementSetter pss, RowMapper<T> rowMapper)
+			throws DataAccessException {
+
+		return queryForIterator(new SimplePreparedStatementCreator(sql), pss, rowMapper);
+	}
+
+	@Override
+	public <T> RowIterator<T> queryForIterator(String sql, RowMapper<T> rowMapper, Object... args)
+			throws DataAccessException {
+
+		return queryForIterator(sql, newArgPreparedStatementSetter(args), rowMapper);
+	}
+
 	@Override
 	public <T> T queryForObject(String sql, Object[] args, int[] argTypes, RowMapper<T> rowMapper)
 			throws DataAccessException {
@@ -1389,7 +1496,7 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 	 */
 	protected void applyStatementSettings(Statement stmt) throws SQLException {
 		int fetchSize = getFetchSize();
-		if (fetchSize > 0) {
+		if (fetchSize != -1) {
 			stmt.setFetchSize(fetchSize);
 		}
 		int maxRows = getMaxRows();
@@ -1540,6 +1647,107 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 	}
 
 
+	/**
+	 * RowIterator implementation that holds on to an open ResultSet,
+	 * mapping one row per {@code next()} call and releasing all JDBC
+	 * resources once the rows are exhausted or the iterator is closed.
+	 */
+	private class ResultSetRowIterator<T> implements RowIterator<T> {
+
+		private final Connection connection;
+
+		private final Statement statement;
+
+		private final ResultSet resultSet;
+
+		private final ResultSet resultSetToUse;
+
+		private final RowMapper<T> rowMapper;
+
+		private final String sql;
+
+		private int rowNum = 0;
+
+		private Boolean hasNext;
+
+		private boolean closed = false;
+
+		public ResultSetRowIterator(Connection connection, Statement statement, ResultSet resultSet,
+				ResultSet resultSetToUse, RowMapper<T> rowMapper, String sql) {
+
+			this.connection = connection;
+			this.statement = statement;
+			this.resultSet = resultSet;
+			this.resultSetToUse = resultSetToUse;
+			this.rowMapper = rowMapper;
+			this.sql = sql;
+		}
+
+		@Override
+		public boolean hasNext() {
+			if (this.closed) {
+				return false;
+			}
+			if (this.hasNext == null) {
+				try {
+					this.hasNext = this.resultSetToUse.next();
+					if (!this.hasNext) {
+						handleWarnings(this.statement);
+						close();
+					}
+				}
+				catch (SQLException ex) {
+					throw translateAndClose(ex);
+				}
+				catch (RuntimeException ex) {
+					close();
+					throw ex;
+				}
+			}
+			return this.hasNext;
+		}
+
+		@Override
+		public T next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException("No more rows in ResultSet");
+			}
+			this.hasNext = null;
+			try {
+				return this.rowMapper.mapRow(this.resultSetToUse, this.rowNum++);
+			}
+			catch (SQLException ex) {
+				throw translateAndClose(ex);
+			}
+			catch (RuntimeException ex) {
+				close();
+				throw ex;
+			}
+		}
+
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException("RowIterator does not support remove()");
+		}
+
+		@Override
+		public void close() {
+			if (!this.closed) {
+				this.closed = true;
+				JdbcUtils.closeResultSet(this.resultSet);
+				JdbcUtils.closeStatement(this.statement);
+				DataSourceUtils.releaseConnection(this.connection, getDataSource());
+			}
+		}
+
+		private DataAccessException translateAndClose(SQLException ex) {
+			// Release Connection before translating, as in the callback-based methods.
+			close();
+			return getExceptionTranslator().translate("RowIterator", this.sql, ex);
+		}
+	}
+
+
 	/**
 	 * Simple adapter for PreparedStatementCreator, allowing to use a plain SQL statement.
 	 */
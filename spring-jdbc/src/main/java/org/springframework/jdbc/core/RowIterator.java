@@ -0,0 +1,64 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core;
+
+import java.io.Closeable;
+import java.util.Iterator;
+
+import org.springframework.dao.DataAccessException;
+
+/**
+ * Iterator over the mapped rows of an open JDBC {@link java.sql.ResultSet},
+ * as returned by the {@code queryForIterator} methods on {@link JdbcOperations}.
+ *
+ * <p>In contrast to the List-returning query methods, rows are fetched from
+ * the driver and mapped one at a time, as the caller advances the iterator.
+ * The underlying Connection, Statement and ResultSet stay open until the
+ * iterator has been exhausted or {@link #close() closed}, whichever comes
+ * first. Callers must therefore always close the iterator, typically in a
+ * {@code finally} block:
+ *
+ * <pre class="code">
+ * RowIterator&lt;Customer&gt; customers = jdbcTemplate.queryForIterator(sql, rowMapper);
+ * try {
+ *   while (customers.hasNext()) {
+ *     writer.write(customers.next());
+ *   }
+ * }
+ * finally {
+ *   customers.close();
+ * }</pre>
+ *
+ * <p>Any {@link java.sql.SQLException} encountered while advancing the iterator
+ * is translated into a {@link DataAccessException}, closing the iterator.
+ * Iterators are not thread-safe and do not support {@link #remove()}.
+ *
+ * @author agent
+ * @since 4.1
+ * @see JdbcOperations#queryForIterator(String, RowMapper)
+ */
+public interface RowIterator<T> extends Iterator<T>, Closeable {
+
+	/**
+	 * Release the underlying ResultSet, Statement and Connection.
+	 * <p>May be called at any time, also before the iterator has been
+	 * exhausted; calling it more than once has no effect.
+	 */
+	@Override
+	void close();
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2012 the original author or authors.
+ * Copyright 2002-2014 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,10 +18,14 @@ package org.springframework.jdbc.core.namedparam;
 
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collection;
 
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.BatchUpdateUtils;
 import org.springframework.jdbc.core.JdbcOperations;
-import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.SqlParameterValue;
 
 /**
  * Generic utility methods for working with JDBC batch statements using named parameters. Mainly for internal use
@@ -55,4 +59,207 @@ public class NamedParameterBatchUpdateUtils extends BatchUpdateUtils {
 				});
 	}
 
+	/**
+	 * Execute a batch of inserts, combining up to {@code rowsPerStatement} rows
+	 * into a single multi-row {@code INSERT ... VALUES (...), (...)} statement.
+	 * <p>Only applies to plain {@code INSERT ... VALUES (...)} statements whose
+	 * placeholders all live in the VALUES clause; any other statement falls back
+	 * to {@link #executeBatchUpdateWithNamedParameters regular batching}. The same
+	 * applies if any row has a {@link Collection} value, since such values expand
+	 * to a row-specific number of placeholders.
+	 * <p>Since the database reports a single update count per multi-row statement,
+	 * the per-row counts are derived from it: 1 for every row if the statement
+	 * affected as many rows as it carried, 0 for every row if it affected none,
+	 * and {@link Statement#SUCCESS_NO_INFO} otherwise.
+	 * @param parsedSql the parsed INSERT statement
+	 * @param batchArgs the arguments for each row
+	 * @param rowsPerStatement the maximum number of rows per statement
+	 * @param jdbcOperations the JdbcOperations to execute the statements with
+	 * @return an array containing the number of rows affected for each row
+	 * @since 4.1
+	 */
+	public static int[] executeMultiRowBatchUpdateWithNamedParameters(final ParsedSql parsedSql,
+			final SqlParameterSource[] batchArgs, int rowsPerStatement, JdbcOperations jdbcOperations) {
+
+		if (batchArgs.length <= 1 || rowsPerStatement <= 1 || containsCollectionValue(parsedSql, batchArgs)) {
+			return executeBatchUpdateWithNamedParameters(parsedSql, batchArgs, jdbcOperations);
+		}
+		String sqlToUse = NamedParameterUtils.substituteNamedParameters(parsedSql, batchArgs[0]);
+		int[] valuesGroup = findValuesGroup(sqlToUse);
+		if (valuesGroup == null ||
+				countPlaceholders(sqlToUse, valuesGroup[0], valuesGroup[1]) != parsedSql.getTotalParameterCount()) {
+			return executeBatchUpdateWithNamedParameters(parsedSql, batchArgs, jdbcOperations);
+		}
+
+		final int rowCount = Math.min(rowsPerStatement, batchArgs.length);
+		final int statementCount = batchArgs.length / rowCount;
+		int[] rowsAffected = new int[batchArgs.length];
+		int[] statementsAffected = jdbcOperations.batchUpdate(
+				buildMultiRowSql(sqlToUse, valuesGroup, rowCount),
+				new BatchPreparedStatementSetter() {
+					@Override
+					public void setValues(PreparedStatement ps, int i) throws SQLException {
+						setRowValues(ps, parsedSql, batchArgs, i * rowCount, rowCount);
+					}
+					@Override
+					public int getBatchSize() {
+						return statementCount;
+					}
+				});
+		for (int i = 0; i < statementCount; i++) {
+			int affected = (i < statementsAffected.length ? statementsAffected[i] : Statement.SUCCESS_NO_INFO);
+			distributeRowsAffected(affected, rowsAffected, i * rowCount, rowCount);
+		}
+
+		final int remainderStart = statementCount * rowCount;
+		final int remainderCount = batchArgs.length - remainderStart;
+		if (remainderCount > 0) {
+			int affected = jdbcOperations.update(
+					buildMultiRowSql(sqlToUse, valuesGroup, remainderCount),
+					new PreparedStatementSetter() {
+						@Override
+						public void setValues(PreparedStatement ps) throws SQLException {
+							setRowValues(ps, parsedSql, batchArgs, remainderStart, remainderCount);
+						}
+					});
+			distributeRowsAffected(affected, rowsAffected, remainderStart, remainderCount);
+		}
+		return rowsAffected;
+	}
+
+	private static boolean containsCollectionValue(ParsedSql parsedSql, SqlParameterSource[] batchArgs) {
+		for (SqlParameterSource paramSource : batchArgs) {
+			for (String paramName : parsedSql.getParameterNames()) {
+				if (paramSource.hasValue(paramName)) {
+					Object value = paramSource.getValue(paramName);
+					if (value instanceof SqlParameterValue) {
+						value = ((SqlParameterValue) value).getValue();
+					}
+					if (value instanceof Collection) {
+						return true;
+					}
+				}
+			}
+		}
+		return false;
+	}
+
+	private static void setRowValues(PreparedStatement ps, ParsedSql parsedSql, SqlParameterSource[] batchArgs,
+			int start, int count) throws SQLException {
+
+		int offset = 0;
+		for (int i = start; i < start + count; i++) {
+			Object[] values = NamedParameterUtils.buildValueArray(parsedSql, batchArgs[i], null);
+			int[] columnTypes = NamedParameterUtils.buildSqlTypeArray(parsedSql, batchArgs[i]);
+			setStatementParameters(values, ps, columnTypes, offset);
+			offset += values.length;
+		}
+	}
+
+	private static void distributeRowsAffected(int affected, int[] rowsAffected, int start, int count) {
+		int value = (affected == count ? 1 : (affected == 0 ? 0 : Statement.SUCCESS_NO_INFO));
+		for (int i = start; i < start + count; i++) {
+			rowsAffected[i] = value;
+		}
+	}
+
+	/**
+	 * Locate the parenthesized row of an {@code INSERT ... VALUES (...)} statement.
+	 * @param sql the SQL statement, with placeholders already substituted
+	 * @return the start index of the opening parenthesis and the index after the
+	 * closing parenthesis, or {@code null} if the statement does not end with a
+	 * single VALUES row
+	 */
+	static int[] findValuesGroup(String sql) {
+		String trimmed = sql.trim();
+		if (!trimmed.regionMatches(true, 0, "insert", 0, 6)) {
+			return null;
+		}
+		boolean afterValues = false;
+		int groupStart = -1;
+		int depth = 0;
+		char quote = 0;
+		for (int i = 0; i < sql.length(); i++) {
+			char c = sql.charAt(i);
+			if (quote != 0) {
+				if (c == quote) {
+					quote = 0;
+				}
+			}
+			else if (c == '\'' || c == '"') {
+				quote = c;
+			}
+			else if (c == '(') {
+				if (depth == 0 && afterValues) {
+					if (groupStart != -1) {
+						return null;
+					}
+					groupStart = i;
+				}
+				depth++;
+			}
+			else if (c == ')') {
+				depth--;
+				if (depth < 0) {
+					return null;
+				}
+				if (depth == 0 && groupStart != -1) {
+					return (sql.substring(i + 1).trim().length() == 0 ? new int[] {groupStart, i + 1} : null);
+				}
+			}
+			else if (depth == 0 && !afterValues) {
+				if (isKeywordAt(sql, i, "values")) {
+					afterValues = true;
+					i += 5;
+				}
+			}
+			else if (depth == 0 && !Character.isWhitespace(c)) {
+				return null;
+			}
+		}
+		return null;
+	}
+
+	private static boolean isKeywordAt(String sql, int index, String keyword) {
+		int end = index + keyword.length();
+		return (sql.regionMatches(true, index, keyword, 0, keyword.length()) &&
+				(index == 0 || !isIdentifierChar(sql.charAt(index - 1))) &&
+				(end == sql.length() || !isIdentifierChar(sql.charAt(end))));
+	}
+
+	private static boolean isIdentifierChar(char c) {
+		return (Character.isLetterOrDigit(c) || c == '_' || c == '$');
+	}
+
+	private static int countPlaceholders(String sql, int start, int end) {
+		int count = 0;
+		char quote = 0;
+		for (int i = start; i < end; i++) {
+			char c = sql.charAt(i);
+			if (quote != 0) {
+				if (c == quote) {
+					quote = 0;
+				}
+			}
+			else if (c == '\'' || c == '"') {
+				quote = c;
+			}
+			else if (c == '?') {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	private static String buildMultiRowSql(String sql, int[] valuesGroup, int rowCount) {
+		String row = sql.substring(valuesGroup[0], valuesGroup[1]);
+		StringBuilder sb = new StringBuilder(sql.length() + (row.length() + 2) * (rowCount - 1));
+		sb.append(sql, 0, valuesGroup[1]);
+		for (int i = 1; i < rowCount; i++) {
+			sb.append(", ").append(row);
+		}
+		sb.append(sql, valuesGroup[1], sql.length());
+		return sb.toString();
+	}
+
 }
@@ -16,12 +16,17 @@
 
 package org.springframework.jdbc.core.namedparam;
 
-import java.util.LinkedHashMap;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 import javax.sql.DataSource;
 
+import org.springframework.core.task.TaskExecutor;
 import org.springframework.dao.DataAccessException;
+import org.springframework.dao.TransientDataAccessResourceException;
 import org.springframework.dao.support.DataAccessUtils;
 import org.springframework.jdbc.core.ColumnMapRowMapper;
 import org.springframework.jdbc.core.JdbcOperations;
@@ -35,8 +40,10 @@ import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.SingleColumnRowMapper;
 import org.springframework.jdbc.core.SqlParameter;
 import org.springframework.jdbc.core.SqlRowSetResultSetExtractor;
+import org.springframework.jdbc.datasource.TransactionAwareDataSourceProxy;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.jdbc.support.rowset.SqlRowSet;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.Assert;
 
 /**
@@ -52,6 +59,11 @@ import org.springframework.util.Assert;
  * exposed to allow for convenient access to the traditional
  * {@link org.springframework.jdbc.core.JdbcTemplate} methods.
  *
+ * <p>For bulk ingestion, {@code batchUpdate} calls can be tuned through
+ * {@link #setRowsPerInsertStatement multi-row INSERT statements},
+ * {@link #setBatchChunkSize chunking} and
+ * {@link #setBatchExecutor concurrent execution of chunks}.
+ *
  * <p><b>NOTE: An instance of this class is thread-safe once configured.</b>
  *
  * @author Thomas Risberg
@@ -69,17 +81,14 @@ public class NamedParameterJdbcTemplate implements NamedParameterJdbcOperations
 	/** The JdbcTemplate we are wrapping */
 	private final JdbcOperations classicJdbcTemplate;
 
-	private volatile int cacheLimit = DEFAULT_CACHE_LIMIT;
+	private int rowsPerInsertStatement = 1;
+
+	private int batchChunkSize = 0;
+
+	private TaskExecutor batchExecutor;
 
 	/** Cache of original SQL String to ParsedSql representation */
-	@SuppressWarnings("serial")
-	private final Map<String, ParsedSql> parsedSqlCache =
-			new LinkedHashMap<String, ParsedSql>(DEFAULT_CACHE_LIMIT, 0.75f, true) {
-				@Override
-				protected boolean removeEldestEntry(Map.Entry<String, ParsedSql> eldest) {
-					return size() > getCacheLimit();
-				}
-			};
+	private volatile ParsedSqlCache parsedSqlCache = new ParsedSqlCache(DEFAULT_CACHE_LIMIT);
 
 
 	/**
@@ -115,16 +124,105 @@ public class NamedParameterJdbcTemplate implements NamedParameterJdbcOperations
 	/**
 	 * Specify the maximum number of entries for this template's SQL cache.
 	 * Default is 256.
+	 * <p>Applies to the {@link #setParsedSqlCache shared cache} if one has been set.
 	 */
 	public void setCacheLimit(int cacheLimit) {
-		this.cacheLimit = cacheLimit;
+		this.parsedSqlCache.setCacheLimit(cacheLimit);
 	}
 
 	/**
 	 * Return the maximum number of entries for this template's SQL cache.
 	 */
 	public int getCacheLimit() {
-		return this.cacheLimit;
+		return this.parsedSqlCache.getCacheLimit();
+	}
+
+	/**
+	 * Specify the cache to hold parsed SQL statements in, e.g. a single
+	 * {@link ParsedSqlCache} instance shared across several templates.
+	 * <p>Default is a cache local to this template.
+	 * @since 4.1
+	 */
+	public void setParsedSqlCache(ParsedSqlCache parsedSqlCache) {
+		Assert.notNull(parsedSqlCache, "ParsedSqlCache must not be null");
+		this.parsedSqlCache = parsedSqlCache;
+	}
+
+	/**
+	 * Return the cache that holds this template's parsed SQL statements,
+	 * exposing its size and eviction count as well as hit and miss counts
+	 * if {@link ParsedSqlCache#setStatisticsEnabled statistics} are enabled.
+	 * @since 4.1
+	 */
+	public ParsedSqlCache getParsedSqlCache() {
+		return this.parsedSqlCache;
+	}
+
+	/**
+	 * Specify the maximum number of rows to combine into a single multi-row
+	 * {@code INSERT ... VALUES (...), (...)} statement in {@code batchUpdate}.
+	 * <p>Default is 1, sending one JDBC batch entry per row. Higher values reduce
+	 * the number of statements for databases that do not rewrite batches
+	 * themselves; the per-row update counts are then derived from the count
+	 * of each multi-row statement. Statements other than plain
+	 * {@code INSERT ... VALUES (...)} are always executed row by row.
+	 * @since 4.1
+	 * @see NamedParameterBatchUpdateUtils#executeMultiRowBatchUpdateWithNamedParameters
+	 */
+	public void setRowsPerInsertStatement(int rowsPerInsertStatement) {
+		Assert.isTrue(rowsPerInsertStatement > 0, "rowsPerInsertStatement must be greater than 0");
+		this.rowsPerInsertStatement = rowsPerInsertStatement;
+	}
+
+	/**
+	 * Return the maximum number of rows per multi-row INSERT statement.
+	 * @since 4.1
+	 */
+	public int getRowsPerInsertStatement() {
+		return this.rowsPerInsertStatement;
+	}
+
+	/**
+	 * Specify the maximum number of rows to send in a single JDBC batch.
+	 * Larger batches are split into chunks of this size, with the update
+	 * counts of all chunks aggregated in the original order.
+	 * <p>Default is 0, sending each batch in one go.
+	 * @since 4.1
+	 */
+	public void setBatchChunkSize(int batchChunkSize) {
+		this.batchChunkSize = batchChunkSize;
+	}
+
+	/**
+	 * Return the maximum number of rows in a single JDBC batch.
+	 * @since 4.1
+	 */
+	public int getBatchChunkSize() {
+		return this.batchChunkSize;
+	}
+
+	/**
+	 * Specify a TaskExecutor to execute the chunks of a large batch concurrently,
+	 * each on a separate Connection obtained from the DataSource.
+	 * <p>Default is none, executing chunks one after the other on the calling
+	 * thread. Only applies in combination with a {@link #setBatchChunkSize chunk size}.
+	 * <p><b>NOTE:</b> Concurrently executed chunks do not participate in any
+	 * transaction; chunks are therefore always executed on the calling thread while
+	 * a transaction is active, transaction synchronization is active, or a Connection
+	 * is bound to the current thread for the template's DataSource. If a chunk fails,
+	 * the other chunks may already have been committed.
+	 * @since 4.1
+	 */
+	public void setBatchExecutor(TaskExecutor batchExecutor) {
+		this.batchExecutor = batchExecutor;
+	}
+
+	/**
+	 * Return the TaskExecutor to execute batch chunks with, if any.
+	 * @since 4.1
+	 */
+	public TaskExecutor getBatchExecutor() {
+		return this.batchExecutor;
 	}
 
 
@@ -358,9 +456,110 @@ public class NamedParameterJdbcTemplate implements NamedParameterJdbcOperations
 	@Override
 	public int[] batchUpdate(String sql, SqlParameterSource[] batchArgs) {
 		ParsedSql parsedSql = this.getParsedSql(sql);
+		int chunkSize = getBatchChunkSize();
+		if (chunkSize <= 0 || batchArgs.length <= chunkSize) {
+			return executeBatchChunk(parsedSql, batchArgs);
+		}
+
+		List<SqlParameterSource[]> chunks = new ArrayList<SqlParameterSource[]>();
+		for (int start = 0; start < batchArgs.length; start += chunkSize) {
+			SqlParameterSource[] chunk = new SqlParameterSource[Math.min(chunkSize, batchArgs.length - start)];
+			System.arraycopy(batchArgs, start, chunk, 0, chunk.length);
+			chunks.add(chunk);
+		}
+		List<int[]> results;
+		if (this.batchExecutor != null && !isTransactionBound()) {
+			results = executeBatchChunksConcurrently(parsedSql, chunks);
+		}
+		else {
+			results = new ArrayList<int[]>(chunks.size());
+			for (SqlParameterSource[] chunk : chunks) {
+				results.add(executeBatchChunk(parsedSql, chunk));
+			}
+		}
+
+		int[] rowsAffected = new int[batchArgs.length];
+		int index = 0;
+		for (int[] result : results) {
+			System.arraycopy(result, 0, rowsAffected, index, result.length);
+			index += result.length;
+		}
+		return rowsAffected;
+	}
+
+	/**
+	 * Determine whether the calling thread's JDBC access may be bound to a transaction,
+	 * in which case batch chunks must not be moved to other threads and Connections.
+	 */
+	private boolean isTransactionBound() {
+		if (TransactionSynchronizationManager.isSynchronizationActive() ||
+				TransactionSynchronizationManager.isActualTransactionActive()) {
+			return true;
+		}
+		if (getJdbcOperations() instanceof JdbcTemplate) {
+			DataSource dataSource = ((JdbcTemplate) getJdbcOperations()).getDataSource();
+			if (dataSource != null) {
+				if (TransactionSynchronizationManager.hasResource(dataSource)) {
+					return true;
+				}
+				if (dataSource instanceof TransactionAwareDataSourceProxy) {
+					DataSource targetDataSource = ((TransactionAwareDataSourceProxy) dataSource).getTargetDataSource();
+					return (targetDataSource != null && TransactionSynchronizationManager.hasResource(targetDataSource));
+				}
+			}
+		}
+		return false;
+	}
+
+	private int[] executeBatchChunk(ParsedSql parsedSql, SqlParameterSource[] batchArgs) {
+		if (getRowsPerInsertStatement() > 1) {
+			return NamedParameterBatchUpdateUtils.executeMultiRowBatchUpdateWithNamedParameters(
+					parsedSql, batchArgs, getRowsPerInsertStatement(), getJdbcOperations());
+		}
 		return NamedParameterBatchUpdateUtils.executeBatchUpdateWithNamedParameters(parsedSql, batchArgs, getJdbcOperations());
 	}
 
+	private List<int[]> executeBatchChunksConcurrently(final ParsedSql parsedSql, List<SqlParameterSource[]> chunks) {
+		List<FutureTask<int[]>> tasks = new ArrayList<FutureTask<int[]>>(chunks.size());
+		for (final SqlParameterSource[] chunk : chunks) {
+			FutureTask<int[]> task = new FutureTask<int[]>(new Callable<int[]>() {
+				@Override
+				public int[] call() {
+					return executeBatchChunk(parsedSql, chunk);
+				}
+			});
+			tasks.add(task);
+			this.batchExecutor.execute(task);
+		}
+
+		// Wait for all chunks before reporting the first failure
+		List<int[]> results = new ArrayList<int[]>(tasks.size());
+		RuntimeException failure = null;
+		for (FutureTask<int[]> task : tasks) {
+			try {
+				results.add(task.get());
+			}
+			catch (ExecutionException ex) {
+				if (failure == null) {
+					Throwable cause = ex.getCause();
+					if (cause instanceof Error) {
+						throw (Error) cause;
+					}
+					failure = (cause instanceof RuntimeException ? (RuntimeException) cause :
+							new IllegalStateException("Batch update chunk failed", cause));
+				}
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				throw new TransientDataAccessResourceException("Interrupted while waiting for batch update chunks", ex);
+			}
+		}
+		if (failure != null) {
+			throw failure;
+		}
+		return results;
+	}
+
 	/**
 	 * Build a PreparedStatementCreator based on the given SQL and named parameters.
 	 * <p>Note: Not used for the {@code update} variant with generated key handling.
@@ -379,23 +578,14 @@ public class NamedParameterJdbcTemplate implements NamedParameterJdbcOperations
 
 	/**
 	 * Obtain a parsed representation of the given SQL statement.
-	 * <p>The default implementation uses an LRU cache with an upper limit
-	 * of 256 entries.
+	 * <p>The default implementation uses a {@link ParsedSqlCache}
+	 * with an upper limit of 256 entries.
 	 * @param sql the original SQL
 	 * @return a representation of the parsed SQL statement
+	 * @see #setParsedSqlCache
 	 */
 	protected ParsedSql getParsedSql(String sql) {
-		if (getCacheLimit() <= 0) {
-			return NamedParameterUtils.parseSqlStatement(sql);
-		}
-		synchronized (this.parsedSqlCache) {
-			ParsedSql parsedSql = this.parsedSqlCache.get(sql);
-			if (parsedSql == null) {
-				parsedSql = NamedParameterUtils.parseSqlStatement(sql);
-				this.parsedSqlCache.put(sql, parsedSql);
-			}
-			return parsedSql;
-		}
+		return this.parsedSqlCache.getParsedSql(sql);
 	}
 
 }
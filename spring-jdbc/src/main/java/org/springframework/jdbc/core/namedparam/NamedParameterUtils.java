@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2013 the original author or authors.
+ * Copyright 2002-2014 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -244,12 +244,66 @@ public abstract class NamedParameterUtils {
 	 * be used for a select list. Select lists should be limited to 100 or fewer elements.
 	 * A larger number of elements is not guaranteed to be supported by the database and
 	 * is strictly vendor-dependent.
+	 * <p>The substituted SQL is cached within the given ParsedSql for each distinct
+	 * number of select list elements (except for lists of expression arrays).
 	 * @param parsedSql the parsed representation of the SQL statement
 	 * @param paramSource the source for named parameters
 	 * @return the SQL statement with substituted parameters
 	 * @see #parseSqlStatement
 	 */
 	public static String substituteNamedParameters(ParsedSql parsedSql, SqlParameterSource paramSource) {
+		List<String> paramNames = parsedSql.getParameterNames();
+		int[] expansion = new int[paramNames.size()];
+		for (int i = 0; i < paramNames.size(); i++) {
+			String paramName = paramNames.get(i);
+			expansion[i] = -1;
+			if (paramSource != null && paramSource.hasValue(paramName)) {
+				Object value = paramSource.getValue(paramName);
+				if (value instanceof SqlParameterValue) {
+					value = ((SqlParameterValue) value).getValue();
+				}
+				if (value instanceof Collection) {
+					Collection<?> entries = (Collection<?>) value;
+					for (Object entryItem : entries) {
+						if (entryItem instanceof Object[]) {
+							// Expression lists: not determined by the number of entries alone
+							return doSubstituteNamedParameters(parsedSql, paramSource);
+						}
+					}
+					expansion[i] = entries.size();
+				}
+			}
+		}
+
+		String substitutedSql = parsedSql.getSubstitutedSql(expansion);
+		if (substitutedSql == null) {
+			String originalSql = parsedSql.getOriginalSql();
+			StringBuilder actualSql = new StringBuilder(originalSql.length());
+			int lastIndex = 0;
+			for (int i = 0; i < expansion.length; i++) {
+				int[] indexes = parsedSql.getParameterIndexes(i);
+				actualSql.append(originalSql, lastIndex, indexes[0]);
+				if (expansion[i] < 0) {
+					actualSql.append("?");
+				}
+				else {
+					for (int k = 0; k < expansion[i]; k++) {
+						if (k > 0) {
+							actualSql.append(", ");
+						}
+						actualSql.append("?");
+					}
+				}
+				lastIndex = indexes[1];
+			}
+			actualSql.append(originalSql, lastIndex, originalSql.length());
+			substitutedSql = actualSql.toString();
+			parsedSql.addSubstitutedSql(expansion, substitutedSql);
+		}
+		return substitutedSql;
+	}
+
+	private static String doSubstituteNamedParameters(ParsedSql parsedSql, SqlParameterSource paramSource) {
 		String originalSql = parsedSql.getOriginalSql();
 		StringBuilder actualSql = new StringBuilder();
 		List<String> paramNames = parsedSql.getParameterNames();
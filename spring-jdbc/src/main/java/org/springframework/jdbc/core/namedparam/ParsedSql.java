@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2008 the original author or authors.
+ * Copyright 2002-2014 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,7 +17,10 @@
 package org.springframework.jdbc.core.namedparam;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Holds information about a parsed SQL statement.
@@ -28,6 +31,10 @@ import java.util.List;
  */
 public class ParsedSql {
 
+	/** Maximum number of substituted SQL variants to keep per statement */
+	private static final int SUBSTITUTED_SQL_CACHE_LIMIT = 32;
+
+
 	private String originalSql;
 
 	private List<String> parameterNames = new ArrayList<String>();
@@ -40,6 +47,10 @@ public class ParsedSql {
 
 	private int totalParameterCount;
 
+	/** Substituted SQL Strings, keyed by the expansion of each parameter */
+	private final Map<ParameterExpansion, String> substitutedSqlCache =
+			new ConcurrentHashMap<ParameterExpansion, String>(4);
+
 
 	/**
 	 * Create a new instance of the {@link ParsedSql} class.
@@ -133,6 +144,30 @@ public class ParsedSql {
 		return this.totalParameterCount;
 	}
 
+	/**
+	 * Return the previously substituted SQL String for the given expansion.
+	 * @param expansion the number of placeholders for each parameter,
+	 * or -1 for a parameter that is substituted by a single placeholder
+	 * @return the substituted SQL, or {@code null} if not cached
+	 * @see NamedParameterUtils#substituteNamedParameters(ParsedSql, SqlParameterSource)
+	 */
+	String getSubstitutedSql(int[] expansion) {
+		return this.substitutedSqlCache.get(new ParameterExpansion(expansion));
+	}
+
+	/**
+	 * Cache the substituted SQL String for the given expansion, unless the
+	 * limit for this statement has been reached already (e.g. for IN clauses
+	 * with widely varying numbers of elements).
+	 * @param expansion the number of placeholders for each parameter
+	 * @param substitutedSql the corresponding substituted SQL
+	 */
+	void addSubstitutedSql(int[] expansion, String substitutedSql) {
+		if (this.substitutedSqlCache.size() < SUBSTITUTED_SQL_CACHE_LIMIT) {
+			this.substitutedSqlCache.put(new ParameterExpansion(expansion), substitutedSql);
+		}
+	}
+
 
 	/**
 	 * Exposes the original SQL String.
@@ -142,4 +177,31 @@ public class ParsedSql {
 		return this.originalSql;
 	}
 
+
+	/**
+	 * Cache key for a substituted SQL String.
+	 */
+	private static final class ParameterExpansion {
+
+		private final int[] expansion;
+
+		private final int hashCode;
+
+		public ParameterExpansion(int[] expansion) {
+			this.expansion = expansion;
+			this.hashCode = Arrays.hashCode(expansion);
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			return (this == other || (other instanceof ParameterExpansion &&
+					Arrays.equals(this.expansion, ((ParameterExpansion) other).expansion)));
+		}
+
+		@Override
+		public int hashCode() {
+			return this.hashCode;
+		}
+	}
+
 }
@@ -0,0 +1,214 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core.namedparam;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded cache of {@link ParsedSql} representations, keyed by the original
+ * SQL String. Cache hits are served without locking; only the parsing and
+ * registration of new statements is synchronized.
+ *
+ * <p>Once the cache limit has been reached, entries are evicted in the order
+ * they were registered (FIFO), not by recency of use: recording accesses in an
+ * LRU order would require locking on every cache hit. Frequently executed
+ * statements that get evicted are simply parsed and registered again.
+ *
+ * <p>A single instance may be shared across several
+ * {@link NamedParameterJdbcTemplate} instances through
+ * {@link NamedParameterJdbcTemplate#setParsedSqlCache}. Hit and miss counts
+ * for sizing the cache are only recorded after
+ * {@link #setStatisticsEnabled enabling statistics}, avoiding a shared counter
+ * update on every lookup otherwise.
+ *
+ * @author agent
+ * @since 4.1
+ * @see NamedParameterUtils#parseSqlStatement
+ */
+public class ParsedSqlCache {
+
+	/** Default maximum number of entries for the cache: 256 */
+	public static final int DEFAULT_CACHE_LIMIT = 256;
+
+
+	private volatile int cacheLimit;
+
+	private volatile boolean statisticsEnabled = false;
+
+	/** Fast access cache for ParsedSql instances, returning already parsed statements */
+	private final Map<String, ParsedSql> accessCache =
+			new ConcurrentHashMap<String, ParsedSql>(DEFAULT_CACHE_LIMIT);
+
+	/** Map from original SQL String to ParsedSql, in registration order for FIFO eviction */
+	@SuppressWarnings("serial")
+	private final Map<String, ParsedSql> creationCache =
+			new LinkedHashMap<String, ParsedSql>(DEFAULT_CACHE_LIMIT, 0.75f) {
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<String, ParsedSql> eldest) {
+					if (size() > getCacheLimit()) {
+						accessCache.remove(eldest.getKey());
+						evictionCount.incrementAndGet();
+						return true;
+					}
+					else {
+						return false;
+					}
+				}
+			};
+
+	private final AtomicLong hitCount = new AtomicLong();
+
+	private final AtomicLong missCount = new AtomicLong();
+
+	private final AtomicLong evictionCount = new AtomicLong();
+
+
+	/**
+	 * Create a new ParsedSqlCache with the default cache limit.
+	 */
+	public ParsedSqlCache() {
+		this(DEFAULT_CACHE_LIMIT);
+	}
+
+	/**
+	 * Create a new ParsedSqlCache with the given cache limit.
+	 * @param cacheLimit the maximum number of entries
+	 */
+	public ParsedSqlCache(int cacheLimit) {
+		this.cacheLimit = cacheLimit;
+	}
+
+
+	/**
+	 * Specify the maximum number of entries for this cache.
+	 * <p>A limit of 0 or less turns caching off, parsing every statement anew.
+	 */
+	public void setCacheLimit(int cacheLimit) {
+		this.cacheLimit = cacheLimit;
+	}
+
+	/**
+	 * Return the maximum number of entries for this cache.
+	 */
+	public int getCacheLimit() {
+		return this.cacheLimit;
+	}
+
+	/**
+	 * Specify whether to record hit and miss counts for this cache.
+	 * <p>Default is "false". Evictions are always counted.
+	 * @see #getHitCount()
+	 * @see #getMissCount()
+	 */
+	public void setStatisticsEnabled(boolean statisticsEnabled) {
+		this.statisticsEnabled = statisticsEnabled;
+	}
+
+	/**
+	 * Return whether hit and miss counts are recorded for this cache.
+	 */
+	public boolean isStatisticsEnabled() {
+		return this.statisticsEnabled;
+	}
+
+	/**
+	 * Obtain the parsed representation of the given SQL statement,
+	 * parsing and caching it if not cached already.
+	 * @param sql the original SQL
+	 * @return a representation of the parsed SQL statement
+	 */
+	public ParsedSql getParsedSql(String sql) {
+		if (getCacheLimit() <= 0) {
+			if (this.statisticsEnabled) {
+				this.missCount.incrementAndGet();
+			}
+			return NamedParameterUtils.parseSqlStatement(sql);
+		}
+		ParsedSql parsedSql = this.accessCache.get(sql);
+		if (parsedSql == null) {
+			synchronized (this.creationCache) {
+				parsedSql = this.creationCache.get(sql);
+				if (parsedSql == null) {
+					if (this.statisticsEnabled) {
+						this.missCount.incrementAndGet();
+					}
+					parsedSql = NamedParameterUtils.parseSqlStatement(sql);
+					this.accessCache.put(sql, parsedSql);
+					this.creationCache.put(sql, parsedSql);
+					return parsedSql;
+				}
+			}
+		}
+		if (this.statisticsEnabled) {
+			this.hitCount.incrementAndGet();
+		}
+		return parsedSql;
+	}
+
+	/**
+	 * Return the number of statements currently held in this cache.
+	 */
+	public int size() {
+		return this.accessCache.size();
+	}
+
+	/**
+	 * Remove all entries from this cache. The statistics are retained.
+	 */
+	public void clear() {
+		synchronized (this.creationCache) {
+			this.accessCache.clear();
+			this.creationCache.clear();
+		}
+	}
+
+	/**
+	 * Return the number of lookups served from this cache
+	 * while statistics were enabled.
+	 * @see #setStatisticsEnabled
+	 */
+	public long getHitCount() {
+		return this.hitCount.get();
+	}
+
+	/**
+	 * Return the number of lookups that required parsing a statement
+	 * while statistics were enabled.
+	 * @see #setStatisticsEnabled
+	 */
+	public long getMissCount() {
+		return this.missCount.get();
+	}
+
+	/**
+	 * Return the number of statements evicted because of the cache limit.
+	 */
+	public long getEvictionCount() {
+		return this.evictionCount.get();
+	}
+
+
+	@Override
+	public String toString() {
+		return "ParsedSqlCache: size " + size() + ", limit " + getCacheLimit() + ", hits " + getHitCount() +
+				", misses " + getMissCount() + ", evictions " + getEvictionCount();
+	}
+
+}
@@ -17,13 +17,18 @@
 package org.springframework.jdbc.core;
 
 import static org.junit.Assert.assertEquals;
+import static org.mockito.BDDMockito.*;
 
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
 import java.util.List;
 
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.springframework.beans.BeanWrapper;
 import org.springframework.beans.TypeMismatchException;
+import org.springframework.beans.propertyeditors.StringTrimmerEditor;
 import org.springframework.dao.InvalidDataAccessApiUsageException;
 import org.springframework.jdbc.core.test.ConcretePerson;
 import org.springframework.jdbc.core.test.ExtendedPerson;
@@ -126,4 +131,75 @@ public class BeanPropertyRowMapperTests extends AbstractRowMapperTests {
 		verifySpacePerson(result.get(0));
 		mock.verifyClosed();
 	}
+
+	@Test
+	public void testMappingNullValueWithPrimitivesDefaulted() throws Exception {
+		BeanPropertyRowMapper<Person> mapper = new BeanPropertyRowMapper<Person>(Person.class);
+		mapper.setPrimitivesDefaultedForNullValue(true);
+		Mock mock = new Mock(MockType.TWO);
+		List<Person> result = mock.getJdbcTemplate().query(
+				"select name, null as age, birth_date, balance from people", mapper);
+		assertEquals(1, result.size());
+		assertEquals(0L, result.get(0).getAge());
+	}
+
+	@Test
+	public void testMappingPlanFollowsColumnsOfReusedResultSet() throws Exception {
+		ResultSet resultSet = mock(ResultSet.class);
+		ResultSetMetaData resultSetMetaData = mock(ResultSetMetaData.class);
+		given(resultSet.getMetaData()).willReturn(resultSetMetaData);
+		given(resultSet.getString(1)).willReturn("Bubba");
+		given(resultSet.getLong(2)).willReturn(22L);
+		given(resultSetMetaData.getColumnCount()).willReturn(1);
+		given(resultSetMetaData.getColumnLabel(1)).willReturn("name");
+		given(resultSetMetaData.getColumnLabel(2)).willReturn("age");
+
+		BeanPropertyRowMapper<Person> mapper = new BeanPropertyRowMapper<Person>(Person.class);
+		Person person = mapper.mapRow(resultSet, 0);
+		assertEquals("Bubba", person.getName());
+		assertEquals(0L, person.getAge());
+
+		given(resultSetMetaData.getColumnCount()).willReturn(2);
+		person = mapper.mapRow(resultSet, 0);
+		assertEquals("Bubba", person.getName());
+		assertEquals(22L, person.getAge());
+	}
+
+	@Test
+	public void testMetaDataReadOncePerResultSet() throws Exception {
+		ResultSet resultSet = mock(ResultSet.class);
+		ResultSetMetaData resultSetMetaData = mock(ResultSetMetaData.class);
+		given(resultSet.getMetaData()).willReturn(resultSetMetaData);
+		given(resultSet.getString(1)).willReturn("Bubba");
+		given(resultSetMetaData.getColumnCount()).willReturn(1);
+		given(resultSetMetaData.getColumnLabel(1)).willReturn("name");
+
+		BeanPropertyRowMapper<Person> mapper = new BeanPropertyRowMapper<Person>(Person.class);
+		for (int i = 0; i < 3; i++) {
+			assertEquals("Bubba", mapper.mapRow(resultSet, i).getName());
+		}
+		verify(resultSet, times(1)).getMetaData();
+
+		ResultSet otherResultSet = mock(ResultSet.class);
+		given(otherResultSet.getMetaData()).willReturn(resultSetMetaData);
+		given(otherResultSet.getString(1)).willReturn("Ralph");
+		assertEquals("Ralph", mapper.mapRow(otherResultSet, 1).getName());
+		verify(otherResultSet, times(1)).getMetaData();
+	}
+
+	@Test
+	public void testQueryWithCustomBeanWrapper() throws Exception {
+		Mock mock = new Mock();
+		List<Person> result = mock.getJdbcTemplate().query(
+				"select name, age, birth_date, balance from people",
+				new BeanPropertyRowMapper<Person>(Person.class) {
+					@Override
+					protected void initBeanWrapper(BeanWrapper bw) {
+						bw.registerCustomEditor(String.class, new StringTrimmerEditor("ub", false));
+					}
+				});
+		assertEquals(1, result.size());
+		assertEquals("Ba", result.get(0).getName());
+		assertEquals(22L, result.get(0).getAge());
+	}
 }
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core;
+
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.Test;
+
+import org.springframework.beans.TypeMismatchException;
+import org.springframework.jdbc.core.test.ConstructorPerson;
+import org.springframework.jdbc.core.test.Person;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author agent
+ * @since 4.1
+ */
+public class DataClassRowMapperTests extends AbstractRowMapperTests {
+
+	@Test
+	public void testStaticQueryWithDataClass() throws Exception {
+		Mock mock = new Mock();
+		List<ConstructorPerson> result = mock.getJdbcTemplate().query(
+				"select name, age, birth_date, balance from people",
+				new DataClassRowMapper<ConstructorPerson>(ConstructorPerson.class));
+		assertEquals(1, result.size());
+		ConstructorPerson person = result.get(0);
+		assertEquals("Bubba", person.getName());
+		assertEquals(22L, person.getAge());
+		assertEquals(new Date(1221222L), person.getBirthDate());
+		assertEquals(new BigDecimal("1234.56"), person.getBalance());
+		mock.verifyClosed();
+	}
+
+	@Test
+	public void testStaticQueryWithDataClassAndFullyPopulatedCheck() throws Exception {
+		Mock mock = new Mock();
+		DataClassRowMapper<ConstructorPerson> mapper = DataClassRowMapper.newInstance(ConstructorPerson.class);
+		mapper.setCheckFullyPopulated(true);
+		List<ConstructorPerson> result = mock.getJdbcTemplate().query(
+				"select name, age, birth_date, balance from people", mapper);
+		assertEquals(1, result.size());
+		assertEquals(new BigDecimal("1234.56"), result.get(0).getBalance());
+	}
+
+	@Test
+	public void testStaticQueryWithDefaultConstructor() throws Exception {
+		Mock mock = new Mock();
+		List<Person> result = mock.getJdbcTemplate().query(
+				"select name, age, birth_date, balance from people",
+				new DataClassRowMapper<Person>(Person.class));
+		assertEquals(1, result.size());
+		verifyPerson(result.get(0));
+	}
+
+	@Test(expected = TypeMismatchException.class)
+	public void testMappingNullValueToPrimitiveConstructorArgument() throws Exception {
+		Mock mock = new Mock(MockType.TWO);
+		mock.getJdbcTemplate().query("select name, null as age, birth_date, balance from people",
+				new DataClassRowMapper<ConstructorPerson>(ConstructorPerson.class));
+	}
+
+	@Test
+	public void testMappingNullValueToPrimitiveConstructorArgumentWithDefault() throws Exception {
+		Mock mock = new Mock(MockType.TWO);
+		DataClassRowMapper<ConstructorPerson> mapper = new DataClassRowMapper<ConstructorPerson>(ConstructorPerson.class);
+		mapper.setPrimitivesDefaultedForNullValue(true);
+		List<ConstructorPerson> result = mock.getJdbcTemplate().query(
+				"select name, null as age, birth_date, balance from people", mapper);
+		assertEquals(0L, result.get(0).getAge());
+		assertEquals("Bubba", result.get(0).getName());
+	}
+
+}
@@ -26,6 +26,7 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 
 import javax.sql.DataSource;
 
@@ -34,6 +35,7 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
+import org.springframework.dao.DataAccessException;
 import org.springframework.dao.IncorrectResultSizeDataAccessException;
 
 import static org.junit.Assert.*;
@@ -361,4 +363,79 @@ public class JdbcTemplateQueryTests {
 		verify(this.preparedStatement).close();
 	}
 
+	@Test
+	public void testQueryForIterator() throws Exception {
+		String sql = "SELECT AGE FROM CUSTMR WHERE ID < ?";
+		given(this.resultSet.next()).willReturn(true, true, false);
+		given(this.resultSet.getInt(1)).willReturn(11, 12);
+		this.template.setFetchSize(Integer.MIN_VALUE);
+		RowIterator<Integer> it = this.template.queryForIterator(sql, new SingleColumnRowMapper<Integer>(Integer.class), 3);
+		verify(this.preparedStatement).setObject(1, 3);
+		verify(this.preparedStatement).setFetchSize(Integer.MIN_VALUE);
+		verify(this.resultSet, never()).next();
+		assertTrue(it.hasNext());
+		assertEquals(Integer.valueOf(11), it.next());
+		verify(this.resultSet, never()).close();
+		assertEquals(Integer.valueOf(12), it.next());
+		assertFalse(it.hasNext());
+		verify(this.resultSet).close();
+		verify(this.preparedStatement).close();
+		verify(this.connection).close();
+		it.close();
+		verify(this.connection).close();
+	}
+
+	@Test
+	public void testQueryForIteratorClosedEarly() throws Exception {
+		String sql = "SELECT AGE FROM CUSTMR";
+		given(this.resultSet.next()).willReturn(true, true, false);
+		given(this.resultSet.getInt(1)).willReturn(11, 12);
+		RowIterator<Integer> it = this.template.queryForIterator(sql, new SingleColumnRowMapper<Integer>(Integer.class));
+		assertEquals(Integer.valueOf(11), it.next());
+		it.close();
+		assertFalse(it.hasNext());
+		verify(this.preparedStatement, never()).setFetchSize(anyInt());
+		verify(this.resultSet).close();
+		verify(this.preparedStatement).close();
+		verify(this.connection).close();
+		this.thrown.expect(NoSuchElementException.class);
+		it.next();
+	}
+
+	@Test
+	public void testQueryForIteratorWithSQLExceptionOnNext() throws Exception {
+		String sql = "SELECT AGE FROM CUSTMR";
+		SQLException sqlException = new SQLException("broken cursor");
+		given(this.resultSet.next()).willReturn(true).willThrow(sqlException);
+		given(this.resultSet.getInt(1)).willReturn(11);
+		RowIterator<Integer> it = this.template.queryForIterator(sql, new SingleColumnRowMapper<Integer>(Integer.class));
+		assertEquals(Integer.valueOf(11), it.next());
+		try {
+			it.hasNext();
+			fail("Should have thrown DataAccessException");
+		}
+		catch (DataAccessException ex) {
+			assertSame(sqlException, ex.getCause());
+		}
+		verify(this.resultSet).close();
+		verify(this.preparedStatement).close();
+		verify(this.connection, atLeastOnce()).close();
+	}
+
+	@Test
+	public void testQueryForIteratorWithSQLExceptionOnExecute() throws Exception {
+		String sql = "SELECT AGE FROM CUSTMR";
+		SQLException sqlException = new SQLException("no such table");
+		given(this.preparedStatement.executeQuery()).willThrow(sqlException);
+		try {
+			this.template.queryForIterator(sql, new SingleColumnRowMapper<Integer>(Integer.class));
+			fail("Should have thrown DataAccessException");
+		}
+		catch (DataAccessException ex) {
+			assertSame(sqlException, ex.getCause());
+		}
+		verify(this.preparedStatement).close();
+		verify(this.connection, atLeastOnce()).close();
+	}
+
 }
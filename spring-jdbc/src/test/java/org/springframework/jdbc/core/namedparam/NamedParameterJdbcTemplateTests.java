@@ -22,6 +22,7 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Types;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedList;
@@ -34,6 +35,8 @@ import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
 import org.springframework.dao.DataAccessException;
 import org.springframework.jdbc.Customer;
 import org.springframework.jdbc.core.JdbcOperations;
@@ -43,6 +46,8 @@ import org.springframework.jdbc.core.ResultSetExtractor;
 import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.SqlParameterValue;
+import org.springframework.jdbc.datasource.ConnectionHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import static org.junit.Assert.*;
 import static org.mockito.BDDMockito.*;
@@ -475,4 +480,151 @@ public class NamedParameterJdbcTemplateTests {
 		verify(connection, atLeastOnce()).close();
 	}
 
+	@Test
+	public void testBatchUpdateWithMultiRowInsert() throws Exception {
+		SqlParameterSource[] rows = new SqlParameterSource[5];
+		for (int i = 0; i < rows.length; i++) {
+			rows[i] = new MapSqlParameterSource("id", i).addValue("name", "n" + i);
+		}
+		given(preparedStatement.executeBatch()).willReturn(new int[] {2, 2});
+		given(preparedStatement.executeUpdate()).willReturn(1);
+		given(connection.getMetaData()).willReturn(databaseMetaData);
+
+		namedParameterTemplate = new NamedParameterJdbcTemplate(new JdbcTemplate(dataSource, false));
+		namedParameterTemplate.setRowsPerInsertStatement(2);
+		int[] actualRowsAffected = namedParameterTemplate.batchUpdate(
+				"INSERT INTO T (ID, NAME) VALUES (:id, :name)", rows);
+
+		assertArrayEquals(new int[] {1, 1, 1, 1, 1}, actualRowsAffected);
+		verify(connection).prepareStatement("INSERT INTO T (ID, NAME) VALUES (?, ?), (?, ?)");
+		verify(connection).prepareStatement("INSERT INTO T (ID, NAME) VALUES (?, ?)");
+		verify(preparedStatement).setObject(1, 0);
+		verify(preparedStatement).setString(2, "n0");
+		verify(preparedStatement).setObject(3, 1);
+		verify(preparedStatement).setString(4, "n1");
+		verify(preparedStatement).setObject(1, 4);
+		verify(preparedStatement, times(2)).addBatch();
+		verify(preparedStatement, atLeastOnce()).close();
+		verify(connection, atLeastOnce()).close();
+	}
+
+	@Test
+	public void testBatchUpdateWithMultiRowInsertFallsBackForOtherStatements() throws Exception {
+		SqlParameterSource[] ids = new SqlParameterSource[2];
+		ids[0] = new MapSqlParameterSource("id", 100);
+		ids[1] = new MapSqlParameterSource("id", 200);
+		given(preparedStatement.executeBatch()).willReturn(new int[] {1, 1});
+		given(connection.getMetaData()).willReturn(databaseMetaData);
+
+		namedParameterTemplate = new NamedParameterJdbcTemplate(new JdbcTemplate(dataSource, false));
+		namedParameterTemplate.setRowsPerInsertStatement(10);
+		int[] actualRowsAffected = namedParameterTemplate.batchUpdate(
+				"UPDATE NOSUCHTABLE SET DATE_DISPATCHED = SYSDATE WHERE ID = :id", ids);
+
+		assertArrayEquals(new int[] {1, 1}, actualRowsAffected);
+		verify(connection).prepareStatement("UPDATE NOSUCHTABLE SET DATE_DISPATCHED = SYSDATE WHERE ID = ?");
+		verify(preparedStatement, times(2)).addBatch();
+	}
+
+	@Test
+	public void testBatchUpdateWithMultiRowInsertFallsBackForCollectionValues() throws Exception {
+		SqlParameterSource[] rows = new SqlParameterSource[2];
+		rows[0] = new MapSqlParameterSource("id", 0).addValue("names", Arrays.asList("n0"));
+		rows[1] = new MapSqlParameterSource("id", 1).addValue("names", Arrays.asList("n1"));
+		given(preparedStatement.executeBatch()).willReturn(new int[] {1, 1});
+		given(connection.getMetaData()).willReturn(databaseMetaData);
+
+		namedParameterTemplate = new NamedParameterJdbcTemplate(new JdbcTemplate(dataSource, false));
+		namedParameterTemplate.setRowsPerInsertStatement(2);
+		int[] actualRowsAffected = namedParameterTemplate.batchUpdate(
+				"INSERT INTO T (ID, NAME) VALUES (:id, :names)", rows);
+
+		assertArrayEquals(new int[] {1, 1}, actualRowsAffected);
+		verify(connection).prepareStatement("INSERT INTO T (ID, NAME) VALUES (?, ?)");
+		verify(connection, never()).prepareStatement("INSERT INTO T (ID, NAME) VALUES (?, ?), (?, ?)");
+		verify(preparedStatement, times(2)).addBatch();
+	}
+
+	@Test
+	public void testFindValuesGroup() {
+		String sql = "insert into t (a, b) values (?, coalesce(?, 'x)'))";
+		int[] group = NamedParameterBatchUpdateUtils.findValuesGroup(sql);
+		assertNotNull(group);
+		assertEquals("(?, coalesce(?, 'x)'))", sql.substring(group[0], group[1]));
+		assertNull(NamedParameterBatchUpdateUtils.findValuesGroup("insert into t (a) select a from s"));
+		assertNull(NamedParameterBatchUpdateUtils.findValuesGroup("insert into t (a) values (?) on duplicate key update a = values(a)"));
+		assertNull(NamedParameterBatchUpdateUtils.findValuesGroup("insert into t (a) values (?), (?)"));
+		assertNull(NamedParameterBatchUpdateUtils.findValuesGroup("update t set my_values = ?"));
+	}
+
+	@Test
+	public void testBatchUpdateInChunks() throws Exception {
+		SqlParameterSource[] ids = new SqlParameterSource[3];
+		ids[0] = new MapSqlParameterSource("id", 100);
+		ids[1] = new MapSqlParameterSource("id", 200);
+		ids[2] = new MapSqlParameterSource("id", 300);
+		given(preparedStatement.executeBatch()).willReturn(new int[] {1, 2}, new int[] {3});
+		given(connection.getMetaData()).willReturn(databaseMetaData);
+
+		namedParameterTemplate = new NamedParameterJdbcTemplate(new JdbcTemplate(dataSource, false));
+		namedParameterTemplate.setBatchChunkSize(2);
+		int[] actualRowsAffected = namedParameterTemplate.batchUpdate(
+				"UPDATE NOSUCHTABLE SET DATE_DISPATCHED = SYSDATE WHERE ID = :id", ids);
+
+		assertArrayEquals(new int[] {1, 2, 3}, actualRowsAffected);
+		verify(preparedStatement, times(2)).executeBatch();
+		verify(preparedStatement, times(3)).addBatch();
+	}
+
+	@Test
+	public void testBatchUpdateInConcurrentChunks() throws Exception {
+		SqlParameterSource[] ids = new SqlParameterSource[4];
+		for (int i = 0; i < ids.length; i++) {
+			ids[i] = new MapSqlParameterSource("id", i);
+		}
+		given(preparedStatement.executeBatch()).willReturn(new int[] {1, 1});
+		given(connection.getMetaData()).willReturn(databaseMetaData);
+
+		namedParameterTemplate = new NamedParameterJdbcTemplate(new JdbcTemplate(dataSource, false));
+		namedParameterTemplate.setBatchChunkSize(2);
+		namedParameterTemplate.setBatchExecutor(new SimpleAsyncTaskExecutor());
+		int[] actualRowsAffected = namedParameterTemplate.batchUpdate(
+				"UPDATE NOSUCHTABLE SET DATE_DISPATCHED = SYSDATE WHERE ID = :id", ids);
+
+		assertArrayEquals(new int[] {1, 1, 1, 1}, actualRowsAffected);
+		verify(dataSource, atLeast(2)).getConnection();
+		verify(preparedStatement, times(2)).executeBatch();
+	}
+
+	@Test
+	public void testBatchUpdateInChunksWithBoundConnection() throws Exception {
+		SqlParameterSource[] ids = new SqlParameterSource[4];
+		for (int i = 0; i < ids.length; i++) {
+			ids[i] = new MapSqlParameterSource("id", i);
+		}
+		given(preparedStatement.executeBatch()).willReturn(new int[] {1, 1});
+		given(connection.getMetaData()).willReturn(databaseMetaData);
+
+		namedParameterTemplate = new NamedParameterJdbcTemplate(new JdbcTemplate(dataSource, false));
+		namedParameterTemplate.setBatchChunkSize(2);
+		namedParameterTemplate.setBatchExecutor(new TaskExecutor() {
+			@Override
+			public void execute(Runnable task) {
+				fail("Chunks must not leave the calling thread while a Connection is bound");
+			}
+		});
+		// Transactional Connection without synchronization, as with SYNCHRONIZATION_NEVER
+		TransactionSynchronizationManager.bindResource(dataSource, new ConnectionHolder(connection));
+		try {
+			int[] actualRowsAffected = namedParameterTemplate.batchUpdate(
+					"UPDATE NOSUCHTABLE SET DATE_DISPATCHED = SYSDATE WHERE ID = :id", ids);
+			assertArrayEquals(new int[] {1, 1, 1, 1}, actualRowsAffected);
+		}
+		finally {
+			TransactionSynchronizationManager.unbindResource(dataSource);
+		}
+		verify(dataSource, never()).getConnection();
+		verify(preparedStatement, times(2)).executeBatch();
+	}
+
 }
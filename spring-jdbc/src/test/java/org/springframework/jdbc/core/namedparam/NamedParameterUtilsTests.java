@@ -16,6 +16,7 @@
 
 package org.springframework.jdbc.core.namedparam;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
@@ -295,4 +296,32 @@ public class NamedParameterUtilsTests {
 		assertEquals("xxx", psql2.getParameterNames().get(0));
 	}
 
+	@Test
+	public void substituteNamedParametersIsCachedPerListSize() {
+		ParsedSql psql = NamedParameterUtils.parseSqlStatement("select * from t where id in (:ids) and a = :a");
+		MapSqlParameterSource params = new MapSqlParameterSource("ids", Arrays.asList(1, 2)).addValue("a", "x");
+		String sql = NamedParameterUtils.substituteNamedParameters(psql, params);
+		assertEquals("select * from t where id in (?, ?) and a = ?", sql);
+		assertSame(sql, NamedParameterUtils.substituteNamedParameters(psql,
+				new MapSqlParameterSource("ids", Arrays.asList(3, 4)).addValue("a", "y")));
+		assertEquals("select * from t where id in (?, ?, ?) and a = ?", NamedParameterUtils.substituteNamedParameters(
+				psql, new MapSqlParameterSource("ids", Arrays.asList(1, 2, 3)).addValue("a", "x")));
+		assertEquals("select * from t where id in () and a = ?", NamedParameterUtils.substituteNamedParameters(
+				psql, new MapSqlParameterSource("ids", Collections.emptyList()).addValue("a", "x")));
+		assertEquals("select * from t where id in (?) and a = ?", NamedParameterUtils.substituteNamedParameters(
+				psql, new MapSqlParameterSource("ids", 1).addValue("a", "x")));
+	}
+
+	@Test
+	public void substituteNamedParametersWithExpressionListsIsNotCached() {
+		ParsedSql psql = NamedParameterUtils.parseSqlStatement("select * from t where (a, b) in (:pairs)");
+		MapSqlParameterSource params = new MapSqlParameterSource("pairs",
+				Arrays.asList(new Object[] {1, "a"}, new Object[] {2, "b"}));
+		assertEquals("select * from t where (a, b) in ((?, ?), (?, ?))",
+				NamedParameterUtils.substituteNamedParameters(psql, params));
+		params = new MapSqlParameterSource("pairs", Arrays.asList(new Object[] {1, "a", 3}, new Object[] {2, "b", 4}));
+		assertEquals("select * from t where (a, b) in ((?, ?, ?), (?, ?, ?))",
+				NamedParameterUtils.substituteNamedParameters(psql, params));
+	}
+
 }
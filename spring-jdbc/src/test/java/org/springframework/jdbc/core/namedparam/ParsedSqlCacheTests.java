@@ -0,0 +1,103 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core.namedparam;
+
+import javax.sql.DataSource;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * @author agent
+ * @since 4.1
+ */
+public class ParsedSqlCacheTests {
+
+	@Test
+	public void hitsAndMisses() {
+		ParsedSqlCache cache = new ParsedSqlCache();
+		cache.setStatisticsEnabled(true);
+		ParsedSql parsedSql = cache.getParsedSql("select * from t where a = :a");
+		assertSame(parsedSql, cache.getParsedSql("select * from t where a = :a"));
+		assertNotSame(parsedSql, cache.getParsedSql("select * from t where b = :b"));
+		assertEquals(2, cache.size());
+		assertEquals(1, cache.getHitCount());
+		assertEquals(2, cache.getMissCount());
+		assertEquals(0, cache.getEvictionCount());
+	}
+
+	@Test
+	public void oldestEntryEvicted() {
+		ParsedSqlCache cache = new ParsedSqlCache(2);
+		cache.setStatisticsEnabled(true);
+		ParsedSql first = cache.getParsedSql("select :a");
+		cache.getParsedSql("select :b");
+		cache.getParsedSql("select :c");
+		assertEquals(2, cache.size());
+		assertEquals(1, cache.getEvictionCount());
+		assertNotSame(first, cache.getParsedSql("select :a"));
+		assertEquals(4, cache.getMissCount());
+	}
+
+	@Test
+	public void evictionIgnoresRecentHits() {
+		ParsedSqlCache cache = new ParsedSqlCache(2);
+		ParsedSql first = cache.getParsedSql("select :a");
+		cache.getParsedSql("select :b");
+		assertSame(first, cache.getParsedSql("select :a"));
+		cache.getParsedSql("select :c");
+		assertNotSame(first, cache.getParsedSql("select :a"));
+	}
+
+	@Test
+	public void cachingDisabled() {
+		ParsedSqlCache cache = new ParsedSqlCache(0);
+		cache.setStatisticsEnabled(true);
+		assertNotSame(cache.getParsedSql("select :a"), cache.getParsedSql("select :a"));
+		assertEquals(0, cache.size());
+		assertEquals(2, cache.getMissCount());
+	}
+
+	@Test
+	public void statisticsDisabledByDefault() {
+		ParsedSqlCache cache = new ParsedSqlCache(1);
+		cache.getParsedSql("select :a");
+		cache.getParsedSql("select :a");
+		cache.getParsedSql("select :b");
+		assertFalse(cache.isStatisticsEnabled());
+		assertEquals(0, cache.getHitCount());
+		assertEquals(0, cache.getMissCount());
+		assertEquals(1, cache.getEvictionCount());
+	}
+
+	@Test
+	public void sharedAcrossTemplates() {
+		ParsedSqlCache cache = new ParsedSqlCache();
+		cache.setStatisticsEnabled(true);
+		NamedParameterJdbcTemplate template1 = new NamedParameterJdbcTemplate(mock(DataSource.class));
+		NamedParameterJdbcTemplate template2 = new NamedParameterJdbcTemplate(mock(DataSource.class));
+		template1.setParsedSqlCache(cache);
+		template2.setParsedSqlCache(cache);
+		assertSame(template1.getParsedSql("select :a"), template2.getParsedSql("select :a"));
+		assertEquals(1, cache.getHitCount());
+		template2.setCacheLimit(10);
+		assertEquals(10, template1.getCacheLimit());
+	}
+
+}
@@ -95,7 +95,9 @@ public class MessageHeaders implements Map<String, Object>, Serializable {
 	public static final String CONTENT_TYPE = "contentType";
 
 
-	private final Map<String, Object> headers;
+	private volatile Map<String, Object> headers;
+
+	private transient volatile DeferredIdAndTimestamp deferred;
 
 
 	/**
@@ -117,7 +119,7 @@ public class MessageHeaders implements Map<String, Object>, Serializable {
 	 */
 	protected MessageHeaders(Map<String, Object> headers, UUID id, Long timestamp) {
 
-		this.headers = (headers != null) ? new HashMap<String, Object>(headers) : new HashMap<String, Object>();
+		this.headers = (headers != null) ? copyOf(headers) : new HashMap<String, Object>();
 
 		if (id == null) {
 			this.headers.put(ID, getIdGenerator().generateId());
@@ -141,10 +143,73 @@ public class MessageHeaders implements Map<String, Object>, Serializable {
 	}
 
 
+	/**
+	 * Copy the given headers. Deferred {@link #ID} and {@link #TIMESTAMP} values
+	 * of other {@code MessageHeaders} are not generated for this purpose since
+	 * the constructor replaces or removes them anyway.
+	 */
+	private static Map<String, Object> copyOf(Map<String, Object> headers) {
+		if (headers instanceof MessageHeaders) {
+			return new HashMap<String, Object>(((MessageHeaders) headers).headers);
+		}
+		return new HashMap<String, Object>(headers);
+	}
+
+
 	protected Map<String, Object> getRawHeaders() {
+		return getHeaders();
+	}
+
+	/**
+	 * Defer the generation of the {@link #ID} and {@link #TIMESTAMP} headers until
+	 * they are first accessed, i.e. until either of them is requested by name or
+	 * the headers are accessed as a whole (iteration, equality, serialization).
+	 * <p>This is intended for subclasses that create headers for messages which
+	 * are frequently never inspected, saving the cost of generating an id for them.
+	 * @param idGenerator the generator to create the id with, or {@code null}
+	 * for no id header; the generator may also return {@link #ID_VALUE_NONE}
+	 * @param timestamp the timestamp header value, or {@code null} for none
+	 * @since 4.1
+	 */
+	protected void deferIdAndTimestamp(IdGenerator idGenerator, Long timestamp) {
+		if (idGenerator != null || timestamp != null) {
+			this.deferred = new DeferredIdAndTimestamp(idGenerator, timestamp);
+		}
+	}
+
+	/**
+	 * Return the header map, generating any deferred id and timestamp first.
+	 */
+	private Map<String, Object> getHeaders() {
+		if (this.deferred != null) {
+			generateDeferredIdAndTimestamp();
+		}
 		return this.headers;
 	}
 
+	private synchronized void generateDeferredIdAndTimestamp() {
+		DeferredIdAndTimestamp deferred = this.deferred;
+		if (deferred != null) {
+			// Publish a new map rather than modifying one that may be read concurrently
+			Map<String, Object> map = new HashMap<String, Object>(this.headers);
+			if (deferred.idGenerator != null) {
+				UUID id = deferred.idGenerator.generateId();
+				if (id != null && id != ID_VALUE_NONE) {
+					map.put(ID, id);
+				}
+			}
+			if (deferred.timestamp != null) {
+				map.put(TIMESTAMP, deferred.timestamp);
+			}
+			this.headers = map;
+			this.deferred = null;
+		}
+	}
+
+	private boolean isDeferredKey(Object key) {
+		return (this.deferred != null && (ID.equals(key) || TIMESTAMP.equals(key)));
+	}
+
 	protected static IdGenerator getIdGenerator() {
 		return ((idGenerator != null) ? idGenerator : defaultIdGenerator);
 	}
@@ -167,7 +232,7 @@ public class MessageHeaders implements Map<String, Object>, Serializable {
 
 	@SuppressWarnings("unchecked")
 	public <T> T get(Object key, Class<T> type) {
-		Object value = this.headers.get(key);
+		Object value = get(key);
 		if (value == null) {
 			return null;
 		}
@@ -180,7 +245,7 @@ public class MessageHeaders implements Map<String, Object>, Serializable {
 
 	@Override
 	public int hashCode() {
-		return this.headers.hashCode();
+		return getHeaders().hashCode();
 	}
 
 	@Override
@@ -190,14 +255,14 @@ public class MessageHeaders implements Map<String, Object>, Serializable {
 		}
 		if (object != null && object instanceof MessageHeaders) {
 			MessageHeaders other = (MessageHeaders) object;
-			return this.headers.equals(other.headers);
+			return getHeaders().equals(other.getHeaders());
 		}
 		return false;
 	}
 
 	@Override
 	public String toString() {
-		return this.headers.toString();
+		return getHeaders().toString();
 	}
 
 	/*
@@ -205,35 +270,35 @@ public class MessageHeaders implements Map<String, Object>, Serializable {
 	 */
 
 	public boolean containsKey(Object key) {
-		return this.headers.containsKey(key);
+		return (isDeferredKey(key) ? getHeaders() : this.headers).containsKey(key);
 	}
 
 	public boolean containsValue(Object value) {
-		return this.headers.containsValue(value);
+		return getHeaders().containsValue(value);
 	}
 
 	public Set<Map.Entry<String, Object>> entrySet() {
-		return Collections.unmodifiableSet(this.headers.entrySet());
+		return Collections.unmodifiableSet(getHeaders().entrySet());
 	}
 
 	public Object get(Object key) {
-		return this.headers.get(key);
+		return (isDeferredKey(key) ? getHeaders() : this.headers).get(key);
 	}
 
 	public boolean isEmpty() {
-		return this.headers.isEmpty();
+		return getHeaders().isEmpty();
 	}
 
 	public Set<String> keySet() {
-		return Collections.unmodifiableSet(this.headers.keySet());
+		return Collections.unmodifiableSet(getHeaders().keySet());
 	}
 
 	public int size() {
-		return this.headers.size();
+		return getHeaders().size();
 	}
 
 	public Collection<Object> values() {
-		return Collections.unmodifiableCollection(this.headers.values());
+		return Collections.unmodifiableCollection(getHeaders().values());
 	}
 
 	// Unsupported operations
@@ -269,6 +334,7 @@ public class MessageHeaders implements Map<String, Object>, Serializable {
 	// Serialization methods
 
 	private void writeObject(ObjectOutputStream out) throws IOException {
+		getHeaders();
 		List<String> keysToRemove = new ArrayList<String>();
 		for (Map.Entry<String, Object> entry : this.headers.entrySet()) {
 			if (!(entry.getValue() instanceof Serializable)) {
@@ -288,4 +354,20 @@ public class MessageHeaders implements Map<String, Object>, Serializable {
 		in.defaultReadObject();
 	}
 
+
+	/**
+	 * Holder for the inputs to a deferred generation of the id and timestamp.
+	 */
+	private static class DeferredIdAndTimestamp {
+
+		private final IdGenerator idGenerator;
+
+		private final Long timestamp;
+
+		public DeferredIdAndTimestamp(IdGenerator idGenerator, Long timestamp) {
+			this.idGenerator = idGenerator;
+			this.timestamp = timestamp;
+		}
+	}
+
 }
@@ -74,6 +74,15 @@ public class SimpMessageHeaderAccessor extends NativeMessageHeaderAccessor {
 	 */
 	public static final String ORIGINAL_DESTINATION = "simpOrigDestination";
 
+	/**
+	 * For internal use.
+	 *
+	 * <p>An immutable id shared by the messages that a broker creates for the
+	 * subscribers of a single broadcast. Protocol handlers may use it to encode
+	 * the parts common to all of these messages only once.
+	 */
+	public static final String BROADCAST_ID_HEADER = "simpBroadcastId";
+
 
 	/**
 	 * A constructor for creating new message headers.
@@ -223,6 +232,13 @@ public class SimpMessageHeaderAccessor extends NativeMessageHeaderAccessor {
 		return (Map<String, Object>) headers.get(SESSION_ATTRIBUTES);
 	}
 
+	/**
+	 * A static alternative for access to the broadcast id header.
+	 */
+	public static Object getBroadcastId(Map<String, Object> headers) {
+		return headers.get(BROADCAST_ID_HEADER);
+	}
+
 	public void setUser(Principal principal) {
 		setHeader(USER_HEADER, principal);
 	}
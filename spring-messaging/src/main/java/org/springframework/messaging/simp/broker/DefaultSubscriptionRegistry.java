@@ -16,12 +16,15 @@
 
 package org.springframework.messaging.simp.broker;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
@@ -31,10 +34,21 @@ import org.springframework.util.Assert;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 import org.springframework.util.PathMatcher;
+import org.springframework.util.StringUtils;
 
 /**
  * A default, simple in-memory implementation of {@link SubscriptionRegistry}.
  *
+ * <p>When used with an {@link AntPathMatcher} (the default), subscriptions are
+ * kept in a destination index: a trie keyed by the literal leading segments of
+ * each subscribed destination pattern. Looking up the subscriptions for a
+ * destination then only evaluates the patterns along the path of its segments,
+ * so that the cost depends on the depth of the destination rather than the
+ * total number of subscriptions. The index is updated incrementally on each
+ * subscribe and unsubscribe. With any other {@link PathMatcher}, all
+ * subscriptions are matched against the destination, fronted by a cache of
+ * resolved destinations.
+ *
  * @author Rossen Stoyanchev
  * @author Sebastien Deleuze
  * @since 4.0
@@ -50,14 +64,18 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 
 	private final DestinationCache destinationCache = new DestinationCache();
 
+	private final DestinationIndex destinationIndex = new DestinationIndex();
+
 	private final SessionSubscriptionRegistry subscriptionRegistry = new SessionSubscriptionRegistry();
 
-	private PathMatcher pathMatcher = new AntPathMatcher();
+	private volatile PathMatcher pathMatcher = new AntPathMatcher();
 
 
 	/**
 	 * Specify the maximum number of entries for the resolved destination cache.
 	 * Default is 1024.
+	 * <p>The cache is only used for {@link PathMatcher} implementations
+	 * other than {@link AntPathMatcher}.
 	 */
 	public void setCacheLimit(int cacheLimit) {
 		this.cacheLimit = cacheLimit;
@@ -75,6 +93,8 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 	 */
 	public void setPathMatcher(PathMatcher pathMatcher) {
 		this.pathMatcher = pathMatcher;
+		this.destinationIndex.reset();
+		this.destinationCache.clear();
 	}
 
 	/**
@@ -84,10 +104,29 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 		return this.pathMatcher;
 	}
 
+	/**
+	 * Return the path separator to index destinations by, or {@code null}
+	 * if the configured PathMatcher does not allow for indexing.
+	 */
+	private String getIndexPathSeparator() {
+		PathMatcher pathMatcher = this.pathMatcher;
+		// Only the exact AntPathMatcher class has known matching semantics
+		if (pathMatcher != null && pathMatcher.getClass() == AntPathMatcher.class) {
+			return ((AntPathMatcher) pathMatcher).getPathSeparator();
+		}
+		return null;
+	}
+
 	@Override
 	protected void addSubscriptionInternal(String sessionId, String subsId, String destination, Message<?> message) {
 		this.subscriptionRegistry.addSubscription(sessionId, subsId, destination);
-		this.destinationCache.updateAfterNewSubscription(destination, sessionId, subsId);
+		String pathSeparator = getIndexPathSeparator();
+		if (pathSeparator != null) {
+			this.destinationIndex.addSubscription(destination, sessionId, subsId, pathSeparator);
+		}
+		else {
+			this.destinationCache.updateAfterNewSubscription(destination, sessionId, subsId);
+		}
 	}
 
 	@Override
@@ -95,7 +134,14 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 		SessionSubscriptionInfo info = this.subscriptionRegistry.getSubscriptions(sessionId);
 		if (info != null) {
 			String destination = info.removeSubscription(subsId);
-			if (info.getSubscriptions(destination) == null) {
+			if (destination == null) {
+				return;
+			}
+			String pathSeparator = getIndexPathSeparator();
+			if (pathSeparator != null) {
+				this.destinationIndex.removeSubscription(destination, sessionId, subsId, pathSeparator);
+			}
+			else if (info.getSubscriptions(destination) == null) {
 				this.destinationCache.updateAfterRemovedSubscription(destination, sessionId, subsId);
 			}
 		}
@@ -108,12 +154,22 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 			if (logger.isDebugEnabled()) {
 				logger.debug("Unregistering subscriptions for sessionId=" + sessionId);
 			}
-			this.destinationCache.updateAfterRemovedSession(info);
+			String pathSeparator = getIndexPathSeparator();
+			if (pathSeparator != null) {
+				this.destinationIndex.removeSession(info, pathSeparator);
+			}
+			else {
+				this.destinationCache.updateAfterRemovedSession(info);
+			}
 		}
 	}
 
 	@Override
 	protected MultiValueMap<String, String> findSubscriptionsInternal(String destination, Message<?> message) {
+		String pathSeparator = getIndexPathSeparator();
+		if (pathSeparator != null) {
+			return this.destinationIndex.findSubscriptions(destination, pathSeparator);
+		}
 		MultiValueMap<String, String> result = this.destinationCache.getSubscriptions(destination);
 		if (result != null) {
 			return result;
@@ -136,8 +192,301 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 
 	@Override
 	public String toString() {
-		return "[destinationCache=" + this.destinationCache + ", subscriptionRegistry="
-				+ this.subscriptionRegistry + "]";
+		return "[destinationIndex=" + this.destinationIndex + ", destinationCache=" + this.destinationCache +
+				", subscriptionRegistry=" + this.subscriptionRegistry + "]";
+	}
+
+
+	/**
+	 * A trie of subscribed destination patterns, keyed by their literal leading
+	 * segments, i.e. the segments up to the first one containing a wildcard
+	 * or a URI template variable.
+	 * <p>Up to its first "**" segment, an Ant-style pattern matches a destination
+	 * segment by segment, so a destination can only be matched by patterns stored
+	 * along the path of its own segments. Those candidates are then checked with
+	 * the PathMatcher. Lookups are lock-free; updates are serialized.
+	 */
+	private class DestinationIndex {
+
+		/** The path separator that the current trie has been built with */
+		private volatile String pathSeparator;
+
+		private volatile IndexNode root = new IndexNode();
+
+		/** Registration sequence, for ordering subscriptions across patterns */
+		private long sequence;
+
+
+		public MultiValueMap<String, String> findSubscriptions(String destination, String pathSeparator) {
+			IndexNode node = getRoot(pathSeparator);
+			String[] segments = tokenize(destination, pathSeparator);
+			PatternSubscriptions match = null;
+			List<PatternSubscriptions> matches = null;
+			for (int depth = 0; node != null; depth++) {
+				for (PatternSubscriptions candidate : node.patterns.values()) {
+					if (candidate.literal ? (depth == segments.length && (candidate.pattern.equals(destination) ||
+							getPathMatcher().match(candidate.pattern, destination))) :
+							getPathMatcher().match(candidate.pattern, destination)) {
+						if (match == null) {
+							match = candidate;
+						}
+						else {
+							if (matches == null) {
+								matches = new ArrayList<PatternSubscriptions>(4);
+								matches.add(match);
+							}
+							matches.add(candidate);
+						}
+					}
+				}
+				node = (depth < segments.length ? node.children.get(segments[depth]) : null);
+			}
+			if (match == null) {
+				return new LinkedMultiValueMap<String, String>();
+			}
+			if (matches == null) {
+				return match.getSubscriptions();
+			}
+			// Merge subscriptions per session, in the order they have been registered
+			Map<String, SortedMap<Long, String>> merged = new LinkedHashMap<String, SortedMap<Long, String>>();
+			for (PatternSubscriptions candidate : matches) {
+				candidate.collectSubscriptions(merged);
+			}
+			MultiValueMap<String, String> result = new LinkedMultiValueMap<String, String>(merged.size());
+			for (Map.Entry<String, SortedMap<Long, String>> entry : merged.entrySet()) {
+				result.put(entry.getKey(), new ArrayList<String>(entry.getValue().values()));
+			}
+			return result;
+		}
+
+		public synchronized void addSubscription(String pattern, String sessionId, String subsId, String pathSeparator) {
+			getRoot(pathSeparator);
+			doAddSubscription(pattern, sessionId, subsId);
+		}
+
+		public synchronized void removeSubscription(String pattern, String sessionId, String subsId, String pathSeparator) {
+			getRoot(pathSeparator);
+			doRemoveSubscriptions(pattern, sessionId, subsId);
+		}
+
+		public synchronized void removeSession(SessionSubscriptionInfo info, String pathSeparator) {
+			getRoot(pathSeparator);
+			for (String pattern : info.getDestinations()) {
+				doRemoveSubscriptions(pattern, info.getSessionId(), null);
+			}
+		}
+
+		/**
+		 * Discard the trie, to be rebuilt from all current subscriptions on next access.
+		 */
+		public synchronized void reset() {
+			this.pathSeparator = null;
+			this.root = new IndexNode();
+		}
+
+		/**
+		 * Return the root of the trie, (re-)building the trie from all current
+		 * subscriptions if it has been built for a different path separator.
+		 */
+		private IndexNode getRoot(String pathSeparator) {
+			if (pathSeparator.equals(this.pathSeparator)) {
+				return this.root;
+			}
+			synchronized (this) {
+				if (!pathSeparator.equals(this.pathSeparator)) {
+					this.root = new IndexNode();
+					this.pathSeparator = pathSeparator;
+					for (SessionSubscriptionInfo info : subscriptionRegistry.getAllSubscriptions()) {
+						for (String pattern : info.getDestinations()) {
+							Set<String> subsIds = info.getSubscriptions(pattern);
+							if (subsIds != null) {
+								for (String subsId : subsIds) {
+									doAddSubscription(pattern, info.getSessionId(), subsId);
+								}
+							}
+						}
+					}
+				}
+				return this.root;
+			}
+		}
+
+		private void doAddSubscription(String pattern, String sessionId, String subsId) {
+			IndexNode node = this.root;
+			String[] segments = tokenize(pattern, this.pathSeparator);
+			int literalCount = 0;
+			while (literalCount < segments.length && isLiteral(segments[literalCount])) {
+				String segment = segments[literalCount];
+				IndexNode child = node.children.get(segment);
+				if (child == null) {
+					child = new IndexNode();
+					node.children.put(segment, child);
+				}
+				node = child;
+				literalCount++;
+			}
+			PatternSubscriptions subscriptions = node.patterns.get(pattern);
+			if (subscriptions == null) {
+				subscriptions = new PatternSubscriptions(pattern, literalCount == segments.length);
+				node.patterns.put(pattern, subscriptions);
+			}
+			subscriptions.add(sessionId, subsId, this.sequence++);
+		}
+
+		/**
+		 * Remove the given subscription, or all subscriptions of the given session
+		 * if no subscription id is specified, pruning trie nodes that became empty.
+		 */
+		private void doRemoveSubscriptions(String pattern, String sessionId, String subsId) {
+			List<IndexNode> path = new ArrayList<IndexNode>();
+			IndexNode node = this.root;
+			String[] segments = tokenize(pattern, this.pathSeparator);
+			for (int i = 0; i < segments.length && isLiteral(segments[i]); i++) {
+				path.add(node);
+				node = node.children.get(segments[i]);
+				if (node == null) {
+					return;
+				}
+			}
+			PatternSubscriptions subscriptions = node.patterns.get(pattern);
+			if (subscriptions == null || !subscriptions.remove(sessionId, subsId)) {
+				return;
+			}
+			node.patterns.remove(pattern);
+			for (int i = path.size() - 1; i >= 0 && node.isEmpty(); i--) {
+				IndexNode parent = path.get(i);
+				parent.children.remove(segments[i]);
+				node = parent;
+			}
+		}
+
+		private String[] tokenize(String destination, String pathSeparator) {
+			// Same tokenization as AntPathMatcher, with trimmed tokens as a superset
+			return StringUtils.tokenizeToStringArray(destination, pathSeparator, true, true);
+		}
+
+		private boolean isLiteral(String segment) {
+			return (segment.indexOf('*') == -1 && segment.indexOf('?') == -1 && segment.indexOf('{') == -1);
+		}
+
+		@Override
+		public String toString() {
+			return "[root=" + this.root + "]";
+		}
+	}
+
+	/**
+	 * A node in the {@link DestinationIndex} trie.
+	 */
+	private static class IndexNode {
+
+		// segment -> child node
+		private final Map<String, IndexNode> children = new ConcurrentHashMap<String, IndexNode>(4);
+
+		// pattern -> subscriptions for patterns whose literal segments end at this node
+		private final Map<String, PatternSubscriptions> patterns = new ConcurrentHashMap<String, PatternSubscriptions>(4);
+
+		public boolean isEmpty() {
+			return (this.children.isEmpty() && this.patterns.isEmpty());
+		}
+
+		@Override
+		public String toString() {
+			return "[patterns=" + this.patterns.keySet() + ", children=" + this.children + "]";
+		}
+	}
+
+	/**
+	 * The subscriptions of all sessions for a given destination pattern,
+	 * exposed through a lazily built snapshot.
+	 */
+	private static class PatternSubscriptions {
+
+		private final String pattern;
+
+		/** Whether the pattern consists of literal segments only */
+		private final boolean literal;
+
+		// sessionId -> subscriptionId -> registration sequence
+		private final Map<String, Map<String, Long>> sessions = new LinkedHashMap<String, Map<String, Long>>(4);
+
+		private volatile MultiValueMap<String, String> snapshot;
+
+
+		public PatternSubscriptions(String pattern, boolean literal) {
+			this.pattern = pattern;
+			this.literal = literal;
+		}
+
+		public synchronized void add(String sessionId, String subsId, long sequence) {
+			Map<String, Long> subsIds = this.sessions.get(sessionId);
+			if (subsIds == null) {
+				subsIds = new LinkedHashMap<String, Long>(4);
+				this.sessions.put(sessionId, subsIds);
+			}
+			if (!subsIds.containsKey(subsId)) {
+				subsIds.put(subsId, sequence);
+				this.snapshot = null;
+			}
+		}
+
+		/**
+		 * Remove the given subscription, or all subscriptions of the session
+		 * if the subscription id is {@code null}.
+		 * @return whether no subscriptions are left for the pattern
+		 */
+		public synchronized boolean remove(String sessionId, String subsId) {
+			Map<String, Long> subsIds = this.sessions.get(sessionId);
+			if (subsIds != null) {
+				if (subsId == null || (subsIds.remove(subsId) != null && subsIds.isEmpty())) {
+					this.sessions.remove(sessionId);
+				}
+				this.snapshot = null;
+			}
+			return this.sessions.isEmpty();
+		}
+
+		/**
+		 * Return a snapshot of the subscriptions, to be treated as read-only.
+		 */
+		public MultiValueMap<String, String> getSubscriptions() {
+			MultiValueMap<String, String> result = this.snapshot;
+			if (result == null) {
+				synchronized (this) {
+					result = this.snapshot;
+					if (result == null) {
+						result = new LinkedMultiValueMap<String, String>(this.sessions.size());
+						for (Map.Entry<String, Map<String, Long>> entry : this.sessions.entrySet()) {
+							result.put(entry.getKey(), new ArrayList<String>(entry.getValue().keySet()));
+						}
+						this.snapshot = result;
+					}
+				}
+			}
+			return result;
+		}
+
+		/**
+		 * Add the subscriptions to the given map, keyed by session id
+		 * and registration sequence.
+		 */
+		public synchronized void collectSubscriptions(Map<String, SortedMap<Long, String>> result) {
+			for (Map.Entry<String, Map<String, Long>> entry : this.sessions.entrySet()) {
+				SortedMap<Long, String> subsIds = result.get(entry.getKey());
+				if (subsIds == null) {
+					subsIds = new TreeMap<Long, String>();
+					result.put(entry.getKey(), subsIds);
+				}
+				for (Map.Entry<String, Long> subsEntry : entry.getValue().entrySet()) {
+					subsIds.put(subsEntry.getValue(), subsEntry.getKey());
+				}
+			}
+		}
+
+		@Override
+		public String toString() {
+			return "[pattern=" + this.pattern + ", sessions=" + this.sessions + "]";
+		}
 	}
 
 
@@ -238,6 +587,13 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 			}
 		}
 
+		public void clear() {
+			synchronized (this.updateCache) {
+				this.updateCache.clear();
+				this.accessCache.clear();
+			}
+		}
+
 		@Override
 		public String toString() {
 			return "[cache=" + this.accessCache + "]";
@@ -17,6 +17,7 @@
 package org.springframework.messaging.simp.broker;
 
 import java.util.Collection;
+import java.util.UUID;
 
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageChannel;
@@ -26,7 +27,9 @@ import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.messaging.simp.SimpMessageType;
 import org.springframework.messaging.support.MessageBuilder;
 import org.springframework.messaging.support.MessageHeaderInitializer;
+import org.springframework.util.AlternativeJdkIdGenerator;
 import org.springframework.util.Assert;
+import org.springframework.util.IdGenerator;
 import org.springframework.util.MultiValueMap;
 
 /**
@@ -47,6 +50,8 @@ public class SimpleBrokerMessageHandler extends AbstractBrokerMessageHandler {
 
 	private final SubscribableChannel brokerChannel;
 
+	private final IdGenerator broadcastIdGenerator = new AlternativeJdkIdGenerator();
+
 	private SubscriptionRegistry subscriptionRegistry = new DefaultSubscriptionRegistry();
 
 	private MessageHeaderInitializer headerInitializer;
@@ -183,6 +188,11 @@ public class SimpleBrokerMessageHandler extends AbstractBrokerMessageHandler {
 			logger.debug("Sending message with destination=" + destination
 					+ " to " + subscriptions.size() + " subscriber(s)");
 		}
+		UUID broadcastId = null;
+		if (subscriptions.size() > 1 || (subscriptions.size() == 1 &&
+				subscriptions.values().iterator().next().size() > 1)) {
+			broadcastId = this.broadcastIdGenerator.generateId();
+		}
 		for (String sessionId : subscriptions.keySet()) {
 			for (String subscriptionId : subscriptions.get(sessionId)) {
 				SimpMessageHeaderAccessor headerAccessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
@@ -190,6 +200,7 @@ public class SimpleBrokerMessageHandler extends AbstractBrokerMessageHandler {
 				headerAccessor.setSessionId(sessionId);
 				headerAccessor.setSubscriptionId(subscriptionId);
 				headerAccessor.copyHeadersIfAbsent(message.getHeaders());
+				headerAccessor.setHeader(SimpMessageHeaderAccessor.BROADCAST_ID_HEADER, broadcastId);
 				Object payload = message.getPayload();
 				Message<?> reply = MessageBuilder.createMessage(payload, headerAccessor.getMessageHeaders());
 				try {
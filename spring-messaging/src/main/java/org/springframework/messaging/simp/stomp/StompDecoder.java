@@ -16,7 +16,6 @@
 
 package org.springframework.messaging.simp.stomp;
 
-import java.io.ByteArrayOutputStream;
 import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
@@ -41,6 +40,11 @@ import org.springframework.util.MultiValueMap;
  * partial content. The caller is then responsible for dealing with that
  * incomplete content by buffering until there is more input available.
  *
+ * <p>Frames are scanned in place: commands and well-known header names are
+ * resolved to shared constants without intermediate copies, header lines are
+ * decoded straight from the buffer, and the payload is copied exactly once
+ * into the resulting message.
+ *
  * @author Andy Wilkinson
  * @author Rossen Stoyanchev
  * @since 4.0
@@ -51,6 +55,32 @@ public class StompDecoder {
 
 	static final byte[] HEARTBEAT_PAYLOAD = new byte[] {'\n'};
 
+	private static final StompCommand[] COMMANDS = StompCommand.values();
+
+	private static final byte[][] COMMAND_BYTES = new byte[COMMANDS.length][];
+
+	private static final String[] KNOWN_HEADER_NAMES = new String[] {
+			StompHeaderAccessor.STOMP_DESTINATION_HEADER, StompHeaderAccessor.STOMP_CONTENT_TYPE_HEADER,
+			StompHeaderAccessor.STOMP_CONTENT_LENGTH_HEADER, StompHeaderAccessor.STOMP_SUBSCRIPTION_HEADER,
+			StompHeaderAccessor.STOMP_MESSAGE_ID_HEADER, StompHeaderAccessor.STOMP_ID_HEADER,
+			StompHeaderAccessor.STOMP_RECEIPT_HEADER, StompHeaderAccessor.STOMP_RECEIPT_ID_HEADER,
+			StompHeaderAccessor.STOMP_ACK_HEADER, StompHeaderAccessor.STOMP_NACK_HEADER,
+			StompHeaderAccessor.STOMP_HOST_HEADER, StompHeaderAccessor.STOMP_ACCEPT_VERSION_HEADER,
+			StompHeaderAccessor.STOMP_VERSION_HEADER, StompHeaderAccessor.STOMP_HEARTBEAT_HEADER,
+			StompHeaderAccessor.STOMP_LOGIN_HEADER, StompHeaderAccessor.STOMP_PASSCODE_HEADER,
+			StompHeaderAccessor.STOMP_MESSAGE_HEADER, "transaction", "session", "server"};
+
+	private static final byte[][] KNOWN_HEADER_NAME_BYTES = new byte[KNOWN_HEADER_NAMES.length][];
+
+	static {
+		for (int i = 0; i < COMMANDS.length; i++) {
+			COMMAND_BYTES[i] = COMMANDS[i].name().getBytes(UTF8_CHARSET);
+		}
+		for (int i = 0; i < KNOWN_HEADER_NAMES.length; i++) {
+			KNOWN_HEADER_NAME_BYTES[i] = KNOWN_HEADER_NAMES[i].getBytes(UTF8_CHARSET);
+		}
+	}
+
 	private final Log logger = LogFactory.getLog(StompDecoder.class);
 
 	private MessageHeaderInitializer headerInitializer;
@@ -133,14 +163,15 @@ public class StompDecoder {
 		skipLeadingEol(buffer);
 		buffer.mark();
 
-		String command = readCommand(buffer);
-		if (command.length() > 0) {
+		int commandStart = buffer.position();
+		int commandEnd = findEndOfLine(buffer);
+		if (commandEnd > commandStart) {
 
 			StompHeaderAccessor headerAccessor = null;
 			byte[] payload = null;
 
 			if (buffer.remaining() > 0) {
-				StompCommand stompCommand = StompCommand.valueOf(command);
+				StompCommand stompCommand = readCommand(buffer, commandStart, commandEnd);
 				headerAccessor = StompHeaderAccessor.create(stompCommand);
 				initHeaders(headerAccessor);
 
@@ -205,32 +236,34 @@ public class StompDecoder {
 		}
 	}
 
-	private String readCommand(ByteBuffer buffer) {
-		ByteArrayOutputStream command = new ByteArrayOutputStream(256);
-		while (buffer.remaining() > 0 && !tryConsumeEndOfLine(buffer)) {
-			command.write(buffer.get());
+	/**
+	 * Resolve the command in the given range of the buffer, comparing
+	 * its bytes against the known commands.
+	 */
+	private StompCommand readCommand(ByteBuffer buffer, int start, int end) {
+		for (int i = 0; i < COMMANDS.length; i++) {
+			if (matches(buffer, start, end, COMMAND_BYTES[i])) {
+				return COMMANDS[i];
+			}
 		}
-		return new String(command.toByteArray(), UTF8_CHARSET);
+		return StompCommand.valueOf(decodeString(buffer, start, end));
 	}
 
 	private void readHeaders(ByteBuffer buffer, StompHeaderAccessor headerAccessor) {
 		while (true) {
-			ByteArrayOutputStream headerStream = new ByteArrayOutputStream(256);
-			while (buffer.remaining() > 0 && !tryConsumeEndOfLine(buffer)) {
-				headerStream.write(buffer.get());
-			}
-			if (headerStream.size() > 0) {
-				String header = new String(headerStream.toByteArray(), UTF8_CHARSET);
-				int colonIndex = header.indexOf(':');
-				if ((colonIndex <= 0) || (colonIndex == header.length() - 1)) {
+			int lineStart = buffer.position();
+			int lineEnd = findEndOfLine(buffer);
+			if (lineEnd > lineStart) {
+				int colonIndex = indexOf(buffer, lineStart, lineEnd, (byte) ':');
+				if ((colonIndex <= lineStart) || (colonIndex == lineEnd - 1)) {
 					if (buffer.remaining() > 0) {
-						throw new StompConversionException(
-								"Illegal header: '" + header + "'. A header must be of the form <name>:<value>");
+						throw new StompConversionException("Illegal header: '" + decodeString(buffer, lineStart, lineEnd) +
+								"'. A header must be of the form <name>:<value>");
 					}
 				}
 				else {
-					String headerName = unescape(header.substring(0, colonIndex));
-					String headerValue = unescape(header.substring(colonIndex + 1));
+					String headerName = readHeaderName(buffer, lineStart, colonIndex);
+					String headerValue = unescapeIfNecessary(decodeString(buffer, colonIndex + 1, lineEnd));
 					try {
 						headerAccessor.addNativeHeader(headerName, headerValue);
 					}
@@ -247,6 +280,23 @@ public class StompDecoder {
 		}
 	}
 
+	/**
+	 * Return the header name in the given range of the buffer, using a
+	 * shared String instance for well-known header names.
+	 */
+	private String readHeaderName(ByteBuffer buffer, int start, int end) {
+		for (int i = 0; i < KNOWN_HEADER_NAME_BYTES.length; i++) {
+			if (matches(buffer, start, end, KNOWN_HEADER_NAME_BYTES[i])) {
+				return KNOWN_HEADER_NAMES[i];
+			}
+		}
+		return unescapeIfNecessary(decodeString(buffer, start, end));
+	}
+
+	private String unescapeIfNecessary(String inString) {
+		return (inString.indexOf('\\') != -1 ? unescape(inString) : inString);
+	}
+
 	/**
 	 * See STOMP Spec 1.2:
 	 * <a href="http://stomp.github.io/stomp-specification-1.2.html#Value_Encoding">"Value Encoding"</a>.
@@ -309,20 +359,79 @@ public class StompDecoder {
 			}
 		}
 		else {
-			ByteArrayOutputStream payload = new ByteArrayOutputStream(256);
-			while (buffer.remaining() > 0) {
-				byte b = buffer.get();
-				if (b == 0) {
-					return payload.toByteArray();
-				}
-				else {
-					payload.write(b);
-				}
+			int payloadEnd = indexOf(buffer, buffer.position(), buffer.limit(), (byte) 0);
+			if (payloadEnd != -1) {
+				byte[] payload = new byte[payloadEnd - buffer.position()];
+				buffer.get(payload);
+				buffer.get();
+				return payload;
 			}
+			buffer.position(buffer.limit());
 		}
 		return null;
 	}
 
+	/**
+	 * Scan for the end of the current line, advancing the buffer position
+	 * past the EOL, or to the limit of the buffer if there is no EOL.
+	 * @return the index at which the EOL starts, or the buffer limit
+	 */
+	private int findEndOfLine(ByteBuffer buffer) {
+		int limit = buffer.limit();
+		for (int i = buffer.position(); i < limit; i++) {
+			byte b = buffer.get(i);
+			if (b == '\n') {
+				buffer.position(i + 1);
+				return i;
+			}
+			else if (b == '\r') {
+				if (i + 1 < limit && buffer.get(i + 1) == '\n') {
+					buffer.position(i + 2);
+					return i;
+				}
+				throw new StompConversionException("'\\r' must be followed by '\\n'");
+			}
+		}
+		buffer.position(limit);
+		return limit;
+	}
+
+	private static int indexOf(ByteBuffer buffer, int start, int end, byte value) {
+		for (int i = start; i < end; i++) {
+			if (buffer.get(i) == value) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private static boolean matches(ByteBuffer buffer, int start, int end, byte[] bytes) {
+		if (end - start != bytes.length) {
+			return false;
+		}
+		for (int i = 0; i < bytes.length; i++) {
+			if (buffer.get(start + i) != bytes[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Decode the given range of the buffer as UTF-8, reading straight from
+	 * the backing array if available.
+	 */
+	private static String decodeString(ByteBuffer buffer, int start, int end) {
+		if (buffer.hasArray()) {
+			return new String(buffer.array(), buffer.arrayOffset() + start, end - start, UTF8_CHARSET);
+		}
+		byte[] bytes = new byte[end - start];
+		for (int i = 0; i < bytes.length; i++) {
+			bytes[i] = buffer.get(start + i);
+		}
+		return new String(bytes, UTF8_CHARSET);
+	}
+
 	/**
 	 * Try to read an EOL incrementing the buffer position if successful.
 	 *
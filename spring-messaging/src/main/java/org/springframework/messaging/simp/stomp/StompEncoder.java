@@ -19,10 +19,16 @@ package org.springframework.messaging.simp.stomp;
 import java.io.ByteArrayOutputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -46,8 +52,20 @@ public final class StompEncoder  {
 
 	private static final byte COLON = ':';
 
+	private static final List<String> PER_SUBSCRIPTION_HEADERS = Arrays.asList(
+			StompHeaderAccessor.STOMP_SUBSCRIPTION_HEADER, StompHeaderAccessor.STOMP_MESSAGE_ID_HEADER);
+
+	private static final int MESSAGE_TEMPLATE_CACHE_LIMIT = 32;
+
 	private final Log logger = LogFactory.getLog(StompEncoder.class);
 
+	/** Templates for the MESSAGE frames of recent broadcasts, keyed by broadcast id */
+	private final ConcurrentMap<Object, MessageTemplate> messageTemplates =
+			new ConcurrentHashMap<Object, MessageTemplate>(MESSAGE_TEMPLATE_CACHE_LIMIT);
+
+	/** Broadcast ids in the order in which their templates have been added */
+	private final Queue<Object> messageTemplateIds = new ConcurrentLinkedQueue<Object>();
+
 
 	/**
 	 * Encodes the given STOMP {@code message} into a {@code byte[]}
@@ -61,6 +79,12 @@ public final class StompEncoder  {
 
 	/**
 	 * Encodes the given payload and headers into a {@code byte[]}.
+	 * <p>MESSAGE frames which a broker has marked with a
+	 * {@linkplain SimpMessageHeaderAccessor#BROADCAST_ID_HEADER broadcast id}
+	 * are encoded from a template: everything but the subscription and
+	 * message-id headers is encoded once per broadcast and then re-used for
+	 * the frames of all subscribers. Templates of a limited number of recent
+	 * broadcasts are kept, so that concurrent broadcasts may interleave.
 	 *
 	 * @param headers the headers
 	 * @param payload the payload
@@ -70,6 +94,13 @@ public final class StompEncoder  {
 		Assert.notNull(headers, "'headers' is required");
 		Assert.notNull(payload, "'payload' is required");
 		try {
+			if (StompCommand.MESSAGE.equals(StompHeaderAccessor.getCommand(headers))) {
+				byte[] frame = encodeFromTemplate(headers, payload);
+				if (frame != null) {
+					return frame;
+				}
+			}
+
 			ByteArrayOutputStream baos = new ByteArrayOutputStream(128 + payload.length);
 			DataOutputStream output = new DataOutputStream(baos);
 
@@ -95,12 +126,50 @@ public final class StompEncoder  {
 		}
 	}
 
+	/**
+	 * Encode a MESSAGE frame from the template for its broadcast, creating the
+	 * template for the first frame of a broadcast. Only the subscription and
+	 * message-id headers are written per frame.
+	 * @return the encoded frame, or {@code null} if it is to be encoded regularly
+	 */
+	private byte[] encodeFromTemplate(Map<String, Object> headers, byte[] payload) throws IOException {
+		Object broadcastId = SimpMessageHeaderAccessor.getBroadcastId(headers);
+		Map<String, List<String>> nativeHeaders = getNativeHeaders(headers);
+		if (broadcastId == null || nativeHeaders == null) {
+			return null;
+		}
+		MessageTemplate template = this.messageTemplates.get(broadcastId);
+		if (template == null) {
+			template = new MessageTemplate(nativeHeaders, payload);
+			MessageTemplate existing = this.messageTemplates.putIfAbsent(broadcastId, template);
+			if (existing != null) {
+				template = existing;
+			}
+			else {
+				this.messageTemplateIds.offer(broadcastId);
+				while (this.messageTemplates.size() > MESSAGE_TEMPLATE_CACHE_LIMIT) {
+					Object eldestId = this.messageTemplateIds.poll();
+					if (eldestId == null) {
+						break;
+					}
+					this.messageTemplates.remove(eldestId);
+				}
+			}
+		}
+		if (!template.matches(nativeHeaders, payload)) {
+			// Headers modified for a specific subscriber, e.g. by an interceptor
+			return null;
+		}
+		if (logger.isDebugEnabled()) {
+			logger.debug("Encoding STOMP " + StompCommand.MESSAGE + ", headers=" + nativeHeaders);
+		}
+		return template.encode(nativeHeaders);
+	}
+
 	private void writeHeaders(StompCommand command, Map<String, Object> headers, byte[] payload, DataOutputStream output)
 			throws IOException {
 
-		@SuppressWarnings("unchecked")
-		Map<String,List<String>> nativeHeaders =
-				(Map<String, List<String>>) headers.get(NativeMessageHeaderAccessor.NATIVE_HEADERS);
+		Map<String,List<String>> nativeHeaders = getNativeHeaders(headers);
 
 		if (logger.isDebugEnabled()) {
 			logger.debug("Encoding STOMP " + command + ", headers=" + nativeHeaders);
@@ -118,21 +187,35 @@ public final class StompEncoder  {
 			if (StompHeaderAccessor.STOMP_PASSCODE_HEADER.equals(entry.getKey())) {
 				values = Arrays.asList(StompHeaderAccessor.getPasscode(headers));
 			}
-			for (String value : values) {
-				output.write(key);
-				output.write(COLON);
-				output.write(encodeHeaderString(value, shouldEscape));
-				output.write(LF);
-			}
+			writeHeader(key, values, shouldEscape, output);
 		}
 		if (command.requiresContentLength()) {
-			int contentLength = payload.length;
-			output.write("content-length:".getBytes(StompDecoder.UTF8_CHARSET));
-			output.write(Integer.toString(contentLength).getBytes(StompDecoder.UTF8_CHARSET));
+			writeContentLength(payload, output);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Map<String, List<String>> getNativeHeaders(Map<String, Object> headers) {
+		return (Map<String, List<String>>) headers.get(NativeMessageHeaderAccessor.NATIVE_HEADERS);
+	}
+
+	private void writeHeader(byte[] key, List<String> values, boolean escape, DataOutputStream output)
+			throws IOException {
+
+		for (String value : values) {
+			output.write(key);
+			output.write(COLON);
+			output.write(encodeHeaderString(value, escape));
 			output.write(LF);
 		}
 	}
 
+	private void writeContentLength(byte[] payload, DataOutputStream output) throws IOException {
+		output.write("content-length:".getBytes(StompDecoder.UTF8_CHARSET));
+		output.write(Integer.toString(payload.length).getBytes(StompDecoder.UTF8_CHARSET));
+		output.write(LF);
+	}
+
 	private byte[] encodeHeaderString(String input, boolean escape) {
 		input = escape ? escape(input) : input;
 		return input.getBytes(StompDecoder.UTF8_CHARSET);
@@ -169,4 +252,99 @@ public final class StompEncoder  {
 		output.write(payload);
 	}
 
+
+	/**
+	 * The encoded parts of a MESSAGE frame that are the same for all subscribers
+	 * of a broadcast: the command and the common headers, as well as the
+	 * content-length header and the body, interleaved with placeholders for
+	 * the subscription and message-id headers in their original position.
+	 * Frames are only encoded from the template if their payload and common
+	 * headers are in fact the same.
+	 */
+	private class MessageTemplate {
+
+		private final byte[] payload;
+
+		/** Header names in the order of the native headers */
+		private final List<String> names = new ArrayList<String>();
+
+		/** Values of the common headers, {@code null} for per-subscription headers */
+		private final List<List<String>> values = new ArrayList<List<String>>();
+
+		/** Encoded parts preceding each per-subscription header, plus the trailing part */
+		private final List<byte[]> segments = new ArrayList<byte[]>();
+
+		private int length;
+
+		public MessageTemplate(Map<String, List<String>> nativeHeaders, byte[] payload) throws IOException {
+			this.payload = payload;
+			ByteArrayOutputStream baos = new ByteArrayOutputStream(128 + payload.length);
+			DataOutputStream output = new DataOutputStream(baos);
+			output.write(StompCommand.MESSAGE.toString().getBytes(StompDecoder.UTF8_CHARSET));
+			output.write(LF);
+			for (Entry<String, List<String>> entry : nativeHeaders.entrySet()) {
+				this.names.add(entry.getKey());
+				if (PER_SUBSCRIPTION_HEADERS.contains(entry.getKey())) {
+					this.values.add(null);
+					addSegment(baos);
+				}
+				else {
+					this.values.add(new ArrayList<String>(entry.getValue()));
+					writeHeader(encodeHeaderString(entry.getKey(), true), entry.getValue(), true, output);
+				}
+			}
+			if (StompCommand.MESSAGE.requiresContentLength()) {
+				writeContentLength(payload, output);
+			}
+			output.write(LF);
+			writeBody(payload, output);
+			output.write((byte) 0);
+			addSegment(baos);
+		}
+
+		private void addSegment(ByteArrayOutputStream baos) {
+			byte[] segment = baos.toByteArray();
+			this.segments.add(segment);
+			this.length += segment.length;
+			baos.reset();
+		}
+
+		/**
+		 * Whether a frame with the given headers and payload can be encoded from this
+		 * template: same payload instance, same header names in the same order, and
+		 * same values for all but the per-subscription headers.
+		 */
+		public boolean matches(Map<String, List<String>> nativeHeaders, byte[] payload) {
+			if (this.payload != payload || this.names.size() != nativeHeaders.size()) {
+				return false;
+			}
+			int index = 0;
+			for (Entry<String, List<String>> entry : nativeHeaders.entrySet()) {
+				if (!this.names.get(index).equals(entry.getKey())) {
+					return false;
+				}
+				List<String> commonValues = this.values.get(index);
+				if (commonValues != null && !commonValues.equals(entry.getValue())) {
+					return false;
+				}
+				index++;
+			}
+			return true;
+		}
+
+		public byte[] encode(Map<String, List<String>> nativeHeaders) throws IOException {
+			ByteArrayOutputStream baos = new ByteArrayOutputStream(this.length + 64);
+			DataOutputStream output = new DataOutputStream(baos);
+			Iterator<byte[]> segmentIterator = this.segments.iterator();
+			for (Entry<String, List<String>> entry : nativeHeaders.entrySet()) {
+				if (PER_SUBSCRIPTION_HEADERS.contains(entry.getKey())) {
+					output.write(segmentIterator.next());
+					writeHeader(encodeHeaderString(entry.getKey(), true), entry.getValue(), true, output);
+				}
+			}
+			output.write(segmentIterator.next());
+			return baos.toByteArray();
+		}
+	}
+
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2013 the original author or authors.
+ * Copyright 2002-2014 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -34,6 +34,8 @@ public class IdTimestampMessageHeaderInitializer implements MessageHeaderInitial
 
 	private boolean enableTimestamp;
 
+	private boolean lazyIdAndTimestamp;
+
 
 	/**
 	 * Configure the IdGenerator strategy to initialize {@code MessageHeaderAccessor}
@@ -83,10 +85,35 @@ public class IdTimestampMessageHeaderInitializer implements MessageHeaderInitial
 		return this.enableTimestamp;
 	}
 
+	/**
+	 * Whether to defer the generation of the
+	 * {@link org.springframework.messaging.MessageHeaders#ID} and
+	 * {@link org.springframework.messaging.MessageHeaders#TIMESTAMP} header values
+	 * until they are first accessed. This avoids the cost of generating an id
+	 * for messages that are passed on without their id ever being inspected.
+	 *
+	 * <p>Note that the timestamp still reflects the time the headers were
+	 * completed. Iterating over the headers, comparing them, or copying them into
+	 * a {@code Map} other than {@code MessageHeaders} generates the values.
+	 *
+	 * <p>By default this property is set to false.
+	 */
+	public void setLazyIdAndTimestamp(boolean lazyIdAndTimestamp) {
+		this.lazyIdAndTimestamp = lazyIdAndTimestamp;
+	}
+
+	/**
+	 * @return Whether id and timestamp generation is deferred until first access.
+	 */
+	public boolean isLazyIdAndTimestamp() {
+		return this.lazyIdAndTimestamp;
+	}
+
 	@Override
 	public void initHeaders(MessageHeaderAccessor headerAccessor) {
 		headerAccessor.setIdGenerator(getIdGenerator());
 		headerAccessor.setEnableTimestamp(isEnableTimestamp());
+		headerAccessor.setLazyIdAndTimestamp(isLazyIdAndTimestamp());
 	}
 
 
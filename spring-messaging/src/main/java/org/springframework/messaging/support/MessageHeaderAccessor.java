@@ -123,6 +123,8 @@ public class MessageHeaderAccessor {
 
 	private boolean enableTimestamp = false;
 
+	private boolean lazyIdAndTimestamp = false;
+
 
 	/**
 	 * A constructor to create new headers.
@@ -302,6 +304,20 @@ public class MessageHeaderAccessor {
 		this.enableTimestamp = enableTimestamp;
 	}
 
+	/**
+	 * A package private mechanism to defer the generation of the
+	 * {@link org.springframework.messaging.MessageHeaders#ID} and
+	 * {@link org.springframework.messaging.MessageHeaders#TIMESTAMP} header
+	 * values until they are first accessed.
+	 *
+	 * <p>By default this property is set to false.
+	 *
+	 * @see org.springframework.messaging.support.IdTimestampMessageHeaderInitializer
+	 */
+	void setLazyIdAndTimestamp(boolean lazyIdAndTimestamp) {
+		this.lazyIdAndTimestamp = lazyIdAndTimestamp;
+	}
+
 	public boolean isModified() {
 		return this.modified;
 	}
@@ -511,21 +527,37 @@ public class MessageHeaderAccessor {
 			if (!isMutable()) {
 				return;
 			}
+			boolean lazy = MessageHeaderAccessor.this.lazyIdAndTimestamp;
+			IdGenerator deferredIdGenerator = null;
+			Long deferredTimestamp = null;
 			if (getId() == null) {
 				IdGenerator idGenerator = (MessageHeaderAccessor.this.idGenerator != null) ?
 						MessageHeaderAccessor.this.idGenerator :
 						MessageHeaders.getIdGenerator();
 
-				UUID id = idGenerator.generateId();
-				if (id != null && id != MessageHeaders.ID_VALUE_NONE) {
-					getRawHeaders().put(ID, id);
+				if (lazy) {
+					deferredIdGenerator = idGenerator;
+				}
+				else {
+					UUID id = idGenerator.generateId();
+					if (id != null && id != MessageHeaders.ID_VALUE_NONE) {
+						getRawHeaders().put(ID, id);
+					}
 				}
 			}
 			if (getTimestamp() == null) {
 				if (MessageHeaderAccessor.this.enableTimestamp) {
-					getRawHeaders().put(TIMESTAMP, System.currentTimeMillis());
+					if (lazy) {
+						deferredTimestamp = System.currentTimeMillis();
+					}
+					else {
+						getRawHeaders().put(TIMESTAMP, System.currentTimeMillis());
+					}
 				}
 			}
+			if (lazy) {
+				deferIdAndTimestamp(deferredIdGenerator, deferredTimestamp);
+			}
 		}
 	}
 
@@ -0,0 +1,204 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.messaging.support;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.util.Assert;
+
+/**
+ * An {@link ExecutorSubscribableChannel} that partitions messages by the value
+ * of a message header into a fixed number of lanes. Messages within a lane are
+ * handled one at a time in the order they were sent, while different lanes are
+ * processed concurrently on the executor.
+ *
+ * <p>This preserves ordering per partition key, e.g. per client session with
+ * {@link org.springframework.messaging.simp.SimpMessageHeaderAccessor#SESSION_ID_HEADER}
+ * or per destination with
+ * {@link org.springframework.messaging.simp.SimpMessageHeaderAccessor#DESTINATION_HEADER},
+ * while still spreading the overall load across threads. Messages without the
+ * partition key header are dispatched as in {@link ExecutorSubscribableChannel},
+ * i.e. without any ordering guarantee.
+ *
+ * <p>Lanes do not own threads: each lane submits a task to the shared executor
+ * whenever it has pending messages, so the executor should have at least as many
+ * threads as there are partitions in order for all lanes to make progress at once.
+ *
+ * @author agent
+ * @since 4.1
+ */
+public class PartitionedExecutorSubscribableChannel extends ExecutorSubscribableChannel {
+
+	/**
+	 * The maximum number of messages a lane processes before
+	 * yielding its thread to other tasks of the executor.
+	 */
+	private static final int MAX_MESSAGES_PER_RUN = 100;
+
+
+	private final String partitionKeyHeader;
+
+	private final Lane[] lanes;
+
+
+	/**
+	 * Create a new {@code PartitionedExecutorSubscribableChannel}.
+	 * @param executor the executor to process the lanes with
+	 * @param partitionKeyHeader the name of the message header to partition by
+	 * @param partitionCount the number of lanes
+	 */
+	public PartitionedExecutorSubscribableChannel(Executor executor, String partitionKeyHeader, int partitionCount) {
+		super(executor);
+		Assert.notNull(executor, "Executor must not be null");
+		Assert.hasText(partitionKeyHeader, "Partition key header must not be empty");
+		Assert.isTrue(partitionCount > 0, "Partition count must be greater than 0");
+		this.partitionKeyHeader = partitionKeyHeader;
+		this.lanes = new Lane[partitionCount];
+		for (int i = 0; i < partitionCount; i++) {
+			this.lanes[i] = new Lane();
+		}
+	}
+
+
+	/**
+	 * Return the name of the message header messages are partitioned by.
+	 */
+	public String getPartitionKeyHeader() {
+		return this.partitionKeyHeader;
+	}
+
+	/**
+	 * Return the number of partitions.
+	 */
+	public int getPartitionCount() {
+		return this.lanes.length;
+	}
+
+	/**
+	 * Return the number of messages waiting to be handled in the given partition.
+	 */
+	public int getPendingMessageCount(int partition) {
+		return this.lanes[partition].pendingCount.get();
+	}
+
+	/**
+	 * Return the number of messages handled so far in the given partition.
+	 */
+	public long getProcessedMessageCount(int partition) {
+		return this.lanes[partition].processedCount.get();
+	}
+
+	/**
+	 * Return a summary of pending and processed messages per partition.
+	 */
+	public String getStatsInfo() {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < this.lanes.length; i++) {
+			if (i > 0) {
+				sb.append(", ");
+			}
+			sb.append("partition ").append(i).append(" [pending ").append(getPendingMessageCount(i));
+			sb.append(", processed ").append(getProcessedMessageCount(i)).append("]");
+		}
+		return sb.toString();
+	}
+
+
+	@Override
+	public boolean sendInternal(final Message<?> message, long timeout) {
+		Object key = message.getHeaders().get(this.partitionKeyHeader);
+		if (key == null) {
+			return super.sendInternal(message, timeout);
+		}
+		Lane lane = this.lanes[(key.hashCode() & Integer.MAX_VALUE) % this.lanes.length];
+		for (final MessageHandler handler : getSubscribers()) {
+			lane.execute(new Runnable() {
+				@Override
+				public void run() {
+					handler.handleMessage(message);
+				}
+			});
+		}
+		return true;
+	}
+
+
+	/**
+	 * Runs the tasks submitted to it one at a time and in order,
+	 * borrowing a thread from the executor while there is work.
+	 */
+	private class Lane implements Runnable {
+
+		private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<Runnable>();
+
+		private final AtomicBoolean scheduled = new AtomicBoolean();
+
+		private final AtomicInteger pendingCount = new AtomicInteger();
+
+		private final AtomicLong processedCount = new AtomicLong();
+
+		public void execute(Runnable task) {
+			this.tasks.add(task);
+			this.pendingCount.incrementAndGet();
+			scheduleIfNecessary();
+		}
+
+		private void scheduleIfNecessary() {
+			if (!this.tasks.isEmpty() && this.scheduled.compareAndSet(false, true)) {
+				try {
+					getExecutor().execute(this);
+				}
+				catch (RuntimeException ex) {
+					this.scheduled.set(false);
+					throw ex;
+				}
+			}
+		}
+
+		@Override
+		public void run() {
+			try {
+				for (int i = 0; i < MAX_MESSAGES_PER_RUN; i++) {
+					Runnable task = this.tasks.poll();
+					if (task == null) {
+						break;
+					}
+					this.pendingCount.decrementAndGet();
+					try {
+						task.run();
+					}
+					catch (Throwable ex) {
+						logger.error("Failed to handle message in partition of channel [" + getBeanName() + "]", ex);
+					}
+					this.processedCount.incrementAndGet();
+				}
+			}
+			finally {
+				this.scheduled.set(false);
+				scheduleIfNecessary();
+			}
+		}
+	}
+
+}
@@ -26,6 +26,7 @@ import org.springframework.messaging.Message;
 import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.messaging.simp.SimpMessageType;
 import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.AntPathMatcher;
 import org.springframework.util.MultiValueMap;
 
 import static org.junit.Assert.*;
@@ -246,6 +247,74 @@ public class DefaultSubscriptionRegistryTests {
 		assertEquals("Expected no elements " + actual, 0, actual.size());
 	}
 
+	@Test
+	public void registerSubscriptionWithDoubleWildcardPattern() {
+
+		String sessId = "sess01";
+
+		this.registry.registerSubscription(subscribeMessage(sessId, "subs01", "/topic/**"));
+		this.registry.registerSubscription(subscribeMessage(sessId, "subs02", "/topic/PRICE/**/IBM"));
+		this.registry.registerSubscription(subscribeMessage(sessId, "subs03", "/**"));
+
+		assertEquals(Arrays.asList("subs01", "subs03"), this.registry.findSubscriptions(message("/topic")).get(sessId));
+		assertEquals(Arrays.asList("subs01", "subs02", "subs03"),
+				this.registry.findSubscriptions(message("/topic/PRICE/IBM")).get(sessId));
+		assertEquals(Arrays.asList("subs01", "subs02", "subs03"),
+				this.registry.findSubscriptions(message("/topic/PRICE/NASDAQ/IBM")).get(sessId));
+		assertEquals(Arrays.asList("subs03"), this.registry.findSubscriptions(message("/queue/IBM")).get(sessId));
+		assertEquals(0, this.registry.findSubscriptions(message("topic/IBM")).size());
+	}
+
+	@Test
+	public void registerSubscriptionWithCustomPathSeparator() {
+
+		String sessId = "sess01";
+		AntPathMatcher pathMatcher = new AntPathMatcher();
+		pathMatcher.setPathSeparator(".");
+		this.registry.setPathMatcher(pathMatcher);
+
+		this.registry.registerSubscription(subscribeMessage(sessId, "subs01", "PRICE.STOCK.*.IBM"));
+		this.registry.registerSubscription(subscribeMessage(sessId, "subs02", "PRICE.STOCK.NASDAQ.IBM"));
+		this.registry.registerSubscription(subscribeMessage(sessId, "subs03", "PRICE.STOCK.**"));
+
+		assertEquals(Arrays.asList("subs01", "subs02", "subs03"),
+				this.registry.findSubscriptions(message("PRICE.STOCK.NASDAQ.IBM")).get(sessId));
+		assertEquals(Arrays.asList("subs01", "subs03"),
+				this.registry.findSubscriptions(message("PRICE.STOCK.NYSE.IBM")).get(sessId));
+		assertEquals(0, this.registry.findSubscriptions(message("PRICE.BOND.NYSE.IBM")).size());
+	}
+
+	@Test
+	public void registerSubscriptionsBeforePathMatcherChange() {
+
+		String sessId = "sess01";
+		this.registry.registerSubscription(subscribeMessage(sessId, "subs01", "PRICE.*"));
+		assertEquals(Arrays.asList("subs01"), this.registry.findSubscriptions(message("PRICE.STOCK.IBM")).get(sessId));
+
+		AntPathMatcher pathMatcher = new AntPathMatcher();
+		pathMatcher.setPathSeparator(".");
+		this.registry.setPathMatcher(pathMatcher);
+		assertEquals(0, this.registry.findSubscriptions(message("PRICE.STOCK.IBM")).size());
+		assertEquals(Arrays.asList("subs01"), this.registry.findSubscriptions(message("PRICE.STOCK")).get(sessId));
+	}
+
+	@Test
+	public void registerSubscriptionWithCustomPathMatcher() {
+
+		String sessId = "sess01";
+		this.registry.setPathMatcher(new AntPathMatcher() {});
+
+		this.registry.registerSubscription(subscribeMessage(sessId, "subs01", "/topic/PRICE.STOCK.*.IBM"));
+		this.registry.registerSubscription(subscribeMessage(sessId, "subs02", "/topic/**"));
+
+		MultiValueMap<String, String> actual = this.registry.findSubscriptions(message("/topic/PRICE.STOCK.NASDAQ.IBM"));
+		assertEquals(2, sort(actual.get(sessId)).size());
+
+		this.registry.unregisterSubscription(unsubscribeMessage(sessId, "subs02"));
+		actual = this.registry.findSubscriptions(message("/topic/PRICE.STOCK.NASDAQ.IBM"));
+		assertEquals(Arrays.asList("subs01"), actual.get(sessId));
+	}
+
 	@Test
 	public void unregisterSubscription() {
 
@@ -292,6 +361,13 @@ public class DefaultSubscriptionRegistryTests {
 		assertEquals(subscriptionIds, sort(actual.get(sessIds.get(2))));
 	}
 
+	@Test
+	public void unregisterUnknownSubscription() {
+		this.registry.registerSubscription(subscribeMessage("sess01", "subs01", "/foo"));
+		this.registry.unregisterSubscription(unsubscribeMessage("sess01", "bogus"));
+		assertEquals(Arrays.asList("subs01"), this.registry.findSubscriptions(message("/foo")).get("sess01"));
+	}
+
 	@Test
 	public void unregisterAllSubscriptionsNoMatch() {
 		this.registry.unregisterAllSubscriptions("bogus");
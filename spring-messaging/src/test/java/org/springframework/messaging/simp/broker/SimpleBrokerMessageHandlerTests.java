@@ -91,6 +91,37 @@ public class SimpleBrokerMessageHandlerTests {
 		assertCapturedMessage("sess2", "sub3", "/bar");
 	}
 
+	@Test
+	public void broadcastPayloadAndIdShared() {
+
+		this.messageHandler.start();
+
+		this.messageHandler.handleMessage(createSubscriptionMessage("sess1", "sub1", "/foo"));
+		this.messageHandler.handleMessage(createSubscriptionMessage("sess2", "sub1", "/foo"));
+		this.messageHandler.handleMessage(createSubscriptionMessage("sess1", "sub2", "/bar"));
+
+		this.messageHandler.handleMessage(createMessage("/foo", "message1"));
+		this.messageHandler.handleMessage(createMessage("/foo", "message2"));
+		this.messageHandler.handleMessage(createMessage("/bar", "message3"));
+
+		verify(this.clientOutboundChannel, times(5)).send(this.messageCaptor.capture());
+		Message<?> first = this.messageCaptor.getAllValues().get(0);
+		Message<?> second = this.messageCaptor.getAllValues().get(1);
+		Message<?> next = this.messageCaptor.getAllValues().get(2);
+		Message<?> single = this.messageCaptor.getAllValues().get(4);
+		assertSame(first.getPayload(), second.getPayload());
+		assertNotEquals(SimpMessageHeaderAccessor.getSessionId(first.getHeaders()),
+				SimpMessageHeaderAccessor.getSessionId(second.getHeaders()));
+		assertNotNull(SimpMessageHeaderAccessor.getBroadcastId(first.getHeaders()));
+		assertEquals(SimpMessageHeaderAccessor.getBroadcastId(first.getHeaders()),
+				SimpMessageHeaderAccessor.getBroadcastId(second.getHeaders()));
+		assertNotEquals(SimpMessageHeaderAccessor.getBroadcastId(first.getHeaders()),
+				SimpMessageHeaderAccessor.getBroadcastId(next.getHeaders()));
+		assertNull(SimpMessageHeaderAccessor.getBroadcastId(single.getHeaders()));
+		assertNull(SimpMessageHeaderAccessor.wrap(first).getFirstNativeHeader(
+				SimpMessageHeaderAccessor.BROADCAST_ID_HEADER));
+	}
+
 	@Test
 	public void subcribeDisconnectPublish() {
 
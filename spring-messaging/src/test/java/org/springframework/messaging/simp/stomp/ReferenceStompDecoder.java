@@ -0,0 +1,186 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.messaging.simp.stomp;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.MessageBuilder;
+
+/**
+ * The {@link StompDecoder} algorithm prior to in-place frame scanning, copying
+ * commands, header lines and bodies through {@link ByteArrayOutputStream}s.
+ * Only used as a baseline for decoder throughput comparisons.
+ *
+ * @author Andy Wilkinson
+ * @author Rossen Stoyanchev
+ */
+class ReferenceStompDecoder {
+
+	private static final Charset UTF8_CHARSET = Charset.forName("UTF-8");
+
+
+	public List<Message<byte[]>> decode(ByteBuffer buffer) {
+		List<Message<byte[]>> messages = new ArrayList<Message<byte[]>>();
+		while (buffer.hasRemaining()) {
+			Message<byte[]> m = decodeMessage(buffer);
+			if (m != null) {
+				messages.add(m);
+			}
+			else {
+				break;
+			}
+		}
+		return messages;
+	}
+
+	private Message<byte[]> decodeMessage(ByteBuffer buffer) {
+		skipLeadingEol(buffer);
+		buffer.mark();
+
+		String command = readCommand(buffer);
+		if (command.length() > 0) {
+			StompHeaderAccessor headerAccessor = null;
+			byte[] payload = null;
+			if (buffer.remaining() > 0) {
+				StompCommand stompCommand = StompCommand.valueOf(command);
+				headerAccessor = StompHeaderAccessor.create(stompCommand);
+				readHeaders(buffer, headerAccessor);
+				payload = readPayload(buffer, headerAccessor);
+			}
+			if (payload != null) {
+				headerAccessor.updateSimpMessageHeadersFromStompHeaders();
+				headerAccessor.setLeaveMutable(true);
+				return MessageBuilder.createMessage(payload, headerAccessor.getMessageHeaders());
+			}
+			buffer.reset();
+			return null;
+		}
+		else {
+			StompHeaderAccessor headerAccessor = StompHeaderAccessor.createForHeartbeat();
+			headerAccessor.setLeaveMutable(true);
+			return MessageBuilder.createMessage(StompDecoder.HEARTBEAT_PAYLOAD, headerAccessor.getMessageHeaders());
+		}
+	}
+
+	private void skipLeadingEol(ByteBuffer buffer) {
+		while (true) {
+			if (!tryConsumeEndOfLine(buffer)) {
+				break;
+			}
+		}
+	}
+
+	private String readCommand(ByteBuffer buffer) {
+		ByteArrayOutputStream command = new ByteArrayOutputStream(256);
+		while (buffer.remaining() > 0 && !tryConsumeEndOfLine(buffer)) {
+			command.write(buffer.get());
+		}
+		return new String(command.toByteArray(), UTF8_CHARSET);
+	}
+
+	private void readHeaders(ByteBuffer buffer, StompHeaderAccessor headerAccessor) {
+		while (true) {
+			ByteArrayOutputStream headerStream = new ByteArrayOutputStream(256);
+			while (buffer.remaining() > 0 && !tryConsumeEndOfLine(buffer)) {
+				headerStream.write(buffer.get());
+			}
+			if (headerStream.size() > 0) {
+				String header = new String(headerStream.toByteArray(), UTF8_CHARSET);
+				int colonIndex = header.indexOf(':');
+				if (colonIndex > 0 && colonIndex < header.length() - 1) {
+					String headerName = unescape(header.substring(0, colonIndex));
+					String headerValue = unescape(header.substring(colonIndex + 1));
+					headerAccessor.addNativeHeader(headerName, headerValue);
+				}
+			}
+			else {
+				break;
+			}
+		}
+	}
+
+	private String unescape(String inString) {
+		StringBuilder sb = new StringBuilder();
+		int pos = 0;
+		int index = inString.indexOf("\\");
+		while (index >= 0) {
+			sb.append(inString.substring(pos, index));
+			char c = inString.charAt(index + 1);
+			if (c == 'r') {
+				sb.append('\r');
+			}
+			else if (c == 'n') {
+				sb.append('\n');
+			}
+			else if (c == 'c') {
+				sb.append(':');
+			}
+			else {
+				sb.append('\\');
+			}
+			pos = index + 2;
+			index = inString.indexOf("\\", pos);
+		}
+		sb.append(inString.substring(pos));
+		return sb.toString();
+	}
+
+	private byte[] readPayload(ByteBuffer buffer, StompHeaderAccessor headerAccessor) {
+		Integer contentLength = headerAccessor.getContentLength();
+		if (contentLength != null && contentLength >= 0) {
+			if (buffer.remaining() > contentLength) {
+				byte[] payload = new byte[contentLength];
+				buffer.get(payload);
+				buffer.get();
+				return payload;
+			}
+			return null;
+		}
+		ByteArrayOutputStream payload = new ByteArrayOutputStream(256);
+		while (buffer.remaining() > 0) {
+			byte b = buffer.get();
+			if (b == 0) {
+				return payload.toByteArray();
+			}
+			payload.write(b);
+		}
+		return null;
+	}
+
+	private boolean tryConsumeEndOfLine(ByteBuffer buffer) {
+		if (buffer.remaining() > 0) {
+			byte b = buffer.get();
+			if (b == '\n') {
+				return true;
+			}
+			else if (b == '\r') {
+				if (buffer.remaining() > 0 && buffer.get() == '\n') {
+					return true;
+				}
+				throw new StompConversionException("'\\r' must be followed by '\\n'");
+			}
+			buffer.position(buffer.position() - 1);
+		}
+		return false;
+	}
+
+}
@@ -17,14 +17,21 @@
 package org.springframework.messaging.simp.stomp;
 
 import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 import org.junit.Test;
 import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.messaging.simp.SimpMessageType;
 import org.springframework.messaging.support.MessageBuilder;
 
+import org.springframework.tests.Assume;
+import org.springframework.tests.TestGroup;
 import org.springframework.util.InvalidMimeTypeException;
 import reactor.function.Consumer;
 import reactor.function.Function;
@@ -39,6 +46,8 @@ import static org.junit.Assert.*;
  */
 public class StompCodecTests {
 
+	private static final Charset UTF8_CHARSET = Charset.forName("UTF-8");
+
 	private final ArgumentCapturingConsumer<Message<byte[]>> consumer = new ArgumentCapturingConsumer<Message<byte[]>>();
 
 	private final Function<Buffer, Message<byte[]>> decoder = new Reactor11StompCodec().decoder(consumer);
@@ -163,6 +172,84 @@ public class StompCodecTests {
 		assertEquals("alpha:bravo\r\n\\", headers.getFirstNativeHeader("a:\r\n\\b"));
 	}
 
+	@Test
+	public void decodeFrameWithMultiByteHeaderValue() {
+		byte[] bytes = "SEND\ndestination:/topic/café\nx-ü:äö\n\n\0".getBytes(UTF8_CHARSET);
+
+		List<Message<byte[]>> messages = new StompDecoder().decode(ByteBuffer.wrap(bytes));
+		assertEquals(1, messages.size());
+		StompHeaderAccessor headers = StompHeaderAccessor.wrap(messages.get(0));
+
+		assertEquals("/topic/café", headers.getDestination());
+		assertEquals("äö", headers.getFirstNativeHeader("x-ü"));
+	}
+
+	@Test
+	public void decodeFrameFromDirectBuffer() {
+		byte[] bytes = "SEND\ndestination:test\ncontent-length:4\n\nbody\0".getBytes(UTF8_CHARSET);
+		ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+		buffer.put(bytes);
+		buffer.flip();
+
+		List<Message<byte[]>> messages = new StompDecoder().decode(buffer);
+		assertEquals(1, messages.size());
+		StompHeaderAccessor headers = StompHeaderAccessor.wrap(messages.get(0));
+		assertEquals(StompCommand.SEND, headers.getCommand());
+		assertEquals("test", headers.getDestination());
+		assertEquals("body", new String(messages.get(0).getPayload(), UTF8_CHARSET));
+	}
+
+	@Test
+	public void decodeFrameFromSlicedBuffer() {
+		byte[] bytes = "xxSUBSCRIBE\nid:1\ndestination:/queue/a\n\n\0".getBytes(UTF8_CHARSET);
+		ByteBuffer buffer = ByteBuffer.wrap(bytes, 2, bytes.length - 2).slice();
+
+		List<Message<byte[]>> messages = new StompDecoder().decode(buffer);
+		assertEquals(1, messages.size());
+		StompHeaderAccessor headers = StompHeaderAccessor.wrap(messages.get(0));
+		assertEquals(StompCommand.SUBSCRIBE, headers.getCommand());
+		assertEquals("1", headers.getSubscriptionId());
+		assertEquals("/queue/a", headers.getDestination());
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void decodeFrameWithUnknownCommand() {
+		decode("FOO\n\n\0");
+	}
+
+	@Test
+	public void decodePerformance() {
+		Assume.group(TestGroup.PERFORMANCE);
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 100; i++) {
+			sb.append("MESSAGE\nsubscription:sub-").append(i).append("\nmessage-id:").append(i);
+			sb.append("\ndestination:/topic/prices\ncontent-type:application/json;charset=UTF-8\n");
+			sb.append("content-length:17\n\n{\"price\": 42.125}\0");
+		}
+		byte[] bytes = sb.toString().getBytes(UTF8_CHARSET);
+		StompDecoder stompDecoder = new StompDecoder();
+		ReferenceStompDecoder referenceDecoder = new ReferenceStompDecoder();
+
+		long time = Long.MAX_VALUE;
+		long referenceTime = Long.MAX_VALUE;
+		for (int run = 0; run < 5; run++) {
+			long start = System.nanoTime();
+			for (int i = 0; i < 1000; i++) {
+				assertEquals(100, stompDecoder.decode(ByteBuffer.wrap(bytes)).size());
+			}
+			time = Math.min(time, System.nanoTime() - start);
+
+			start = System.nanoTime();
+			for (int i = 0; i < 1000; i++) {
+				assertEquals(100, referenceDecoder.decode(ByteBuffer.wrap(bytes)).size());
+			}
+			referenceTime = Math.min(referenceTime, System.nanoTime() - start);
+		}
+
+		assertTrue("Decoding took " + time + " ns compared to " + referenceTime + " ns for the reference decoder",
+				time < referenceTime);
+	}
+
 	@Test(expected=StompConversionException.class)
 	public void decodeFrameBodyNotAllowed() {
 		decode("CONNECT\naccept-version:1.2\n\nThe body of the message\0");
@@ -290,6 +377,106 @@ public class StompCodecTests {
 				new Reactor11StompCodec().encoder().apply(frame).asString());
 	}
 
+	@Test
+	public void encodeBroadcastMessage() {
+		byte[] payload = "Message body".getBytes(UTF8_CHARSET);
+		StompEncoder encoder = new StompEncoder();
+
+		for (int i = 0; i < 3; i++) {
+			String frame = encodeToString(encoder, createMessageHeaders("b1", "sess" + i, "sub:" + i, "alpha"), payload);
+			assertEquals(encodeToString(new StompEncoder(), createMessageHeaders(null, "sess" + i, "sub:" + i, "alpha"),
+					payload), frame);
+			assertEquals("MESSAGE\na:alpha\nsubscription:sub\\c" + i + "\nmessage-id:sess" + i +
+					"-0\ndestination:/topic/foo\ncontent-length:12\n\nMessage body\0", frame);
+		}
+	}
+
+	@Test
+	public void encodeInterleavedBroadcastMessages() {
+		byte[] payload1 = "first".getBytes(UTF8_CHARSET);
+		byte[] payload2 = "second".getBytes(UTF8_CHARSET);
+		StompEncoder encoder = new StompEncoder();
+
+		for (int i = 0; i < 3; i++) {
+			assertEquals("MESSAGE\na:alpha\nsubscription:sub" + i + "\nmessage-id:sess" + i +
+					"-0\ndestination:/topic/foo\ncontent-length:5\n\nfirst\0",
+					encodeToString(encoder, createMessageHeaders("b1", "sess" + i, "sub" + i, "alpha"), payload1));
+			assertEquals("MESSAGE\na:beta\nsubscription:sub" + i + "\nmessage-id:sess" + i +
+					"-0\ndestination:/topic/foo\ncontent-length:6\n\nsecond\0",
+					encodeToString(encoder, createMessageHeaders("b2", "sess" + i, "sub" + i, "beta"), payload2));
+		}
+	}
+
+	@Test
+	public void encodeBroadcastMessageWithOtherHeaderValues() {
+		byte[] payload = "Message body".getBytes(UTF8_CHARSET);
+		StompEncoder encoder = new StompEncoder();
+		encoder.encode(createMessageHeaders("b1", "sess1", "sub1", "alpha"), payload);
+
+		String frame = encodeToString(encoder, createMessageHeaders("b1", "sess2", "sub1", "beta"), payload);
+		assertTrue(frame.startsWith("MESSAGE\na:beta\nsubscription:sub1\nmessage-id:sess2-0\n"));
+	}
+
+	@Test
+	public void encodeBroadcastMessageWithOtherPayload() {
+		StompEncoder encoder = new StompEncoder();
+		encoder.encode(createMessageHeaders("b1", "sess1", "sub1", "alpha"), "first".getBytes(UTF8_CHARSET));
+
+		String frame = encodeToString(encoder, createMessageHeaders("b1", "sess2", "sub1", "alpha"),
+				"second".getBytes(UTF8_CHARSET));
+		assertTrue(frame.endsWith("\ncontent-length:6\n\nsecond\0"));
+	}
+
+	@Test
+	public void encodeBroadcastPerformance() {
+		Assume.group(TestGroup.PERFORMANCE);
+		byte[] payload = new byte[1024];
+		Arrays.fill(payload, (byte) 'x');
+		int subscriberCount = 10000;
+		List<Map<String, Object>> broadcastHeaders = new ArrayList<Map<String, Object>>(subscriberCount);
+		List<Map<String, Object>> regularHeaders = new ArrayList<Map<String, Object>>(subscriberCount);
+		for (int i = 0; i < subscriberCount; i++) {
+			broadcastHeaders.add(createMessageHeaders("b1", "sess" + i, "sub" + i, "alpha"));
+			regularHeaders.add(createMessageHeaders(null, "sess" + i, "sub" + i, "alpha"));
+		}
+		StompEncoder encoder = new StompEncoder();
+
+		long time = Long.MAX_VALUE;
+		long regularTime = Long.MAX_VALUE;
+		for (int run = 0; run < 5; run++) {
+			long start = System.nanoTime();
+			for (Map<String, Object> headers : broadcastHeaders) {
+				encoder.encode(headers, payload);
+			}
+			time = Math.min(time, System.nanoTime() - start);
+
+			start = System.nanoTime();
+			for (Map<String, Object> headers : regularHeaders) {
+				encoder.encode(headers, payload);
+			}
+			regularTime = Math.min(regularTime, System.nanoTime() - start);
+		}
+
+		assertTrue("Fan-out to " + subscriberCount + " subscribers took " + time + " ns compared to " +
+				regularTime + " ns without broadcast id", time < regularTime);
+	}
+
+	private Map<String, Object> createMessageHeaders(String broadcastId, String sessionId,
+			String subscriptionId, String value) {
+
+		StompHeaderAccessor headers = StompHeaderAccessor.create(StompCommand.MESSAGE);
+		headers.addNativeHeader("a", value);
+		headers.setSubscriptionId(subscriptionId);
+		headers.setMessageId(sessionId + "-0");
+		headers.setDestination("/topic/foo");
+		headers.setHeader(SimpMessageHeaderAccessor.BROADCAST_ID_HEADER, broadcastId);
+		return headers.getMessageHeaders();
+	}
+
+	private String encodeToString(StompEncoder encoder, Map<String, Object> headers, byte[] payload) {
+		return new String(encoder.encode(headers, payload), UTF8_CHARSET);
+	}
+
 	private void assertIncompleteDecode(String partialFrame) {
 		Buffer buffer = Buffer.wrap(partialFrame);
 		assertNull(decode(buffer));
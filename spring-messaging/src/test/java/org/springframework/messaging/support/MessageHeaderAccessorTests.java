@@ -21,6 +21,7 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Rule;
 import org.junit.Test;
@@ -250,6 +251,61 @@ public class MessageHeaderAccessorTests {
 		assertNotNull(headers.getTimestamp());
 	}
 
+	@Test
+	public void idTimestampLazy() {
+		final AtomicInteger count = new AtomicInteger();
+		final UUID id = new UUID(0L, 23L);
+		MessageHeaderAccessor accessor = new MessageHeaderAccessor();
+		accessor.setIdGenerator(new IdGenerator() {
+			@Override
+			public UUID generateId() {
+				count.incrementAndGet();
+				return id;
+			}
+		});
+		accessor.setEnableTimestamp(true);
+		accessor.setLazyIdAndTimestamp(true);
+		accessor.setHeader("foo", "bar");
+		MessageHeaders headers = accessor.getMessageHeaders();
+
+		assertEquals("bar", headers.get("foo"));
+		assertEquals(0, count.get());
+
+		MessageHeaderAccessor copy = new MessageHeaderAccessor(MessageBuilder.createMessage("payload", headers));
+		assertEquals("bar", copy.getHeader("foo"));
+		assertEquals(0, count.get());
+
+		assertSame(id, headers.getId());
+		assertNotNull(headers.getTimestamp());
+		assertEquals(3, headers.size());
+		assertEquals(1, count.get());
+	}
+
+	@Test
+	public void idTimestampLazyMaterializedByIteration() {
+		MessageHeaderAccessor accessor = new MessageHeaderAccessor();
+		accessor.setEnableTimestamp(true);
+		accessor.setLazyIdAndTimestamp(true);
+		MessageHeaders headers = accessor.getMessageHeaders();
+
+		assertEquals(new HashSet<String>(Arrays.asList(MessageHeaders.ID, MessageHeaders.TIMESTAMP)), headers.keySet());
+		assertEquals(headers.getId(), headers.get(MessageHeaders.ID));
+	}
+
+	@Test
+	public void idTimestampLazyWithIdGenerationDisabled() {
+		IdTimestampMessageHeaderInitializer initializer = new IdTimestampMessageHeaderInitializer();
+		initializer.setDisableIdGeneration();
+		initializer.setLazyIdAndTimestamp(true);
+		MessageHeaderAccessor accessor = new MessageHeaderAccessor();
+		initializer.initHeaders(accessor);
+		MessageHeaders headers = accessor.getMessageHeaders();
+
+		assertFalse(headers.containsKey(MessageHeaders.ID));
+		assertNull(headers.getId());
+		assertTrue(headers.isEmpty());
+	}
+
 
 	public static class TestMessageHeaderAccessor extends MessageHeaderAccessor {
 
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.messaging.support;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.MessagingException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link PartitionedExecutorSubscribableChannel}.
+ *
+ * @author agent
+ */
+public class PartitionedExecutorSubscribableChannelTests {
+
+	private static final String KEY_HEADER = "sessionId";
+
+	private ThreadPoolTaskExecutor executor;
+
+	private PartitionedExecutorSubscribableChannel channel;
+
+
+	@Before
+	public void setup() {
+		this.executor = new ThreadPoolTaskExecutor();
+		this.executor.setCorePoolSize(4);
+		this.executor.afterPropertiesSet();
+		this.channel = new PartitionedExecutorSubscribableChannel(this.executor, KEY_HEADER, 4);
+	}
+
+	@After
+	public void shutdown() {
+		this.executor.shutdown();
+	}
+
+
+	@Test
+	public void orderPreservedPerKey() throws Exception {
+		int keyCount = 10;
+		int messagesPerKey = 500;
+		final CountDownLatch latch = new CountDownLatch(keyCount * messagesPerKey);
+		final Map<String, List<Integer>> received = new ConcurrentHashMap<String, List<Integer>>();
+		for (int i = 0; i < keyCount; i++) {
+			received.put("s" + i, Collections.synchronizedList(new ArrayList<Integer>()));
+		}
+		this.channel.subscribe(new MessageHandler() {
+			@Override
+			public void handleMessage(Message<?> message) throws MessagingException {
+				received.get(message.getHeaders().get(KEY_HEADER)).add((Integer) message.getPayload());
+				latch.countDown();
+			}
+		});
+
+		for (int i = 0; i < messagesPerKey; i++) {
+			for (int j = 0; j < keyCount; j++) {
+				this.channel.send(MessageBuilder.withPayload(i).setHeader(KEY_HEADER, "s" + j).build());
+			}
+		}
+
+		assertTrue(latch.await(5, TimeUnit.SECONDS));
+		for (List<Integer> payloads : received.values()) {
+			assertEquals(messagesPerKey, payloads.size());
+			for (int i = 0; i < messagesPerKey; i++) {
+				assertEquals(Integer.valueOf(i), payloads.get(i));
+			}
+		}
+
+		assertEquals(keyCount * messagesPerKey, awaitProcessedMessageCount(keyCount * messagesPerKey));
+	}
+
+	@Test
+	public void sameKeySamePartition() throws Exception {
+		final CountDownLatch latch = new CountDownLatch(3);
+		this.channel.subscribe(new MessageHandler() {
+			@Override
+			public void handleMessage(Message<?> message) throws MessagingException {
+				latch.countDown();
+			}
+		});
+		for (int i = 0; i < 3; i++) {
+			this.channel.send(MessageBuilder.withPayload(i).setHeader(KEY_HEADER, "abc").build());
+		}
+		assertTrue(latch.await(5, TimeUnit.SECONDS));
+		assertEquals(3, awaitProcessedMessageCount(3));
+
+		int partitionsUsed = 0;
+		for (int i = 0; i < this.channel.getPartitionCount(); i++) {
+			if (this.channel.getProcessedMessageCount(i) > 0) {
+				assertEquals(3, this.channel.getProcessedMessageCount(i));
+				assertEquals(0, this.channel.getPendingMessageCount(i));
+				partitionsUsed++;
+			}
+		}
+		assertEquals(1, partitionsUsed);
+	}
+
+	@Test
+	public void messageWithoutKey() throws Exception {
+		final CountDownLatch latch = new CountDownLatch(1);
+		this.channel.subscribe(new MessageHandler() {
+			@Override
+			public void handleMessage(Message<?> message) throws MessagingException {
+				latch.countDown();
+			}
+		});
+		this.channel.send(MessageBuilder.withPayload("payload").build());
+		assertTrue(latch.await(5, TimeUnit.SECONDS));
+		for (int i = 0; i < this.channel.getPartitionCount(); i++) {
+			assertEquals(0, this.channel.getProcessedMessageCount(i));
+		}
+	}
+
+	@Test
+	public void failureDoesNotStallPartition() throws Exception {
+		final CountDownLatch latch = new CountDownLatch(1);
+		this.channel.subscribe(new MessageHandler() {
+			@Override
+			public void handleMessage(Message<?> message) throws MessagingException {
+				if ("fail".equals(message.getPayload())) {
+					throw new IllegalStateException("expected");
+				}
+				latch.countDown();
+			}
+		});
+		this.channel.send(MessageBuilder.withPayload("fail").setHeader(KEY_HEADER, "abc").build());
+		this.channel.send(MessageBuilder.withPayload("ok").setHeader(KEY_HEADER, "abc").build());
+		assertTrue(latch.await(5, TimeUnit.SECONDS));
+	}
+
+
+	/**
+	 * Lanes count a message as processed only after its handler returns, i.e.
+	 * after the handler has counted down the test's latch, so wait for the
+	 * statistics to catch up rather than reading them right away.
+	 */
+	private long awaitProcessedMessageCount(long expected) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (true) {
+			long processed = 0;
+			for (int i = 0; i < this.channel.getPartitionCount(); i++) {
+				processed += this.channel.getProcessedMessageCount(i);
+			}
+			if (processed >= expected || System.currentTimeMillis() > deadline) {
+				return processed;
+			}
+			Thread.sleep(1);
+		}
+	}
+
+}
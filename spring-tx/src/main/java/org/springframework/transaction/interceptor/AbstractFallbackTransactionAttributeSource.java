@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2013 the original author or authors.
+ * Copyright 2002-2014 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -103,9 +103,13 @@ public abstract class AbstractFallbackTransactionAttributeSource implements Tran
 				this.attributeCache.put(cacheKey, NULL_TRANSACTION_ATTRIBUTE);
 			}
 			else {
+				Class<?> classToUse = (targetClass != null ? targetClass : method.getDeclaringClass());
+				if (txAtt instanceof DefaultTransactionAttribute) {
+					// Precompute the joinpoint identification for the transaction aspect
+					((DefaultTransactionAttribute) txAtt).setDescriptor(classToUse.getName() + "." + method.getName());
+				}
 				if (logger.isDebugEnabled()) {
-					Class<?> classToLog = (targetClass != null ? targetClass : method.getDeclaringClass());
-					logger.debug("Adding transactional method '" + classToLog.getSimpleName() + "." +
+					logger.debug("Adding transactional method '" + classToUse.getSimpleName() + "." +
 							method.getName() + "' with attribute: " + txAtt);
 				}
 				this.attributeCache.put(cacheKey, txAtt);
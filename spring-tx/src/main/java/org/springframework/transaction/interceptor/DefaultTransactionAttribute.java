@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2012 the original author or authors.
+ * Copyright 2002-2014 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -30,6 +30,8 @@ public class DefaultTransactionAttribute extends DefaultTransactionDefinition im
 
 	private String qualifier;
 
+	private String descriptor;
+
 
 	/**
 	 * Create a new DefaultTransactionAttribute, with default settings.
@@ -87,6 +89,24 @@ public class DefaultTransactionAttribute extends DefaultTransactionDefinition im
 		return this.qualifier;
 	}
 
+	/**
+	 * Set a descriptor for this transaction attribute,
+	 * e.g. indicating where the attribute is applying.
+	 * @since 4.1
+	 */
+	public void setDescriptor(String descriptor) {
+		this.descriptor = descriptor;
+	}
+
+	/**
+	 * Return a descriptor for this transaction attribute,
+	 * or {@code null} if none.
+	 * @since 4.1
+	 */
+	public String getDescriptor() {
+		return this.descriptor;
+	}
+
 	/**
 	 * The default behavior is as with EJB: rollback on unchecked exception.
 	 * Additionally attempt to rollback on Error.
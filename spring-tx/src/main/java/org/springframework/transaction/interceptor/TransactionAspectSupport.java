@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2013 the original author or authors.
+ * Copyright 2002-2014 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -29,10 +29,13 @@ import org.springframework.transaction.TransactionStatus;
 import org.springframework.transaction.TransactionSystemException;
 import org.springframework.transaction.support.CallbackPreferringPlatformTransactionManager;
 import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.util.ConcurrentReferenceHashMap;
+import org.springframework.util.ReflectionUtils;
 import org.springframework.util.StringUtils;
 
 import java.lang.reflect.Method;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Base class for transactional aspects, such as the {@link TransactionInterceptor}
@@ -66,6 +69,11 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
 	// NOTE: This class must not implement Serializable because it serves as base
 	// class for AspectJ aspects (which are not allowed to implement Serializable)!
 
+	/**
+	 * Key to use to store the default transaction manager.
+	 */
+	private static final Object DEFAULT_TRANSACTION_MANAGER_KEY = new Object();
+
 	/**
 	 * Holder to support the {@code currentTransactionStatus()} method,
 	 * and to support communication between different cooperating advices
@@ -123,12 +131,18 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
 
 	private BeanFactory beanFactory;
 
+	private final ConcurrentMap<Object, PlatformTransactionManager> transactionManagerCache =
+			new ConcurrentReferenceHashMap<Object, PlatformTransactionManager>(4);
+
+	private final boolean defaultMethodIdentification = !overridesMethodIdentification(getClass());
+
 
 	/**
 	 * Specify the name of the default transaction manager bean.
 	 */
 	public void setTransactionManagerBeanName(String transactionManagerBeanName) {
 		this.transactionManagerBeanName = transactionManagerBeanName;
+		this.transactionManagerCache.clear();
 	}
 
 	/**
@@ -208,6 +222,7 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
 	@Override
 	public void setBeanFactory(BeanFactory beanFactory) {
 		this.beanFactory = beanFactory;
+		this.transactionManagerCache.clear();
 	}
 
 	/**
@@ -250,7 +265,7 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
 		// If the transaction attribute is null, the method is non-transactional.
 		final TransactionAttribute txAttr = getTransactionAttributeSource().getTransactionAttribute(method, targetClass);
 		final PlatformTransactionManager tm = determineTransactionManager(txAttr);
-		final String joinpointIdentification = methodIdentification(method, targetClass);
+		final String joinpointIdentification = methodIdentification(method, targetClass, txAttr);
 
 		if (txAttr == null || !(tm instanceof CallbackPreferringPlatformTransactionManager)) {
 			// Standard transaction demarcation with getTransaction and commit/rollback calls.
@@ -321,21 +336,55 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
 
 	/**
 	 * Determine the specific transaction manager to use for the given transaction.
+	 * <p>Transaction managers obtained from the BeanFactory are cached per qualifier,
+	 * avoiding a repeated lookup on every transactional method invocation.
 	 */
 	protected PlatformTransactionManager determineTransactionManager(TransactionAttribute txAttr) {
 		if (this.transactionManager != null || this.beanFactory == null || txAttr == null) {
 			return this.transactionManager;
 		}
 		String qualifier = txAttr.getQualifier();
-		if (StringUtils.hasLength(qualifier)) {
-			return BeanFactoryAnnotationUtils.qualifiedBeanOfType(this.beanFactory, PlatformTransactionManager.class, qualifier);
-		}
-		else if (this.transactionManagerBeanName != null) {
-			return this.beanFactory.getBean(this.transactionManagerBeanName, PlatformTransactionManager.class);
+		Object cacheKey = (StringUtils.hasLength(qualifier) ? qualifier : DEFAULT_TRANSACTION_MANAGER_KEY);
+		PlatformTransactionManager tm = this.transactionManagerCache.get(cacheKey);
+		if (tm == null) {
+			if (StringUtils.hasLength(qualifier)) {
+				tm = BeanFactoryAnnotationUtils.qualifiedBeanOfType(this.beanFactory, PlatformTransactionManager.class, qualifier);
+			}
+			else if (this.transactionManagerBeanName != null) {
+				tm = this.beanFactory.getBean(this.transactionManagerBeanName, PlatformTransactionManager.class);
+			}
+			else {
+				tm = this.beanFactory.getBean(PlatformTransactionManager.class);
+			}
+			this.transactionManagerCache.putIfAbsent(cacheKey, tm);
 		}
-		else {
-			return this.beanFactory.getBean(PlatformTransactionManager.class);
+		return tm;
+	}
+
+	/**
+	 * Determine the joinpoint identification for the given method, using the
+	 * descriptor precomputed by the TransactionAttributeSource if available
+	 * and if the method identification has not been customized.
+	 */
+	private String methodIdentification(Method method, Class<?> targetClass, TransactionAttribute txAttr) {
+		if (this.defaultMethodIdentification && txAttr instanceof DefaultTransactionAttribute) {
+			String descriptor = ((DefaultTransactionAttribute) txAttr).getDescriptor();
+			if (descriptor != null) {
+				return descriptor;
+			}
 		}
+		return methodIdentification(method, targetClass);
+	}
+
+	/**
+	 * Check whether the given subclass overrides any of the
+	 * {@code methodIdentification} template methods.
+	 */
+	private static boolean overridesMethodIdentification(Class<?> clazz) {
+		Method withTargetClass = ReflectionUtils.findMethod(clazz, "methodIdentification", Method.class, Class.class);
+		Method withoutTargetClass = ReflectionUtils.findMethod(clazz, "methodIdentification", Method.class);
+		return (withTargetClass == null || withTargetClass.getDeclaringClass() != TransactionAspectSupport.class ||
+				withoutTargetClass == null || withoutTargetClass.getDeclaringClass() != TransactionAspectSupport.class);
 	}
 
 	/**
@@ -385,7 +434,7 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
 		// If the transaction attribute is null, the method is non-transactional.
 		TransactionAttribute txAttr = getTransactionAttributeSource().getTransactionAttribute(method, targetClass);
 		PlatformTransactionManager tm = determineTransactionManager(txAttr);
-		return createTransactionIfNecessary(tm, txAttr, methodIdentification(method, targetClass));
+		return createTransactionIfNecessary(tm, txAttr, methodIdentification(method, targetClass, txAttr));
 	}
 
 	/**
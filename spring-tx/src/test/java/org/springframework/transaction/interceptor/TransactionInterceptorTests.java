@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2012 the original author or authors.
+ * Copyright 2002-2014 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -20,12 +20,15 @@ import java.io.Serializable;
 import java.util.Properties;
 
 import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.BeanFactory;
 import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.TransactionException;
 import org.springframework.transaction.TransactionStatus;
 import org.springframework.util.SerializationTestUtils;
 
+import static org.mockito.BDDMockito.*;
+
 /**
  * Mock object based tests for TransactionInterceptor.
  *
@@ -106,6 +109,41 @@ public class TransactionInterceptorTests extends AbstractTransactionAspectTests
 		assertTrue(ctas.getTransactionAttributeSources()[1] instanceof NameMatchTransactionAttributeSource);
 	}
 
+	public void testDetermineTransactionManagerCachesDefaultLookup() {
+		BeanFactory beanFactory = mock(BeanFactory.class);
+		PlatformTransactionManager ptm = mock(PlatformTransactionManager.class);
+		given(beanFactory.getBean(PlatformTransactionManager.class)).willReturn(ptm);
+		TransactionInterceptor ti = new TransactionInterceptor();
+		ti.setBeanFactory(beanFactory);
+
+		DefaultTransactionAttribute txAttr = new DefaultTransactionAttribute();
+		assertSame(ptm, ti.determineTransactionManager(txAttr));
+		assertSame(ptm, ti.determineTransactionManager(txAttr));
+		verify(beanFactory, times(1)).getBean(PlatformTransactionManager.class);
+	}
+
+	public void testDetermineTransactionManagerCachesQualifiedLookup() {
+		BeanFactory beanFactory = mock(BeanFactory.class);
+		PlatformTransactionManager fooTm = mock(PlatformTransactionManager.class);
+		PlatformTransactionManager barTm = mock(PlatformTransactionManager.class);
+		given(beanFactory.containsBean("fooTm")).willReturn(true);
+		given(beanFactory.containsBean("barTm")).willReturn(true);
+		given(beanFactory.getBean("fooTm", PlatformTransactionManager.class)).willReturn(fooTm);
+		given(beanFactory.getBean("barTm", PlatformTransactionManager.class)).willReturn(barTm);
+		TransactionInterceptor ti = new TransactionInterceptor();
+		ti.setBeanFactory(beanFactory);
+
+		DefaultTransactionAttribute fooAttr = new DefaultTransactionAttribute();
+		fooAttr.setQualifier("fooTm");
+		DefaultTransactionAttribute barAttr = new DefaultTransactionAttribute();
+		barAttr.setQualifier("barTm");
+		assertSame(fooTm, ti.determineTransactionManager(fooAttr));
+		assertSame(barTm, ti.determineTransactionManager(barAttr));
+		assertSame(fooTm, ti.determineTransactionManager(fooAttr));
+		verify(beanFactory, times(1)).getBean("fooTm", PlatformTransactionManager.class);
+		verify(beanFactory, times(1)).getBean("barTm", PlatformTransactionManager.class);
+	}
+
 
 	/**
 	 * We won't use this: we just want to know it's serializable.
@@ -20,6 +20,8 @@ import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import javax.servlet.FilterChain;
 import javax.servlet.ServletException;
 import javax.servlet.ServletOutputStream;
@@ -31,7 +33,6 @@ import org.springframework.http.HttpMethod;
 import org.springframework.util.Assert;
 import org.springframework.util.DigestUtils;
 import org.springframework.util.ResizableByteArrayOutputStream;
-import org.springframework.util.StreamUtils;
 import org.springframework.web.util.WebUtils;
 
 /**
@@ -44,6 +45,14 @@ import org.springframework.web.util.WebUtils;
  * (e.g. a {@link org.springframework.web.servlet.View}) is still rendered.
  * As such, this filter only saves bandwidth, not server performance.
  *
+ * <p>Since the ETag header has to precede the response body, the content is
+ * buffered until the response is complete. The {@linkplain #setMaxContentLength
+ * "maxContentLength"} property bounds that buffer: larger responses are passed
+ * through to the client as they are written, without an ETag. With
+ * {@linkplain #setIncrementalDigest "incrementalDigest"} switched on, the MD5
+ * digest is updated as content is written rather than computed over a copy
+ * of the complete body at the end.
+ *
  * @author Arjen Poutsma
  * @author Rossen Stoyanchev
  * @since 3.0
@@ -58,6 +67,59 @@ public class ShallowEtagHeaderFilter extends OncePerRequestFilter {
 
 	private static final String DIRECTIVE_NO_STORE = "no-store";
 
+	private static final String MD5_ALGORITHM_NAME = "MD5";
+
+	private static final char[] HEX_CHARS =
+			{'0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f'};
+
+
+	private int maxContentLength = -1;
+
+	private boolean incrementalDigest = false;
+
+
+	/**
+	 * Set the maximum response content length (in bytes) that is buffered for
+	 * ETag generation. Responses that declare a larger content length, or grow
+	 * beyond it while being written, are streamed to the client as they are
+	 * written, without an ETag.
+	 * <p>Default is -1, i.e. no limit.
+	 * @since 4.1
+	 */
+	public void setMaxContentLength(int maxContentLength) {
+		this.maxContentLength = maxContentLength;
+	}
+
+	/**
+	 * Return the maximum response content length buffered for ETag generation.
+	 * @since 4.1
+	 */
+	public int getMaxContentLength() {
+		return this.maxContentLength;
+	}
+
+	/**
+	 * Set whether to compute the MD5 digest for the ETag incrementally as the
+	 * response content is written, instead of over a copy of the buffered body.
+	 * <p>Default is "false". Note that in this mode, the ETag value is always
+	 * an MD5 hash of the content as per the default
+	 * {@link #generateETagHeaderValue(byte[])} implementation, and eligibility
+	 * is determined through {@link #isEligibleForEtag(HttpServletRequest, HttpServletResponse, int)},
+	 * since the response body is not available as a byte array.
+	 * @since 4.1
+	 */
+	public void setIncrementalDigest(boolean incrementalDigest) {
+		this.incrementalDigest = incrementalDigest;
+	}
+
+	/**
+	 * Return whether the MD5 digest for the ETag is computed incrementally.
+	 * @since 4.1
+	 */
+	public boolean isIncrementalDigest() {
+		return this.incrementalDigest;
+	}
+
 
 	/**
 	 * The default value is "false" so that the filter may delay the generation of
@@ -74,7 +136,8 @@ public class ShallowEtagHeaderFilter extends OncePerRequestFilter {
 
 		HttpServletResponse responseToUse = response;
 		if (!isAsyncDispatch(request)) {
-			responseToUse = new ShallowEtagResponseWrapper(response);
+			responseToUse = new ShallowEtagResponseWrapper(response, this.maxContentLength,
+					(this.incrementalDigest ? createMessageDigest() : null));
 		}
 
 		filterChain.doFilter(request, responseToUse);
@@ -89,17 +152,27 @@ public class ShallowEtagHeaderFilter extends OncePerRequestFilter {
 				WebUtils.getNativeResponse(response, ShallowEtagResponseWrapper.class);
 		Assert.notNull(responseWrapper, "ShallowEtagResponseWrapper not found");
 
+		if (responseWrapper.isStreaming()) {
+			if (logger.isTraceEnabled()) {
+				logger.trace("Response content exceeded maximum content length [" + this.maxContentLength +
+						"] - streamed without ETag");
+			}
+			// Content may still be buffered if the length was exceeded after the last write
+			responseWrapper.copyBodyToResponse(false);
+			return;
+		}
+
 		HttpServletResponse rawResponse = (HttpServletResponse) responseWrapper.getResponse();
 		int statusCode = responseWrapper.getStatusCode();
-		byte[] body = responseWrapper.toByteArray();
+		MessageDigest digest = responseWrapper.getDigest();
+		byte[] body = (digest == null ? responseWrapper.toByteArray() : null);
 
 		if (rawResponse.isCommitted()) {
-			if (body.length > 0) {
-				StreamUtils.copy(body, rawResponse.getOutputStream());
-			}
+			responseWrapper.copyBodyToResponse(false);
 		}
-		else if (isEligibleForEtag(request, responseWrapper, statusCode, body)) {
-			String responseETag = generateETagHeaderValue(body);
+		else if (body != null ? isEligibleForEtag(request, responseWrapper, statusCode, body) :
+				isEligibleForEtag(request, responseWrapper, statusCode)) {
+			String responseETag = (body != null ? generateETagHeaderValue(body) : generateETagHeaderValue(digest));
 			rawResponse.setHeader(HEADER_ETAG, responseETag);
 			String requestETag = request.getHeader(HEADER_IF_NONE_MATCH);
 			if (responseETag.equals(requestETag)) {
@@ -113,20 +186,14 @@ public class ShallowEtagHeaderFilter extends OncePerRequestFilter {
 					logger.trace("ETag [" + responseETag + "] not equal to If-None-Match [" + requestETag +
 							"], sending normal response");
 				}
-				if (body.length > 0) {
-					rawResponse.setContentLength(body.length);
-					StreamUtils.copy(body, rawResponse.getOutputStream());
-				}
+				responseWrapper.copyBodyToResponse(true);
 			}
 		}
 		else {
 			if (logger.isTraceEnabled()) {
 				logger.trace("Response with status code [" + statusCode + "] not eligible for ETag");
 			}
-			if (body.length > 0) {
-				rawResponse.setContentLength(body.length);
-				StreamUtils.copy(body, rawResponse.getOutputStream());
-			}
+			responseWrapper.copyBodyToResponse(true);
 		}
 	}
 
@@ -143,10 +210,29 @@ public class ShallowEtagHeaderFilter extends OncePerRequestFilter {
 	 * @param responseStatusCode the HTTP response status code
 	 * @param responseBody the response body
 	 * @return {@code true} if eligible for ETag generation; {@code false} otherwise
+	 * @see #isEligibleForEtag(HttpServletRequest, HttpServletResponse, int)
 	 */
 	protected boolean isEligibleForEtag(HttpServletRequest request, HttpServletResponse response,
 			int responseStatusCode, byte[] responseBody) {
 
+		return isEligibleForEtag(request, response, responseStatusCode);
+	}
+
+	/**
+	 * Indicates whether the given request and response are eligible for ETag generation,
+	 * independent of the response body.
+	 * <p>Called directly in {@linkplain #setIncrementalDigest incremental digest} mode,
+	 * and by the default implementation of {@link #isEligibleForEtag(HttpServletRequest,
+	 * HttpServletResponse, int, byte[])}. See there for the conditions checked.
+	 * @param request the HTTP request
+	 * @param response the HTTP response
+	 * @param responseStatusCode the HTTP response status code
+	 * @return {@code true} if eligible for ETag generation; {@code false} otherwise
+	 * @since 4.1
+	 */
+	protected boolean isEligibleForEtag(HttpServletRequest request, HttpServletResponse response,
+			int responseStatusCode) {
+
 		if (responseStatusCode >= 200 && responseStatusCode < 300 &&
 				HttpMethod.GET.name().equals(request.getMethod())) {
 			String cacheControl = response.getHeader(HEADER_CACHE_CONTROL);
@@ -171,11 +257,36 @@ public class ShallowEtagHeaderFilter extends OncePerRequestFilter {
 		return builder.toString();
 	}
 
+	/**
+	 * Generate the ETag header value from the given incrementally updated
+	 * MD5 digest, in the same format as {@link #generateETagHeaderValue(byte[])}.
+	 */
+	private String generateETagHeaderValue(MessageDigest digest) {
+		StringBuilder builder = new StringBuilder("\"0");
+		for (byte b : digest.digest()) {
+			builder.append(HEX_CHARS[(b >> 4) & 0xf]).append(HEX_CHARS[b & 0xf]);
+		}
+		builder.append('"');
+		return builder.toString();
+	}
+
+	private MessageDigest createMessageDigest() {
+		try {
+			return MessageDigest.getInstance(MD5_ALGORITHM_NAME);
+		}
+		catch (NoSuchAlgorithmException ex) {
+			throw new IllegalStateException("Could not find MessageDigest with algorithm \"" + MD5_ALGORITHM_NAME + "\"", ex);
+		}
+	}
+
 
 	/**
 	 * {@link HttpServletRequest} wrapper that buffers all content written to the
 	 * {@linkplain #getOutputStream() output stream} and {@linkplain #getWriter() writer},
 	 * and allows this content to be retrieved via a {@link #toByteArray() byte array}.
+	 * <p>If a maximum content length is specified and exceeded, the buffered content
+	 * is written to the underlying response and subsequent content is passed through.
+	 * If a digest is given, it is updated with all content as it is buffered.
 	 */
 	private static class ShallowEtagResponseWrapper extends HttpServletResponseWrapper {
 
@@ -183,12 +294,22 @@ public class ShallowEtagHeaderFilter extends OncePerRequestFilter {
 
 		private final ServletOutputStream outputStream = new ResponseServletOutputStream();
 
+		private final int maxContentLength;
+
+		private final MessageDigest digest;
+
 		private PrintWriter writer;
 
 		private int statusCode = HttpServletResponse.SC_OK;
 
-		public ShallowEtagResponseWrapper(HttpServletResponse response) {
+		private Integer contentLength;
+
+		private boolean streaming = false;
+
+		public ShallowEtagResponseWrapper(HttpServletResponse response, int maxContentLength, MessageDigest digest) {
 			super(response);
+			this.maxContentLength = maxContentLength;
+			this.digest = digest;
 		}
 
 		@Override
@@ -206,21 +327,21 @@ public class ShallowEtagHeaderFilter extends OncePerRequestFilter {
 
 		@Override
 		public void sendError(int sc) throws IOException {
-			copyBodyToResponse();
+			copyBodyToResponse(true);
 			super.sendError(sc);
 			this.statusCode = sc;
 		}
 
 		@Override
 		public void sendError(int sc, String msg) throws IOException {
-			copyBodyToResponse();
+			copyBodyToResponse(true);
 			super.sendError(sc, msg);
 			this.statusCode = sc;
 		}
 
 		@Override
 		public void sendRedirect(String location) throws IOException {
-			copyBodyToResponse();
+			copyBodyToResponse(true);
 			super.sendRedirect(location);
 		}
 
@@ -241,42 +362,118 @@ public class ShallowEtagHeaderFilter extends OncePerRequestFilter {
 
 		@Override
 		public void setContentLength(int len) {
-			if (len > this.content.capacity()) {
+			this.contentLength = len;
+			if (this.streaming) {
+				super.setContentLength(len);
+			}
+			else if (this.maxContentLength >= 0 && len > this.maxContentLength) {
+				startStreaming();
+			}
+			else if (len > this.content.capacity()) {
 				this.content.resize(len);
 			}
 		}
 
 		@Override
 		public void setBufferSize(int size) {
-			if (size > this.content.capacity()) {
+			if (this.streaming) {
+				super.setBufferSize(size);
+			}
+			else if (size > this.content.capacity() && (this.maxContentLength < 0 || size <= this.maxContentLength)) {
 				this.content.resize(size);
 			}
 		}
 
 		@Override
 		public void resetBuffer() {
-			this.content.reset();
+			if (this.streaming) {
+				super.resetBuffer();
+			}
+			resetContent();
 		}
 
 		@Override
 		public void reset() {
 			super.reset();
-			this.content.reset();
+			resetContent();
 		}
 
 		public int getStatusCode() {
 			return this.statusCode;
 		}
 
+		/**
+		 * Return whether the content exceeded the maximum content length
+		 * and has been passed through to the underlying response.
+		 */
+		public boolean isStreaming() {
+			return this.streaming;
+		}
+
+		/**
+		 * Return the digest of the content, or {@code null} if none is maintained.
+		 */
+		public MessageDigest getDigest() {
+			return this.digest;
+		}
+
 		public byte[] toByteArray() {
 			return this.content.toByteArray();
 		}
 
-		private void copyBodyToResponse() throws IOException {
+		private void resetContent() {
+			this.content.reset();
+			if (this.digest != null) {
+				this.digest.reset();
+			}
+		}
+
+		private void copyBodyToResponse(boolean setContentLength) throws IOException {
 			if (this.content.size() > 0) {
-				getResponse().setContentLength(this.content.size());
-				StreamUtils.copy(this.content.toByteArray(), getResponse().getOutputStream());
-				this.content.reset();
+				if (setContentLength) {
+					getResponse().setContentLength(this.content.size());
+				}
+				this.content.writeTo(getResponse().getOutputStream());
+				resetContent();
+			}
+		}
+
+		private void startStreaming() {
+			this.streaming = true;
+			if (this.contentLength != null) {
+				getResponse().setContentLength(this.contentLength);
+			}
+		}
+
+		private void writeContent(int b) throws IOException {
+			if (!this.streaming && this.maxContentLength >= 0 && this.content.size() + 1 > this.maxContentLength) {
+				startStreaming();
+			}
+			if (this.streaming) {
+				copyBodyToResponse(false);
+				getResponse().getOutputStream().write(b);
+			}
+			else {
+				this.content.write(b);
+				if (this.digest != null) {
+					this.digest.update((byte) b);
+				}
+			}
+		}
+
+		private void writeContent(byte[] b, int off, int len) throws IOException {
+			if (!this.streaming && this.maxContentLength >= 0 && this.content.size() + len > this.maxContentLength) {
+				startStreaming();
+			}
+			if (this.streaming) {
+				copyBodyToResponse(false);
+				getResponse().getOutputStream().write(b, off, len);
+			}
+			else {
+				this.content.write(b, off, len);
+				if (this.digest != null) {
+					this.digest.update(b, off, len);
+				}
 			}
 		}
 
@@ -285,12 +482,12 @@ public class ShallowEtagHeaderFilter extends OncePerRequestFilter {
 
 			@Override
 			public void write(int b) throws IOException {
-				content.write(b);
+				writeContent(b);
 			}
 
 			@Override
 			public void write(byte[] b, int off, int len) throws IOException {
-				content.write(b, off, len);
+				writeContent(b, off, len);
 			}
 		}
 
@@ -298,7 +495,7 @@ public class ShallowEtagHeaderFilter extends OncePerRequestFilter {
 		private class ResponsePrintWriter extends PrintWriter {
 
 			public ResponsePrintWriter(String characterEncoding) throws UnsupportedEncodingException {
-				super(new OutputStreamWriter(content, characterEncoding));
+				super(new OutputStreamWriter(outputStream, characterEncoding));
 			}
 
 			@Override
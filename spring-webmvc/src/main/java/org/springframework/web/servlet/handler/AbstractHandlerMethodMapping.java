@@ -21,6 +21,8 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.IdentityHashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -31,9 +33,11 @@ import javax.servlet.http.HttpServletRequest;
 
 import org.springframework.beans.factory.BeanFactoryUtils;
 import org.springframework.beans.factory.InitializingBean;
+import org.springframework.util.AntPathMatcher;
 import org.springframework.util.ClassUtils;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
+import org.springframework.util.PathMatcher;
 import org.springframework.util.ReflectionUtils.MethodFilter;
 import org.springframework.web.method.HandlerMethod;
 import org.springframework.web.method.HandlerMethodSelector;
@@ -46,6 +50,13 @@ import org.springframework.web.servlet.HandlerMapping;
  * <p>For each registered handler method, a unique mapping is maintained with
  * subclasses defining the details of the mapping type {@code <T>}.
  *
+ * <p>Mappings are indexed by the literal leading segments of their
+ * {@linkplain #getMappingPathPatterns path patterns}, so that lookups for a
+ * path without a direct match only evaluate the mappings that can possibly
+ * match it. This applies when the default {@link AntPathMatcher} with a "/"
+ * path separator is used; with any other {@link PathMatcher}, all mappings
+ * are evaluated.
+ *
  * @param <T> The mapping for a {@link HandlerMethod} containing the conditions
  * needed to match the handler method to incoming request.
  *
@@ -80,6 +91,8 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 
 	private final MultiValueMap<String, HandlerMethod> nameMap = new LinkedMultiValueMap<String, HandlerMethod>();
 
+	private final MappingPathIndex pathIndex = new MappingPathIndex();
+
 
 	/**
 	 * Whether to detect handler methods in beans in ancestor ApplicationContexts.
@@ -226,6 +239,7 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 				this.urlMap.add(pattern, mapping);
 			}
 		}
+		this.pathIndex.add(mapping, patterns);
 
 		if (this.namingStrategy != null) {
 			String name = this.namingStrategy.getName(newHandlerMethod, mapping);
@@ -324,8 +338,14 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 			addMatchingMappings(directPathMatches, matches, request);
 		}
 		if (matches.isEmpty()) {
-			// No choice but to go through all mappings...
-			addMatchingMappings(this.handlerMethods.keySet(), matches, request);
+			if (isPathIndexApplicable()) {
+				// Only go through the mappings whose literal path segments fit...
+				addMatchingMappings(this.pathIndex.getCandidates(lookupPath), matches, request);
+			}
+			else {
+				// No choice but to go through all mappings...
+				addMatchingMappings(this.handlerMethods.keySet(), matches, request);
+			}
 		}
 
 		if (!matches.isEmpty()) {
@@ -353,6 +373,16 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 		}
 	}
 
+	/**
+	 * Whether the configured {@link PathMatcher} has known semantics for the
+	 * literal segments of a pattern, allowing for lookups through the path index.
+	 */
+	private boolean isPathIndexApplicable() {
+		PathMatcher pathMatcher = getPathMatcher();
+		return (pathMatcher.getClass() == AntPathMatcher.class &&
+				"/".equals(((AntPathMatcher) pathMatcher).getPathSeparator()));
+	}
+
 	private void addMatchingMappings(Collection<T> mappings, List<Match> matches, HttpServletRequest request) {
 		for (T mapping : mappings) {
 			T match = getMatchingMapping(mapping, request);
@@ -403,6 +433,182 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 	}
 
 
+	/**
+	 * A trie of the literal leading path segments of all registered patterns,
+	 * e.g. "hotels" and "bookings" for "/hotels/bookings/{id}". Mappings are
+	 * registered at the node for their literal segments; mappings without
+	 * patterns, or with patterns starting with a wildcard, at the root, which
+	 * means they are evaluated for every lookup path just as without the index.
+	 * <p>The candidates for a lookup path are the mappings along the path through
+	 * the trie, in registration order. Path segments are trimmed, and a segment
+	 * with a '.' is also looked up by its parts up to each '.', accounting for
+	 * suffix pattern matches such as "/hotels.*". The result is therefore a
+	 * superset of the mappings that {@link #getMatchingMapping} may match.
+	 * <p>Each node keeps the candidates for the path up to and including it,
+	 * so that a lookup ending at a single node needs no further work, and
+	 * templated URLs such as "/hotels/42" and "/hotels/43" share the same list.
+	 */
+	private class MappingPathIndex {
+
+		private final PathNode root = new PathNode(null);
+
+		private final Map<T, Integer> registrationOrder = new HashMap<T, Integer>();
+
+		private final Comparator<T> registrationOrderComparator = new Comparator<T>() {
+			@Override
+			public int compare(T mapping1, T mapping2) {
+				return registrationOrder.get(mapping1).compareTo(registrationOrder.get(mapping2));
+			}
+		};
+
+		public void add(T mapping, Set<String> patterns) {
+			if (!this.registrationOrder.containsKey(mapping)) {
+				this.registrationOrder.put(mapping, this.registrationOrder.size());
+			}
+			if (patterns.isEmpty()) {
+				this.root.addMapping(mapping);
+			}
+			for (String pattern : patterns) {
+				PathNode node = this.root;
+				if (pattern.startsWith("/")) {
+					for (String segment : pattern.split("/")) {
+						segment = segment.trim();
+						if (segment.length() == 0) {
+							continue;
+						}
+						if (!isLiteral(segment)) {
+							break;
+						}
+						node = node.getOrCreateChild(segment);
+					}
+				}
+				node.addMapping(mapping);
+			}
+		}
+
+		private boolean isLiteral(String segment) {
+			for (int i = 0; i < segment.length(); i++) {
+				char c = segment.charAt(i);
+				if (c == '*' || c == '?' || c == '{' || c == '}') {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		public List<T> getCandidates(String lookupPath) {
+			List<PathNode> endNodes = null;
+			List<PathNode> nodes = Collections.singletonList(this.root);
+			int length = lookupPath.length();
+			int start = 0;
+			while (start < length) {
+				int end = lookupPath.indexOf('/', start);
+				if (end == -1) {
+					end = length;
+				}
+				String segment = lookupPath.substring(start, end).trim();
+				start = end + 1;
+				if (segment.length() == 0) {
+					continue;
+				}
+				List<PathNode> nextNodes = new ArrayList<PathNode>(1);
+				for (PathNode node : nodes) {
+					if (!node.collectChildren(segment, nextNodes)) {
+						if (endNodes == null) {
+							endNodes = new ArrayList<PathNode>(1);
+						}
+						endNodes.add(node);
+					}
+				}
+				nodes = nextNodes;
+				if (nodes.isEmpty()) {
+					break;
+				}
+			}
+			if (endNodes == null) {
+				endNodes = nodes;
+			}
+			else {
+				endNodes.addAll(nodes);
+			}
+			if (endNodes.size() == 1) {
+				return endNodes.get(0).candidates;
+			}
+			Set<T> found = new HashSet<T>();
+			for (PathNode node : endNodes) {
+				found.addAll(node.candidates);
+			}
+			List<T> candidates = new ArrayList<T>(found);
+			Collections.sort(candidates, this.registrationOrderComparator);
+			return candidates;
+		}
+
+
+		/**
+		 * A node in the {@link MappingPathIndex}.
+		 */
+		private class PathNode {
+
+			private final Map<String, PathNode> children = new HashMap<String, PathNode>(4);
+
+			/** The mappings of this node and all its ancestors, in registration order */
+			private final List<T> candidates;
+
+			public PathNode(PathNode parent) {
+				this.candidates = (parent != null ? new ArrayList<T>(parent.candidates) : new ArrayList<T>(1));
+			}
+
+			public PathNode getOrCreateChild(String segment) {
+				PathNode child = this.children.get(segment);
+				if (child == null) {
+					child = new PathNode(this);
+					this.children.put(segment, child);
+				}
+				return child;
+			}
+
+			public void addMapping(T mapping) {
+				if (this.candidates.contains(mapping)) {
+					return;
+				}
+				int index = Collections.binarySearch(this.candidates, mapping, registrationOrderComparator);
+				this.candidates.add(-index - 1, mapping);
+				for (PathNode child : this.children.values()) {
+					child.addMapping(mapping);
+				}
+			}
+
+			/**
+			 * Add the children matching the given lookup path segment to the result.
+			 * @return {@code true} if any child was added
+			 */
+			public boolean collectChildren(String segment, List<PathNode> result) {
+				if (this.children.isEmpty()) {
+					return false;
+				}
+				boolean found = false;
+				PathNode child = this.children.get(segment);
+				if (child != null) {
+					result.add(child);
+					found = true;
+				}
+				int dotIndex = segment.indexOf('.', 1);
+				while (dotIndex != -1) {
+					child = this.children.get(segment.substring(0, dotIndex).trim());
+					if (child != null) {
+						if (!result.contains(child)) {
+							result.add(child);
+						}
+						found = true;
+					}
+					dotIndex = segment.indexOf('.', dotIndex + 1);
+				}
+				return found;
+			}
+		}
+	}
+
+
 	/**
 	 * A thin wrapper around a matched HandlerMethod and its mapping, for the purpose of
 	 * comparing the best match with a comparator in the context of the current request.
@@ -0,0 +1,255 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.servlet.resource;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import javax.servlet.AsyncContext;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+
+/**
+ * Writes a region of a file to the response using Servlet 3.1 non-blocking I/O.
+ *
+ * <p>The request is put into asynchronous mode through the request's
+ * {@link org.springframework.web.context.request.async.WebAsyncManager}, and the
+ * file content is read from a {@link FileChannel} and written in chunks whenever
+ * the container signals that the output stream is ready, so that no container
+ * thread is held while the bytes drain to the client.
+ *
+ * <p>The Servlet 3.1 {@code WriteListener} contract is accessed reflectively,
+ * keeping this class usable against the Servlet 2.5 / 3.0 baseline.
+ *
+ * @author agent
+ * @since 4.1
+ */
+abstract class NonBlockingResourceWriter {
+
+	private static final Log logger = LogFactory.getLog(NonBlockingResourceWriter.class);
+
+	private static final String WRITE_LISTENER_CLASS_NAME = "javax.servlet.WriteListener";
+
+	private static final int CHUNK_SIZE = 8192;
+
+	private static final Class<?> writeListenerClass;
+
+	static {
+		ClassLoader classLoader = NonBlockingResourceWriter.class.getClassLoader();
+		writeListenerClass = (ClassUtils.isPresent(WRITE_LISTENER_CLASS_NAME, classLoader) ?
+				ClassUtils.resolveClassName(WRITE_LISTENER_CLASS_NAME, classLoader) : null);
+	}
+
+
+	/**
+	 * Determine whether the given request and response support non-blocking
+	 * writes: Servlet 3.1 must be present, the request must support async
+	 * processing, and the response's output stream must implement
+	 * {@code setWriteListener} (which is not the case for response
+	 * wrappers written against an older Servlet API).
+	 */
+	public static boolean isSupported(HttpServletRequest request, HttpServletResponse response) throws IOException {
+		if (writeListenerClass == null || !request.isAsyncSupported() || request.isAsyncStarted()) {
+			return false;
+		}
+		Class<?> streamClass = response.getOutputStream().getClass();
+		Method setWriteListener = ClassUtils.getMethodIfAvailable(streamClass, "setWriteListener", writeListenerClass);
+		Method isReady = ClassUtils.getMethodIfAvailable(streamClass, "isReady");
+		return (setWriteListener != null && !Modifier.isAbstract(setWriteListener.getModifiers()) &&
+				isReady != null && !Modifier.isAbstract(isReady.getModifiers()));
+	}
+
+	/**
+	 * Start asynchronous processing and write the given region of the file
+	 * as the output stream becomes ready. Returns immediately; the request
+	 * is completed once all bytes have been written or writing has failed.
+	 * <p>Only to be called if {@link #isSupported} returned {@code true}.
+	 * @param request current servlet request
+	 * @param response current servlet response
+	 * @param file the file to write
+	 * @param position the position in the file to start writing from
+	 * @param count the number of bytes to write
+	 * @throws IOException if the file could not be opened or the response
+	 * could not be prepared for non-blocking writes
+	 */
+	public static void write(HttpServletRequest request, HttpServletResponse response,
+			File file, long position, long count) throws IOException {
+
+		FileChannel channel = new FileInputStream(file).getChannel();
+		try {
+			AsyncWebRequest asyncWebRequest = WebAsyncUtils.createAsyncWebRequest(request, response);
+			asyncWebRequest.setTimeout(-1L);
+			WebAsyncUtils.getAsyncManager(request).setAsyncWebRequest(asyncWebRequest);
+			asyncWebRequest.startAsync();
+
+			ServletOutputStream out = response.getOutputStream();
+			Method setWriteListener = ClassUtils.getMethod(out.getClass(), "setWriteListener", writeListenerClass);
+			Method isReady = ClassUtils.getMethod(out.getClass(), "isReady");
+			ReflectionUtils.makeAccessible(setWriteListener);
+			ReflectionUtils.makeAccessible(isReady);
+			FileRegionWriteListener listener = new FileRegionWriteListener(
+					request.getAsyncContext(), out, isReady, channel, position, count);
+			Object proxy = Proxy.newProxyInstance(
+					writeListenerClass.getClassLoader(), new Class<?>[] {writeListenerClass}, listener);
+			ReflectionUtils.invokeMethod(setWriteListener, out, proxy);
+		}
+		catch (IOException ex) {
+			abort(request, channel);
+			throw ex;
+		}
+		catch (RuntimeException ex) {
+			abort(request, channel);
+			throw ex;
+		}
+	}
+
+	/**
+	 * Release the file and take the request out of asynchronous mode
+	 * after a failure to set up the non-blocking write.
+	 */
+	private static void abort(HttpServletRequest request, FileChannel channel) {
+		closeQuietly(channel);
+		if (request.isAsyncStarted()) {
+			try {
+				request.getAsyncContext().complete();
+			}
+			catch (IllegalStateException ex) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Failed to complete async request after write failure: " + ex);
+				}
+			}
+		}
+	}
+
+	private static void closeQuietly(FileChannel channel) {
+		try {
+			channel.close();
+		}
+		catch (IOException ex) {
+			// ignore
+		}
+	}
+
+
+	/**
+	 * Implementation of the {@code WriteListener} callbacks,
+	 * transferring the file region chunk by chunk.
+	 */
+	private static class FileRegionWriteListener implements InvocationHandler {
+
+		private final AsyncContext asyncContext;
+
+		private final ServletOutputStream out;
+
+		private final Method isReadyMethod;
+
+		private final FileChannel channel;
+
+		private final ByteBuffer buffer = ByteBuffer.allocate(CHUNK_SIZE);
+
+		private long position;
+
+		private long remaining;
+
+		public FileRegionWriteListener(AsyncContext asyncContext, ServletOutputStream out,
+				Method isReadyMethod, FileChannel channel, long position, long count) {
+
+			this.asyncContext = asyncContext;
+			this.out = out;
+			this.isReadyMethod = isReadyMethod;
+			this.channel = channel;
+			this.position = position;
+			this.remaining = count;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			String methodName = method.getName();
+			if (methodName.equals("onWritePossible")) {
+				onWritePossible();
+				return null;
+			}
+			else if (methodName.equals("onError")) {
+				onError((Throwable) args[0]);
+				return null;
+			}
+			else if (methodName.equals("equals")) {
+				return (proxy == args[0]);
+			}
+			else if (methodName.equals("hashCode")) {
+				return System.identityHashCode(proxy);
+			}
+			else if (methodName.equals("toString")) {
+				return "WriteListener for file region [position=" + this.position +
+						", remaining=" + this.remaining + "]";
+			}
+			throw new IllegalStateException("Unexpected method invocation: " + method);
+		}
+
+		private void onWritePossible() throws IOException {
+			while (isReady()) {
+				if (this.remaining <= 0) {
+					complete();
+					return;
+				}
+				this.buffer.clear();
+				if (this.remaining < this.buffer.capacity()) {
+					this.buffer.limit((int) this.remaining);
+				}
+				int bytesRead = this.channel.read(this.buffer, this.position);
+				if (bytesRead == -1) {
+					throw new IOException("Unexpected end of file at position " + this.position);
+				}
+				this.out.write(this.buffer.array(), 0, bytesRead);
+				this.position += bytesRead;
+				this.remaining -= bytesRead;
+			}
+		}
+
+		private boolean isReady() {
+			return (Boolean) ReflectionUtils.invokeMethod(this.isReadyMethod, this.out);
+		}
+
+		private void onError(Throwable ex) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Failed to write resource content: " + ex);
+			}
+			complete();
+		}
+
+		private void complete() {
+			closeQuietly(this.channel);
+			this.asyncContext.complete();
+		}
+	}
+
+}
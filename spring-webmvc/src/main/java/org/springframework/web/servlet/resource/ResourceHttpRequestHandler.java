@@ -16,10 +16,14 @@
 
 package org.springframework.web.servlet.resource;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
 import javax.activation.FileTypeMap;
 import javax.activation.MimetypesFileTypeMap;
 import javax.servlet.ServletException;
@@ -68,6 +72,15 @@ import org.springframework.web.servlet.support.WebContentGenerator;
  * latest changes, or serving variations of resources (e.g., minified versions) &mdash;
  * {@link org.springframework.web.servlet.resource.ResourceResolver}s can be configured.
  *
+ * <p>{@code Range} requests are supported for {@code GET} requests, responding with
+ * {@code 206 Partial Content} for a single range or a {@code multipart/byteranges}
+ * body for multiple ranges, and evaluating {@code If-Range} against the resource's
+ * last-modified timestamp. For file-based resources, the content can optionally be
+ * handed off to the container's sendfile support ({@linkplain #setUseSendfile
+ * "useSendfile"}) or be written with Servlet 3.1 non-blocking I/O
+ * ({@linkplain #setUseNonBlockingWrite "useNonBlockingWrite"}), in both cases
+ * releasing the request thread while the bytes are being transferred.
+ *
  * <p>This handler can be configured through use of a
  * {@link org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry} or the {@code <mvc:resources/>}
  * XML configuration element.
@@ -86,10 +99,36 @@ public class ResourceHttpRequestHandler extends WebContentGenerator implements H
 
 	private static final String CONTENT_ENCODING = "Content-Encoding";
 
+	private static final String CONTENT_LENGTH = "Content-Length";
+
+	private static final String ACCEPT_RANGES = "Accept-Ranges";
+
+	private static final String CONTENT_RANGE = "Content-Range";
+
+	private static final String RANGE = "Range";
+
+	private static final String IF_RANGE = "If-Range";
+
+	private static final String BYTES_UNIT = "bytes";
+
+	private static final String SENDFILE_SUPPORT_ATTRIBUTE = "org.apache.tomcat.sendfile.support";
+
+	private static final String SENDFILE_FILENAME_ATTRIBUTE = "org.apache.tomcat.sendfile.filename";
+
+	private static final String SENDFILE_START_ATTRIBUTE = "org.apache.tomcat.sendfile.start";
+
+	private static final String SENDFILE_END_ATTRIBUTE = "org.apache.tomcat.sendfile.end";
+
+	private static final Charset US_ASCII = Charset.forName("US-ASCII");
+
 	private List<Resource> locations;
 
 	private final List<ResourceResolver> resourceResolvers = new ArrayList<ResourceResolver>();
 
+	private boolean useSendfile = false;
+
+	private boolean useNonBlockingWrite = false;
+
 
 	public ResourceHttpRequestHandler() {
 		super(METHOD_GET, METHOD_HEAD);
@@ -127,6 +166,50 @@ public class ResourceHttpRequestHandler extends WebContentGenerator implements H
 		return this.resourceResolvers;
 	}
 
+	/**
+	 * Set whether to hand off the transfer of file-based resources to the
+	 * container's sendfile support, where the container exposes it
+	 * (currently Tomcat, through the "org.apache.tomcat.sendfile.*" request
+	 * attributes). The container then transfers the file content without
+	 * copying it through the JVM and without holding the request thread.
+	 * <p>Default is "false". Only switch this on if no filter needs to
+	 * process the response body, since the content is written by the
+	 * container after the filter chain has returned.
+	 * @since 4.1
+	 */
+	public void setUseSendfile(boolean useSendfile) {
+		this.useSendfile = useSendfile;
+	}
+
+	/**
+	 * Return whether to use the container's sendfile support for file-based resources.
+	 * @since 4.1
+	 */
+	public boolean isUseSendfile() {
+		return this.useSendfile;
+	}
+
+	/**
+	 * Set whether to write file-based resources with Servlet 3.1 non-blocking I/O,
+	 * putting the request into asynchronous mode and streaming the content in
+	 * chunks as the container signals that the response can accept more data.
+	 * <p>Default is "false". Falls back to regular blocking writes where the
+	 * request does not support async processing, on Servlet containers before
+	 * 3.1, and for response wrappers that do not support non-blocking writes.
+	 * @since 4.1
+	 */
+	public void setUseNonBlockingWrite(boolean useNonBlockingWrite) {
+		this.useNonBlockingWrite = useNonBlockingWrite;
+	}
+
+	/**
+	 * Return whether to write file-based resources with Servlet 3.1 non-blocking I/O.
+	 * @since 4.1
+	 */
+	public boolean isUseNonBlockingWrite() {
+		return this.useNonBlockingWrite;
+	}
+
 
 	@Override
 	public void afterPropertiesSet() throws Exception {
@@ -145,7 +228,8 @@ public class ResourceHttpRequestHandler extends WebContentGenerator implements H
 	 * {@code Last-Modified} value  is greater. If the resource is newer than the
 	 * {@code Last-Modified} value, or the header is not present, the content resource
 	 * of the resource will be written to the response with caching headers
-	 * set to expire one year in the future.
+	 * set to expire one year in the future. If the request specifies a {@code Range},
+	 * only the requested byte ranges will be written, with a {@code 206} status code.
 	 */
 	@Override
 	public void handleRequest(HttpServletRequest request, HttpServletResponse response)
@@ -179,14 +263,44 @@ public class ResourceHttpRequestHandler extends WebContentGenerator implements H
 			logger.trace("Resource not modified - returning 304");
 			return;
 		}
+		long length = resource.contentLength();
+		List<ByteRange> ranges = getByteRanges(request, resource, length);
+		if (ranges != null && ranges.isEmpty()) {
+			// Before setHeaders, so that no Content-Length for the full resource is sent
+			logger.trace("Requested range not satisfiable - returning 416");
+			response.setHeader(ACCEPT_RANGES, BYTES_UNIT);
+			response.setHeader(CONTENT_RANGE, BYTES_UNIT + " */" + length);
+			response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+			return;
+		}
+
 		setHeaders(response, resource, mediaType);
+		response.setHeader(ACCEPT_RANGES, BYTES_UNIT);
 
 		// content phase
 		if (METHOD_HEAD.equals(request.getMethod())) {
 			logger.trace("HEAD request - skipping content");
 			return;
 		}
-		writeContent(response, resource);
+
+		if (ranges == null) {
+			if (!transferFile(request, response, resource, 0, length)) {
+				writeContent(response, resource);
+			}
+		}
+		else if (ranges.size() == 1) {
+			ByteRange range = ranges.get(0);
+			response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+			response.setHeader(CONTENT_RANGE, range.toContentRange(length));
+			setContentLength(response, range.getLength());
+			if (!transferFile(request, response, resource, range.start, range.getLength())) {
+				writePartialContent(response, resource, range);
+			}
+		}
+		else {
+			response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+			writeMultipartContent(response, resource, mediaType, ranges, length);
+		}
 	}
 
 	protected Resource getResource(HttpServletRequest request) throws IOException{
@@ -248,11 +362,7 @@ public class ResourceHttpRequestHandler extends WebContentGenerator implements H
 	 * @throws IOException in case of errors while setting the headers
 	 */
 	protected void setHeaders(HttpServletResponse response, Resource resource, MediaType mediaType) throws IOException {
-		long length = resource.contentLength();
-		if (length > Integer.MAX_VALUE) {
-			throw new IOException("Resource content too long (beyond Integer.MAX_VALUE): " + resource);
-		}
-		response.setContentLength((int) length);
+		setContentLength(response, resource.contentLength());
 
 		if (mediaType != null) {
 			response.setContentType(mediaType.toString());
@@ -284,12 +394,257 @@ public class ResourceHttpRequestHandler extends WebContentGenerator implements H
 		}
 	}
 
+	/**
+	 * Determine the byte ranges requested through the {@code Range} header.
+	 * @return the satisfiable ranges, an empty list if none of the requested
+	 * ranges is satisfiable, or {@code null} if the full content is to be sent
+	 * (no or an invalid {@code Range} header, or a non-matching {@code If-Range})
+	 */
+	private List<ByteRange> getByteRanges(HttpServletRequest request, Resource resource, long length)
+			throws IOException {
+
+		String rangeHeader = request.getHeader(RANGE);
+		if (rangeHeader == null || length < 0 || !METHOD_GET.equals(request.getMethod())) {
+			return null;
+		}
+		if (request.getHeader(IF_RANGE) != null) {
+			long ifRange;
+			try {
+				ifRange = request.getDateHeader(IF_RANGE);
+			}
+			catch (IllegalArgumentException ex) {
+				// an entity tag - never matches since no ETags are generated here
+				return null;
+			}
+			if (ifRange / 1000 != resource.lastModified() / 1000) {
+				return null;
+			}
+		}
+		List<ByteRange> ranges = ByteRange.parse(rangeHeader, length);
+		if (ranges != null) {
+			long total = 0;
+			for (ByteRange range : ranges) {
+				total += range.getLength();
+			}
+			if (total > length) {
+				// overlapping or excessive ranges: send the full content instead
+				return null;
+			}
+		}
+		return ranges;
+	}
+
+	/**
+	 * Transfer the given region of a file-based resource through the
+	 * container's sendfile support or with non-blocking writes, if enabled.
+	 * @return {@code true} if the transfer has been initiated, {@code false}
+	 * if the content is to be written in a regular blocking fashion
+	 */
+	private boolean transferFile(HttpServletRequest request, HttpServletResponse response,
+			Resource resource, long position, long count) throws IOException {
+
+		if (!this.useSendfile && !this.useNonBlockingWrite) {
+			return false;
+		}
+		File file = getFile(resource);
+		if (file == null) {
+			return false;
+		}
+		if (this.useSendfile && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT_ATTRIBUTE))) {
+			if (logger.isTraceEnabled()) {
+				logger.trace("Handing off " + file + " to container sendfile support");
+			}
+			request.setAttribute(SENDFILE_FILENAME_ATTRIBUTE, file.getCanonicalPath());
+			request.setAttribute(SENDFILE_START_ATTRIBUTE, position);
+			request.setAttribute(SENDFILE_END_ATTRIBUTE, position + count);
+			return true;
+		}
+		if (this.useNonBlockingWrite && NonBlockingResourceWriter.isSupported(request, response)) {
+			if (logger.isTraceEnabled()) {
+				logger.trace("Writing " + file + " with non-blocking I/O");
+			}
+			NonBlockingResourceWriter.write(request, response, file, position, count);
+			return true;
+		}
+		return false;
+	}
+
+	private File getFile(Resource resource) {
+		try {
+			File file = resource.getFile();
+			return (file.isFile() ? file : null);
+		}
+		catch (IOException ex) {
+			return null;
+		}
+	}
+
+	/**
+	 * Write the given byte range of the resource to the given servlet response.
+	 * @param response current servlet response
+	 * @param resource the identified resource (never {@code null})
+	 * @param range the byte range to write
+	 * @throws IOException in case of errors while writing the content
+	 */
+	private void writePartialContent(HttpServletResponse response, Resource resource, ByteRange range)
+			throws IOException {
+
+		InputStream in = resource.getInputStream();
+		try {
+			StreamUtils.copyRange(in, response.getOutputStream(), range.start, range.end);
+		}
+		finally {
+			try {
+				in.close();
+			}
+			catch (IOException ex) {
+			}
+		}
+	}
+
+	/**
+	 * Write the given byte ranges of the resource as a {@code multipart/byteranges} body.
+	 * @param response current servlet response
+	 * @param resource the identified resource (never {@code null})
+	 * @param mediaType the resource's media type (may be {@code null})
+	 * @param ranges the byte ranges to write
+	 * @param length the total length of the resource
+	 * @throws IOException in case of errors while writing the content
+	 */
+	private void writeMultipartContent(HttpServletResponse response, Resource resource,
+			MediaType mediaType, List<ByteRange> ranges, long length) throws IOException {
+
+		String boundary = UUID.randomUUID().toString();
+		byte[][] partHeaders = new byte[ranges.size()][];
+		long contentLength = 0;
+		for (int i = 0; i < ranges.size(); i++) {
+			ByteRange range = ranges.get(i);
+			StringBuilder sb = new StringBuilder("\r\n--").append(boundary).append("\r\n");
+			if (mediaType != null) {
+				sb.append("Content-Type: ").append(mediaType).append("\r\n");
+			}
+			sb.append(CONTENT_RANGE).append(": ").append(range.toContentRange(length)).append("\r\n\r\n");
+			partHeaders[i] = sb.toString().getBytes(US_ASCII);
+			contentLength += partHeaders[i].length + range.getLength();
+		}
+		byte[] end = ("\r\n--" + boundary + "--\r\n").getBytes(US_ASCII);
+		contentLength += end.length;
+
+		response.setContentType("multipart/byteranges; boundary=" + boundary);
+		setContentLength(response, contentLength);
+		OutputStream out = response.getOutputStream();
+		for (int i = 0; i < ranges.size(); i++) {
+			out.write(partHeaders[i]);
+			InputStream in = resource.getInputStream();
+			try {
+				StreamUtils.copyRange(in, out, ranges.get(i).start, ranges.get(i).end);
+			}
+			finally {
+				try {
+					in.close();
+				}
+				catch (IOException ex) {
+				}
+			}
+		}
+		out.write(end);
+		out.flush();
+	}
+
+	/**
+	 * Set the given content length, falling back to a plain header value
+	 * for lengths beyond the {@code int} range of the Servlet 2.5/3.0 API.
+	 */
+	private void setContentLength(HttpServletResponse response, long contentLength) {
+		if (contentLength <= Integer.MAX_VALUE) {
+			response.setContentLength((int) contentLength);
+		}
+		else {
+			response.setHeader(CONTENT_LENGTH, Long.toString(contentLength));
+		}
+	}
+
 	@Override
 	public String toString() {
 		return "ResourceHttpRequestHandler [locations=" +
 				getLocations() + ", resolvers=" + getResourceResolvers() + "]";
 	}
 
+	/**
+	 * A satisfiable byte range within a resource, with inclusive start and end positions.
+	 */
+	private static class ByteRange {
+
+		private final long start;
+
+		private final long end;
+
+		public ByteRange(long start, long end) {
+			this.start = start;
+			this.end = end;
+		}
+
+		public long getLength() {
+			return (this.end - this.start + 1);
+		}
+
+		public String toContentRange(long length) {
+			return BYTES_UNIT + " " + this.start + "-" + this.end + "/" + length;
+		}
+
+		/**
+		 * Parse the given {@code Range} header value into satisfiable byte ranges.
+		 * @param header the {@code Range} header value
+		 * @param length the length of the resource
+		 * @return the satisfiable ranges in requested order (possibly empty),
+		 * or {@code null} if the header is syntactically invalid
+		 */
+		public static List<ByteRange> parse(String header, long length) {
+			int separatorIndex = header.indexOf('=');
+			if (separatorIndex == -1 || !BYTES_UNIT.equals(header.substring(0, separatorIndex).trim())) {
+				return null;
+			}
+			String[] specs = StringUtils.commaDelimitedListToStringArray(header.substring(separatorIndex + 1));
+			List<ByteRange> ranges = new ArrayList<ByteRange>(specs.length);
+			try {
+				for (String spec : specs) {
+					spec = spec.trim();
+					int dashIndex = spec.indexOf('-');
+					if (dashIndex == -1) {
+						return null;
+					}
+					String first = spec.substring(0, dashIndex).trim();
+					String last = spec.substring(dashIndex + 1).trim();
+					if (first.isEmpty()) {
+						// suffix range: the last N bytes
+						long suffixLength = Long.parseLong(last);
+						if (suffixLength < 0) {
+							return null;
+						}
+						if (suffixLength > 0 && length > 0) {
+							ranges.add(new ByteRange(Math.max(0, length - suffixLength), length - 1));
+						}
+					}
+					else {
+						long start = Long.parseLong(first);
+						long end = (last.isEmpty() ? length - 1 : Long.parseLong(last));
+						if (start < 0 || end < start) {
+							return null;
+						}
+						if (start < length) {
+							ranges.add(new ByteRange(start, Math.min(end, length - 1)));
+						}
+					}
+				}
+			}
+			catch (NumberFormatException ex) {
+				return null;
+			}
+			return ranges;
+		}
+	}
+
+
 	/**
 	 * Inner class to avoid hard-coded JAF dependency.
 	 */
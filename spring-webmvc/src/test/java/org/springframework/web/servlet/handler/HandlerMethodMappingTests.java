@@ -17,8 +17,10 @@
 package org.springframework.web.servlet.handler;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 
 import java.lang.reflect.Method;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashSet;
 import java.util.Set;
@@ -91,6 +93,94 @@ public class HandlerMethodMappingTests {
 		mapping.getHandlerInternal(new MockHttpServletRequest("GET", "/foo"));
 	}
 
+	@Test
+	public void indexedPatternMatch() throws Exception {
+		IndexedHandlerMethodMapping mapping = new IndexedHandlerMethodMapping();
+		for (int i = 0; i < 100; i++) {
+			mapping.registerHandlerMethod(handler, method2, "/other" + i + "/{id}");
+		}
+		mapping.registerHandlerMethod(handler, method1, "/hotels/{id}");
+		mapping.registerHandlerMethod(handler, method2, "/hotels/{id}/bookings");
+
+		HandlerMethod result = mapping.getHandlerInternal(new MockHttpServletRequest("GET", "/hotels/42"));
+		assertEquals(method1, result.getMethod());
+		assertEquals(2, mapping.matchCount);
+
+		mapping.matchCount = 0;
+		result = mapping.getHandlerInternal(new MockHttpServletRequest("GET", "/hotels/42/bookings"));
+		assertEquals(method2, result.getMethod());
+		assertEquals(2, mapping.matchCount);
+
+		assertNull(mapping.getHandlerInternal(new MockHttpServletRequest("GET", "/unknown/42")));
+	}
+
+	@Test
+	public void indexedPatternMatchWithLeadingWildcard() throws Exception {
+		IndexedHandlerMethodMapping mapping = new IndexedHandlerMethodMapping();
+		mapping.registerHandlerMethod(handler, method1, "/hotels/{id}");
+		mapping.registerHandlerMethod(handler, method2, "/*/bookings");
+
+		HandlerMethod result = mapping.getHandlerInternal(new MockHttpServletRequest("GET", "/hotels/42"));
+		assertEquals(method1, result.getMethod());
+		result = mapping.getHandlerInternal(new MockHttpServletRequest("GET", "/hotels/bookings"));
+		assertEquals(method2, result.getMethod());
+		result = mapping.getHandlerInternal(new MockHttpServletRequest("GET", "/flights/bookings"));
+		assertEquals(method2, result.getMethod());
+	}
+
+	@Test
+	public void indexedPatternMatchWithSuffix() throws Exception {
+		IndexedHandlerMethodMapping mapping = new IndexedHandlerMethodMapping();
+		mapping.registerHandlerMethod(handler, method1, "/hotels/{id}");
+		mapping.registerHandlerMethod(handler, method2, "/hotels.*");
+
+		HandlerMethod result = mapping.getHandlerInternal(new MockHttpServletRequest("GET", "/hotels.json"));
+		assertEquals(method2, result.getMethod());
+	}
+
+	@Test
+	public void indexedPatternMatchWithCommonPrefix() throws Exception {
+		IndexedHandlerMethodMapping mapping = new IndexedHandlerMethodMapping();
+		mapping.registerHandlerMethod(handler, method1, "/hotels/{id}");
+		mapping.registerHandlerMethod(handler, method2, "/hotels/{id}/bookings");
+
+		for (int i = 0; i < 10; i++) {
+			HandlerMethod result = mapping.getHandlerInternal(new MockHttpServletRequest("GET", "/hotels/" + i));
+			assertEquals(method1, result.getMethod());
+		}
+		mapping.registerHandlerMethod(handler, method2, "/hotels/**/rooms");
+
+		mapping.matchCount = 0;
+		HandlerMethod result = mapping.getHandlerInternal(new MockHttpServletRequest("GET", "/hotels/42/rooms"));
+		assertEquals(method2, result.getMethod());
+		assertEquals(3, mapping.matchCount);
+	}
+
+	@Test
+	public void indexedPatternMatchWithoutReportedPatterns() throws Exception {
+		IndexedHandlerMethodMapping mapping = new IndexedHandlerMethodMapping();
+		mapping.unreportedPatterns.add("/flights/{id}");
+		mapping.registerHandlerMethod(handler, method1, "/hotels/{id}");
+		mapping.registerHandlerMethod(handler, method2, "/flights/{id}");
+
+		HandlerMethod result = mapping.getHandlerInternal(new MockHttpServletRequest("GET", "/flights/42"));
+		assertEquals(method2, result.getMethod());
+		result = mapping.getHandlerInternal(new MockHttpServletRequest("GET", "/hotels/42"));
+		assertEquals(method1, result.getMethod());
+	}
+
+	@Test
+	public void customPathMatcherEvaluatesAllMappings() throws Exception {
+		IndexedHandlerMethodMapping mapping = new IndexedHandlerMethodMapping();
+		mapping.setPathMatcher(new AntPathMatcher() {});
+		mapping.registerHandlerMethod(handler, method1, "/hotels/{id}");
+		mapping.registerHandlerMethod(handler, method2, "/bookings/{id}");
+
+		HandlerMethod result = mapping.getHandlerInternal(new MockHttpServletRequest("GET", "/hotels/42"));
+		assertEquals(method1, result.getMethod());
+		assertEquals(2, mapping.matchCount);
+	}
+
 	@Test
 	public void testDetectHandlerMethodsInAncestorContexts() {
 		StaticApplicationContext cxt = new StaticApplicationContext();
@@ -146,6 +236,24 @@ public class HandlerMethodMappingTests {
 		}
 	}
 
+	private static class IndexedHandlerMethodMapping extends MyHandlerMethodMapping {
+
+		private int matchCount;
+
+		private final Set<String> unreportedPatterns = new HashSet<String>();
+
+		@Override
+		protected String getMatchingMapping(String pattern, HttpServletRequest request) {
+			this.matchCount++;
+			return super.getMatchingMapping(pattern, request);
+		}
+
+		@Override
+		protected Set<String> getMappingPathPatterns(String key) {
+			return (this.unreportedPatterns.contains(key) ? Collections.<String>emptySet() : Collections.singleton(key));
+		}
+	}
+
 	@Controller
 	static class MyHandler {
 
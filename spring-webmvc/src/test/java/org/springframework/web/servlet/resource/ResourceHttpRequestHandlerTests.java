@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2012 the original author or authors.
+ * Copyright 2002-2014 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,14 +16,22 @@
 
 package org.springframework.web.servlet.resource;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.springframework.core.io.AbstractResource;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.core.io.Resource;
 import org.springframework.mock.web.test.MockHttpServletRequest;
@@ -220,6 +228,248 @@ public class ResourceHttpRequestHandlerTests {
 		assertEquals(404, response.getStatus());
 	}
 
+	@Test
+	public void partialContentByteRange() throws Exception {
+		MockHttpServletResponse response = getWithRange("bytes=0-1");
+		assertEquals(206, response.getStatus());
+		assertEquals("text/css", response.getContentType());
+		assertEquals(2, response.getContentLength());
+		assertEquals("bytes 0-1/17", response.getHeader("Content-Range"));
+		assertEquals("bytes", response.getHeader("Accept-Ranges"));
+		assertEquals("h1", response.getContentAsString());
+	}
+
+	@Test
+	public void partialContentByteRangeNoEnd() throws Exception {
+		MockHttpServletResponse response = getWithRange("bytes=11-");
+		assertEquals(206, response.getStatus());
+		assertEquals(6, response.getContentLength());
+		assertEquals("bytes 11-16/17", response.getHeader("Content-Range"));
+		assertEquals("red; }", response.getContentAsString());
+	}
+
+	@Test
+	public void partialContentByteRangeLargeEnd() throws Exception {
+		MockHttpServletResponse response = getWithRange("bytes=11-10000");
+		assertEquals(206, response.getStatus());
+		assertEquals("bytes 11-16/17", response.getHeader("Content-Range"));
+		assertEquals("red; }", response.getContentAsString());
+	}
+
+	@Test
+	public void partialContentByteRangeBeyondIntegerRange() throws Exception {
+		final long length = Integer.MAX_VALUE + 1024L * 1024L;
+		final Resource resource = new AbstractResource() {
+			@Override
+			public String getDescription() {
+				return "large resource";
+			}
+			@Override
+			public String getFilename() {
+				return "large.bin";
+			}
+			@Override
+			public long contentLength() {
+				return length;
+			}
+			@Override
+			public long lastModified() {
+				return 0;
+			}
+			@Override
+			public InputStream getInputStream() throws IOException {
+				throw new IOException("Not readable");
+			}
+		};
+		handler = new ResourceHttpRequestHandler() {
+			@Override
+			protected Resource getResource(HttpServletRequest request) {
+				return resource;
+			}
+		};
+		handler.setServletContext(new TestServletContext());
+
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		try {
+			handler.handleRequest(createRangeRequest("bytes=1-"), response);
+			fail("Should have thrown IOException");
+		}
+		catch (IOException ex) {
+			assertEquals("Not readable", ex.getMessage());
+		}
+		assertEquals(206, response.getStatus());
+		assertEquals(Long.toString(length - 1), response.getHeader("Content-Length"));
+		assertEquals(length - 1, response.getContentLengthLong());
+		assertEquals("bytes 1-" + (length - 1) + "/" + length, response.getHeader("Content-Range"));
+	}
+
+	@Test
+	public void partialContentSuffixRange() throws Exception {
+		MockHttpServletResponse response = getWithRange("bytes=-5");
+		assertEquals(206, response.getStatus());
+		assertEquals(5, response.getContentLength());
+		assertEquals("bytes 12-16/17", response.getHeader("Content-Range"));
+		assertEquals("ed; }", response.getContentAsString());
+	}
+
+	@Test
+	public void partialContentMultipleByteRanges() throws Exception {
+		MockHttpServletResponse response = getWithRange("bytes=0-1, 4-5");
+		assertEquals(206, response.getStatus());
+		assertTrue(response.getContentType().startsWith("multipart/byteranges; boundary="));
+		String boundary = response.getContentType().substring("multipart/byteranges; boundary=".length());
+		String content = response.getContentAsString();
+		assertEquals(content.length(), response.getContentLength());
+		assertEquals("\r\n--" + boundary + "\r\nContent-Type: text/css\r\nContent-Range: bytes 0-1/17\r\n\r\nh1" +
+				"\r\n--" + boundary + "\r\nContent-Type: text/css\r\nContent-Range: bytes 4-5/17\r\n\r\n c" +
+				"\r\n--" + boundary + "--\r\n", content);
+	}
+
+	@Test
+	public void rangeNotSatisfiable() throws Exception {
+		MockHttpServletResponse response = getWithRange("bytes=500-999");
+		assertEquals(416, response.getStatus());
+		assertEquals("bytes */17", response.getHeader("Content-Range"));
+		assertFalse(response.containsHeader("Content-Length"));
+	}
+
+	@Test
+	public void invalidRangeIgnored() throws Exception {
+		MockHttpServletResponse response = getWithRange("bytes=5-2");
+		assertEquals(200, response.getStatus());
+		assertEquals("h1 { color:red; }", response.getContentAsString());
+
+		response = getWithRange("lines=0-1");
+		assertEquals(200, response.getStatus());
+		assertEquals("h1 { color:red; }", response.getContentAsString());
+	}
+
+	@Test
+	public void overlappingRangesIgnored() throws Exception {
+		MockHttpServletResponse response = getWithRange("bytes=0-15, 1-16");
+		assertEquals(200, response.getStatus());
+		assertEquals("h1 { color:red; }", response.getContentAsString());
+	}
+
+	@Test
+	public void ifRangeMatching() throws Exception {
+		MockHttpServletRequest request = createRangeRequest("bytes=0-1");
+		request.addHeader("If-Range", new ClassPathResource("test/foo.css", getClass()).getFile().lastModified());
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		handler.handleRequest(request, response);
+		assertEquals(206, response.getStatus());
+		assertEquals("h1", response.getContentAsString());
+	}
+
+	@Test
+	public void ifRangeNotMatching() throws Exception {
+		MockHttpServletRequest request = createRangeRequest("bytes=0-1");
+		request.addHeader("If-Range",
+				new ClassPathResource("test/foo.css", getClass()).getFile().lastModified() / 1000 * 1000 - 1000);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		handler.handleRequest(request, response);
+		assertEquals(200, response.getStatus());
+		assertEquals("h1 { color:red; }", response.getContentAsString());
+	}
+
+	@Test
+	public void sendfile() throws Exception {
+		handler.setUseSendfile(true);
+		MockHttpServletRequest request = createRangeRequest("bytes=4-5");
+		request.setAttribute("org.apache.tomcat.sendfile.support", Boolean.TRUE);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		handler.handleRequest(request, response);
+		assertEquals(206, response.getStatus());
+		assertEquals(2, response.getContentLength());
+		assertEquals("", response.getContentAsString());
+		assertEquals(new ClassPathResource("test/foo.css", getClass()).getFile().getCanonicalPath(),
+				request.getAttribute("org.apache.tomcat.sendfile.filename"));
+		assertEquals(4L, request.getAttribute("org.apache.tomcat.sendfile.start"));
+		assertEquals(6L, request.getAttribute("org.apache.tomcat.sendfile.end"));
+	}
+
+	@Test
+	public void sendfileNotSupportedByContainer() throws Exception {
+		handler.setUseSendfile(true);
+		handler.setUseNonBlockingWrite(true);
+		MockHttpServletRequest request = createRangeRequest("bytes=0-1");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		handler.handleRequest(request, response);
+		assertEquals(206, response.getStatus());
+		assertEquals("h1", response.getContentAsString());
+		assertNull(request.getAttribute("org.apache.tomcat.sendfile.filename"));
+	}
+
+	@Test
+	public void nonBlockingWrite() throws Exception {
+		handler.setUseNonBlockingWrite(true);
+		MockHttpServletRequest request = createRangeRequest("bytes=4-16");
+		request.setAsyncSupported(true);
+		final NonBlockingOutputStream out = new NonBlockingOutputStream();
+		out.ready = false;
+		MockHttpServletResponse response = new MockHttpServletResponse() {
+			@Override
+			public ServletOutputStream getOutputStream() {
+				return out;
+			}
+		};
+		handler.handleRequest(request, response);
+		assertEquals(206, response.getStatus());
+		assertEquals(13, response.getContentLength());
+		assertTrue(request.isAsyncStarted());
+		assertNotNull(out.listener);
+
+		out.listener.onWritePossible();
+		assertEquals(0, out.content.size());
+		assertTrue(request.isAsyncStarted());
+
+		out.ready = true;
+		out.listener.onWritePossible();
+		assertEquals(" color:red; }", out.content.toString("UTF-8"));
+		assertFalse(request.isAsyncStarted());
+	}
+
+	@Test
+	public void nonBlockingWriteSetupFailure() throws Exception {
+		handler.setUseNonBlockingWrite(true);
+		MockHttpServletRequest request = createRangeRequest("bytes=0-1");
+		request.setAsyncSupported(true);
+		final NonBlockingOutputStream out = new NonBlockingOutputStream();
+		HttpServletResponse response = new HttpServletResponseWrapper(new MockHttpServletResponse()) {
+			private int count;
+			@Override
+			public ServletOutputStream getOutputStream() throws IOException {
+				if (++this.count > 1) {
+					throw new IOException("Connection reset");
+				}
+				return out;
+			}
+		};
+		try {
+			handler.handleRequest(request, response);
+			fail("Should have thrown IOException");
+		}
+		catch (IOException ex) {
+			assertEquals("Connection reset", ex.getMessage());
+		}
+		assertFalse(request.isAsyncStarted());
+		assertNull(out.listener);
+	}
+
+
+	private MockHttpServletRequest createRangeRequest(String range) {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "");
+		request.setAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE, "/foo.css");
+		request.addHeader("Range", range);
+		return request;
+	}
+
+	private MockHttpServletResponse getWithRange(String range) throws Exception {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		handler.handleRequest(createRangeRequest(range), response);
+		return response;
+	}
+
 
 	private static class TestServletContext extends MockServletContext {
 
@@ -237,4 +487,30 @@ public class ResourceHttpRequestHandlerTests {
 		}
 	}
 
+
+	/**
+	 * Output stream supporting the Servlet 3.1 non-blocking write contract.
+	 */
+	private static class NonBlockingOutputStream extends ServletOutputStream {
+
+		private final ByteArrayOutputStream content = new ByteArrayOutputStream();
+
+		private boolean ready = true;
+
+		private WriteListener listener;
+
+		@Override
+		public void write(int b) {
+			this.content.write(b);
+		}
+
+		public boolean isReady() {
+			return this.ready;
+		}
+
+		public void setWriteListener(WriteListener listener) {
+			this.listener = listener;
+		}
+	}
+
 }
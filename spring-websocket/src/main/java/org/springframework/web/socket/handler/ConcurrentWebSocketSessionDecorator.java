@@ -18,13 +18,17 @@ package org.springframework.web.socket.handler;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.springframework.util.Assert;
+import org.springframework.web.socket.BinaryMessage;
 import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketMessage;
 import org.springframework.web.socket.WebSocketSession;
 
 import java.io.IOException;
-import java.util.Queue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.nio.ByteBuffer;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
@@ -37,7 +41,14 @@ import java.util.concurrent.locks.ReentrantLock;
  * <p>If a send is slow, subsequent attempts to send more messages from a different
  * thread will fail to acquire the flushLock and the messages will be buffered instead --
  * at that time the specified buffer size limit and send time limit will be checked
- * and the session closed if the limits are exceeded.
+ * and the session closed if the limits are exceeded. Alternatively, an
+ * {@link OverflowStrategy} may be specified that drops buffered messages
+ * instead of closing the session when the buffer size limit is exceeded.
+ *
+ * <p>Buffered messages may also be coalesced into fewer, larger messages when
+ * flushed (see {@link #setBatchSizeLimit}), which is only appropriate for
+ * sub-protocols such as STOMP whose frames are delimited independently of
+ * WebSocket message boundaries.
  *
  * @author Rossen Stoyanchev
  * @since 4.0.3
@@ -47,12 +58,16 @@ public class ConcurrentWebSocketSessionDecorator extends WebSocketSessionDecorat
 	private static Log logger = LogFactory.getLog(ConcurrentWebSocketSessionDecorator.class);
 
 
-	private final Queue<WebSocketMessage<?>> buffer = new LinkedBlockingQueue<WebSocketMessage<?>>();
+	private final BlockingDeque<WebSocketMessage<?>> buffer = new LinkedBlockingDeque<WebSocketMessage<?>>();
 
 	private final AtomicInteger bufferSize = new AtomicInteger();
 
 	private final int bufferSizeLimit;
 
+	private final OverflowStrategy overflowStrategy;
+
+	private int batchSizeLimit;
+
 
 	private volatile long sendStartTime;
 
@@ -69,13 +84,70 @@ public class ConcurrentWebSocketSessionDecorator extends WebSocketSessionDecorat
 	private final Lock closeLock = new ReentrantLock();
 
 
+	/**
+	 * Create a new {@code ConcurrentWebSocketSessionDecorator} that closes
+	 * the session when one of the given limits is exceeded.
+	 * @param delegate the {@code WebSocketSession} to delegate to
+	 * @param sendTimeLimit the send-time limit (milliseconds)
+	 * @param bufferSizeLimit the buffer-size limit (number of bytes)
+	 */
 	public ConcurrentWebSocketSessionDecorator(WebSocketSession delegate, int sendTimeLimit, int bufferSizeLimit) {
+		this(delegate, sendTimeLimit, bufferSizeLimit, OverflowStrategy.TERMINATE);
+	}
+
+	/**
+	 * Create a new {@code ConcurrentWebSocketSessionDecorator}.
+	 * @param delegate the {@code WebSocketSession} to delegate to
+	 * @param sendTimeLimit the send-time limit (milliseconds); the session is
+	 * always closed when exceeded, regardless of the overflow strategy
+	 * @param bufferSizeLimit the buffer-size limit (number of bytes)
+	 * @param overflowStrategy what to do when the buffer-size limit is exceeded
+	 * @since 4.1
+	 */
+	public ConcurrentWebSocketSessionDecorator(WebSocketSession delegate, int sendTimeLimit, int bufferSizeLimit,
+			OverflowStrategy overflowStrategy) {
+
 		super(delegate);
+		Assert.notNull(overflowStrategy, "OverflowStrategy must not be null");
 		this.sendTimeLimit = sendTimeLimit;
 		this.bufferSizeLimit = bufferSizeLimit;
+		this.overflowStrategy = overflowStrategy;
 	}
 
 
+	/**
+	 * Set the maximum payload length to coalesce buffered messages into when
+	 * flushing: consecutive text messages, or consecutive binary messages, are
+	 * then sent as a single message with the concatenated payload.
+	 * <p>Like the buffer size limit, this is measured through
+	 * {@link WebSocketMessage#getPayloadLength()}, i.e. in characters for
+	 * text messages and in bytes for binary messages.
+	 * <p>This must only be enabled for sub-protocols whose frames are
+	 * self-delimiting, such as STOMP, since the receiver no longer sees
+	 * the original message boundaries.
+	 * <p>The default is 0, i.e. every message is sent as-is.
+	 * @since 4.1
+	 */
+	public void setBatchSizeLimit(int batchSizeLimit) {
+		this.batchSizeLimit = batchSizeLimit;
+	}
+
+	/**
+	 * Return the maximum payload length to coalesce buffered messages into.
+	 * @since 4.1
+	 */
+	public int getBatchSizeLimit() {
+		return this.batchSizeLimit;
+	}
+
+	/**
+	 * Return the configured overflow strategy.
+	 * @since 4.1
+	 */
+	public OverflowStrategy getOverflowStrategy() {
+		return this.overflowStrategy;
+	}
+
 	public int getBufferSize() {
 		return this.bufferSize.get();
 	}
@@ -122,6 +194,9 @@ public class ConcurrentWebSocketSessionDecorator extends WebSocketSessionDecorat
 						break;
 					}
 					this.bufferSize.addAndGet(messageToSend.getPayloadLength() * -1);
+					if (this.batchSizeLimit > 0) {
+						messageToSend = coalesceBufferedMessages(messageToSend);
+					}
 					this.sendStartTime = System.currentTimeMillis();
 					getDelegate().sendMessage(messageToSend);
 					this.sendStartTime = 0;
@@ -136,6 +211,53 @@ public class ConcurrentWebSocketSessionDecorator extends WebSocketSessionDecorat
 		return false;
 	}
 
+	/**
+	 * Append subsequent buffered messages of the same type to the given one,
+	 * up to the batch size limit.
+	 */
+	private WebSocketMessage<?> coalesceBufferedMessages(WebSocketMessage<?> first) {
+		if (!first.isLast() || !(first instanceof TextMessage || first instanceof BinaryMessage)) {
+			return first;
+		}
+		int batchSize = first.getPayloadLength();
+		StringBuilder text = null;
+		ByteBuffer binary = null;
+		while (true) {
+			WebSocketMessage<?> next = this.buffer.poll();
+			if (next == null) {
+				break;
+			}
+			int nextSize = next.getPayloadLength();
+			if (next.getClass() != first.getClass() || !next.isLast() || batchSize + nextSize > this.batchSizeLimit) {
+				this.buffer.offerFirst(next);
+				break;
+			}
+			this.bufferSize.addAndGet(nextSize * -1);
+			if (first instanceof TextMessage) {
+				if (text == null) {
+					text = new StringBuilder(((TextMessage) first).getPayload());
+				}
+				text.append(((TextMessage) next).getPayload());
+			}
+			else {
+				if (binary == null) {
+					binary = ByteBuffer.allocate(this.batchSizeLimit);
+					binary.put(((BinaryMessage) first).getPayload().duplicate());
+				}
+				binary.put(((BinaryMessage) next).getPayload().duplicate());
+			}
+			batchSize += nextSize;
+		}
+		if (text != null) {
+			return new TextMessage(text);
+		}
+		if (binary != null) {
+			binary.flip();
+			return new BinaryMessage(binary);
+		}
+		return first;
+	}
+
 	private void checkSessionLimits() throws IOException {
 		if (!isDisabled() && this.closeLock.tryLock()) {
 			try {
@@ -147,6 +269,10 @@ public class ConcurrentWebSocketSessionDecorator extends WebSocketSessionDecorat
 					sessionLimitReached(errorMessage, CloseStatus.SESSION_NOT_RELIABLE);
 				}
 				else if (this.bufferSize.get() > this.bufferSizeLimit) {
+					if (this.overflowStrategy != OverflowStrategy.TERMINATE) {
+						dropBufferedMessages();
+						return;
+					}
 
 					String errorMessage = "The send buffer size " + this.bufferSize.get() + " bytes for " +
 							"session '" + getId() + " exceeded the allowed limit " + this.bufferSizeLimit;
@@ -161,6 +287,23 @@ public class ConcurrentWebSocketSessionDecorator extends WebSocketSessionDecorat
 		}
 	}
 
+	private void dropBufferedMessages() {
+		int dropped = 0;
+		while (this.bufferSize.get() > this.bufferSizeLimit) {
+			WebSocketMessage<?> message = (this.overflowStrategy == OverflowStrategy.DROP_OLDEST ?
+					this.buffer.pollFirst() : this.buffer.pollLast());
+			if (message == null) {
+				break;
+			}
+			this.bufferSize.addAndGet(message.getPayloadLength() * -1);
+			dropped++;
+		}
+		if (logger.isDebugEnabled() && dropped > 0) {
+			logger.debug("Dropped " + dropped + " buffered message(s) for session '" + getId() +
+					"' after exceeding the send buffer size limit " + this.bufferSizeLimit);
+		}
+	}
+
 	private void sessionLimitReached(String reason, CloseStatus status) {
 		this.limitExceeded = true;
 		throw new SessionLimitExceededException(reason, status);
@@ -171,4 +314,31 @@ public class ConcurrentWebSocketSessionDecorator extends WebSocketSessionDecorat
 		this.shutDownInProgress = true;
 		super.close(status);
 	}
+
+
+	/**
+	 * Enum for options of what to do when the buffer-size limit is exceeded.
+	 * @since 4.1
+	 */
+	public enum OverflowStrategy {
+
+		/**
+		 * Throw {@link SessionLimitExceededException} that will result
+		 * in the session being terminated.
+		 */
+		TERMINATE,
+
+		/**
+		 * Drop the oldest buffered messages until the buffer size
+		 * is within the limit again.
+		 */
+		DROP_OLDEST,
+
+		/**
+		 * Drop the most recently buffered messages until the buffer size
+		 * is within the limit again.
+		 */
+		DROP_NEWEST
+	}
+
 }
@@ -248,7 +248,7 @@ public class SubProtocolWebSocketHandler implements WebSocketHandler,
 	@Override
 	public void afterConnectionEstablished(WebSocketSession session) throws Exception {
 
-		session = new ConcurrentWebSocketSessionDecorator(session, getSendTimeLimit(), getSendBufferSizeLimit());
+		session = decorateSession(session);
 
 		this.sessions.put(session.getId(), session);
 		if (logger.isDebugEnabled()) {
@@ -259,6 +259,22 @@ public class SubProtocolWebSocketHandler implements WebSocketHandler,
 		findProtocolHandler(session).afterSessionStarted(session, this.clientInboundChannel);
 	}
 
+	/**
+	 * Decorate the given WebSocket session for concurrent sending.
+	 * <p>The default implementation builds a {@link ConcurrentWebSocketSessionDecorator}
+	 * with the configured send time and buffer size limits. Subclasses may override
+	 * this to choose a different
+	 * {@link ConcurrentWebSocketSessionDecorator.OverflowStrategy overflow strategy}
+	 * or {@link ConcurrentWebSocketSessionDecorator#setBatchSizeLimit batching}
+	 * per session, e.g. based on the session's attributes.
+	 * @param session the original WebSocket session
+	 * @return the decorated session
+	 * @since 4.1
+	 */
+	protected WebSocketSession decorateSession(WebSocketSession session) {
+		return new ConcurrentWebSocketSessionDecorator(session, getSendTimeLimit(), getSendBufferSizeLimit());
+	}
+
 	protected final SubProtocolHandler findProtocolHandler(WebSocketSession session) {
 
 		String protocol = null;
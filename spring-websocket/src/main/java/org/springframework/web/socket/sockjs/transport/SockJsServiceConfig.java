@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2013 the original author or authors.
+ * Copyright 2002-2014 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -31,6 +31,12 @@ public interface SockJsServiceConfig {
 
 	/**
 	 * A scheduler instance to use for scheduling heart-beat messages.
+	 * <p>Every session schedules its next heartbeat through
+	 * {@link TaskScheduler#schedule(Runnable, java.util.Date)} after each frame.
+	 * With a large number of concurrent sessions, consider a
+	 * {@link org.springframework.scheduling.concurrent.HashedWheelTaskScheduler}
+	 * which batches such timeouts per tick instead of keeping them in the
+	 * delay queue of the underlying scheduler.
 	 */
 	TaskScheduler getTaskScheduler();
 
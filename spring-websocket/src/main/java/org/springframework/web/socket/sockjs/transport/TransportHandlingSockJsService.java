@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2013 the original author or authors.
+ * Copyright 2002-2014 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -79,7 +79,9 @@ public class TransportHandlingSockJsService extends AbstractSockJsService implem
 	 * Create a TransportHandlingSockJsService with given {@link TransportHandler handler} types.
 	 * @param scheduler a task scheduler for heart-beat messages and removing timed-out sessions;
 	 * the provided TaskScheduler should be declared as a Spring bean to ensure it gets
-	 * initialized at start-up and shuts down when the application stops
+	 * initialized at start-up and shuts down when the application stops; for a large
+	 * number of concurrent sessions, consider wrapping it with a
+	 * {@link org.springframework.scheduling.concurrent.HashedWheelTaskScheduler}
 	 * @param handlers one or more {@link TransportHandler} implementations to use
 	 */
 	public TransportHandlingSockJsService(TaskScheduler scheduler, TransportHandler... handlers) {
@@ -17,16 +17,20 @@
 package org.springframework.web.socket.handler;
 
 import org.junit.Test;
+import org.springframework.web.socket.BinaryMessage;
 import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator.OverflowStrategy;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
@@ -187,6 +191,144 @@ public class ConcurrentWebSocketSessionDecoratorTests {
 		}
 	}
 
+	@Test
+	public void sendBufferSizeExceededWithDropOldest() throws IOException, InterruptedException {
+
+		BlockingSession blockingSession = new BlockingSession();
+		blockingSession.setOpen(true);
+		CountDownLatch sentMessageLatch = blockingSession.getSentMessageLatch();
+
+		final ConcurrentWebSocketSessionDecorator concurrentSession =
+				new ConcurrentWebSocketSessionDecorator(blockingSession, 10 * 1000, 1024, OverflowStrategy.DROP_OLDEST);
+
+		sendInBackground(concurrentSession, new TextMessage("slow message"));
+		assertTrue(sentMessageLatch.await(5, TimeUnit.SECONDS));
+
+		for (int i = 0; i < 5; i++) {
+			concurrentSession.sendMessage(new TextMessage(createPayload(300)));
+		}
+
+		assertEquals(900, concurrentSession.getBufferSize());
+		assertTrue(blockingSession.isOpen());
+	}
+
+	@Test
+	public void sendBufferSizeExceededWithDropNewest() throws IOException, InterruptedException {
+
+		BatchingSession session = new BatchingSession();
+		session.setOpen(true);
+
+		final ConcurrentWebSocketSessionDecorator concurrentSession =
+				new ConcurrentWebSocketSessionDecorator(session, 10 * 1000, 10, OverflowStrategy.DROP_NEWEST);
+
+		sendInBackground(concurrentSession, new TextMessage("slow message"));
+		assertTrue(session.firstMessageLatch.await(5, TimeUnit.SECONDS));
+
+		concurrentSession.sendMessage(new TextMessage("123"));
+		concurrentSession.sendMessage(new TextMessage("456"));
+		concurrentSession.sendMessage(new TextMessage("789"));
+		concurrentSession.sendMessage(new TextMessage("abc"));
+		assertEquals(9, concurrentSession.getBufferSize());
+
+		session.releaseLatch.countDown();
+		assertTrue(session.awaitMessages(4));
+		assertEquals("123", session.getSentMessages().get(1).getPayload());
+		assertEquals("789", session.getSentMessages().get(3).getPayload());
+	}
+
+	@Test
+	public void sendBufferedTextMessagesInBatch() throws IOException, InterruptedException {
+
+		BatchingSession session = new BatchingSession();
+		session.setOpen(true);
+
+		final ConcurrentWebSocketSessionDecorator concurrentSession =
+				new ConcurrentWebSocketSessionDecorator(session, 10 * 1000, 1024);
+		concurrentSession.setBatchSizeLimit(10);
+
+		sendInBackground(concurrentSession, new TextMessage("slow message"));
+		assertTrue(session.firstMessageLatch.await(5, TimeUnit.SECONDS));
+
+		concurrentSession.sendMessage(new TextMessage("123"));
+		concurrentSession.sendMessage(new TextMessage("456"));
+		concurrentSession.sendMessage(new TextMessage("789"));
+		concurrentSession.sendMessage(new TextMessage("abc"));
+		concurrentSession.sendMessage(new BinaryMessage(new byte[] {1, 2}));
+		concurrentSession.sendMessage(new BinaryMessage(new byte[] {3}));
+
+		session.releaseLatch.countDown();
+		assertTrue(session.awaitMessages(4));
+		assertEquals(4, session.getSentMessages().size());
+		assertEquals("123456789", session.getSentMessages().get(1).getPayload());
+		assertEquals("abc", session.getSentMessages().get(2).getPayload());
+		ByteBuffer binary = ((BinaryMessage) session.getSentMessages().get(3)).getPayload();
+		byte[] bytes = new byte[binary.remaining()];
+		binary.get(bytes);
+		assertArrayEquals(new byte[] {1, 2, 3}, bytes);
+		assertEquals(0, concurrentSession.getBufferSize());
+	}
+
+
+	private void sendInBackground(final ConcurrentWebSocketSessionDecorator session,
+			final WebSocketMessage<?> message) {
+
+		Executors.newSingleThreadExecutor().submit(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					session.sendMessage(message);
+				}
+				catch (IOException e) {
+					e.printStackTrace();
+				}
+			}
+		});
+	}
+
+	private String createPayload(int length) {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < length; i++) {
+			sb.append("a");
+		}
+		return sb.toString();
+	}
+
+
+	/**
+	 * Blocks on the first message until released, then sends without blocking.
+	 */
+	private static class BatchingSession extends TestWebSocketSession {
+
+		private final CountDownLatch firstMessageLatch = new CountDownLatch(1);
+
+		private final CountDownLatch releaseLatch = new CountDownLatch(1);
+
+		@Override
+		public void sendMessage(WebSocketMessage<?> message) throws IOException {
+			super.sendMessage(message);
+			if (this.firstMessageLatch.getCount() > 0) {
+				this.firstMessageLatch.countDown();
+				try {
+					this.releaseLatch.await();
+				}
+				catch (InterruptedException e) {
+					e.printStackTrace();
+				}
+			}
+		}
+
+		public boolean awaitMessages(int count) throws InterruptedException {
+			long deadline = System.currentTimeMillis() + 5000;
+			while (getSentMessages().size() < count) {
+				if (System.currentTimeMillis() > deadline) {
+					return false;
+				}
+				Thread.sleep(10);
+			}
+			return true;
+		}
+	}
+
 
 	private static class BlockingSession extends TestWebSocketSession {
 